@@ -0,0 +1,246 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.benchmarks;
+
+import com.google.common.collect.Lists;
+import it.f2informatica.pagination.services.QueryParameters;
+import org.joda.time.DateTime;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * DataTables requests and pages of consultant-like rows, with plain and
+ * nested properties, shared by the benchmarks.
+ *
+ * @author Fernando Aspiazu
+ */
+public final class BenchmarkFixtures {
+
+	/**
+	 * The columns a table may show, the first {@code n} are used for a table
+	 * of {@code n} columns.
+	 */
+	public static final String[] COLUMNS = {
+		"id", "lastName", "firstName", "email", "registrationDate", "role_name", "residence_city", "residence_country_name"
+	};
+
+	private BenchmarkFixtures() {
+	}
+
+	public static QueryParameters parameters(int pageSize, int columnsNumber, int sortColumnIndex) {
+		return parameters(pageSize, Arrays.copyOf(COLUMNS, columnsNumber), sortColumnIndex, null);
+	}
+
+	public static QueryParameters parameters(int pageSize, String[] columns, int sortColumnIndex, String continuationToken) {
+		return new DatatableParameters(pageSize, columns, sortColumnIndex, continuationToken);
+	}
+
+	public static Page<Candidate> page(int pageSize) {
+		List<Candidate> rows = Lists.newArrayListWithCapacity(pageSize);
+		for (int i = 0; i < pageSize; i++) {
+			rows.add(candidate(i));
+		}
+		return new PageImpl<>(rows, new PageRequest(0, pageSize), 100L * pageSize);
+	}
+
+	public static Candidate candidate(int i) {
+		Candidate candidate = new Candidate();
+		candidate.setId("53a1c0f3e4b0" + String.format("%012d", i));
+		candidate.setFirstName("Fernando " + i);
+		candidate.setLastName("Aspiazu " + i);
+		candidate.setEmail("consultant" + i + "@f2informatica.it");
+		candidate.setRegistrationDate(new DateTime(2014, 6, 1, 9, 30).plusDays(i));
+		candidate.setRole(new Role("consultant"));
+		candidate.setResidence(new Address("Milano", new Country("Italia")));
+		return candidate;
+	}
+
+	private static final class DatatableParameters extends QueryParameters {
+		private final int displayLength;
+		private final String[] columns;
+		private final int sortColumnIndex;
+		private final String continuationToken;
+
+		private DatatableParameters(int displayLength, String[] columns, int sortColumnIndex, String continuationToken) {
+			this.displayLength = displayLength;
+			this.columns = columns;
+			this.sortColumnIndex = sortColumnIndex;
+			this.continuationToken = continuationToken;
+		}
+
+		@Override
+		public String getContinuationToken() {
+			return continuationToken;
+		}
+
+		@Override
+		public String getSearchCriteria() {
+			return "";
+		}
+
+		@Override
+		public int getDisplayStart() {
+			return 0;
+		}
+
+		@Override
+		public int getDisplayLength() {
+			return displayLength;
+		}
+
+		@Override
+		public String getColumnName(int columnIndex) {
+			return columns[columnIndex];
+		}
+
+		@Override
+		public int getSortColumnIndex() {
+			return sortColumnIndex;
+		}
+
+		@Override
+		public int getColumnsNumber() {
+			return columns.length;
+		}
+
+		@Override
+		public String getSortDirection() {
+			return "asc";
+		}
+
+		@Override
+		public String getEcho() {
+			return "1";
+		}
+	}
+
+	public static class Candidate {
+		private String id;
+		private String firstName;
+		private String lastName;
+		private String email;
+		private DateTime registrationDate;
+		private Role role;
+		private Address residence;
+
+		public String getId() {
+			return id;
+		}
+
+		public void setId(String id) {
+			this.id = id;
+		}
+
+		public String getFirstName() {
+			return firstName;
+		}
+
+		public void setFirstName(String firstName) {
+			this.firstName = firstName;
+		}
+
+		public String getLastName() {
+			return lastName;
+		}
+
+		public void setLastName(String lastName) {
+			this.lastName = lastName;
+		}
+
+		public String getEmail() {
+			return email;
+		}
+
+		public void setEmail(String email) {
+			this.email = email;
+		}
+
+		public DateTime getRegistrationDate() {
+			return registrationDate;
+		}
+
+		public void setRegistrationDate(DateTime registrationDate) {
+			this.registrationDate = registrationDate;
+		}
+
+		public Role getRole() {
+			return role;
+		}
+
+		public void setRole(Role role) {
+			this.role = role;
+		}
+
+		public Address getResidence() {
+			return residence;
+		}
+
+		public void setResidence(Address residence) {
+			this.residence = residence;
+		}
+	}
+
+	public static class Role {
+		private final String name;
+
+		public Role(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+	}
+
+	public static class Address {
+		private final String city;
+		private final Country country;
+
+		public Address(String city, Country country) {
+			this.city = city;
+			this.country = country;
+		}
+
+		public String getCity() {
+			return city;
+		}
+
+		public Country getCountry() {
+			return country;
+		}
+	}
+
+	public static class Country {
+		private final String name;
+
+		public Country(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.benchmarks;
+
+import com.google.common.io.CharStreams;
+import com.google.gson.Gson;
+import it.f2informatica.benchmarks.BenchmarkFixtures.Candidate;
+import it.f2informatica.pagination.PaginationConfig;
+import it.f2informatica.pagination.response.PaginationResponse;
+import it.f2informatica.pagination.response.StreamingPaginationResponse;
+import it.f2informatica.pagination.services.QueryParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.domain.Page;
+
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of a DataTables page with the beans of {@link PaginationConfig}:
+ * the response attributes, their serialization through the configured
+ * {@link Gson}, and the streaming response which skips the attributes map.
+ *
+ * @author Fernando Aspiazu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DatatableResponseBenchmark {
+
+	@Param({"10", "100", "1000"})
+	private int pageSize;
+
+	@Param({"2", "5", "8"})
+	private int columnsNumber;
+
+	private AnnotationConfigApplicationContext applicationContext;
+	private PaginationResponse paginationResponse;
+	private StreamingPaginationResponse streamingPaginationResponse;
+	private Gson gson;
+
+	private QueryParameters parameters;
+	private Page<Candidate> page;
+	private Map<String, Object> responseAttributes;
+	private final Writer writer = CharStreams.nullWriter();
+
+	@Setup
+	public void setUp() {
+		applicationContext = new AnnotationConfigApplicationContext(PaginationConfig.class);
+		paginationResponse = applicationContext.getBean(PaginationResponse.class);
+		streamingPaginationResponse = applicationContext.getBean(StreamingPaginationResponse.class);
+		gson = applicationContext.getBean(Gson.class);
+		parameters = BenchmarkFixtures.parameters(pageSize, columnsNumber, 1);
+		page = BenchmarkFixtures.page(pageSize);
+		responseAttributes = paginationResponse.generateResponseAttributes(parameters, page);
+	}
+
+	@TearDown
+	public void tearDown() {
+		applicationContext.close();
+	}
+
+	@Benchmark
+	public Map<String, Object> generateResponseAttributes() {
+		return paginationResponse.generateResponseAttributes(parameters, page);
+	}
+
+	@Benchmark
+	public String serializeResponseAttributes() {
+		return gson.toJson(responseAttributes);
+	}
+
+	@Benchmark
+	public String generateAndSerializeResponse() {
+		return gson.toJson(paginationResponse.generateResponseAttributes(parameters, page));
+	}
+
+	@Benchmark
+	public void writeResponse() {
+		streamingPaginationResponse.writeResponse(parameters, page, writer);
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.benchmarks;
+
+import com.google.common.base.Optional;
+import it.f2informatica.pagination.services.PageableFactory;
+import it.f2informatica.pagination.services.PageableFactoryImpl;
+import it.f2informatica.pagination.services.QueryParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PageableFactory#getPageable(QueryParameters)} and the sort-column
+ * rewriting behind {@link PageableFactory#getSort(QueryParameters)}, for
+ * plain, nested and {@code unique}-prefixed sort columns.
+ *
+ * @author Fernando Aspiazu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageableFactoryBenchmark {
+
+	@Param({"10", "100", "1000"})
+	private int pageSize;
+
+	@Param({"lastName", "residence_country_name", "uniqueResidence_uniqueCountry_name"})
+	private String sortColumn;
+
+	/**
+	 * Offset pagination, or the first page of keyset pagination.
+	 */
+	@Param({"offset", "keyset"})
+	private String pagination;
+
+	private final PageableFactory pageableFactory = new PageableFactoryImpl();
+	private QueryParameters parameters;
+
+	@Setup
+	public void setUp() {
+		String continuationToken = "keyset".equals(pagination) ? "" : null;
+		parameters = BenchmarkFixtures.parameters(pageSize, new String[]{"id", sortColumn}, 1, continuationToken);
+	}
+
+	@Benchmark
+	public Pageable getPageable() {
+		return pageableFactory.getPageable(parameters);
+	}
+
+	@Benchmark
+	public Optional<Sort> getSort() {
+		return pageableFactory.getSort(parameters);
+	}
+
+}
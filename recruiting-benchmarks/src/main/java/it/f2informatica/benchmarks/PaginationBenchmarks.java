@@ -0,0 +1,56 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the pagination benchmarks reporting, next to the throughput, the
+ * allocation rate per operation of the GC profiler.
+ * <p>
+ * Usage: {@code java -jar recruiting-benchmarks/target/benchmarks.jar [JMH options]},
+ * e.g. {@code DatatableResponseBenchmark -p pageSize=100} to run a single benchmark.
+ * </p>
+ *
+ * @author Fernando Aspiazu
+ */
+public final class PaginationBenchmarks {
+
+	private PaginationBenchmarks() {
+	}
+
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+		ChainedOptionsBuilder options = new OptionsBuilder()
+			.parent(commandLineOptions)
+			.addProfiler(GCProfiler.class);
+		if (commandLineOptions.getIncludes().isEmpty()) {
+			options.include(PaginationBenchmarks.class.getPackage().getName() + ".*Benchmark");
+		}
+		new Runner(options.build()).run();
+	}
+
+}
@@ -0,0 +1,103 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.benchmarks;
+
+import it.f2informatica.benchmarks.BenchmarkFixtures.Candidate;
+import it.f2informatica.pagination.utils.SafeGetterMethodExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SafeGetterMethodExecutor#invokeGetterOnField(String, Object)} on a
+ * single plain or nested path, and on every cell of a page.
+ *
+ * @author Fernando Aspiazu
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SafeGetterBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class SingleProperty {
+
+		@Param({"firstName", "role_name", "residence_country_name"})
+		private String propertyPath;
+
+		private final SafeGetterMethodExecutor safeGetterMethodExecutor = new SafeGetterMethodExecutor();
+		private Candidate candidate;
+
+		@Setup
+		public void setUp() {
+			candidate = BenchmarkFixtures.candidate(0);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class WholePage {
+
+		@Param({"10", "100", "1000"})
+		private int pageSize;
+
+		@Param({"2", "5", "8"})
+		private int columnsNumber;
+
+		private final SafeGetterMethodExecutor safeGetterMethodExecutor = new SafeGetterMethodExecutor();
+		private List<Candidate> rows;
+		private String[] columns;
+
+		@Setup
+		public void setUp() {
+			rows = BenchmarkFixtures.page(pageSize).getContent();
+			columns = Arrays.copyOf(BenchmarkFixtures.COLUMNS, columnsNumber);
+		}
+	}
+
+	@Benchmark
+	public Object invokeGetterOnField(SingleProperty state) {
+		return state.safeGetterMethodExecutor.invokeGetterOnField(state.propertyPath, state.candidate);
+	}
+
+	@Benchmark
+	public void invokeGettersOnPage(WholePage state, Blackhole blackhole) {
+		for (Candidate row : state.rows) {
+			for (String column : state.columns) {
+				blackhole.consume(state.safeGetterMethodExecutor.invokeGetterOnField(column, row));
+			}
+		}
+	}
+
+}
@@ -20,13 +20,17 @@
 package it.f2informatica.core.gateway;
 
 import it.f2informatica.core.model.ConsultantModel;
+import it.f2informatica.core.model.ConsultantSummaryModel;
 import it.f2informatica.core.model.EducationModel;
 import it.f2informatica.core.model.ExperienceModel;
 import it.f2informatica.core.model.LanguageModel;
+import it.f2informatica.core.model.query.ConsultantFacets;
 import it.f2informatica.core.model.query.ConsultantSearchCriteria;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+
 public interface ConsultantRepositoryGateway {
 
 	ConsultantModel findOneConsultant(String consultantId);
@@ -35,10 +39,37 @@ public interface ConsultantRepositoryGateway {
 
 	Page<ConsultantModel> paginateConsultants(ConsultantSearchCriteria searchCriteria, Pageable pageable);
 
-	void updatePersonalDetails(ConsultantModel consultantModel, String consultantId);
+	/**
+	 * Like {@link #findAllConsultants(Pageable)}, reading only what the
+	 * consultant lists show.
+	 */
+	Page<ConsultantSummaryModel> findAllConsultantSummaries(Pageable pageable);
+
+	/**
+	 * Like {@link #paginateConsultants(ConsultantSearchCriteria, Pageable)},
+	 * reading only what the consultant lists show.
+	 */
+	Page<ConsultantSummaryModel> paginateConsultantSummaries(ConsultantSearchCriteria searchCriteria, Pageable pageable);
+
+	ConsultantFacets countFacets(ConsultantSearchCriteria searchCriteria, int topSkills);
+
+	/**
+	 * Writes only the personal details differing from the snapshot taken when
+	 * they were opened for editing, or all of them if the snapshot is null.
+	 */
+	void updatePersonalDetails(ConsultantModel consultantModel, ConsultantModel snapshot, String consultantId);
 
 	ConsultantModel savePersonalDetails(ConsultantModel consultantModel);
 
+	/**
+	 * Inserts the consultants, or replaces the ones having the same consultant
+	 * number, together with their experiences, education, languages and skills,
+	 * in a number of round trips not depending on how many they are.
+	 *
+	 * @return the number of consultants imported
+	 */
+	int importConsultants(List<ConsultantModel> consultantModels);
+
 	void addExperience(ExperienceModel experienceModel, String consultantId);
 
 	void updateExperience(ExperienceModel experienceModel, String consultantId);
@@ -51,7 +82,11 @@ public interface ConsultantRepositoryGateway {
 
 	void addSkills(String[] skills, String consultantId);
 
-	void updateEducation(EducationModel educationModel, String consultantId);
+	/**
+	 * Like {@link #updatePersonalDetails(ConsultantModel, ConsultantModel, String)},
+	 * for an education of the consultant.
+	 */
+	void updateEducation(EducationModel educationModel, EducationModel snapshot, String consultantId);
 
 	void removeEducation(String consultantId, String educationId);
 
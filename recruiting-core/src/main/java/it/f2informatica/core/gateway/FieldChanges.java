@@ -0,0 +1,115 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.gateway;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.NullValueInNestedPathException;
+import org.springframework.beans.PropertyAccessorFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The properties of a model whose values differ from the snapshot taken when
+ * the model was opened for editing, so that the gateways only write the fields
+ * that were actually edited. Without a snapshot every property is changed.
+ *
+ * @author Fernando Aspiazu
+ */
+public final class FieldChanges {
+	private final Map<String, Object> changed;
+
+	private FieldChanges(Map<String, Object> changed) {
+		this.changed = changed;
+	}
+
+	public static FieldChanges between(Object snapshot, Object edited, Iterable<String> propertyPaths) {
+		BeanWrapper before = (snapshot != null) ? PropertyAccessorFactory.forBeanPropertyAccess(snapshot) : null;
+		BeanWrapper after = PropertyAccessorFactory.forBeanPropertyAccess(edited);
+		Map<String, Object> changed = Maps.newLinkedHashMap();
+		for (String propertyPath : propertyPaths) {
+			Object value = valueOf(after, propertyPath);
+			if (before == null || !Objects.equal(valueOf(before, propertyPath), value)) {
+				changed.put(propertyPath, value);
+			}
+		}
+		return new FieldChanges(Collections.unmodifiableMap(changed));
+	}
+
+	/**
+	 * The paths of the given properties of a nested model.
+	 */
+	public static List<String> nestedIn(String property, Iterable<String> nestedProperties) {
+		List<String> propertyPaths = Lists.newArrayList();
+		for (String nestedProperty : nestedProperties) {
+			propertyPaths.add(property + "." + nestedProperty);
+		}
+		return propertyPaths;
+	}
+
+	private static Object valueOf(BeanWrapper bean, String propertyPath) {
+		try {
+			return bean.getPropertyValue(propertyPath);
+		} catch (NullValueInNestedPathException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * The changed property paths with their edited values, in the order the
+	 * properties were compared.
+	 */
+	public Map<String, Object> getChanged() {
+		return changed;
+	}
+
+	/**
+	 * The changes of the properties nested in the given one, keyed by their
+	 * path relative to it.
+	 */
+	public Map<String, Object> within(String property) {
+		String prefix = property + ".";
+		Map<String, Object> nested = Maps.newLinkedHashMap();
+		for (Map.Entry<String, Object> change : changed.entrySet()) {
+			if (change.getKey().startsWith(prefix)) {
+				nested.put(change.getKey().substring(prefix.length()), change.getValue());
+			}
+		}
+		return nested;
+	}
+
+	public boolean isChanged(String... propertyPaths) {
+		for (String propertyPath : propertyPaths) {
+			if (changed.containsKey(propertyPath)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public boolean isEmpty() {
+		return changed.isEmpty();
+	}
+
+}
@@ -0,0 +1,62 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.gateway;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * The elements added to and removed from a set, computed in memory so that
+ * the gateways only write the differences, whatever the datastore.
+ *
+ * @author Fernando Aspiazu
+ */
+public final class SetChanges<T> {
+	private final Set<T> added;
+	private final Set<T> removed;
+
+	private SetChanges(Set<T> added, Set<T> removed) {
+		this.added = added;
+		this.removed = removed;
+	}
+
+	public static <T> SetChanges<T> between(Collection<? extends T> before, Collection<? extends T> after) {
+		Set<T> beforeSet = ImmutableSet.copyOf(before), afterSet = ImmutableSet.copyOf(after);
+		return new SetChanges<T>(
+			ImmutableSet.copyOf(Sets.difference(afterSet, beforeSet)),
+			ImmutableSet.copyOf(Sets.difference(beforeSet, afterSet)));
+	}
+
+	public Set<T> getAdded() {
+		return added;
+	}
+
+	public Set<T> getRemoved() {
+		return removed;
+	}
+
+	public boolean isEmpty() {
+		return added.isEmpty() && removed.isEmpty();
+	}
+
+}
@@ -28,6 +28,8 @@ import it.f2informatica.pagination.services.QueryParameters;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.Writer;
+
 public interface UserRepositoryGateway {
 
 	Optional<AuthenticationModel> authenticationByUsername(String username);
@@ -44,6 +46,8 @@ public interface UserRepositoryGateway {
 
 	String getAllUsersPaginated(QueryParameters parameters, String currentUsername);
 
+	void writeAllUsersPaginated(QueryParameters parameters, String currentUsername, Writer writer);
+
 	UserModel saveUser(UserModel userModel);
 
 	void updateUser(UserModel userModel);
@@ -19,28 +19,61 @@
  */
 package it.f2informatica.core.gateway.mongodb;
 
+import com.google.common.base.Optional;
+import com.google.common.base.Predicates;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import it.f2informatica.core.gateway.ConsultantRepositoryGateway;
 import it.f2informatica.core.gateway.EntityToModelConverter;
+import it.f2informatica.core.gateway.FieldChanges;
+import it.f2informatica.core.gateway.SetChanges;
 import it.f2informatica.core.model.*;
+import it.f2informatica.core.model.query.ConsultantFacets;
 import it.f2informatica.core.model.query.ConsultantSearchCriteria;
+import it.f2informatica.core.search.ConsultantAttributeIndex;
+import it.f2informatica.core.search.ConsultantFacetCounts;
+import it.f2informatica.core.search.ConsultantNameIndex;
+import it.f2informatica.core.search.IndexedIds;
 import it.f2informatica.mongodb.MongoDB;
 import it.f2informatica.mongodb.domain.*;
 import it.f2informatica.mongodb.domain.builder.LanguageBuilder;
 import it.f2informatica.mongodb.repositories.ConsultantRepository;
+import it.f2informatica.mongodb.repositories.TextScoreQuery;
+import it.f2informatica.pagination.cache.PageCache;
+import it.f2informatica.pagination.cache.PageKey;
+import it.f2informatica.pagination.cache.PagePrefetcher;
+import it.f2informatica.pagination.count.PageCounter;
+import it.f2informatica.pagination.repository.mongodb.CloseableIterator;
 import it.f2informatica.pagination.repository.mongodb.MongoQueryPredicate;
+import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
 
 import static it.f2informatica.mongodb.domain.builder.AddressBuilder.anAddress;
 import static it.f2informatica.mongodb.domain.builder.ConsultantBuilder.consultant;
@@ -51,14 +84,50 @@ import static org.springframework.data.mongodb.core.query.Criteria.where;
 @MongoDB
 @Service
 public class ConsultantRepositoryGatewayMongoDB implements ConsultantRepositoryGateway {
+	private static final Logger logger = Logger.getLogger(ConsultantRepositoryGatewayMongoDB.class);
+	private static final int INDEX_BATCH_SIZE = 1000;
+	private static final int BACKFILL_BATCH_SIZE = 500;
+	private static final Pattern REGEX_METACHARACTERS = Pattern.compile("[\\\\^$.|?*+()\\[\\]{}]");
+	private static final String[] SUMMARY_FIELDS = {"consultantNo", "registrationDate", "firstName", "lastName", "birthDate", "skills"};
+	private static final List<String> ADDRESS_FIELDS = ImmutableList.of("street", "houseNo", "zipCode", "city", "province", "region", "country");
+	private static final List<String> PERSONAL_DETAILS = ImmutableList.<String>builder()
+		.add("fiscalCode", "email", "firstName", "lastName", "gender", "phoneNumber", "mobileNumber")
+		.add("birthDate", "birthCity", "birthCountry", "identityCardNo", "passportNo", "interests")
+		.addAll(FieldChanges.nestedIn("residence", ADDRESS_FIELDS))
+		.addAll(FieldChanges.nestedIn("domicile", ADDRESS_FIELDS))
+		.build();
+	private static final List<String> EDUCATION_FIELDS = ImmutableList.of("school", "startYear", "endYear",
+		"schoolDegree", "schoolFieldOfStudy", "schoolGrade", "schoolActivities", "current", "description");
 
 	@Autowired
 	private ConsultantRepository consultantRepository;
 
+	@Autowired
+	private ConsultantNameIndex consultantNameIndex;
+
+	@Autowired
+	private ConsultantAttributeIndex consultantAttributeIndex;
+
+	@Autowired
+	private ConsultantFacetCounts consultantFacetCounts;
+
+	@Autowired
+	private PageCounter pageCounter;
+
+	@Autowired
+	private PageCache pageCache;
+
+	@Autowired
+	private PagePrefetcher pagePrefetcher;
+
 	@Autowired
 	@Qualifier("consultantToModelConverter")
 	private EntityToModelConverter<Consultant, ConsultantModel> consultantToModelConverter;
 
+	@Autowired
+	@Qualifier("consultantToSummaryConverter")
+	private EntityToModelConverter<Consultant, ConsultantSummaryModel> consultantToSummaryConverter;
+
 	@Autowired
 	@Qualifier("experienceToModelConverter")
 	private EntityToModelConverter<Experience, ExperienceModel> experienceToModelConverter;
@@ -67,69 +136,337 @@ public class ConsultantRepositoryGatewayMongoDB implements ConsultantRepositoryG
 	@Qualifier("educationToModelConverter")
 	private EntityToModelConverter<Education, EducationModel> educationToModelConverter;
 
+	@Autowired
+	@Qualifier("languageToModelConverter")
+	private EntityToModelConverter<Language, LanguageModel> languageToModelConverter;
+
 	@Override
 	public ConsultantModel findOneConsultant(String consultantId) {
 		Consultant consultant = consultantRepository.findOne(consultantId);
 		return consultantToModelConverter.convert(consultant);
 	}
 
+	@PostConstruct
+	public void backfillSearchFields() {
+		int updated = consultantRepository.backfillSearchFields(BACKFILL_BATCH_SIZE);
+		if (updated > 0) {
+			logger.info("Searchable names filled for " + updated + " consultants");
+		}
+	}
+
+	@PostConstruct
+	public void buildConsultantNameIndex() {
+		if (!consultantNameIndex.isEnabled()) {
+			return;
+		}
+		CloseableIterator<Consultant> consultants = consultantRepository.stream(allConsultants(), INDEX_BATCH_SIZE, "firstName", "lastName");
+		try {
+			while (consultants.hasNext()) {
+				Consultant consultant = consultants.next();
+				consultantNameIndex.index(consultant.getId(), consultant.getFirstName(), consultant.getLastName());
+			}
+			consultantNameIndex.markReady();
+		} finally {
+			try {
+				consultants.close();
+			} catch (IOException e) {
+				logger.warn("Cannot close the cursor over the consultant names", e);
+			}
+		}
+	}
+
+	@PostConstruct
+	public void buildConsultantAttributeIndex() {
+		if (!consultantAttributeIndex.isEnabled()) {
+			return;
+		}
+		CloseableIterator<Consultant> consultants = consultantRepository.stream(allConsultants(), INDEX_BATCH_SIZE,
+			"skills", "languages", "gender", "birthCountry",
+			"experiences.id", "experiences.periodFrom", "experiences.periodTo", "experiences.current");
+		try {
+			while (consultants.hasNext()) {
+				Consultant consultant = consultants.next();
+				consultantAttributeIndex.index(consultant.getId(), consultant.getSkills(),
+					languageToModelConverter.convertList(consultant.getLanguages()), consultant.getGender(), consultant.getBirthCountry(),
+					experienceToModelConverter.convertList(consultant.getExperiences()));
+			}
+			consultantAttributeIndex.markReady();
+		} finally {
+			try {
+				consultants.close();
+			} catch (IOException e) {
+				logger.warn("Cannot close the cursor over the consultant attributes", e);
+			}
+		}
+	}
+
 	@Override
 	public Page<ConsultantModel> findAllConsultants(Pageable pageable) {
-		Page<Consultant> consultantPage = consultantRepository.findAll(pageable);
-		return new PageImpl<>(consultantToModelConverter.convertList(consultantPage.getContent()), pageable, consultantPage.getTotalElements());
+		return paginateConsultants(allConsultants(), pageable, consultantToModelConverter);
 	}
 
 	@Override
-	public Page<ConsultantModel> paginateConsultants(final ConsultantSearchCriteria searchCriteria, Pageable pageable) {
-		MongoQueryPredicate<Consultant> queryPredicate = new MongoQueryPredicate<Consultant>(Consultant.class) {
+	public Page<ConsultantSummaryModel> findAllConsultantSummaries(Pageable pageable) {
+		return paginateConsultants(summaryOf(allConsultants()), pageable, consultantToSummaryConverter);
+	}
+
+	private static MongoQueryPredicate<Consultant> allConsultants() {
+		return new MongoQueryPredicate<Consultant>(Consultant.class) {
 			@Override
 			public Query queryPredicate() {
-				final Query query = new Query();
-				if (StringUtils.hasText(searchCriteria.getName())) {
-					query.addCriteria(where("firstName").regex(searchCriteria.getName(), "i"));
-				}
-				if (StringUtils.hasText(searchCriteria.getLastName())) {
-					query.addCriteria(where("lastName").regex(searchCriteria.getLastName(), "i"));
+				return new Query();
+			}
+		};
+	}
+
+	@Override
+	public Page<ConsultantModel> paginateConsultants(ConsultantSearchCriteria searchCriteria, Pageable pageable) {
+		return searchConsultants(searchCriteria, pageable, false, consultantToModelConverter);
+	}
+
+	@Override
+	public Page<ConsultantSummaryModel> paginateConsultantSummaries(ConsultantSearchCriteria searchCriteria, Pageable pageable) {
+		return searchConsultants(searchCriteria, pageable, true, consultantToSummaryConverter);
+	}
+
+	private <T> Page<T> searchConsultants(ConsultantSearchCriteria searchCriteria, Pageable pageable, boolean summaries,
+	                                      EntityToModelConverter<Consultant, T> converter) {
+		if (searchCriteria.isFuzzyMatch()) {
+			Optional<List<String>> rankedIds = consultantNameIndex.searchFuzzy(searchCriteria.getName(), searchCriteria.getLastName());
+			if (rankedIds.isPresent()) {
+				return rankedConsultants(rankedIds.get(), searchCriteria, pageable, summaries, converter);
+			}
+		}
+		IndexedIds indexedIds = searchIndexedIds(searchCriteria);
+		if (indexedIds.isEmpty()) {
+			return new PageImpl<>(Lists.<T>newArrayList(), pageable, 0);
+		}
+		boolean rankedByText = StringUtils.hasText(searchCriteria.getText());
+		MongoQueryPredicate<Consultant> matching = matching(searchCriteria(searchCriteria, indexedIds), rankedByText);
+		return paginateConsultants(summaries ? summaryOf(matching) : matching, pageable, converter);
+	}
+
+	/**
+	 * The same query, reading only the fields the consultant lists show
+	 * rather than the whole documents with their embedded arrays.
+	 */
+	private static MongoQueryPredicate<Consultant> summaryOf(final MongoQueryPredicate<Consultant> queryPredicate) {
+		return new MongoQueryPredicate<Consultant>(Consultant.class) {
+			@Override
+			public Query queryPredicate() {
+				Query query = queryPredicate.queryPredicate();
+				for (String field : SUMMARY_FIELDS) {
+					query.fields().include(field);
 				}
-				if (StringUtils.hasText(searchCriteria.getSkills())) {
-					query.addCriteria(where("skills").in(searchCriteria.getSkills().split(",")));
+				return query;
+			}
+		};
+	}
+
+	private static MongoQueryPredicate<Consultant> withIds(final Collection<String> consultantIds) {
+		return new MongoQueryPredicate<Consultant>(Consultant.class) {
+			@Override
+			public Query queryPredicate() {
+				return new Query(where("id").in(consultantIds));
+			}
+		};
+	}
+
+	private static MongoQueryPredicate<Consultant> matching(final List<Criteria> criteria, final boolean rankedByText) {
+		return new MongoQueryPredicate<Consultant>(Consultant.class) {
+			@Override
+			public Query queryPredicate() {
+				final Query query = rankedByText ? new TextScoreQuery() : new Query();
+				for (Criteria criterion : criteria) {
+					query.addCriteria(criterion);
 				}
 				return query;
 			}
 		};
-		Page<Consultant> consultantPage = consultantRepository.findAll(queryPredicate, pageable);
-		return new PageImpl<>(consultantToModelConverter.convertList(consultantPage.getContent()), pageable, consultantPage.getTotalElements());
+	}
+
+	/**
+	 * The page of the consultants matching the search in the order of the
+	 * fuzzy name ranking: the ids of those matching the other criteria are
+	 * read first, then only the consultants of the page are loaded.
+	 */
+	private <T> Page<T> rankedConsultants(List<String> rankedIds, ConsultantSearchCriteria searchCriteria, Pageable pageable,
+	                                     boolean summaries, EntityToModelConverter<Consultant, T> converter) {
+		IndexedIds indexedIds = IndexedIds.of(Optional.<Set<String>>of(ImmutableSet.copyOf(rankedIds)), consultantAttributeIndex.search(searchCriteria));
+		if (indexedIds.isEmpty()) {
+			return new PageImpl<>(Lists.<T>newArrayList(), pageable, 0);
+		}
+		Set<String> matchingIds = Sets.newHashSet();
+		CloseableIterator<Consultant> consultants = consultantRepository.stream(matching(searchCriteria(searchCriteria, indexedIds), false), INDEX_BATCH_SIZE, "id");
+		try {
+			while (consultants.hasNext()) {
+				matchingIds.add(consultants.next().getId());
+			}
+		} finally {
+			try {
+				consultants.close();
+			} catch (IOException e) {
+				logger.warn("Cannot close the cursor over the consultant ids", e);
+			}
+		}
+		List<String> matchingRankedIds = Lists.newArrayList(Iterables.filter(rankedIds, Predicates.in(matchingIds)));
+		List<String> pageIds = matchingRankedIds.subList(
+			Math.min(pageable.getOffset(), matchingRankedIds.size()),
+			Math.min(pageable.getOffset() + pageable.getPageSize(), matchingRankedIds.size()));
+		Map<String, Consultant> pageConsultants = Maps.newHashMap();
+		for (Consultant consultant : summaries ? consultantRepository.findAll(summaryOf(withIds(pageIds))) : consultantRepository.findAll(pageIds)) {
+			pageConsultants.put(consultant.getId(), consultant);
+		}
+		List<Consultant> content = Lists.newArrayList();
+		for (String id : pageIds) {
+			if (pageConsultants.containsKey(id)) {
+				content.add(pageConsultants.get(id));
+			}
+		}
+		return new PageImpl<>(converter.convertList(content), pageable, matchingRankedIds.size());
+	}
+
+	private IndexedIds searchIndexedIds(ConsultantSearchCriteria searchCriteria) {
+		if (searchCriteria.isFuzzyMatch()) {
+			Optional<List<String>> rankedIds = consultantNameIndex.searchFuzzy(searchCriteria.getName(), searchCriteria.getLastName());
+			if (rankedIds.isPresent()) {
+				return IndexedIds.of(Optional.<Set<String>>of(ImmutableSet.copyOf(rankedIds.get())), consultantAttributeIndex.search(searchCriteria));
+			}
+		}
+		return IndexedIds.of(
+			consultantNameIndex.search(searchCriteria.getName(), searchCriteria.getLastName(), searchCriteria.isPrefixMatch()),
+			consultantAttributeIndex.search(searchCriteria));
+	}
+
+	private static List<Criteria> searchCriteria(ConsultantSearchCriteria searchCriteria, IndexedIds indexedIds) {
+		List<Criteria> criteria = Lists.newArrayList();
+		Optional<Set<String>> ids = indexedIds.get();
+		if (ids.isPresent()) {
+			criteria.add(where("id").in(ids.get()));
+		}
+		if (!indexedIds.coversNames()) {
+			if (StringUtils.hasText(searchCriteria.getName())) {
+				criteria.add(where("searchFirstName").regex(namePattern(searchCriteria.getName(), searchCriteria.isPrefixMatch())));
+			}
+			if (StringUtils.hasText(searchCriteria.getLastName())) {
+				criteria.add(where("searchLastName").regex(namePattern(searchCriteria.getLastName(), searchCriteria.isPrefixMatch())));
+			}
+		}
+		if (!indexedIds.coversAttributes()) {
+			criteria.addAll(attributeCriteria(searchCriteria));
+		}
+		if (StringUtils.hasText(searchCriteria.getText())) {
+			criteria.add(TextScoreQuery.textMatches(searchCriteria.getText()));
+		}
+		return criteria;
+	}
+
+	private static List<Criteria> attributeCriteria(ConsultantSearchCriteria searchCriteria) {
+		List<Criteria> criteria = Lists.newArrayList();
+		if (StringUtils.hasText(searchCriteria.getSkills())) {
+			String[] skills = searchCriteria.getSkills().split(",");
+			criteria.add(searchCriteria.isAllSkillsMatch() ? where("skills").all(skills) : where("skills").in(skills));
+		}
+		if (StringUtils.hasText(searchCriteria.getLanguage())) {
+			criteria.add(StringUtils.hasText(searchCriteria.getProficiency())
+				? where("languages").elemMatch(where("language").is(searchCriteria.getLanguage()).and("proficiency").is(searchCriteria.getProficiency()))
+				: where("languages.language").is(searchCriteria.getLanguage()));
+		}
+		if (StringUtils.hasText(searchCriteria.getGender())) {
+			criteria.add(where("gender").is(searchCriteria.getGender()));
+		}
+		if (StringUtils.hasText(searchCriteria.getBirthCountry())) {
+			criteria.add(where("birthCountry").is(searchCriteria.getBirthCountry()));
+		}
+		return criteria;
 	}
 
 	@Override
-	public void updatePersonalDetails(ConsultantModel consultantModel, String consultantId) {
-		Update update = new Update()
-			.set("fiscalCode", consultantModel.getFiscalCode())
-			.set("email", consultantModel.getEmail())
-			.set("firstName", consultantModel.getFirstName())
-			.set("lastName", consultantModel.getLastName())
-			.set("gender", consultantModel.getGender())
-			.set("phoneNumber", consultantModel.getPhoneNumber())
-			.set("mobileNumber", consultantModel.getMobileNumber())
-			.set("birthDate", consultantModel.getBirthDate())
-			.set("birthCity", consultantModel.getBirthCity())
-			.set("birthCountry", consultantModel.getBirthCountry())
-			.set("identityCardNo", consultantModel.getIdentityCardNo())
-			.set("passportNo", consultantModel.getPassportNo())
-			.set("interests", consultantModel.getInterests());
-		mapAddressData(update, consultantModel.getResidence(), "residence");
-		mapAddressData(update, consultantModel.getDomicile(), "domicile");
-		consultantRepository.updateConsultantsPersonalDetails(update, consultantId);
+	public ConsultantFacets countFacets(ConsultantSearchCriteria searchCriteria, int topSkills) {
+		if (ConsultantFacetCounts.isUnfiltered(searchCriteria)) {
+			return consultantFacetCounts.getFacets(topSkills, new Supplier<ConsultantFacets>() {
+				@Override
+				public ConsultantFacets get() {
+					return countFacets(new Criteria(), 0);
+				}
+			});
+		}
+		IndexedIds indexedIds = searchIndexedIds(searchCriteria);
+		if (indexedIds.isEmpty()) {
+			return new ConsultantFacets();
+		}
+		List<Criteria> criteria = searchCriteria(searchCriteria, indexedIds);
+		return countFacets(new Criteria().andOperator(criteria.toArray(new Criteria[criteria.size()])), topSkills);
 	}
 
-	private void mapAddressData(Update update, AddressModel address, String field) {
-		update.set(field + ".street", address.getStreet());
-		update.set(field + ".houseNo", address.getHouseNo());
-		update.set(field + ".zipCode", address.getZipCode());
-		update.set(field + ".city", address.getCity());
-		update.set(field + ".province", address.getProvince());
-		update.set(field + ".region", address.getRegion());
-		update.set(field + ".country", address.getCountry());
+	private ConsultantFacets countFacets(Criteria criteria, int topSkills) {
+		Map<String, Long> skills = consultantRepository.countSkills(criteria, topSkills);
+		Map<LanguageModel, Long> languages = Maps.newHashMap();
+		for (Map.Entry<Language, Long> language : consultantRepository.countLanguages(criteria).entrySet()) {
+			languages.put(languageToModelConverter.convert(language.getKey()), language.getValue());
+		}
+		return ConsultantFacetCounts.facetsOf(skills, languages, topSkills);
+	}
+
+	/**
+	 * The searchable fields are already lower-cased, so the pattern needs no
+	 * case-insensitive option and, anchored, can be served by their indexes.
+	 */
+	private static String namePattern(String name, boolean prefix) {
+		String literal = REGEX_METACHARACTERS.matcher(Consultant.searchable(name)).replaceAll("\\\\$0");
+		return prefix ? "^" + literal : literal;
+	}
+
+	/**
+	 * The fields read are part of the fingerprint, so that the pages of the
+	 * whole consultants and those of their summaries are cached apart.
+	 */
+	private <T> Page<T> paginateConsultants(MongoQueryPredicate<Consultant> queryPredicate, Pageable pageable, EntityToModelConverter<Consultant, T> converter) {
+		Query query = queryPredicate.queryPredicate();
+		String fingerprint = String.valueOf(query.getQueryObject()) + " fields " + query.getFieldsObject();
+		Page<T> page = pagePrefetcher.get(PageKey.of(Consultant.class, pageable, fingerprint), consultantsPage(queryPredicate, pageable, converter));
+		if (page.hasNext()) {
+			Pageable nextPageable = pageable.next();
+			pagePrefetcher.prefetch(PageKey.of(Consultant.class, nextPageable, fingerprint), consultantsPage(queryPredicate, nextPageable, converter));
+		}
+		return page;
+	}
+
+	private <T> Callable<Page<T>> consultantsPage(final MongoQueryPredicate<Consultant> queryPredicate, final Pageable pageable,
+	                                              final EntityToModelConverter<Consultant, T> converter) {
+		return new Callable<Page<T>>() {
+			@Override
+			public Page<T> call() {
+				Page<Consultant> consultantPage = consultantRepository.findAll(queryPredicate, pageable, pageCounter);
+				return new PageImpl<>(converter.convertList(consultantPage.getContent()), pageable, consultantPage.getTotalElements());
+			}
+		};
+	}
+
+	@Override
+	public void updatePersonalDetails(ConsultantModel consultantModel, ConsultantModel snapshot, String consultantId) {
+		FieldChanges changes = FieldChanges.between(snapshot, consultantModel, PERSONAL_DETAILS);
+		if (changes.isEmpty()) {
+			return;
+		}
+		Update update = new Update();
+		for (Map.Entry<String, Object> change : changes.getChanged().entrySet()) {
+			update.set(change.getKey(), change.getValue());
+		}
+		if (changes.isChanged("firstName")) {
+			update.set("searchFirstName", Consultant.searchable(consultantModel.getFirstName()));
+		}
+		if (changes.isChanged("lastName")) {
+			update.set("searchLastName", Consultant.searchable(consultantModel.getLastName()));
+		}
+		consultantRepository.updateConsultantsPersonalDetails(update, consultantId);
+		if (changes.isChanged("firstName", "lastName")) {
+			consultantNameIndex.update(consultantId, consultantModel.getFirstName(), consultantModel.getLastName());
+		}
+		if (changes.isChanged("gender", "birthCountry")) {
+			consultantAttributeIndex.personalDetailsChanged(consultantId, consultantModel.getGender(), consultantModel.getBirthCountry());
+		}
+		pageCache.invalidate(Consultant.class);
 	}
 
 	@Override
@@ -151,9 +488,88 @@ public class ConsultantRepositoryGatewayMongoDB implements ConsultantRepositoryG
 			.withDomicile(buildAddress(consultantModel.getDomicile()))
 			.build();
 		Consultant consultantRegistered = consultantRepository.save(consultant);
+		consultantNameIndex.update(consultantRegistered.getId(), consultantRegistered.getFirstName(), consultantRegistered.getLastName());
+		consultantAttributeIndex.personalDetailsChanged(consultantRegistered.getId(), consultantRegistered.getGender(), consultantRegistered.getBirthCountry());
+		pageCache.invalidate(Consultant.class);
 		return consultantToModelConverter.convert(consultantRegistered);
 	}
 
+	/**
+	 * The consultants already stored keep their registration date.
+	 */
+	@Override
+	public int importConsultants(List<ConsultantModel> consultantModels) {
+		List<String> consultantNos = Lists.newArrayList();
+		for (ConsultantModel consultantModel : consultantModels) {
+			consultantNos.add(consultantModel.getConsultantNo());
+		}
+		Map<String, Consultant> stored = Maps.newHashMap();
+		for (Consultant consultant : consultantRepository.findSkillsAndLanguagesByConsultantNo(consultantNos)) {
+			stored.put(consultant.getConsultantNo(), consultant);
+		}
+		List<Consultant> consultants = Lists.newArrayList();
+		for (ConsultantModel consultantModel : consultantModels) {
+			Consultant before = stored.get(consultantModel.getConsultantNo());
+			consultants.add(newConsultant(consultantModel, (before == null) ? consultantModel.getRegistrationDate() : before.getRegistrationDate()));
+		}
+		Map<String, String> insertedIds = consultantRepository.upsertByConsultantNo(consultants);
+		for (Consultant consultant : consultants) {
+			Consultant before = stored.get(consultant.getConsultantNo());
+			String consultantId = (before == null) ? insertedIds.get(consultant.getConsultantNo()) : before.getId();
+			List<LanguageModel> languages = languageToModelConverter.convertList(consultant.getLanguages());
+			if (before != null) {
+				consultantFacetCounts.skillsChanged(before.getSkills(), consultant.getSkills());
+				consultantFacetCounts.languagesChanged(languageToModelConverter.convertList(before.getLanguages()), languages);
+			} else {
+				consultantFacetCounts.skillsChanged(Collections.<String>emptyList(), consultant.getSkills());
+				consultantFacetCounts.languagesChanged(Collections.<LanguageModel>emptyList(), languages);
+			}
+			consultantNameIndex.update(consultantId, consultant.getFirstName(), consultant.getLastName());
+			consultantAttributeIndex.consultantChanged(consultantId, consultant.getSkills(), languages,
+				consultant.getGender(), consultant.getBirthCountry(), experienceToModelConverter.convertList(consultant.getExperiences()));
+		}
+		pageCache.invalidate(Consultant.class);
+		return consultants.size();
+	}
+
+	private Consultant newConsultant(ConsultantModel consultantModel, Date registrationDate) {
+		List<Experience> experiences = Lists.newArrayList();
+		for (ExperienceModel experienceModel : consultantModel.getExperiences()) {
+			experiences.add(newExperience(experienceModel));
+		}
+		List<Education> educationList = Lists.newArrayList();
+		for (EducationModel educationModel : consultantModel.getEducationList()) {
+			educationList.add(newEducation(educationModel));
+		}
+		List<Language> languages = Lists.newArrayList();
+		for (LanguageModel languageModel : consultantModel.getLanguages()) {
+			languages.add(newLanguage(languageModel));
+		}
+		return consultant()
+			.withConsultantNo(consultantModel.getConsultantNo())
+			.withRegistrationDate(registrationDate)
+			.withFirstName(consultantModel.getFirstName())
+			.withLastName(consultantModel.getLastName())
+			.withGender(consultantModel.getGender())
+			.withEmail(consultantModel.getEmail())
+			.withFiscalCode(consultantModel.getFiscalCode())
+			.withBirthDate(consultantModel.getBirthDate())
+			.withBirthCity(consultantModel.getBirthCity())
+			.withBirthCountry(consultantModel.getBirthCountry())
+			.withPhoneNumber(consultantModel.getPhoneNumber())
+			.withMobileNo(consultantModel.getMobileNumber())
+			.withIdentityCardNo(consultantModel.getIdentityCardNo())
+			.withPassportNo(consultantModel.getPassportNo())
+			.withInterestsIn(consultantModel.getInterests())
+			.withResidence(buildAddress(consultantModel.getResidence()))
+			.withDomicile(buildAddress(consultantModel.getDomicile()))
+			.withExperiencesIn(experiences)
+			.withEducationIn(educationList)
+			.speakingLanguages(languages)
+			.withSkills(consultantModel.getSkills())
+			.build();
+	}
+
 	private Address buildAddress(AddressModel addressModel) {
 		return (addressModel == null) ? null : anAddress()
 			.withStreet(addressModel.getStreet())
@@ -168,7 +584,14 @@ public class ConsultantRepositoryGatewayMongoDB implements ConsultantRepositoryG
 
 	@Override
 	public void addExperience(ExperienceModel experienceModel, String consultantId) {
-		Experience experience = experience()
+		Experience experience = newExperience(experienceModel);
+		consultantRepository.addExperience(experience, consultantId);
+		consultantAttributeIndex.experienceChanged(consultantId, experienceToModelConverter.convert(experience));
+		pageCache.invalidate(Consultant.class);
+	}
+
+	private static Experience newExperience(ExperienceModel experienceModel) {
+		return experience()
 			.withId(UUID.randomUUID().toString())
 			.inCompany(experienceModel.getCompanyName())
 			.withPosition(experienceModel.getPosition())
@@ -178,25 +601,22 @@ public class ConsultantRepositoryGatewayMongoDB implements ConsultantRepositoryG
 			.isThisTheCurrentJob(experienceModel.isCurrent())
 			.withDescription(experienceModel.getDescription())
 			.build();
-		consultantRepository.addExperience(experience, consultantId);
 	}
 
 	@Override
 	public void updateExperience(ExperienceModel experienceModel, String consultantId) {
-		Experience experience = consultantRepository.findExperience(consultantId, experienceModel.getId());
-		experience.setCompanyName(experienceModel.getCompanyName());
-		experience.setPosition(experienceModel.getPosition());
-		experience.setLocation(experienceModel.getLocality());
-		experience.setPeriodFrom(experienceModel.getPeriodFrom());
-		experience.setPeriodTo(experienceModel.getPeriodTo());
-		experience.setCurrent(experienceModel.isCurrent());
-		experience.setDescription(experienceModel.getDescription());
+		Experience experience = newExperience(experienceModel);
+		experience.setId(experienceModel.getId());
 		consultantRepository.updateExperience(experience, consultantId);
+		consultantAttributeIndex.experienceChanged(consultantId, experienceModel);
+		pageCache.invalidate(Consultant.class);
 	}
 
 	@Override
 	public void removeExperience(String consultantId, String experienceId) {
 		consultantRepository.removeExperience(consultantId, experienceId);
+		consultantAttributeIndex.experienceRemoved(consultantId, experienceId);
+		pageCache.invalidate(Consultant.class);
 	}
 
 	@Override
@@ -207,18 +627,46 @@ public class ConsultantRepositoryGatewayMongoDB implements ConsultantRepositoryG
 
 	@Override
 	public void addLanguages(LanguageModel[] languageModelArray, String consultantId) {
-		List<Language> languages = Lists.newArrayList();
-		for (LanguageModel languageModel : languageModelArray) {
-			Language language = LanguageBuilder.language(languageModel.getLanguage())
-				.withProficiency(languageModel.getProficiency()).build();
-			languages.add(language);
+		Consultant before = consultantRepository.findSkillsAndLanguages(consultantId);
+		List<LanguageModel> languagesBefore = (before == null)
+			? Collections.<LanguageModel>emptyList() : languageToModelConverter.convertList(before.getLanguages());
+		List<LanguageModel> languagesAfter = Arrays.asList(languageModelArray);
+		SetChanges<LanguageModel> changes = SetChanges.between(languagesBefore, languagesAfter);
+		if (changes.isEmpty()) {
+			return;
+		}
+		List<Language> languagesAdded = Lists.newArrayList();
+		for (LanguageModel languageModel : changes.getAdded()) {
+			languagesAdded.add(newLanguage(languageModel));
+		}
+		List<String> languagesRemoved = Lists.newArrayList();
+		for (LanguageModel languageModel : changes.getRemoved()) {
+			languagesRemoved.add(languageModel.getLanguage());
 		}
-		consultantRepository.addLanguages(languages, consultantId);
+		consultantRepository.updateLanguages(languagesAdded, languagesRemoved, consultantId);
+		consultantFacetCounts.languagesChanged(languagesBefore, languagesAfter);
+		consultantAttributeIndex.languagesChanged(consultantId, languagesAfter);
+		pageCache.invalidate(Consultant.class);
+	}
+
+	private static Language newLanguage(LanguageModel languageModel) {
+		return LanguageBuilder.language(languageModel.getLanguage())
+			.withProficiency(languageModel.getProficiency()).build();
 	}
 
 	@Override
 	public void addSkills(String[] skills, String consultantId) {
-		consultantRepository.addSkills(skills, consultantId);
+		Consultant before = consultantRepository.findSkillsAndLanguages(consultantId);
+		List<String> skillsBefore = (before == null) ? Collections.<String>emptyList() : before.getSkills();
+		List<String> skillsAfter = Arrays.asList(skills);
+		SetChanges<String> changes = SetChanges.between(skillsBefore, skillsAfter);
+		if (changes.isEmpty()) {
+			return;
+		}
+		consultantRepository.updateSkills(changes.getAdded(), changes.getRemoved(), consultantId);
+		consultantFacetCounts.skillsChanged(skillsBefore, skillsAfter);
+		consultantAttributeIndex.skillsChanged(consultantId, skillsAfter);
+		pageCache.invalidate(Consultant.class);
 	}
 
 	@Override
@@ -229,7 +677,12 @@ public class ConsultantRepositoryGatewayMongoDB implements ConsultantRepositoryG
 
 	@Override
 	public void addEducation(EducationModel educationModel, String consultantId) {
-		Education education = education()
+		consultantRepository.addEducation(newEducation(educationModel), consultantId);
+		pageCache.invalidate(Consultant.class);
+	}
+
+	private static Education newEducation(EducationModel educationModel) {
+		return education()
 			.withId(UUID.randomUUID().toString())
 			.inSchool(educationModel.getSchool())
 			.startedInYear(educationModel.getStartYear())
@@ -241,27 +694,23 @@ public class ConsultantRepositoryGatewayMongoDB implements ConsultantRepositoryG
 			.isInProgress(educationModel.isCurrent())
 			.withDescription(educationModel.getDescription())
 			.build();
-		consultantRepository.addEducation(education, consultantId);
 	}
 
 	@Override
-	public void updateEducation(EducationModel educationModel, String consultantId) {
-		Education education = consultantRepository.findEducation(consultantId, educationModel.getId());
-		education.setSchool(educationModel.getSchool());
-		education.setStartYear(educationModel.getStartYear());
-		education.setEndYear(educationModel.getEndYear());
-		education.setSchoolDegree(educationModel.getSchoolDegree());
-		education.setSchoolFieldOfStudy(educationModel.getSchoolFieldOfStudy());
-		education.setSchoolGrade(educationModel.getSchoolGrade());
-		education.setSchoolActivities(educationModel.getSchoolActivities());
-		education.setCurrent(educationModel.isCurrent());
-		education.setDescription(educationModel.getDescription());
+	public void updateEducation(EducationModel educationModel, EducationModel snapshot, String consultantId) {
+		if (FieldChanges.between(snapshot, educationModel, EDUCATION_FIELDS).isEmpty()) {
+			return;
+		}
+		Education education = newEducation(educationModel);
+		education.setId(educationModel.getId());
 		consultantRepository.updateEducation(education, consultantId);
+		pageCache.invalidate(Consultant.class);
 	}
 
 	@Override
 	public void removeEducation(String consultantId, String educationId) {
 		consultantRepository.removeEducation(consultantId, educationId);
+		pageCache.invalidate(Consultant.class);
 	}
 
 }
@@ -34,6 +34,7 @@ import it.f2informatica.mongodb.domain.Role;
 import it.f2informatica.mongodb.domain.User;
 import it.f2informatica.mongodb.repositories.RoleRepository;
 import it.f2informatica.mongodb.repositories.UserRepository;
+import it.f2informatica.pagination.cache.PageCache;
 import it.f2informatica.pagination.repository.mongodb.MongoQueryPredicate;
 import it.f2informatica.pagination.services.MongoDBPaginationService;
 import it.f2informatica.pagination.services.QueryParameters;
@@ -48,6 +49,8 @@ import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.io.Writer;
+
 import static it.f2informatica.mongodb.domain.builder.UserBuilder.user;
 import static org.springframework.data.mongodb.core.query.Criteria.where;
 import static org.springframework.data.mongodb.core.query.Query.query;
@@ -69,6 +72,9 @@ public class UserRepositoryGatewayMongoDB implements UserRepositoryGateway {
 	@Autowired
 	private MongoDBPaginationService mongoDBPaginationService;
 
+	@Autowired
+	private PageCache pageCache;
+
 	@Autowired
 	@Qualifier("userToModelConverter")
 	private EntityToModelConverter<User, UserModel> userToModelConverter;
@@ -123,14 +129,22 @@ public class UserRepositoryGatewayMongoDB implements UserRepositoryGateway {
 	}
 
 	@Override
-	public String getAllUsersPaginated(QueryParameters parameters, final String currentUsername) {
-		MongoQueryPredicate<User> queryPredicate = new MongoQueryPredicate<User>(User.class) {
+	public String getAllUsersPaginated(QueryParameters parameters, String currentUsername) {
+		return mongoDBPaginationService.getPaginatedResultAsJson(parameters, usersExcluding(currentUsername));
+	}
+
+	@Override
+	public void writeAllUsersPaginated(QueryParameters parameters, String currentUsername, Writer writer) {
+		mongoDBPaginationService.writePaginatedResultAsJson(parameters, writer, usersExcluding(currentUsername));
+	}
+
+	private static MongoQueryPredicate<User> usersExcluding(final String currentUsername) {
+		return new MongoQueryPredicate<User>(User.class) {
 			@Override
 			public Query queryPredicate() {
 				return query(where("username").nin("admin", currentUsername));
 			}
 		};
-		return mongoDBPaginationService.getPaginatedResultAsJson(parameters, queryPredicate);
 	}
 
 	@Override
@@ -144,6 +158,7 @@ public class UserRepositoryGatewayMongoDB implements UserRepositoryGateway {
 			.withEmail(userModel.getEmail())
 			.thatIsRemovable()
 			.build());
+		pageCache.invalidate(User.class);
 		return userToModelConverter.convert(newUser);
 	}
 
@@ -157,11 +172,13 @@ public class UserRepositoryGatewayMongoDB implements UserRepositoryGateway {
 			.set("firstName", userModel.getFirstName())
 			.set("email", userModel.getEmail());
 		mongoTemplate.updateFirst(query, update, User.class).getLastError().ok();
+		pageCache.invalidate(User.class);
 	}
 
 	@Override
 	public void deleteUser(String userId) {
 		userRepository.deleteByExcludingNotRemovableUser(userId);
+		pageCache.invalidate(User.class);
 	}
 
 	@Override
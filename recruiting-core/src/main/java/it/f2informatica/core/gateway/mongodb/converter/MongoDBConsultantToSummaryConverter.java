@@ -0,0 +1,44 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.gateway.mongodb.converter;
+
+import it.f2informatica.core.gateway.EntityToModelConverter;
+import it.f2informatica.core.model.ConsultantSummaryModel;
+import it.f2informatica.mongodb.domain.Consultant;
+import org.springframework.stereotype.Component;
+
+@Component("consultantToSummaryConverter")
+public class MongoDBConsultantToSummaryConverter
+	extends EntityToModelConverter<Consultant, ConsultantSummaryModel> {
+
+	@Override
+	public ConsultantSummaryModel convert(Consultant consultant) {
+		return (consultant == null) ? null :
+			new ConsultantSummaryModel(
+				consultant.getId(),
+				consultant.getConsultantNo(),
+				consultant.getRegistrationDate(),
+				consultant.getFirstName(),
+				consultant.getLastName(),
+				consultant.getBirthDate(),
+				consultant.getSkills());
+	}
+
+}
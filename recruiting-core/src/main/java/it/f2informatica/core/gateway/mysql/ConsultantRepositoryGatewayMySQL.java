@@ -20,43 +20,154 @@
 package it.f2informatica.core.gateway.mysql;
 
 import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.base.Splitter;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
 import com.googlecode.flyway.core.util.StringUtils;
 import com.mysema.query.BooleanBuilder;
+import com.mysema.query.Tuple;
+import com.mysema.query.jpa.JPASubQuery;
+import com.mysema.query.jpa.impl.JPAQuery;
+import com.mysema.query.jpa.impl.JPAUpdateClause;
+import com.mysema.query.support.Expressions;
+import com.mysema.query.types.ConstantImpl;
+import com.mysema.query.types.Expression;
+import com.mysema.query.types.OrderSpecifier;
+import com.mysema.query.types.Path;
+import com.mysema.query.types.QTuple;
+import com.mysema.query.types.expr.BooleanExpression;
+import com.mysema.query.types.expr.NumberExpression;
+import com.mysema.query.types.expr.StringExpression;
+import com.mysema.query.types.path.NumberPath;
+import com.mysema.query.types.path.StringPath;
 import it.f2informatica.core.gateway.ConsultantRepositoryGateway;
 import it.f2informatica.core.gateway.EntityToModelConverter;
+import it.f2informatica.core.gateway.FieldChanges;
+import it.f2informatica.core.gateway.SetChanges;
 import it.f2informatica.core.model.*;
+import it.f2informatica.core.model.query.ConsultantFacets;
 import it.f2informatica.core.model.query.ConsultantSearchCriteria;
+import it.f2informatica.core.search.ConsultantAttributeIndex;
+import it.f2informatica.core.search.ConsultantFacetCounts;
+import it.f2informatica.core.search.ConsultantNameIndex;
+import it.f2informatica.core.search.IndexedIds;
 import it.f2informatica.mysql.MySQL;
+import it.f2informatica.mysql.MySQLFullTextDialect;
 import it.f2informatica.mysql.Persistence;
 import it.f2informatica.mysql.domain.*;
-import it.f2informatica.mysql.domain.pk.LanguagePK;
-import it.f2informatica.mysql.domain.pk.SkillPK;
+import it.f2informatica.mysql.domain.ConsultantNameTrigram.NameField;
 import it.f2informatica.mysql.repositories.*;
+import it.f2informatica.pagination.cache.PageCache;
+import it.f2informatica.pagination.cache.PageKey;
+import it.f2informatica.pagination.cache.PagePrefetcher;
+import it.f2informatica.pagination.services.PaginationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.convert.converter.Converter;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 @MySQL
 @Service
 @Transactional
 public class ConsultantRepositoryGatewayMySQL implements ConsultantRepositoryGateway {
+	private static final int INDEX_BATCH_SIZE = 1000;
+	private static final int MAX_STATEMENT_PARAMETERS = 30000;
+	private static final int FUZZY_MAX_MATCHES = 1000;
+	private static final int FUZZY_TWO_TYPOS_LENGTH = 5;
+	private static final Splitter SKILLS_SPLITTER = Splitter.on(MySQLFullTextDialect.SKILLS_SEPARATOR);
+	private static final String RESIDENCE = "residence";
+	private static final String DOMICILE = "domicile";
+	private static final Map<String, Path<?>> PERSONAL_DETAILS = ImmutableMap.<String, Path<?>>builder()
+		.put("fiscalCode", fromConsultant().fiscalCode)
+		.put("email", fromConsultant().email)
+		.put("firstName", fromConsultant().firstName)
+		.put("lastName", fromConsultant().lastName)
+		.put("gender", fromConsultant().gender)
+		.put("phoneNumber", fromConsultant().phoneNumber)
+		.put("mobileNumber", fromConsultant().mobileNumber)
+		.put("birthDate", fromConsultant().birthDate)
+		.put("birthCity", fromConsultant().birthCity)
+		.put("birthCountry", fromConsultant().birthCountry)
+		.put("identityCardNo", fromConsultant().identityCard)
+		.put("interests", fromConsultant().interests)
+		.build();
+	private static final Map<String, Path<?>> ADDRESS_FIELDS = ImmutableMap.<String, Path<?>>builder()
+		.put("street", QAddress.address.street)
+		.put("houseNo", QAddress.address.houseNo)
+		.put("zipCode", QAddress.address.zipCode)
+		.put("city", QAddress.address.city)
+		.put("province", QAddress.address.province)
+		.put("region", QAddress.address.region)
+		.put("country", QAddress.address.country)
+		.build();
+	private static final Map<String, Path<?>> EDUCATION_FIELDS = ImmutableMap.<String, Path<?>>builder()
+		.put("school", QEducation.education.schoolName)
+		.put("startYear", QEducation.education.startYear)
+		.put("endYear", QEducation.education.endYear)
+		.put("schoolDegree", QEducation.education.schoolDegree)
+		.put("schoolFieldOfStudy", QEducation.education.fieldsOfStudy)
+		.put("schoolGrade", QEducation.education.grade)
+		.put("schoolActivities", QEducation.education.activities)
+		.put("current", QEducation.education.current)
+		.put("description", QEducation.education.description)
+		.build();
 
 	@PersistenceContext(unitName = Persistence.PERSISTENCE_UNIT_NAME)
 	private EntityManager entityManager;
 
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private PaginationService paginationService;
+
+	@Autowired
+	private PageCache pageCache;
+
+	@Autowired
+	private PagePrefetcher pagePrefetcher;
+
+	@Autowired
+	private ConsultantNameIndex consultantNameIndex;
+
+	@Autowired
+	private ConsultantAttributeIndex consultantAttributeIndex;
+
+	@Autowired
+	private ConsultantFacetCounts consultantFacetCounts;
+
 	@Autowired
 	private SkillRepository skillRepository;
 
@@ -69,6 +180,9 @@ public class ConsultantRepositoryGatewayMySQL implements ConsultantRepositoryGat
 	@Autowired
 	private ConsultantRepository consultantRepository;
 
+	@Autowired
+	private ConsultantNameTrigramRepository consultantNameTrigramRepository;
+
 	@Autowired
 	private ExperienceRepository experienceRepository;
 
@@ -84,41 +198,544 @@ public class ConsultantRepositoryGatewayMySQL implements ConsultantRepositoryGat
 	@Qualifier("mysqlEducationToModelConverter")
 	private EntityToModelConverter<Education, EducationModel> mysqlEducationToModelConverter;
 
-	@Autowired
-	@Qualifier("mysqlLanguageToModelConverter")
-	private EntityToModelConverter<Language, LanguageModel> mysqlLanguageToModelConverter;
+	/**
+	 * Reads the names only, walking the consultants by id in batches.
+	 */
+	@PostConstruct
+	public void buildConsultantNameIndex() {
+		if (!consultantNameIndex.isEnabled()) {
+			return;
+		}
+		QConsultant consultant = fromConsultant();
+		long lastId = 0;
+		List<Tuple> names;
+		do {
+			names = new JPAQuery(entityManager).from(consultant)
+				.where(consultant.id.gt(lastId))
+				.orderBy(consultant.id.asc())
+				.limit(INDEX_BATCH_SIZE)
+				.list(consultant.id, consultant.firstName, consultant.lastName);
+			for (Tuple name : names) {
+				lastId = name.get(consultant.id);
+				consultantNameIndex.index(String.valueOf(lastId), name.get(consultant.firstName), name.get(consultant.lastName));
+			}
+		} while (names.size() == INDEX_BATCH_SIZE);
+		consultantNameIndex.markReady();
+	}
+
+	/**
+	 * Walks the consultants by id in batches, reading the skills and the
+	 * languages of each batch with one query apiece.
+	 */
+	@PostConstruct
+	public void buildConsultantAttributeIndex() {
+		if (!consultantAttributeIndex.isEnabled()) {
+			return;
+		}
+		QConsultant consultant = fromConsultant();
+		QSkill skill = QSkill.skill;
+		QLanguage language = QLanguage.language;
+		QExperience experience = QExperience.experience;
+		long lastId = 0;
+		List<Tuple> details;
+		do {
+			details = new JPAQuery(entityManager).from(consultant)
+				.where(consultant.id.gt(lastId))
+				.orderBy(consultant.id.asc())
+				.limit(INDEX_BATCH_SIZE)
+				.list(consultant.id, consultant.gender, consultant.birthCountry);
+			if (details.isEmpty()) {
+				break;
+			}
+			long firstId = details.get(0).get(consultant.id);
+			lastId = details.get(details.size() - 1).get(consultant.id);
+			Multimap<Long, String> skills = ArrayListMultimap.create();
+			for (Tuple row : new JPAQuery(entityManager).from(skill)
+					.where(skill.id.consultant.id.between(firstId, lastId))
+					.list(skill.id.consultant.id, skill.id.skill)) {
+				skills.put(row.get(skill.id.consultant.id), row.get(skill.id.skill));
+			}
+			Multimap<Long, LanguageModel> languages = ArrayListMultimap.create();
+			for (Tuple row : new JPAQuery(entityManager).from(language)
+					.where(language.id.consultant.id.between(firstId, lastId))
+					.list(language.id.consultant.id, language.id.lang, language.proficiency)) {
+				languages.put(row.get(language.id.consultant.id), new LanguageModel(row.get(language.id.lang), row.get(language.proficiency)));
+			}
+			Multimap<Long, ExperienceModel> experiences = experiencePeriods(experience.consultant.id.between(firstId, lastId));
+			for (Tuple row : details) {
+				Long consultantId = row.get(consultant.id);
+				consultantAttributeIndex.index(String.valueOf(consultantId), skills.get(consultantId), languages.get(consultantId),
+					row.get(consultant.gender), row.get(consultant.birthCountry), experiences.get(consultantId));
+			}
+		} while (details.size() == INDEX_BATCH_SIZE);
+		consultantAttributeIndex.markReady();
+	}
+
+	/**
+	 * @return the periods of the experiences matching, by consultant id
+	 */
+	private Multimap<Long, ExperienceModel> experiencePeriods(BooleanExpression where) {
+		QExperience experience = QExperience.experience;
+		Multimap<Long, ExperienceModel> experiences = ArrayListMultimap.create();
+		for (Tuple row : new JPAQuery(entityManager).from(experience)
+				.where(where)
+				.list(experience.consultant.id, experience.id, experience.periodFrom, experience.periodTo, experience.current)) {
+			ExperienceModel period = new ExperienceModel();
+			period.setId(String.valueOf(row.get(experience.id)));
+			period.setPeriodFrom(row.get(experience.periodFrom));
+			period.setPeriodTo(row.get(experience.periodTo));
+			period.setCurrent(row.get(experience.current));
+			experiences.put(row.get(experience.consultant.id), period);
+		}
+		return experiences;
+	}
 
 	@Override
 	public ConsultantModel findOneConsultant(String consultantId) {
-		return mysqlConsultantToModelConverter.convert(consultantRepository.findOne(Long.parseLong(consultantId)));
+		return mysqlConsultantToModelConverter.convert(consultantRepository.findProfile(Long.parseLong(consultantId)));
 	}
 
 	@Override
 	public Page<ConsultantModel> findAllConsultants(Pageable pageable) {
-		Page<Consultant> consultantPage = consultantRepository.findAll(pageable);
-		return new PageImpl<>(mysqlConsultantToModelConverter.convertList(consultantPage.getContent()), pageable, consultantPage.getTotalElements());
+		return paginateConsultants(null, Optional.<OrderSpecifier<Double>>absent(), pageable);
+	}
+
+	@Override
+	public Page<ConsultantSummaryModel> findAllConsultantSummaries(Pageable pageable) {
+		return paginateConsultantSummaries(null, Optional.<OrderSpecifier<Double>>absent(), pageable);
 	}
 
 	@Override
 	public Page<ConsultantModel> paginateConsultants(ConsultantSearchCriteria searchCriteria, Pageable pageable) {
-		Page<Consultant> consultantPage = consultantRepository.findAll(whereCondition(searchCriteria), pageable);
-		return new PageImpl<>(mysqlConsultantToModelConverter.convertList(consultantPage.getContent()), pageable, consultantPage.getTotalElements());
+		if (searchCriteria.isFuzzyMatch()) {
+			Optional<List<String>> rankedIds = searchFuzzy(searchCriteria);
+			if (rankedIds.isPresent()) {
+				return rankedConsultants(rankedIds.get(), searchCriteria, pageable, consultantsWithIds(), mysqlConsultantToModelConverter);
+			}
+		}
+		IndexedIds indexedIds = searchIndexedIds(searchCriteria);
+		if (indexedIds.isEmpty()) {
+			return new PageImpl<>(Lists.<ConsultantModel>newArrayList(), pageable, 0);
+		}
+		Optional<OrderSpecifier<Double>> relevance = StringUtils.hasText(searchCriteria.getText())
+			? Optional.of(textRelevance(searchCriteria.getText())) : Optional.<OrderSpecifier<Double>>absent();
+		return paginateConsultants(whereCondition(searchCriteria, indexedIds), relevance, pageable);
 	}
 
-	private com.mysema.query.types.Predicate whereCondition(ConsultantSearchCriteria searchCriteria) {
-		BooleanBuilder whereCondition = new BooleanBuilder();
+	@Override
+	public Page<ConsultantSummaryModel> paginateConsultantSummaries(ConsultantSearchCriteria searchCriteria, Pageable pageable) {
+		if (searchCriteria.isFuzzyMatch()) {
+			Optional<List<String>> rankedIds = searchFuzzy(searchCriteria);
+			if (rankedIds.isPresent()) {
+				return rankedConsultants(rankedIds.get(), searchCriteria, pageable, summariesWithIds(), summaryConverter());
+			}
+		}
+		IndexedIds indexedIds = searchIndexedIds(searchCriteria);
+		if (indexedIds.isEmpty()) {
+			return new PageImpl<>(Lists.<ConsultantSummaryModel>newArrayList(), pageable, 0);
+		}
+		Optional<OrderSpecifier<Double>> relevance = StringUtils.hasText(searchCriteria.getText())
+			? Optional.of(textRelevance(searchCriteria.getText())) : Optional.<OrderSpecifier<Double>>absent();
+		return paginateConsultantSummaries(whereCondition(searchCriteria, indexedIds), relevance, pageable);
+	}
+
+	/**
+	 * Pages are cached once converted, since the entities are attached to
+	 * the persistence context of the request that loaded them.
+	 */
+	private Page<ConsultantModel> paginateConsultants(com.mysema.query.types.Predicate whereCondition, Optional<OrderSpecifier<Double>> relevance, Pageable pageable) {
+		String fingerprint = String.valueOf(whereCondition) + (relevance.isPresent() ? " order by " + relevance.get() : "");
+		Page<ConsultantModel> page = pagePrefetcher.get(PageKey.of(Consultant.class, pageable, fingerprint), consultantsPage(whereCondition, relevance, pageable));
+		if (page.hasNext()) {
+			Pageable nextPageable = pageable.next();
+			pagePrefetcher.prefetch(PageKey.of(Consultant.class, nextPageable, fingerprint), consultantsPage(whereCondition, relevance, nextPageable));
+		}
+		return page;
+	}
+
+	private Page<ConsultantSummaryModel> paginateConsultantSummaries(com.mysema.query.types.Predicate whereCondition, Optional<OrderSpecifier<Double>> relevance, Pageable pageable) {
+		String fingerprint = "summaries where " + whereCondition + (relevance.isPresent() ? " order by " + relevance.get() : "");
+		Page<ConsultantSummaryModel> page = pagePrefetcher.get(PageKey.of(Consultant.class, pageable, fingerprint), consultantSummariesPage(whereCondition, relevance, pageable));
+		if (page.hasNext()) {
+			Pageable nextPageable = pageable.next();
+			pagePrefetcher.prefetch(PageKey.of(Consultant.class, nextPageable, fingerprint), consultantSummariesPage(whereCondition, relevance, nextPageable));
+		}
+		return page;
+	}
+
+	/**
+	 * The relevance, if any, comes before the sort of the pageable.
+	 */
+	private Callable<Page<ConsultantModel>> consultantsPage(final com.mysema.query.types.Predicate whereCondition, final Optional<OrderSpecifier<Double>> relevance, final Pageable pageable) {
+		return new Callable<Page<ConsultantModel>>() {
+			@Override
+			public Page<ConsultantModel> call() {
+				JPAQuery jpaQuery = new JPAQuery(entityManager).from(fromConsultant()).where(whereCondition);
+				if (relevance.isPresent()) {
+					jpaQuery.orderBy(relevance.get());
+				}
+				Page<Consultant> consultantPage = paginationService.getPaginatedResult(pageable, jpaQuery, fromConsultant());
+				return new PageImpl<>(mysqlConsultantToModelConverter.convertList(consultantPage.getContent()), pageable, consultantPage.getTotalElements());
+			}
+		};
+	}
+
+	/**
+	 * A single query per page, the skills of each consultant aggregated by
+	 * a subquery rather than read from the lazy collections.
+	 */
+	private Callable<Page<ConsultantSummaryModel>> consultantSummariesPage(final com.mysema.query.types.Predicate whereCondition, final Optional<OrderSpecifier<Double>> relevance, final Pageable pageable) {
+		return new Callable<Page<ConsultantSummaryModel>>() {
+			@Override
+			public Page<ConsultantSummaryModel> call() {
+				JPAQuery jpaQuery = new JPAQuery(entityManager).from(fromConsultant()).where(whereCondition);
+				if (relevance.isPresent()) {
+					jpaQuery.orderBy(relevance.get());
+				}
+				Page<Tuple> rows = paginationService.getPaginatedResult(pageable, jpaQuery, fromConsultant(), summaryProjection());
+				List<ConsultantSummaryModel> content = Lists.newArrayList();
+				for (Tuple row : rows.getContent()) {
+					content.add(summaryOf(row));
+				}
+				return new PageImpl<>(content, pageable, rows.getTotalElements());
+			}
+		};
+	}
+
+	private static QTuple summaryProjection() {
+		QConsultant consultant = fromConsultant();
+		return new QTuple(consultant.id, consultant.consultantNo, consultant.registrationDate,
+			consultant.firstName, consultant.lastName, consultant.birthDate, skillsOf(consultant));
+	}
+
+	private static StringExpression skillsOf(QConsultant consultant) {
+		return Expressions.stringTemplate(MySQLFullTextDialect.CONSULTANT_SKILLS + "({0})", consultant.id);
+	}
+
+	private static Converter<Tuple, ConsultantSummaryModel> summaryConverter() {
+		return new Converter<Tuple, ConsultantSummaryModel>() {
+			@Override
+			public ConsultantSummaryModel convert(Tuple row) {
+				return summaryOf(row);
+			}
+		};
+	}
+
+	private static ConsultantSummaryModel summaryOf(Tuple row) {
+		QConsultant consultant = fromConsultant();
+		String skills = row.get(skillsOf(consultant));
+		return new ConsultantSummaryModel(
+			String.valueOf(row.get(consultant.id)),
+			row.get(consultant.consultantNo),
+			row.get(consultant.registrationDate),
+			row.get(consultant.firstName),
+			row.get(consultant.lastName),
+			row.get(consultant.birthDate),
+			(skills == null) ? Lists.<String>newArrayList() : Lists.newArrayList(SKILLS_SPLITTER.split(skills)));
+	}
+
+	@Override
+	public ConsultantFacets countFacets(ConsultantSearchCriteria searchCriteria, int topSkills) {
+		if (ConsultantFacetCounts.isUnfiltered(searchCriteria)) {
+			return consultantFacetCounts.getFacets(topSkills, new Supplier<ConsultantFacets>() {
+				@Override
+				public ConsultantFacets get() {
+					return countFacets(null, 0);
+				}
+			});
+		}
+		IndexedIds indexedIds = searchIndexedIds(searchCriteria);
+		if (indexedIds.isEmpty()) {
+			return new ConsultantFacets();
+		}
+		return countFacets(whereCondition(searchCriteria, indexedIds), topSkills);
+	}
+
+	/**
+	 * One grouped query per facet, restricted to the consultants matching
+	 * the where condition, if any.
+	 */
+	private ConsultantFacets countFacets(com.mysema.query.types.Predicate whereCondition, int topSkills) {
+		QSkill skill = QSkill.skill;
+		NumberExpression<Long> skillCount = skill.count();
+		JPAQuery skillQuery = new JPAQuery(entityManager).from(skill)
+			.where(consultantMatches(skill.id.consultant.id, whereCondition))
+			.groupBy(skill.id.skill)
+			.orderBy(skillCount.desc(), skill.id.skill.asc());
+		if (topSkills > 0) {
+			skillQuery.limit(topSkills);
+		}
+		Map<String, Long> skills = Maps.newLinkedHashMap();
+		for (Tuple row : skillQuery.list(skill.id.skill, skillCount)) {
+			skills.put(row.get(skill.id.skill), row.get(skillCount));
+		}
+
+		QLanguage language = QLanguage.language;
+		NumberExpression<Long> languageCount = language.count();
+		List<Tuple> languageRows = new JPAQuery(entityManager).from(language)
+			.where(consultantMatches(language.id.consultant.id, whereCondition))
+			.groupBy(language.id.lang, language.proficiency)
+			.list(language.id.lang, language.proficiency, languageCount);
+		Map<LanguageModel, Long> languages = Maps.newHashMap();
+		for (Tuple row : languageRows) {
+			languages.put(new LanguageModel(row.get(language.id.lang), row.get(language.proficiency)), row.get(languageCount));
+		}
+		return ConsultantFacetCounts.facetsOf(skills, languages, topSkills);
+	}
+
+	private static com.mysema.query.types.Predicate consultantMatches(NumberPath<Long> consultantId, com.mysema.query.types.Predicate whereCondition) {
+		return (whereCondition == null) ? null : consultantId.in(new JPASubQuery()
+			.from(fromConsultant()).where(whereCondition).list(fromConsultant().id));
+	}
+
+	/**
+	 * The page of the consultants matching the search in the order of the
+	 * fuzzy name ranking: the ids of those matching the other criteria are
+	 * read first, then only the rows of the page are loaded, by id.
+	 */
+	private <R, T> Page<T> rankedConsultants(List<String> rankedIds, ConsultantSearchCriteria searchCriteria, Pageable pageable,
+	                                         Function<List<Long>, Map<Long, R>> rowsWithIds, Converter<R, T> converter) {
+		List<Long> matchingRankedIds = matchingRankedIds(rankedIds, searchCriteria);
+		List<Long> pageIds = pageOf(matchingRankedIds, pageable);
+		List<T> content = Lists.newArrayList();
+		if (!pageIds.isEmpty()) {
+			Map<Long, R> pageRows = rowsWithIds.apply(pageIds);
+			for (Long id : pageIds) {
+				if (pageRows.containsKey(id)) {
+					content.add(converter.convert(pageRows.get(id)));
+				}
+			}
+		}
+		return new PageImpl<>(content, pageable, matchingRankedIds.size());
+	}
+
+	private Function<List<Long>, Map<Long, Consultant>> consultantsWithIds() {
+		return new Function<List<Long>, Map<Long, Consultant>>() {
+			@Override
+			public Map<Long, Consultant> apply(List<Long> consultantIds) {
+				Map<Long, Consultant> consultants = Maps.newHashMap();
+				for (Consultant consultant : consultantRepository.findAll(consultantIds)) {
+					consultants.put(consultant.getId(), consultant);
+				}
+				return consultants;
+			}
+		};
+	}
+
+	private Function<List<Long>, Map<Long, Tuple>> summariesWithIds() {
+		return new Function<List<Long>, Map<Long, Tuple>>() {
+			@Override
+			public Map<Long, Tuple> apply(List<Long> consultantIds) {
+				Map<Long, Tuple> summaries = Maps.newHashMap();
+				for (Tuple row : new JPAQuery(entityManager).from(fromConsultant()).where(fromConsultant().id.in(consultantIds)).list(summaryProjection())) {
+					summaries.put(row.get(fromConsultant().id), row);
+				}
+				return summaries;
+			}
+		};
+	}
+
+	/**
+	 * @return the ids of the consultants matching the search, in the order of
+	 * the fuzzy name ranking
+	 */
+	private List<Long> matchingRankedIds(List<String> rankedIds, ConsultantSearchCriteria searchCriteria) {
+		IndexedIds indexedIds = IndexedIds.of(Optional.<Set<String>>of(ImmutableSet.copyOf(rankedIds)), consultantAttributeIndex.search(searchCriteria));
+		if (indexedIds.isEmpty()) {
+			return Lists.newArrayList();
+		}
+		List<Long> matchingIds = new JPAQuery(entityManager).from(fromConsultant())
+			.where(whereCondition(searchCriteria, indexedIds))
+			.list(fromConsultant().id);
+		return Lists.newArrayList(Iterables.filter(
+			Lists.transform(rankedIds, toConsultantId()), Predicates.in(Sets.newHashSet(matchingIds))));
+	}
+
+	private static List<Long> pageOf(List<Long> ids, Pageable pageable) {
+		return ids.subList(
+			Math.min(pageable.getOffset(), ids.size()),
+			Math.min(pageable.getOffset() + pageable.getPageSize(), ids.size()));
+	}
+
+	/**
+	 * Through the in memory name index if enabled, otherwise through the
+	 * trigram table: the consultants sharing the most trigrams with the names
+	 * come first, a name within a few typos of another sharing all but three
+	 * of its trigrams per typo.
+	 */
+	private Optional<List<String>> searchFuzzy(ConsultantSearchCriteria searchCriteria) {
+		if (consultantNameIndex.isEnabled()) {
+			return consultantNameIndex.searchFuzzy(searchCriteria.getName(), searchCriteria.getLastName());
+		}
+		Map<Long, Long> sharedTrigrams = null;
 		if (StringUtils.hasText(searchCriteria.getName())) {
-			whereCondition.and(fromConsultant().firstName.toLowerCase().like(contains(searchCriteria.getName())));
+			sharedTrigrams = sharedTrigrams(NameField.FIRST_NAME, searchCriteria.getName(), sharedTrigrams);
 		}
 		if (StringUtils.hasText(searchCriteria.getLastName())) {
-			whereCondition.and(fromConsultant().lastName.toLowerCase().like(contains(searchCriteria.getLastName())));
+			sharedTrigrams = sharedTrigrams(NameField.LAST_NAME, searchCriteria.getLastName(), sharedTrigrams);
 		}
-		if (StringUtils.hasText(searchCriteria.getSkills())) {
-			whereCondition.and(fromConsultant().skills.any().id.skill.in(searchCriteria.getSkills().split(",")));
+		if (sharedTrigrams == null) {
+			return Optional.absent();
+		}
+		Ordering<Long> byShared = Ordering.<Long>natural().reverse().onResultOf(Functions.forMap(sharedTrigrams));
+		List<Long> rankedIds = byShared.compound(Ordering.<Long>natural()).leastOf(sharedTrigrams.keySet(), FUZZY_MAX_MATCHES);
+		return Optional.<List<String>>of(Lists.newArrayList(Iterables.transform(rankedIds, Functions.toStringFunction())));
+	}
+
+	/**
+	 * @param previous the counts for the other name, whose consultants only are kept
+	 * @return how many trigrams the consultants' names share with the given one
+	 */
+	private Map<Long, Long> sharedTrigrams(NameField nameField, String name, Map<Long, Long> previous) {
+		Set<String> trigrams = ConsultantNameTrigram.trigramsOf(name);
+		int typos = (name.trim().length() < FUZZY_TWO_TYPOS_LENGTH) ? 1 : 2;
+		QConsultantNameTrigram nameTrigram = QConsultantNameTrigram.consultantNameTrigram;
+		NumberExpression<Long> shared = nameTrigram.id.trigram.count();
+		Map<Long, Long> sharedTrigrams = Maps.newHashMap();
+		if (trigrams.isEmpty()) {
+			return sharedTrigrams;
+		}
+		List<Tuple> rows = new JPAQuery(entityManager).from(nameTrigram)
+			.where(nameTrigram.id.nameField.eq(nameField), nameTrigram.id.trigram.in(trigrams))
+			.groupBy(nameTrigram.id.consultantId)
+			.having(shared.goe(Math.max(1L, trigrams.size() - 3L * typos)))
+			.list(nameTrigram.id.consultantId, shared);
+		for (Tuple row : rows) {
+			Long consultantId = row.get(nameTrigram.id.consultantId);
+			if (previous == null || previous.containsKey(consultantId)) {
+				long sharedWithPrevious = (previous == null) ? 0 : previous.get(consultantId);
+				sharedTrigrams.put(consultantId, row.get(shared) + sharedWithPrevious);
+			}
+		}
+		return sharedTrigrams;
+	}
+
+	private IndexedIds searchIndexedIds(ConsultantSearchCriteria searchCriteria) {
+		if (searchCriteria.isFuzzyMatch()) {
+			Optional<List<String>> rankedIds = searchFuzzy(searchCriteria);
+			if (rankedIds.isPresent()) {
+				return IndexedIds.of(Optional.<Set<String>>of(ImmutableSet.copyOf(rankedIds.get())), consultantAttributeIndex.search(searchCriteria));
+			}
+		}
+		return IndexedIds.of(
+			consultantNameIndex.search(searchCriteria.getName(), searchCriteria.getLastName(), searchCriteria.isPrefixMatch()),
+			consultantAttributeIndex.search(searchCriteria));
+	}
+
+	private com.mysema.query.types.Predicate whereCondition(ConsultantSearchCriteria searchCriteria, IndexedIds indexedIds) {
+		BooleanBuilder whereCondition = new BooleanBuilder();
+		Optional<Set<String>> ids = indexedIds.get();
+		if (ids.isPresent()) {
+			whereCondition.and(fromConsultant().id.in(Sets.newTreeSet(Iterables.transform(ids.get(), toConsultantId()))));
+		}
+		if (!indexedIds.coversNames()) {
+			if (StringUtils.hasText(searchCriteria.getName())) {
+				whereCondition.and(nameMatches(fromConsultant().firstName, NameField.FIRST_NAME, searchCriteria.getName(), searchCriteria.isPrefixMatch()));
+			}
+			if (StringUtils.hasText(searchCriteria.getLastName())) {
+				whereCondition.and(nameMatches(fromConsultant().lastName, NameField.LAST_NAME, searchCriteria.getLastName(), searchCriteria.isPrefixMatch()));
+			}
+		}
+		if (!indexedIds.coversAttributes()) {
+			attributeConditions(searchCriteria, whereCondition);
+		}
+		if (StringUtils.hasText(searchCriteria.getText())) {
+			whereCondition.and(textMatches(searchCriteria.getText()));
 		}
 		return whereCondition.getValue();
 	}
 
+	private static void attributeConditions(ConsultantSearchCriteria searchCriteria, BooleanBuilder whereCondition) {
+		if (StringUtils.hasText(searchCriteria.getSkills())) {
+			String[] skills = searchCriteria.getSkills().split(",");
+			if (searchCriteria.isAllSkillsMatch()) {
+				for (String skill : skills) {
+					whereCondition.and(fromConsultant().skills.any().id.skill.eq(skill));
+				}
+			} else {
+				whereCondition.and(fromConsultant().skills.any().id.skill.in(skills));
+			}
+		}
+		if (StringUtils.hasText(searchCriteria.getLanguage())) {
+			QLanguage language = QLanguage.language;
+			BooleanBuilder spoken = new BooleanBuilder(language.id.lang.eq(searchCriteria.getLanguage()));
+			if (StringUtils.hasText(searchCriteria.getProficiency())) {
+				spoken.and(language.proficiency.eq(searchCriteria.getProficiency()));
+			}
+			whereCondition.and(fromConsultant().id.in(new JPASubQuery().from(language).where(spoken).list(language.id.consultant.id)));
+		}
+		if (StringUtils.hasText(searchCriteria.getGender())) {
+			whereCondition.and(fromConsultant().gender.eq(searchCriteria.getGender()));
+		}
+		if (StringUtils.hasText(searchCriteria.getBirthCountry())) {
+			whereCondition.and(fromConsultant().birthCountry.eq(searchCriteria.getBirthCountry()));
+		}
+	}
+
+	/**
+	 * The consultants with an experience or education description matching
+	 * the text, found through the full-text indexes.
+	 */
+	private static com.mysema.query.types.Predicate textMatches(String text) {
+		QExperience experience = QExperience.experience;
+		QEducation education = QEducation.education;
+		Expression<String> searchedText = ConstantImpl.create(text);
+		NumberExpression<Double> experienceMatch = Expressions.numberTemplate(Double.class,
+			MySQLFullTextDialect.EXPERIENCE_MATCH + "({0}, {1})", experience.description, searchedText);
+		NumberExpression<Double> educationMatch = Expressions.numberTemplate(Double.class,
+			MySQLFullTextDialect.EDUCATION_MATCH + "({0}, {1}, {2})", education.description, education.activities, searchedText);
+		return fromConsultant().id.in(new JPASubQuery().from(experience).where(experienceMatch.gt(0d)).list(experience.consultant.id))
+			.or(fromConsultant().id.in(new JPASubQuery().from(education).where(educationMatch.gt(0d)).list(education.consultant.id)));
+	}
+
+	private static OrderSpecifier<Double> textRelevance(String text) {
+		return Expressions.numberTemplate(Double.class,
+			MySQLFullTextDialect.EXPERIENCE_RELEVANCE + "({0}, {1}) + " + MySQLFullTextDialect.EDUCATION_RELEVANCE + "({0}, {1})",
+			fromConsultant().id, ConstantImpl.create(text)).desc();
+	}
+
+	/**
+	 * A prefix is matched as is, the case-insensitive collation letting the
+	 * name index serve it. Otherwise the consultants having every trigram of
+	 * the fragment are found through the trigram table index, the LIKE then
+	 * only checks their order.
+	 */
+	private static com.mysema.query.types.Predicate nameMatches(StringPath name, NameField nameField, String fragment, boolean prefix) {
+		if (prefix) {
+			return name.startsWith(fragment.trim());
+		}
+		BooleanBuilder nameMatches = new BooleanBuilder();
+		Set<String> trigrams = ConsultantNameTrigram.trigramsOf(fragment);
+		if (!trigrams.isEmpty()) {
+			QConsultantNameTrigram nameTrigram = QConsultantNameTrigram.consultantNameTrigram;
+			nameMatches.and(fromConsultant().id.in(new JPASubQuery().from(nameTrigram)
+				.where(nameTrigram.id.nameField.eq(nameField), nameTrigram.id.trigram.in(trigrams))
+				.groupBy(nameTrigram.id.consultantId)
+				.having(nameTrigram.id.trigram.count().eq((long) trigrams.size()))
+				.list(nameTrigram.id.consultantId)));
+		}
+		return nameMatches.and(name.toLowerCase().like(contains(fragment))).getValue();
+	}
+
+	private void saveNameTrigrams(Long consultantId, String firstName, String lastName) {
+		consultantNameTrigramRepository.deleteByConsultantId(consultantId);
+		for (String trigram : ConsultantNameTrigram.trigramsOf(firstName)) {
+			entityManager.persist(new ConsultantNameTrigram(consultantId, NameField.FIRST_NAME, trigram));
+		}
+		for (String trigram : ConsultantNameTrigram.trigramsOf(lastName)) {
+			entityManager.persist(new ConsultantNameTrigram(consultantId, NameField.LAST_NAME, trigram));
+		}
+	}
+
+	private static Function<String, Long> toConsultantId() {
+		return new Function<String, Long>() {
+			@Override
+			public Long apply(String consultantId) {
+				return Long.parseLong(consultantId);
+			}
+		};
+	}
+
 	private static String contains(String value) {
 		return "%" + value.toLowerCase() + "%";
 	}
@@ -132,7 +749,8 @@ public class ConsultantRepositoryGatewayMySQL implements ConsultantRepositoryGat
 	public ConsultantModel savePersonalDetails(ConsultantModel consultantModel) {
 		Consultant consultant = new Consultant();
 		consultant.setConsultantNo(consultantModel.getConsultantNo());
-		consultant.setRegistrationDate(consultantModel.getRegistrationDate());
+		consultant.setRegistrationDate((consultantModel.getRegistrationDate() != null)
+			? consultantModel.getRegistrationDate() : Calendar.getInstance().getTime());
 		consultant.setFiscalCode(consultantModel.getFiscalCode());
 		consultant.setEmail(consultantModel.getEmail());
 		consultant.setFirstName(consultantModel.getFirstName());
@@ -148,28 +766,193 @@ public class ConsultantRepositoryGatewayMySQL implements ConsultantRepositoryGat
 		mapResidenceData(consultantModel, consultant);
 		mapDomicileData(consultantModel, consultant);
 		consultantRepository.save(consultant);
-		entityManager.refresh(consultant);
+		saveNameTrigrams(consultant.getId(), consultant.getFirstName(), consultant.getLastName());
+		consultantNameIndex.update(String.valueOf(consultant.getId()), consultant.getFirstName(), consultant.getLastName());
+		consultantAttributeIndex.personalDetailsChanged(String.valueOf(consultant.getId()), consultant.getGender(), consultant.getBirthCountry());
+		pageCache.invalidate(Consultant.class);
 		return mysqlConsultantToModelConverter.convert(consultant);
 	}
 
+	/**
+	 * The consultants are upserted by a multi-row insert on their unique
+	 * number, which keeps the registration date of the ones already stored,
+	 * their children are then deleted and inserted again the same way.
+	 * The new rows take their identifiers from the id generator table, like
+	 * the entities saved through Hibernate.
+	 * The addresses, stored in rows of their own, are not imported.
+	 */
 	@Override
 	@Transactional(rollbackFor = Exception.class)
-	public void updatePersonalDetails(ConsultantModel consultantModel, String consultantId) {
-		Consultant consultant = consultantRepository.findOne(Long.parseLong(consultantId));
-		consultant.setFiscalCode(consultantModel.getFiscalCode());
-		consultant.setEmail(consultantModel.getEmail());
-		consultant.setFirstName(consultantModel.getFirstName());
-		consultant.setLastName(consultantModel.getLastName());
-		consultant.setGender(consultantModel.getGender());
-		consultant.setPhoneNumber(consultantModel.getPhoneNumber());
-		consultant.setMobileNumber(consultantModel.getMobileNumber());
-		consultant.setBirthDate(consultantModel.getBirthDate());
-		consultant.setBirthCity(consultantModel.getBirthCity());
-		consultant.setBirthCountry(consultantModel.getBirthCountry());
-		consultant.setIdentityCard(consultantModel.getIdentityCardNo());
-		consultant.setInterests(consultantModel.getInterests());
-		mapResidenceData(consultantModel, consultant);
-		mapDomicileData(consultantModel, consultant);
+	public int importConsultants(List<ConsultantModel> consultantModels) {
+		QConsultant consultant = fromConsultant();
+		QSkill skill = QSkill.skill;
+		QLanguage language = QLanguage.language;
+		List<String> consultantNos = Lists.newArrayList();
+		for (ConsultantModel consultantModel : consultantModels) {
+			consultantNos.add(consultantModel.getConsultantNo());
+		}
+		Map<String, Long> storedIds = Maps.newHashMap();
+		for (Tuple row : new JPAQuery(entityManager).from(consultant)
+				.where(consultant.consultantNo.in(consultantNos))
+				.list(consultant.consultantNo, consultant.id)) {
+			storedIds.put(row.get(consultant.consultantNo), row.get(consultant.id));
+		}
+		List<Object[]> consultantRows = Lists.newArrayList(), newConsultantRows = Lists.newArrayList();
+		for (ConsultantModel consultantModel : consultantModels) {
+			Object[] consultantRow = new Object[]{
+				storedIds.get(consultantModel.getConsultantNo()), consultantModel.getConsultantNo(),
+				consultantModel.getRegistrationDate(), consultantModel.getFiscalCode(),
+				consultantModel.getEmail(), consultantModel.getFirstName(), consultantModel.getLastName(),
+				consultantModel.getGender(), consultantModel.getPhoneNumber(), consultantModel.getMobileNumber(),
+				consultantModel.getBirthDate(), consultantModel.getBirthCity(), consultantModel.getBirthCountry(),
+				consultantModel.getIdentityCardNo(), consultantModel.getInterests()};
+			consultantRows.add(consultantRow);
+			if (consultantRow[0] == null) {
+				newConsultantRows.add(consultantRow);
+			}
+		}
+		assignIds("consultant", newConsultantRows);
+		Multimap<Long, String> skillsBefore = ArrayListMultimap.create();
+		Multimap<Long, LanguageModel> languagesBefore = ArrayListMultimap.create();
+		if (!storedIds.isEmpty()) {
+			for (Tuple row : new JPAQuery(entityManager).from(skill)
+					.where(skill.id.consultant.id.in(storedIds.values()))
+					.list(skill.id.consultant.id, skill.id.skill)) {
+				skillsBefore.put(row.get(skill.id.consultant.id), row.get(skill.id.skill));
+			}
+			for (Tuple row : new JPAQuery(entityManager).from(language)
+					.where(language.id.consultant.id.in(storedIds.values()))
+					.list(language.id.consultant.id, language.id.lang, language.proficiency)) {
+				languagesBefore.put(row.get(language.id.consultant.id), new LanguageModel(row.get(language.id.lang), row.get(language.proficiency)));
+			}
+			for (String table : Arrays.asList("skills", "languages", "experience", "education", "consultant_name_trigram")) {
+				deleteRows(table, storedIds.values());
+			}
+		}
+		insertRows("insert into consultant (id, consultant_no, registr_date, fiscal_code, email, first_name, last_name, gender, " +
+			"phone_number, mobile_number, birth_date, birth_city, birth_country, identity_card, interests)", consultantRows,
+			" on duplicate key update fiscal_code = values(fiscal_code), email = values(email), first_name = values(first_name), " +
+				"last_name = values(last_name), gender = values(gender), phone_number = values(phone_number), " +
+				"mobile_number = values(mobile_number), birth_date = values(birth_date), birth_city = values(birth_city), " +
+				"birth_country = values(birth_country), identity_card = values(identity_card), interests = values(interests)");
+		Map<String, Long> ids = Maps.newHashMap();
+		for (Tuple row : new JPAQuery(entityManager).from(consultant)
+				.where(consultant.consultantNo.in(consultantNos))
+				.list(consultant.consultantNo, consultant.id)) {
+			ids.put(row.get(consultant.consultantNo), row.get(consultant.id));
+		}
+		insertChildRows(consultantModels, ids);
+		Multimap<Long, ExperienceModel> experiences = experiencePeriods(QExperience.experience.consultant.id.in(ids.values()));
+		for (ConsultantModel consultantModel : consultantModels) {
+			Long id = ids.get(consultantModel.getConsultantNo());
+			consultantFacetCounts.skillsChanged(skillsBefore.get(id), consultantModel.getSkills());
+			consultantFacetCounts.languagesChanged(languagesBefore.get(id), consultantModel.getLanguages());
+			consultantNameIndex.update(String.valueOf(id), consultantModel.getFirstName(), consultantModel.getLastName());
+			consultantAttributeIndex.consultantChanged(String.valueOf(id), consultantModel.getSkills(), consultantModel.getLanguages(),
+				consultantModel.getGender(), consultantModel.getBirthCountry(), experiences.get(id));
+		}
+		pageCache.invalidate(Consultant.class);
+		return consultantModels.size();
+	}
+
+	private void insertChildRows(List<ConsultantModel> consultantModels, Map<String, Long> ids) {
+		List<Object[]> skillRows = Lists.newArrayList(), languageRows = Lists.newArrayList(),
+			experienceRows = Lists.newArrayList(), educationRows = Lists.newArrayList(), trigramRows = Lists.newArrayList();
+		for (ConsultantModel consultantModel : consultantModels) {
+			Long id = ids.get(consultantModel.getConsultantNo());
+			for (String skillName : Sets.newLinkedHashSet(consultantModel.getSkills())) {
+				skillRows.add(new Object[]{id, skillName});
+			}
+			for (LanguageModel languageModel : distinctLanguages(consultantModel.getLanguages().toArray(new LanguageModel[0]))) {
+				languageRows.add(new Object[]{id, languageModel.getLanguage(), languageModel.getProficiency()});
+			}
+			for (ExperienceModel experienceModel : consultantModel.getExperiences()) {
+				experienceRows.add(new Object[]{
+					null, experienceModel.getCompanyName(), experienceModel.getPosition(), experienceModel.getLocality(),
+					experienceModel.getPeriodFrom(), experienceModel.getPeriodTo(), experienceModel.isCurrent(),
+					experienceModel.getDescription(), id});
+			}
+			for (EducationModel educationModel : consultantModel.getEducationList()) {
+				educationRows.add(new Object[]{
+					null, educationModel.getSchool(), educationModel.getStartYear(), educationModel.getEndYear(), educationModel.isCurrent(),
+					educationModel.getSchoolDegree(), educationModel.getSchoolFieldOfStudy(), educationModel.getSchoolGrade(),
+					educationModel.getSchoolActivities(), educationModel.getDescription(), id});
+			}
+			for (String trigram : ConsultantNameTrigram.trigramsOf(consultantModel.getFirstName())) {
+				trigramRows.add(new Object[]{id, NameField.FIRST_NAME.name(), trigram});
+			}
+			for (String trigram : ConsultantNameTrigram.trigramsOf(consultantModel.getLastName())) {
+				trigramRows.add(new Object[]{id, NameField.LAST_NAME.name(), trigram});
+			}
+		}
+		insertRows("insert into skills (consultant_id, skill)", skillRows);
+		insertRows("insert into languages (consultant_id, lang, proficiency)", languageRows);
+		assignIds("experience", experienceRows);
+		assignIds("education", educationRows);
+		insertRows("insert into experience (id, company, job_position, location, period_from, period_to, is_current, description, consultant_id)", experienceRows);
+		insertRows("insert into education (id, school, start_year, end_year, is_current, school_degree, field_study, school_grade, " +
+			"activities, description, consultant_id)", educationRows);
+		insertRows("insert into consultant_name_trigram (consultant_id, name_field, trigram)", trigramRows);
+	}
+
+	/**
+	 * The edited fields are written by a bulk update, without loading the
+	 * consultant first, unless an address to update is not stored yet.
+	 */
+	@Override
+	@Transactional(rollbackFor = Exception.class)
+	public void updatePersonalDetails(ConsultantModel consultantModel, ConsultantModel snapshot, String consultantId) {
+		FieldChanges changes = FieldChanges.between(snapshot, consultantModel, Iterables.concat(PERSONAL_DETAILS.keySet(),
+			FieldChanges.nestedIn(RESIDENCE, ADDRESS_FIELDS.keySet()), FieldChanges.nestedIn(DOMICILE, ADDRESS_FIELDS.keySet())));
+		if (changes.isEmpty()) {
+			return;
+		}
+		QConsultant consultant = fromConsultant();
+		Long id = Long.parseLong(consultantId);
+		JPAUpdateClause update = setChanged(new JPAUpdateClause(entityManager, consultant), PERSONAL_DETAILS, changes.getChanged());
+		if (!update.isEmpty()) {
+			update.where(consultant.id.eq(id)).execute();
+		}
+		if (!updateAddress(consultant.residence.id, id, changes.within(RESIDENCE)) && consultantModel.getResidence() != null) {
+			mapResidenceData(consultantModel, consultantRepository.findOne(id));
+		}
+		if (!updateAddress(consultant.domicile.id, id, changes.within(DOMICILE)) && consultantModel.getDomicile() != null) {
+			mapDomicileData(consultantModel, consultantRepository.findOne(id));
+		}
+		if (changes.isChanged("firstName", "lastName")) {
+			saveNameTrigrams(id, consultantModel.getFirstName(), consultantModel.getLastName());
+			consultantNameIndex.update(consultantId, consultantModel.getFirstName(), consultantModel.getLastName());
+		}
+		if (changes.isChanged("gender", "birthCountry")) {
+			consultantAttributeIndex.personalDetailsChanged(consultantId, consultantModel.getGender(), consultantModel.getBirthCountry());
+		}
+		pageCache.invalidate(Consultant.class);
+	}
+
+	/**
+	 * @return false if the address has changed but the consultant has none
+	 */
+	private boolean updateAddress(NumberPath<Long> addressId, Long consultantId, Map<String, Object> changes) {
+		if (changes.isEmpty()) {
+			return true;
+		}
+		QConsultant consultant = fromConsultant();
+		QAddress address = QAddress.address;
+		return setChanged(new JPAUpdateClause(entityManager, address), ADDRESS_FIELDS, changes)
+			.where(address.id.eq(new JPASubQuery().from(consultant).where(consultant.id.eq(consultantId)).unique(addressId)))
+			.execute() > 0;
+	}
+
+	private static JPAUpdateClause setChanged(JPAUpdateClause update, Map<String, Path<?>> paths, Map<String, Object> changes) {
+		List<Path<?>> changedPaths = Lists.newArrayList();
+		List<Object> values = Lists.newArrayList();
+		for (Map.Entry<String, Object> change : changes.entrySet()) {
+			if (paths.containsKey(change.getKey())) {
+				changedPaths.add(paths.get(change.getKey()));
+				values.add(change.getValue());
+			}
+		}
+		return update.set(changedPaths, values);
 	}
 
 	private void mapResidenceData(ConsultantModel consultantModel, Consultant consultant) {
@@ -214,6 +997,9 @@ public class ConsultantRepositoryGatewayMySQL implements ConsultantRepositoryGat
 		Consultant consultant = consultantRepository.findOne(Long.parseLong(consultantId));
 		experience.setConsultant(consultant);
 		consultant.getExperiences().add(experience);
+		experienceRepository.save(experience);
+		consultantAttributeIndex.experienceChanged(consultantId, mysqlExperienceToModelConverter.convert(experience));
+		pageCache.invalidate(Consultant.class);
 	}
 
 	@Override
@@ -228,12 +1014,16 @@ public class ConsultantRepositoryGatewayMySQL implements ConsultantRepositoryGat
 			experienceModel.getPeriodTo(),
 			experienceModel.isCurrent(),
 			experienceModel.getDescription());
+		consultantAttributeIndex.experienceChanged(consultantId, experienceModel);
+		pageCache.invalidate(Consultant.class);
 	}
 
 	@Override
 	@Transactional(rollbackFor = Exception.class)
 	public void removeExperience(String consultantId, String experienceId) {
 		experienceRepository.delete(Long.parseLong(experienceId));
+		consultantAttributeIndex.experienceRemoved(consultantId, experienceId);
+		pageCache.invalidate(Consultant.class);
 	}
 
 	@Override
@@ -244,84 +1034,158 @@ public class ConsultantRepositoryGatewayMySQL implements ConsultantRepositoryGat
 
 	@Override
 	@Transactional(rollbackFor = Exception.class)
-	public void addLanguages(LanguageModel[] languageModelArray, final String consultantId) {
-		final Consultant consultant = consultantRepository.findOne(Long.parseLong(consultantId));
-		final List<LanguageModel> languageModels = Lists.newArrayList(languageModelArray);
-		removeLanguagesThatMustNotBeInDBAnymore(consultant, languageModels);
-		removeLanguagesThatAlreadyExistInDB(consultantId, languageModels);
-		Set<Language> languages = Sets.newHashSet(Iterables.transform(languageModels,
-			new Function<LanguageModel, Language>() {
-				@Override
-				public Language apply(LanguageModel input) {
-					LanguagePK pk = new LanguagePK(input.getLanguage(), consultant);
-					Language language = new Language();
-					language.setId(pk);
-					language.setProficiency(input.getProficiency());
-					return language;
-				}
-			}
-		));
-		consultant.getLanguages().addAll(languages);
-	}
-
-	private void removeLanguagesThatMustNotBeInDBAnymore(Consultant consultant, final List<LanguageModel> languageModels) {
-		Iterables.removeIf(consultant.getLanguages(), new Predicate<Language>() {
-			@Override
-			public boolean apply(Language language) {
-				LanguageModel languageModel = mysqlLanguageToModelConverter.convert(language);
-				return !languageModels.contains(languageModel);
+	public void addLanguages(LanguageModel[] languageModelArray, String consultantId) {
+		long id = Long.parseLong(consultantId);
+		QLanguage language = QLanguage.language;
+		List<LanguageModel> languagesBefore = Lists.newArrayList();
+		for (Tuple row : new JPAQuery(entityManager).from(language)
+				.where(language.id.consultant.id.eq(id))
+				.list(language.id.lang, language.proficiency)) {
+			languagesBefore.add(new LanguageModel(row.get(language.id.lang), row.get(language.proficiency)));
+		}
+		List<LanguageModel> languagesAfter = Lists.newArrayList(distinctLanguages(languageModelArray));
+		SetChanges<LanguageModel> changes = SetChanges.between(languagesBefore, languagesAfter);
+		if (changes.isEmpty()) {
+			return;
+		}
+		if (!changes.getRemoved().isEmpty()) {
+			List<String> languagesRemoved = Lists.newArrayList();
+			for (LanguageModel languageModel : changes.getRemoved()) {
+				languagesRemoved.add(languageModel.getLanguage());
 			}
-		});
+			languageRepository.deleteLanguages(id, languagesRemoved);
+		}
+		List<Object[]> rows = Lists.newArrayList();
+		for (LanguageModel languageModel : changes.getAdded()) {
+			rows.add(new Object[]{id, languageModel.getLanguage(), languageModel.getProficiency()});
+		}
+		insertRows("insert into languages (consultant_id, lang, proficiency)", rows);
+		consultantFacetCounts.languagesChanged(languagesBefore, languagesAfter);
+		consultantAttributeIndex.languagesChanged(consultantId, languagesAfter);
+		pageCache.invalidate(Consultant.class);
 	}
 
-	private void removeLanguagesThatAlreadyExistInDB(final String consultantId, List<LanguageModel> languageModels) {
-		Iterables.removeIf(languageModels, new Predicate<LanguageModel>() {
-			@Override
-			public boolean apply(LanguageModel languageModel) {
-				List<LanguageModel> languages = mysqlLanguageToModelConverter.convertList(languageRepository.findByConsultantId(Long.parseLong(consultantId)));
-				return languages.contains(languageModel);
-			}
-		});
+	/**
+	 * One language per consultant being stored, the last proficiency given wins.
+	 */
+	private static Collection<LanguageModel> distinctLanguages(LanguageModel[] languageModelArray) {
+		Map<String, LanguageModel> languages = Maps.newLinkedHashMap();
+		for (LanguageModel languageModel : languageModelArray) {
+			languages.put(languageModel.getLanguage(), languageModel);
+		}
+		return languages.values();
 	}
 
 	@Override
 	@Transactional(rollbackFor = Exception.class)
 	public void addSkills(String[] skillArray, String consultantId) {
-		final Consultant consultant = consultantRepository.findOne(Long.parseLong(consultantId));
-		Set<String> skillSet = Sets.newHashSet(skillArray);
-		removeSkillsThatMustNotBeInDBAnymore(consultant, skillSet);
-		removeSkillsThatAlreadyExistInDB(skillSet);
-		Set<Skill> skills = Sets.newHashSet(Iterables.transform(skillSet, new Function<String, Skill>() {
-			@Override
-			public Skill apply(String input) {
-				return new Skill(new SkillPK(input, consultant));
-			}
-		}));
-		consultant.getSkills().addAll(skills);
+		long id = Long.parseLong(consultantId);
+		QSkill skill = QSkill.skill;
+		List<String> skillsBefore = new JPAQuery(entityManager).from(skill)
+			.where(skill.id.consultant.id.eq(id))
+			.list(skill.id.skill);
+		List<String> skillsAfter = Lists.newArrayList(Sets.newLinkedHashSet(Arrays.asList(skillArray)));
+		SetChanges<String> changes = SetChanges.between(skillsBefore, skillsAfter);
+		if (changes.isEmpty()) {
+			return;
+		}
+		if (!changes.getRemoved().isEmpty()) {
+			skillRepository.deleteSkills(id, changes.getRemoved());
+		}
+		List<Object[]> rows = Lists.newArrayList();
+		for (String skillAdded : changes.getAdded()) {
+			rows.add(new Object[]{id, skillAdded});
+		}
+		insertRows("insert into skills (consultant_id, skill)", rows);
+		consultantFacetCounts.skillsChanged(skillsBefore, skillsAfter);
+		consultantAttributeIndex.skillsChanged(consultantId, skillsAfter);
+		pageCache.invalidate(Consultant.class);
 	}
 
-	private void removeSkillsThatMustNotBeInDBAnymore(Consultant consultant, final Set<String> skills) {
-		Iterables.removeIf(consultant.getSkills(), new Predicate<Skill>() {
-			@Override
-			public boolean apply(Skill skill) {
-				return !skills.contains(skill.getId().getSkill());
+	private void insertRows(String insertInto, List<Object[]> rows) {
+		insertRows(insertInto, rows, "");
+	}
+
+	/**
+	 * Inserts the rows by as few statements as the limit of parameters of a
+	 * statement allows, each followed by the clause given.
+	 */
+	private void insertRows(String insertInto, List<Object[]> rows, String clause) {
+		if (rows.isEmpty()) {
+			return;
+		}
+		int rowsPerStatement = Math.max(1, MAX_STATEMENT_PARAMETERS / rows.get(0).length);
+		for (List<Object[]> statementRows : Lists.partition(rows, rowsPerStatement)) {
+			StringBuilder sql = new StringBuilder(insertInto).append(" values ");
+			int position = 0;
+			for (Object[] row : statementRows) {
+				sql.append((position == 0) ? "(" : ", (");
+				for (int column = 0; column < row.length; column++) {
+					sql.append((column == 0) ? "?" : ", ?").append(++position);
+				}
+				sql.append(")");
 			}
-		});
+			javax.persistence.Query insert = entityManager.createNativeQuery(sql.append(clause).toString());
+			position = 0;
+			for (Object[] row : statementRows) {
+				for (Object value : row) {
+					insert.setParameter(++position, value);
+				}
+			}
+			insert.executeUpdate();
+		}
+	}
+
+	private void assignIds(String entityName, List<Object[]> rows) {
+		long id = reserveIds(entityName, rows.size());
+		for (Object[] row : rows) {
+			row[0] = id++;
+		}
 	}
 
-	private void removeSkillsThatAlreadyExistInDB(final Set<String> skills) {
-		Iterables.removeIf(skills, new Predicate<String>() {
+	/**
+	 * Takes the given number of identifiers from the table Hibernate draws the
+	 * entity identifiers from, so that the rows inserted here never get one
+	 * Hibernate has handed out or will hand out. Like Hibernate's own table
+	 * generator, it does so in a transaction of its own: the row of the entity
+	 * is locked only meanwhile, not until the import batch commits, and the
+	 * identifiers of a batch rolled back are simply never used.
+	 *
+	 * @return the first identifier reserved
+	 */
+	private long reserveIds(final String entityName, final int count) {
+		if (count == 0) {
+			return 0;
+		}
+		TransactionTemplate ownTransaction = new TransactionTemplate(transactionManager);
+		ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		return ownTransaction.execute(new TransactionCallback<Long>() {
 			@Override
-			public boolean apply(String skill) {
-				return skillRepository.findByIdSkill(skill) != null;
+			public Long doInTransaction(TransactionStatus status) {
+				entityManager.createNativeQuery("update " + Persistence.ID_GENERATOR_TABLE +
+					" set " + Persistence.ID_GENERATOR_VALUE_COLUMN + " = last_insert_id(" + Persistence.ID_GENERATOR_VALUE_COLUMN + " + ?1)" +
+					" where " + Persistence.ID_GENERATOR_NAME_COLUMN + " = ?2")
+					.setParameter(1, count)
+					.setParameter(2, entityName)
+					.executeUpdate();
+				// last_insert_id() is per connection: read it within the same transaction
+				Number nextId = (Number) entityManager.createNativeQuery("select last_insert_id()").getSingleResult();
+				return nextId.longValue() - count;
 			}
 		});
 	}
 
+	private void deleteRows(String table, Collection<Long> consultantIds) {
+		entityManager.createNativeQuery("delete from " + table + " where consultant_id in (:consultantIds)")
+			.setParameter("consultantIds", consultantIds)
+			.executeUpdate();
+	}
+
 	@Override
 	@Transactional(rollbackFor = Exception.class)
 	public void removeEducation(String consultantId, String educationId) {
 		educationRepository.delete(Long.parseLong(educationId));
+		pageCache.invalidate(Consultant.class);
 	}
 
 	@Override
@@ -345,21 +1209,21 @@ public class ConsultantRepositoryGatewayMySQL implements ConsultantRepositoryGat
 		education.setDescription(educationModel.getDescription());
 		education.setConsultant(consultant);
 		consultant.getEducations().add(education);
+		pageCache.invalidate(Consultant.class);
 	}
 
 	@Override
 	@Transactional(rollbackFor = Exception.class)
-	public void updateEducation(EducationModel educationModel, String consultantId) {
-		Education education = educationRepository.findOne(Long.parseLong(educationModel.getId()));
-		education.setSchoolName(educationModel.getSchool());
-		education.setStartYear(educationModel.getStartYear());
-		education.setEndYear(educationModel.getEndYear());
-		education.setCurrent(educationModel.isCurrent());
-		education.setSchoolDegree(educationModel.getSchoolDegree());
-		education.setFieldsOfStudy(educationModel.getSchoolFieldOfStudy());
-		education.setGrade(educationModel.getSchoolGrade());
-		education.setActivities(educationModel.getSchoolActivities());
-		education.setDescription(educationModel.getDescription());
+	public void updateEducation(EducationModel educationModel, EducationModel snapshot, String consultantId) {
+		FieldChanges changes = FieldChanges.between(snapshot, educationModel, EDUCATION_FIELDS.keySet());
+		if (changes.isEmpty()) {
+			return;
+		}
+		QEducation education = QEducation.education;
+		setChanged(new JPAUpdateClause(entityManager, education), EDUCATION_FIELDS, changes.getChanged())
+			.where(education.id.eq(Long.parseLong(educationModel.getId())))
+			.execute();
+		pageCache.invalidate(Consultant.class);
 	}
 
 }
@@ -36,6 +36,7 @@ import it.f2informatica.mysql.domain.Role;
 import it.f2informatica.mysql.domain.User;
 import it.f2informatica.mysql.repositories.RoleRepository;
 import it.f2informatica.mysql.repositories.UserRepository;
+import it.f2informatica.pagination.cache.PageCache;
 import it.f2informatica.pagination.services.PaginationService;
 import it.f2informatica.pagination.services.QueryParameters;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -50,6 +51,7 @@ import org.springframework.util.StringUtils;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.io.Writer;
 
 import static it.f2informatica.mysql.domain.QUser.user;
 
@@ -70,6 +72,9 @@ public class UserRepositoryGatewayMySQL implements UserRepositoryGateway {
 	@Autowired
 	private PaginationService paginationService;
 
+	@Autowired
+	private PageCache pageCache;
+
 	@Autowired
 	@Qualifier("mysqlUserToModelConverter")
 	private EntityToModelConverter<User, UserModel> mysqlUserToModelConverter;
@@ -127,13 +132,21 @@ public class UserRepositoryGatewayMySQL implements UserRepositoryGateway {
 
 	@Override
 	public String getAllUsersPaginated(QueryParameters parameters, String currentUsername) {
+		return paginationService.getPaginatedResultAsJson(parameters, usersExcluding(currentUsername, parameters), user);
+	}
+
+	@Override
+	public void writeAllUsersPaginated(QueryParameters parameters, String currentUsername, Writer writer) {
+		paginationService.writePaginatedResultAsJson(parameters, writer, usersExcluding(currentUsername, parameters), user);
+	}
+
+	private JPAQuery usersExcluding(String currentUsername, QueryParameters parameters) {
 		BooleanBuilder whereCondition = new BooleanBuilder(user.username.notEqualsIgnoreCase(currentUsername))
 			.and(user.username.notEqualsIgnoreCase("admin"));
 		if (StringUtils.hasText(parameters.getSearchCriteria())) {
 			whereCondition.and(user.username.toLowerCase().like(contains(parameters.getSearchCriteria())));
 		}
-		JPAQuery jpaQuery = new JPAQuery(entityManager).from(user).where(whereCondition.getValue());
-		return paginationService.getPaginatedResultAsJson(parameters, jpaQuery, user);
+		return new JPAQuery(entityManager).from(user).where(whereCondition.getValue());
 	}
 
 	private static String contains(String value) {
@@ -151,6 +164,7 @@ public class UserRepositoryGatewayMySQL implements UserRepositoryGateway {
 		user.setLastName(userModel.getLastName());
 		user.setRole(roleRepository.findOne(Long.parseLong(userModel.getRole().getRoleId())));
 		User newUser = userRepository.save(user);
+		pageCache.invalidate(User.class);
 		return mysqlUserToModelConverter.convert(newUser);
 	}
 
@@ -164,12 +178,14 @@ public class UserRepositoryGatewayMySQL implements UserRepositoryGateway {
 			userModel.getLastName(),
 			userModel.getEmail(),
 			roleRepository.findOne(Long.parseLong(userModel.getRole().getRoleId())));
+		pageCache.invalidate(User.class);
 	}
 
 	@Override
 	@Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
 	public void deleteUser(String userId) {
 		userRepository.delete(Long.parseLong(userId));
+		pageCache.invalidate(User.class);
 	}
 
 	@Override
@@ -0,0 +1,82 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.imports;
+
+import com.google.common.base.Throwables;
+import it.f2informatica.core.model.ConsultantModel;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads ahead one record, so that a record which cannot be read is reported
+ * by {@link #next()} without ending the iteration.
+ *
+ * @author Fernando Aspiazu
+ */
+abstract class AbstractConsultantRecordReader implements ConsultantRecordReader {
+	private boolean readAhead;
+	private ConsultantModel nextRecord;
+	private InvalidRecordException nextError;
+
+	/**
+	 * @return the next consultant, or null at the end of the input
+	 * @throws InvalidRecordException if the next record cannot be read,
+	 *                                the following ones still can
+	 */
+	protected abstract ConsultantModel readNext() throws IOException;
+
+	@Override
+	public boolean hasNext() {
+		if (!readAhead) {
+			try {
+				nextRecord = readNext();
+			} catch (InvalidRecordException e) {
+				nextError = e;
+			} catch (IOException e) {
+				throw Throwables.propagate(e);
+			}
+			readAhead = true;
+		}
+		return nextRecord != null || nextError != null;
+	}
+
+	@Override
+	public ConsultantModel next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		ConsultantModel record = nextRecord;
+		InvalidRecordException error = nextError;
+		readAhead = false;
+		nextRecord = null;
+		nextError = null;
+		if (error != null) {
+			throw error;
+		}
+		return record;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+}
@@ -0,0 +1,41 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.imports;
+
+import it.f2informatica.core.model.ConsultantModel;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Streams the consultants of an import one record at a time, so that the
+ * whole source never needs to be held in memory.
+ * <p>
+ * {@link #next()} throws an {@link InvalidRecordException} for a record which
+ * cannot be read, e.g. holding an unparsable date, and the iteration goes on
+ * with the following record. Any other exception means that the rest of the
+ * input cannot be read either.
+ * </p>
+ *
+ * @author Fernando Aspiazu
+ */
+public interface ConsultantRecordReader extends Iterator<ConsultantModel>, Closeable {
+
+}
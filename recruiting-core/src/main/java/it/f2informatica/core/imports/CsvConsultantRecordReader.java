@@ -0,0 +1,176 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.imports;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+import it.f2informatica.core.model.ConsultantModel;
+import it.f2informatica.core.model.LanguageModel;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.propertyeditors.CustomDateEditor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Reads consultants from comma separated values, the first line naming the
+ * properties of the {@link ConsultantModel} held by each column. The skills
+ * are separated by semicolons, and so are the languages, each followed by
+ * a colon and its proficiency. Values holding commas, quotes or line breaks
+ * are enclosed in double quotes, doubling the quotes they hold. Blank lines
+ * are skipped.
+ * <p>
+ * Experiences and education, having no flat form, are read from JSON only.
+ * </p>
+ *
+ * @author Fernando Aspiazu
+ */
+public class CsvConsultantRecordReader extends AbstractConsultantRecordReader {
+	static final String DATE_FORMAT = "yyyy-MM-dd";
+
+	private static final String SKILLS = "skills";
+	private static final String LANGUAGES = "languages";
+	private static final Splitter VALUES = Splitter.on(';').trimResults().omitEmptyStrings();
+	private static final Splitter PROFICIENCY = Splitter.on(':').trimResults().limit(2);
+
+	private final BufferedReader reader;
+	private List<String> columns;
+	private long line;
+
+	public CsvConsultantRecordReader(Reader reader) {
+		this.reader = new BufferedReader(reader);
+	}
+
+	@Override
+	protected ConsultantModel readNext() throws IOException {
+		if (columns == null) {
+			columns = readRecord();
+			if (columns == null) {
+				return null;
+			}
+		}
+		List<String> values = readRecord();
+		return (values == null) ? null : consultantOf(values);
+	}
+
+	private ConsultantModel consultantOf(List<String> values) {
+		if (values.size() != columns.size()) {
+			throw new InvalidRecordException("Line " + line + " has " + values.size() + " values for " + columns.size() + " columns");
+		}
+		ConsultantModel consultant = new ConsultantModel();
+		BeanWrapper properties = new BeanWrapperImpl(consultant);
+		properties.registerCustomEditor(Date.class, new CustomDateEditor(new SimpleDateFormat(DATE_FORMAT), true));
+		for (int i = 0; i < columns.size(); i++) {
+			String column = columns.get(i), value = values.get(i);
+			if (SKILLS.equals(column)) {
+				consultant.setSkills(Lists.newArrayList(VALUES.split(value)));
+			} else if (LANGUAGES.equals(column)) {
+				consultant.setLanguages(languagesOf(value));
+			} else if (!properties.isWritableProperty(column)) {
+				throw new InvalidRecordException("Unknown column " + column);
+			} else if (!value.isEmpty()) {
+				setProperty(properties, column, value);
+			}
+		}
+		return consultant;
+	}
+
+	private void setProperty(BeanWrapper properties, String column, String value) {
+		try {
+			properties.setPropertyValue(column, value);
+		} catch (BeansException e) {
+			throw new InvalidRecordException("Line " + line + ": invalid " + column + " '" + value + "'", e);
+		}
+	}
+
+	private static List<LanguageModel> languagesOf(String value) {
+		List<LanguageModel> languages = Lists.newArrayList();
+		for (String language : VALUES.split(value)) {
+			List<String> parts = PROFICIENCY.splitToList(language);
+			languages.add(new LanguageModel(parts.get(0), (parts.size() > 1) ? parts.get(1) : null));
+		}
+		return languages;
+	}
+
+	/**
+	 * @return the values of the next record, which may span several lines,
+	 * or null at the end of the input
+	 */
+	private List<String> readRecord() throws IOException {
+		String text;
+		do {
+			text = reader.readLine();
+			if (text == null) {
+				return null;
+			}
+			line++;
+		} while (text.trim().isEmpty());
+		List<String> values = Lists.newArrayList();
+		StringBuilder value = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; ; i++) {
+			if (i == text.length()) {
+				if (!quoted) {
+					break;
+				}
+				text = reader.readLine();
+				if (text == null) {
+					throw new IllegalArgumentException("Unterminated quotes at line " + line);
+				}
+				line++;
+				value.append('\n');
+				i = -1;
+				continue;
+			}
+			char c = text.charAt(i);
+			if (quoted) {
+				if (c != '"') {
+					value.append(c);
+				} else if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+					value.append('"');
+					i++;
+				} else {
+					quoted = false;
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				values.add(value.toString().trim());
+				value.setLength(0);
+			} else {
+				value.append(c);
+			}
+		}
+		values.add(value.toString().trim());
+		return values;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+}
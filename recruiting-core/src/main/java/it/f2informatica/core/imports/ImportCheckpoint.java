@@ -0,0 +1,72 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.imports;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Remembers how many records of an import have been committed, so that an
+ * interrupted import resumes after them. The count is written to a file,
+ * replaced atomically after each batch.
+ *
+ * @author Fernando Aspiazu
+ */
+public class ImportCheckpoint {
+	private final File file;
+
+	private ImportCheckpoint(File file) {
+		this.file = file;
+	}
+
+	public static ImportCheckpoint inFile(File file) {
+		return new ImportCheckpoint(file);
+	}
+
+	public long committedRecords() {
+		try {
+			return file.exists() ? Long.parseLong(Files.toString(file, Charsets.UTF_8).trim()) : 0;
+		} catch (IOException e) {
+			throw Throwables.propagate(e);
+		}
+	}
+
+	public void commit(long records) {
+		File temp = new File(file.getPath() + ".tmp");
+		try {
+			Files.write(String.valueOf(records), temp, Charsets.UTF_8);
+			java.nio.file.Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw Throwables.propagate(e);
+		}
+	}
+
+	public void clear() {
+		if (file.exists() && !file.delete()) {
+			throw new IllegalStateException("Cannot delete the import checkpoint " + file);
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.imports;
+
+import com.google.common.collect.Maps;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of an import: the records read, those skipped as already
+ * committed by a previous run, those imported and those rejected,
+ * with the errors of each rejected record keyed by its position.
+ *
+ * @author Fernando Aspiazu
+ */
+public class ImportReport {
+	private long recordsRead;
+	private long recordsSkipped;
+	private long recordsImported;
+	private final Map<Long, List<String>> rejectedRecords = Maps.newLinkedHashMap();
+	private long elapsedMillis;
+
+	public void recordRead() {
+		recordsRead++;
+	}
+
+	public void recordSkipped() {
+		recordsSkipped++;
+	}
+
+	public void recordsImported(int records) {
+		recordsImported += records;
+	}
+
+	public void recordRejected(long record, List<String> errors) {
+		rejectedRecords.put(record, errors);
+	}
+
+	public void elapsed(long millis) {
+		elapsedMillis = millis;
+	}
+
+	public long getRecordsRead() {
+		return recordsRead;
+	}
+
+	public long getRecordsSkipped() {
+		return recordsSkipped;
+	}
+
+	public long getRecordsImported() {
+		return recordsImported;
+	}
+
+	public Map<Long, List<String>> getRejectedRecords() {
+		return Collections.unmodifiableMap(rejectedRecords);
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public double getRecordsPerSecond() {
+		return (elapsedMillis == 0) ? recordsImported : recordsImported * 1000d / elapsedMillis;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d records read, %d skipped, %d imported, %d rejected in %d ms (%.1f records/s)",
+			recordsRead, recordsSkipped, recordsImported, rejectedRecords.size(), elapsedMillis, getRecordsPerSecond());
+	}
+
+}
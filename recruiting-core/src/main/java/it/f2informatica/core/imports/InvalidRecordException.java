@@ -0,0 +1,39 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.imports;
+
+/**
+ * A record which cannot be read into a consultant: the import rejects it
+ * and goes on with the next one.
+ *
+ * @author Fernando Aspiazu
+ */
+public class InvalidRecordException extends RuntimeException {
+	private static final long serialVersionUID = -4406153129744862861L;
+
+	public InvalidRecordException(String message) {
+		super(message);
+	}
+
+	public InvalidRecordException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.imports;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import it.f2informatica.core.model.ConsultantModel;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads an array of consultants in JSON, each with the properties of a
+ * {@link ConsultantModel} and the dates as yyyy-MM-dd. Each consultant is
+ * parsed as a whole first, so that one holding an invalid value is rejected
+ * while the following ones are still read.
+ *
+ * @author Fernando Aspiazu
+ */
+public class JsonConsultantRecordReader extends AbstractConsultantRecordReader {
+	private static final Gson GSON = new GsonBuilder().setDateFormat(CsvConsultantRecordReader.DATE_FORMAT).create();
+
+	private final JsonReader json;
+	private long record;
+
+	public JsonConsultantRecordReader(Reader reader) {
+		this.json = new JsonReader(reader);
+	}
+
+	@Override
+	protected ConsultantModel readNext() throws IOException {
+		if (json.peek() == JsonToken.BEGIN_ARRAY) {
+			json.beginArray();
+		}
+		if (!json.hasNext()) {
+			return null;
+		}
+		JsonElement consultant = new JsonParser().parse(json);
+		record++;
+		try {
+			return GSON.fromJson(consultant, ConsultantModel.class);
+		} catch (JsonParseException e) {
+			throw new InvalidRecordException("Consultant " + record + ": " + e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		json.close();
+	}
+
+}
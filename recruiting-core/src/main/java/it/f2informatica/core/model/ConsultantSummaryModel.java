@@ -0,0 +1,83 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.model;
+
+import com.google.common.collect.Lists;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.joda.time.DateTime;
+import org.joda.time.Period;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * What the consultant list and search pages show of a consultant, read
+ * without loading its experiences, education, languages and addresses.
+ *
+ * @author Fernando Aspiazu
+ */
+@Data
+@EqualsAndHashCode
+@ToString
+@NoArgsConstructor
+public class ConsultantSummaryModel implements Serializable {
+	private static final long serialVersionUID = -3125867081542934907L;
+
+	private String id;
+
+	private String consultantNo;
+
+	private Date registrationDate;
+
+	private String firstName;
+
+	private String lastName;
+
+	private Date birthDate;
+
+	private int age;
+
+	private List<String> skills = Lists.newArrayList();
+
+	public ConsultantSummaryModel(String id, String consultantNo, Date registrationDate, String firstName, String lastName,
+	                              Date birthDate, List<String> skills) {
+		this.id = id;
+		this.consultantNo = consultantNo;
+		this.registrationDate = registrationDate;
+		this.firstName = firstName;
+		this.lastName = lastName;
+		this.birthDate = birthDate;
+		if (birthDate != null) {
+			this.age = new Period(new DateTime(birthDate), new DateTime()).getYears();
+		}
+		if (skills != null) {
+			this.skills = skills;
+		}
+	}
+
+	public String getConsultantFullName() {
+		return lastName + " " + firstName;
+	}
+
+}
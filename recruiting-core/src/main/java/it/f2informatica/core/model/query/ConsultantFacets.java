@@ -0,0 +1,51 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.model.query;
+
+import com.google.common.collect.Maps;
+import it.f2informatica.core.model.LanguageModel;
+import lombok.*;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * How many of the consultants matching a search have each skill and each
+ * language at each proficiency.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class ConsultantFacets implements Serializable {
+	private static final long serialVersionUID = -3580281409462618514L;
+
+	/**
+	 * The most common skills first
+	 */
+	private Map<String, Long> skills = Maps.newLinkedHashMap();
+
+	/**
+	 * Ordered by language, then proficiency
+	 */
+	private Map<LanguageModel, Long> languages = Maps.newLinkedHashMap();
+
+}
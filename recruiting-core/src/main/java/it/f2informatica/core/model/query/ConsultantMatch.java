@@ -0,0 +1,44 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.model.query;
+
+import it.f2informatica.core.model.ConsultantModel;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * A consultant matched against some {@link ConsultantRequirements}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class ConsultantMatch implements Serializable {
+	private static final long serialVersionUID = -7340176251826120117L;
+
+	private String consultantId;
+
+	private double score;
+
+	private ConsultantModel consultant;
+
+}
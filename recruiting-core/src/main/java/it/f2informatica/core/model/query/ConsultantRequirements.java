@@ -0,0 +1,64 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.model.query;
+
+import com.google.common.collect.Maps;
+import lombok.*;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * What a job requires of the consultants to be matched against it.
+ * Each satisfied requirement adds its weight to the score of a consultant.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class ConsultantRequirements implements Serializable {
+	private static final long serialVersionUID = 2914137711839640152L;
+
+	/**
+	 * The skills a consultant must all have to be matched, by weight
+	 */
+	private Map<String, Double> requiredSkills = Maps.newHashMap();
+
+	/**
+	 * The skills adding to the score of a consultant having them, by weight
+	 */
+	private Map<String, Double> optionalSkills = Maps.newHashMap();
+
+	/**
+	 * The minimum proficiency in each language, a lower one earning part of the weight
+	 */
+	private Map<String, String> languages = Maps.newHashMap();
+
+	private double languageWeight = 1;
+
+	/**
+	 * The years of experience earning the whole weight, fewer earning part of it
+	 */
+	private int yearsOfExperience;
+
+	private double experienceWeight = 1;
+
+}
@@ -28,10 +28,57 @@ import lombok.*;
 @ToString
 public class ConsultantSearchCriteria {
 
+	/**
+	 * Whether the names are searched from their beginning, which the indexes
+	 * can serve, anywhere within them, or allowing a few typos.
+	 */
+	public enum NameMatch {
+		PREFIX, INFIX, FUZZY
+	}
+
+	/**
+	 * Whether the consultants must have any or all of the searched skills.
+	 */
+	public enum SkillMatch {
+		ANY, ALL
+	}
+
 	private String name;
 
 	private String lastName;
 
 	private String skills;
 
+	private SkillMatch skillMatch = SkillMatch.ANY;
+
+	private String language;
+
+	private String proficiency;
+
+	private String gender;
+
+	private String birthCountry;
+
+	/**
+	 * Searched in the experience and education descriptions
+	 */
+	private String text;
+
+	private NameMatch nameMatch = NameMatch.PREFIX;
+
+	/**
+	 * Fuzzy searches not served by the name index fall back to a prefix match.
+	 */
+	public boolean isPrefixMatch() {
+		return nameMatch != NameMatch.INFIX;
+	}
+
+	public boolean isFuzzyMatch() {
+		return nameMatch == NameMatch.FUZZY;
+	}
+
+	public boolean isAllSkillsMatch() {
+		return skillMatch == SkillMatch.ALL;
+	}
+
 }
@@ -0,0 +1,345 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.search;
+
+import com.google.common.collect.Sets;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Set of non negative ints split in chunks of 2^16 values, each stored as a
+ * sorted array while sparse and as a bitmap once dense, so that a value rare
+ * among many ordinals takes a few bytes and a common one an eighth of a byte
+ * per ordinal. Boolean operations work chunk by chunk and return new bitmaps.
+ * <p>
+ * Not thread safe, the owner has to guard it.
+ * </p>
+ *
+ * @author Fernando Aspiazu
+ */
+final class CompressedBitmap {
+	private static final int CHUNK_BITS = 16;
+	private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+	/**
+	 * Above this cardinality a chunk is smaller as a bitmap than as an array.
+	 */
+	static final int ARRAY_MAX_SIZE = 4096;
+
+	private enum Operation {
+		AND {
+			@Override
+			boolean keeps(boolean inLeft, boolean inRight) {
+				return inLeft && inRight;
+			}
+
+			@Override
+			long apply(long left, long right) {
+				return left & right;
+			}
+		},
+		OR {
+			@Override
+			boolean keeps(boolean inLeft, boolean inRight) {
+				return inLeft || inRight;
+			}
+
+			@Override
+			long apply(long left, long right) {
+				return left | right;
+			}
+		},
+		AND_NOT {
+			@Override
+			boolean keeps(boolean inLeft, boolean inRight) {
+				return inLeft && !inRight;
+			}
+
+			@Override
+			long apply(long left, long right) {
+				return left & ~right;
+			}
+		};
+
+		abstract boolean keeps(boolean inLeft, boolean inRight);
+
+		abstract long apply(long left, long right);
+	}
+
+	private final TreeMap<Integer, Chunk> chunks = new TreeMap<>();
+
+	void add(int value) {
+		Integer key = value >>> CHUNK_BITS;
+		Chunk chunk = chunks.get(key);
+		if (chunk == null) {
+			chunk = new Chunk();
+			chunks.put(key, chunk);
+		}
+		chunk.add((char) (value & CHUNK_MASK));
+	}
+
+	void remove(int value) {
+		Integer key = value >>> CHUNK_BITS;
+		Chunk chunk = chunks.get(key);
+		if (chunk != null) {
+			chunk.remove((char) (value & CHUNK_MASK));
+			if (chunk.size == 0) {
+				chunks.remove(key);
+			}
+		}
+	}
+
+	boolean contains(int value) {
+		Chunk chunk = chunks.get(value >>> CHUNK_BITS);
+		return chunk != null && chunk.contains((char) (value & CHUNK_MASK));
+	}
+
+	boolean isEmpty() {
+		return chunks.isEmpty();
+	}
+
+	int cardinality() {
+		int cardinality = 0;
+		for (Chunk chunk : chunks.values()) {
+			cardinality += chunk.size;
+		}
+		return cardinality;
+	}
+
+	/**
+	 * @return the values in ascending order
+	 */
+	int[] toArray() {
+		int[] values = new int[cardinality()];
+		int next = 0;
+		for (Map.Entry<Integer, Chunk> chunk : chunks.entrySet()) {
+			next = chunk.getValue().copyTo(values, next, chunk.getKey() << CHUNK_BITS);
+		}
+		return values;
+	}
+
+	CompressedBitmap and(CompressedBitmap other) {
+		return combine(other, Operation.AND);
+	}
+
+	CompressedBitmap or(CompressedBitmap other) {
+		return combine(other, Operation.OR);
+	}
+
+	CompressedBitmap andNot(CompressedBitmap other) {
+		return combine(other, Operation.AND_NOT);
+	}
+
+	CompressedBitmap copy() {
+		return combine(new CompressedBitmap(), Operation.OR);
+	}
+
+	private CompressedBitmap combine(CompressedBitmap other, Operation operation) {
+		Set<Integer> keys;
+		if (operation == Operation.AND) {
+			keys = Sets.intersection(chunks.keySet(), other.chunks.keySet());
+		} else if (operation == Operation.OR) {
+			keys = Sets.union(chunks.keySet(), other.chunks.keySet());
+		} else {
+			keys = chunks.keySet();
+		}
+		CompressedBitmap result = new CompressedBitmap();
+		for (Integer key : keys) {
+			Chunk left = chunks.get(key), right = other.chunks.get(key);
+			Chunk combined;
+			if (left == null || right == null) {
+				combined = (left == null) ? right.copy() : left.copy();
+			} else {
+				combined = left.combine(right, operation);
+			}
+			if (combined.size > 0) {
+				result.chunks.put(key, combined);
+			}
+		}
+		return result;
+	}
+
+	private static final class Chunk {
+		private static final int WORDS = 1 << (CHUNK_BITS - 6);
+
+		/**
+		 * The sorted values while sparse, null once dense.
+		 */
+		private char[] values = new char[4];
+
+		/**
+		 * The bits of the values once dense, null while sparse.
+		 */
+		private long[] words;
+
+		private int size;
+
+		void add(char value) {
+			if (words != null) {
+				long bit = 1L << value;
+				if ((words[value >>> 6] & bit) == 0) {
+					words[value >>> 6] |= bit;
+					size++;
+				}
+				return;
+			}
+			int position = Arrays.binarySearch(values, 0, size, value);
+			if (position >= 0) {
+				return;
+			}
+			if (size == ARRAY_MAX_SIZE) {
+				toWords();
+				add(value);
+				return;
+			}
+			position = -position - 1;
+			if (size == values.length) {
+				values = Arrays.copyOf(values, Math.min(size * 2, ARRAY_MAX_SIZE));
+			}
+			System.arraycopy(values, position, values, position + 1, size - position);
+			values[position] = value;
+			size++;
+		}
+
+		void remove(char value) {
+			if (words != null) {
+				long bit = 1L << value;
+				if ((words[value >>> 6] & bit) != 0) {
+					words[value >>> 6] &= ~bit;
+					size--;
+					compact();
+				}
+				return;
+			}
+			int position = Arrays.binarySearch(values, 0, size, value);
+			if (position >= 0) {
+				System.arraycopy(values, position + 1, values, position, size - position - 1);
+				size--;
+			}
+		}
+
+		boolean contains(char value) {
+			if (words != null) {
+				return (words[value >>> 6] & (1L << value)) != 0;
+			}
+			return Arrays.binarySearch(values, 0, size, value) >= 0;
+		}
+
+		Chunk copy() {
+			Chunk copy = new Chunk();
+			copy.size = size;
+			copy.values = (values == null) ? null : Arrays.copyOf(values, Math.max(size, 1));
+			copy.words = (words == null) ? null : words.clone();
+			return copy;
+		}
+
+		Chunk combine(Chunk other, Operation operation) {
+			Chunk combined = new Chunk();
+			if (words == null && other.words == null) {
+				combined.values = new char[Math.max(size + other.size, 1)];
+				int i = 0, j = 0;
+				while (i < size || j < other.size) {
+					int left = (i < size) ? values[i] : Integer.MAX_VALUE;
+					int right = (j < other.size) ? other.values[j] : Integer.MAX_VALUE;
+					int value = Math.min(left, right);
+					boolean inLeft = (left == value), inRight = (right == value);
+					if (inLeft) {
+						i++;
+					}
+					if (inRight) {
+						j++;
+					}
+					if (operation.keeps(inLeft, inRight)) {
+						combined.values[combined.size++] = (char) value;
+					}
+				}
+				if (combined.size > ARRAY_MAX_SIZE) {
+					combined.toWords();
+				}
+			} else {
+				long[] left = bits(), right = other.bits();
+				combined.values = null;
+				combined.words = new long[WORDS];
+				for (int i = 0; i < WORDS; i++) {
+					combined.words[i] = operation.apply(left[i], right[i]);
+					combined.size += Long.bitCount(combined.words[i]);
+				}
+				combined.compact();
+			}
+			return combined;
+		}
+
+		int copyTo(int[] target, int offset, int base) {
+			if (words == null) {
+				for (int i = 0; i < size; i++) {
+					target[offset++] = base + values[i];
+				}
+				return offset;
+			}
+			for (int i = 0; i < WORDS; i++) {
+				long word = words[i];
+				while (word != 0) {
+					target[offset++] = base + (i << 6) + Long.numberOfTrailingZeros(word);
+					word &= word - 1;
+				}
+			}
+			return offset;
+		}
+
+		private long[] bits() {
+			if (words != null) {
+				return words;
+			}
+			long[] bits = new long[WORDS];
+			for (int i = 0; i < size; i++) {
+				bits[values[i] >>> 6] |= 1L << values[i];
+			}
+			return bits;
+		}
+
+		private void toWords() {
+			words = bits();
+			values = null;
+		}
+
+		private void compact() {
+			if (words != null && size <= ARRAY_MAX_SIZE) {
+				values = new char[Math.max(size, 1)];
+				copyTo(words, values);
+				words = null;
+			}
+		}
+
+		private static void copyTo(long[] words, char[] values) {
+			int next = 0;
+			for (int i = 0; i < WORDS; i++) {
+				long word = words[i];
+				while (word != 0) {
+					values[next++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+		}
+	}
+
+}
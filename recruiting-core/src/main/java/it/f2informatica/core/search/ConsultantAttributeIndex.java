@@ -0,0 +1,460 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.search;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import it.f2informatica.core.model.ExperienceModel;
+import it.f2informatica.core.model.LanguageModel;
+import it.f2informatica.core.model.query.ConsultantMatch;
+import it.f2informatica.core.model.query.ConsultantRequirements;
+import it.f2informatica.core.model.query.ConsultantSearchCriteria;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In memory bitmap index of the categorical attributes of the consultants:
+ * every skill, language, language at a proficiency, gender and birth country
+ * is mapped to the {@link CompressedBitmap} of the ordinals of the consultants
+ * having it, so that any boolean combination of them is resolved by a few
+ * bitwise operations before the datastore is touched.
+ * <p>
+ * The periods of the consultants' experiences are held as well, so that
+ * consultants can be matched against job requirements without loading them,
+ * see {@link #match(ConsultantRequirements, int)}.
+ * </p>
+ * <p>
+ * Like the {@link ConsultantNameIndex} it is built by the consultant gateway
+ * at startup and kept current by its mutators, and leaves the searches to the
+ * datastore until it is ready or when they match too many consultants.
+ * </p>
+ *
+ * @author Fernando Aspiazu
+ */
+@Component
+public class ConsultantAttributeIndex {
+	private static final Logger logger = Logger.getLogger(ConsultantAttributeIndex.class);
+
+	/**
+	 * Above this number of matches the ids are not passed to the datastore.
+	 */
+	static final int MAX_MATCHES = 1000;
+
+	private static final long MILLISECONDS_PER_MONTH = 30L * 24 * 60 * 60 * 1000;
+
+	public enum Attribute {
+		SKILL, LANGUAGE, LANGUAGE_PROFICIENCY, GENDER, BIRTH_COUNTRY
+	}
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Map<String, Integer> ordinals = Maps.newHashMap();
+	private final List<String> consultantIds = Lists.newArrayList();
+	private final Map<Attribute, Map<String, CompressedBitmap>> bitmaps = Maps.newEnumMap(Attribute.class);
+	private final Map<String, SetMultimap<Attribute, String>> attributes = Maps.newHashMap();
+	private final Map<Integer, Map<String, ExperiencePeriod>> experiencePeriods = Maps.newHashMap();
+	private final CompressedBitmap allConsultants = new CompressedBitmap();
+	private volatile boolean ready;
+	private boolean enabled = true;
+
+	public ConsultantAttributeIndex() {
+		for (Attribute attribute : Attribute.values()) {
+			bitmaps.put(attribute, Maps.<String, CompressedBitmap>newHashMap());
+		}
+	}
+
+	@Value("${search.attribute-index.in-memory:true}")
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	static String languageProficiency(String language, String proficiency) {
+		return language + "/" + proficiency;
+	}
+
+	/**
+	 * Indexes a consultant while building the index.
+	 */
+	public void index(String consultantId, Collection<String> skills, Collection<LanguageModel> languages,
+	                  String gender, String birthCountry, Collection<ExperienceModel> experiences) {
+		if (consultantId == null) {
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			replaceAll(consultantId, skills, languages, gender, birthCountry, experiences);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void markReady() {
+		ready = true;
+		logger.info("Consultant attribute index ready, " + ordinals.size() + " consultants indexed");
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	/**
+	 * Reindexes the skills of a consultant once the surrounding transaction,
+	 * if any, is committed, as do the other mutators.
+	 */
+	public void skillsChanged(final String consultantId, final Collection<String> skills) {
+		afterCommit(new Runnable() {
+			@Override
+			public void run() {
+				lock.writeLock().lock();
+				try {
+					replace(consultantId, Attribute.SKILL, skills);
+				} finally {
+					lock.writeLock().unlock();
+				}
+			}
+		});
+	}
+
+	public void languagesChanged(final String consultantId, final Collection<LanguageModel> languages) {
+		afterCommit(new Runnable() {
+			@Override
+			public void run() {
+				lock.writeLock().lock();
+				try {
+					replaceLanguages(consultantId, languages);
+				} finally {
+					lock.writeLock().unlock();
+				}
+			}
+		});
+	}
+
+	public void personalDetailsChanged(final String consultantId, final String gender, final String birthCountry) {
+		afterCommit(new Runnable() {
+			@Override
+			public void run() {
+				lock.writeLock().lock();
+				try {
+					replace(consultantId, Attribute.GENDER, Collections.singleton(gender));
+					replace(consultantId, Attribute.BIRTH_COUNTRY, Collections.singleton(birthCountry));
+				} finally {
+					lock.writeLock().unlock();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Reindexes all the attributes and experiences of a consultant replaced as a whole.
+	 */
+	public void consultantChanged(final String consultantId, final Collection<String> skills, final Collection<LanguageModel> languages,
+	                              final String gender, final String birthCountry, final Collection<ExperienceModel> experiences) {
+		afterCommit(new Runnable() {
+			@Override
+			public void run() {
+				lock.writeLock().lock();
+				try {
+					replaceAll(consultantId, skills, languages, gender, birthCountry, experiences);
+				} finally {
+					lock.writeLock().unlock();
+				}
+			}
+		});
+	}
+
+	public void experienceChanged(final String consultantId, final ExperienceModel experience) {
+		final String experienceId = experience.getId();
+		final Date periodFrom = experience.getPeriodFrom(), periodTo = experience.getPeriodTo();
+		final boolean current = experience.isCurrent();
+		afterCommit(new Runnable() {
+			@Override
+			public void run() {
+				lock.writeLock().lock();
+				try {
+					putExperience(consultantId, experienceId, periodFrom, periodTo, current);
+				} finally {
+					lock.writeLock().unlock();
+				}
+			}
+		});
+	}
+
+	public void experienceRemoved(final String consultantId, final String experienceId) {
+		afterCommit(new Runnable() {
+			@Override
+			public void run() {
+				lock.writeLock().lock();
+				try {
+					Map<String, ExperiencePeriod> periods = experiencePeriods.get(ordinalOf(consultantId));
+					if (periods != null) {
+						periods.remove(experienceId);
+					}
+				} finally {
+					lock.writeLock().unlock();
+				}
+			}
+		});
+	}
+
+	private void afterCommit(final Runnable change) {
+		if (!enabled) {
+			return;
+		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					change.run();
+				}
+			});
+		} else {
+			change.run();
+		}
+	}
+
+	/**
+	 * @return the ids of the consultants matching the attribute criteria of
+	 * the search, or absent if it has none or the datastore has to be searched
+	 */
+	public Optional<Set<String>> search(ConsultantSearchCriteria searchCriteria) {
+		Optional<ConsultantFilter> filter = filterOf(searchCriteria);
+		return filter.isPresent() ? search(filter.get()) : Optional.<Set<String>>absent();
+	}
+
+	/**
+	 * @return the ids of the consultants matching the filter, or absent if
+	 * the datastore has to be searched instead
+	 */
+	public Optional<Set<String>> search(ConsultantFilter filter) {
+		if (!ready) {
+			return Optional.absent();
+		}
+		lock.readLock().lock();
+		try {
+			CompressedBitmap matches = filter.evaluate(this);
+			if (matches.cardinality() > MAX_MATCHES) {
+				return Optional.absent();
+			}
+			ImmutableSet.Builder<String> ids = ImmutableSet.builder();
+			for (int ordinal : matches.toArray()) {
+				ids.add(consultantIds.get(ordinal));
+			}
+			return Optional.<Set<String>>of(ids.build());
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the k consultants scoring best against the requirements, the
+	 * best first and without their profile, or absent if the index is not ready
+	 */
+	public Optional<List<ConsultantMatch>> match(ConsultantRequirements requirements, int k) {
+		if (!ready) {
+			return Optional.absent();
+		}
+		lock.readLock().lock();
+		try {
+			List<ConsultantMatch> matches = Lists.newArrayList();
+			for (ConsultantScorer.Scored scored : new ConsultantScorer(this, requirements).topMatches(k)) {
+				matches.add(new ConsultantMatch(consultantIds.get(scored.ordinal), scored.score, null));
+			}
+			return Optional.of(matches);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * The skills are all required or any of them is, as the search asks.
+	 */
+	private static Optional<ConsultantFilter> filterOf(ConsultantSearchCriteria searchCriteria) {
+		List<ConsultantFilter> filters = Lists.newArrayList();
+		if (StringUtils.hasText(searchCriteria.getSkills())) {
+			List<ConsultantFilter> skills = Lists.newArrayList();
+			for (String skill : searchCriteria.getSkills().split(",")) {
+				skills.add(ConsultantFilter.is(Attribute.SKILL, skill));
+			}
+			filters.add(searchCriteria.isAllSkillsMatch() ? ConsultantFilter.allOf(skills) : ConsultantFilter.anyOf(skills));
+		}
+		if (StringUtils.hasText(searchCriteria.getLanguage())) {
+			String proficiency = StringUtils.hasText(searchCriteria.getProficiency()) ? searchCriteria.getProficiency() : null;
+			filters.add(ConsultantFilter.speaks(searchCriteria.getLanguage(), proficiency));
+		}
+		if (StringUtils.hasText(searchCriteria.getGender())) {
+			filters.add(ConsultantFilter.is(Attribute.GENDER, searchCriteria.getGender()));
+		}
+		if (StringUtils.hasText(searchCriteria.getBirthCountry())) {
+			filters.add(ConsultantFilter.is(Attribute.BIRTH_COUNTRY, searchCriteria.getBirthCountry()));
+		}
+		return filters.isEmpty() ? Optional.<ConsultantFilter>absent() : Optional.of(ConsultantFilter.allOf(filters));
+	}
+
+	/**
+	 * Meant for the filters, under the read lock.
+	 */
+	CompressedBitmap consultantsWith(Attribute attribute, String value) {
+		CompressedBitmap consultants = bitmaps.get(attribute).get(value);
+		return (consultants == null) ? new CompressedBitmap() : consultants;
+	}
+
+	CompressedBitmap allConsultants() {
+		return allConsultants;
+	}
+
+	/**
+	 * Meant for the scorer, under the read lock: the overlapping periods
+	 * are counted once, the current ones until now.
+	 */
+	int monthsOfExperience(int ordinal, long now) {
+		Map<String, ExperiencePeriod> periods = experiencePeriods.get(ordinal);
+		if (periods == null || periods.isEmpty()) {
+			return 0;
+		}
+		List<ExperiencePeriod> sorted = Lists.newArrayList(periods.values());
+		Collections.sort(sorted);
+		long total = 0, coveredUntil = Long.MIN_VALUE;
+		for (ExperiencePeriod period : sorted) {
+			long from = Math.max(period.from, coveredUntil), to = Math.min(period.to, now);
+			if (to > from) {
+				total += to - from;
+				coveredUntil = to;
+			}
+		}
+		return (int) (total / MILLISECONDS_PER_MONTH);
+	}
+
+	private void putExperience(String consultantId, String experienceId, Date periodFrom, Date periodTo, boolean current) {
+		int ordinal = ordinalOf(consultantId);
+		Map<String, ExperiencePeriod> periods = experiencePeriods.get(ordinal);
+		if (periods == null) {
+			periods = Maps.newHashMap();
+			experiencePeriods.put(ordinal, periods);
+		}
+		if (periodFrom == null) {
+			periods.remove(experienceId);
+		} else {
+			long to = (current || periodTo == null) ? Long.MAX_VALUE : periodTo.getTime();
+			periods.put(experienceId, new ExperiencePeriod(periodFrom.getTime(), to));
+		}
+	}
+
+	private void replaceAll(String consultantId, Collection<String> skills, Collection<LanguageModel> languages,
+	                        String gender, String birthCountry, Collection<ExperienceModel> experiences) {
+		replace(consultantId, Attribute.SKILL, skills);
+		replaceLanguages(consultantId, languages);
+		replace(consultantId, Attribute.GENDER, Collections.singleton(gender));
+		replace(consultantId, Attribute.BIRTH_COUNTRY, Collections.singleton(birthCountry));
+		experiencePeriods.remove(ordinalOf(consultantId));
+		if (experiences != null) {
+			for (ExperienceModel experience : experiences) {
+				putExperience(consultantId, experience.getId(), experience.getPeriodFrom(), experience.getPeriodTo(), experience.isCurrent());
+			}
+		}
+	}
+
+	private void replaceLanguages(String consultantId, Collection<LanguageModel> languages) {
+		List<String> spoken = Lists.newArrayList(), proficiencies = Lists.newArrayList();
+		if (languages != null) {
+			for (LanguageModel language : languages) {
+				spoken.add(language.getLanguage());
+				proficiencies.add(languageProficiency(language.getLanguage(), language.getProficiency()));
+			}
+		}
+		replace(consultantId, Attribute.LANGUAGE, spoken);
+		replace(consultantId, Attribute.LANGUAGE_PROFICIENCY, proficiencies);
+	}
+
+	private void replace(String consultantId, Attribute attribute, Collection<String> values) {
+		int ordinal = ordinalOf(consultantId);
+		SetMultimap<Attribute, String> consultantAttributes = attributes.get(consultantId);
+		Map<String, CompressedBitmap> attributeBitmaps = bitmaps.get(attribute);
+		for (String value : consultantAttributes.removeAll(attribute)) {
+			CompressedBitmap consultants = attributeBitmaps.get(value);
+			consultants.remove(ordinal);
+			if (consultants.isEmpty()) {
+				attributeBitmaps.remove(value);
+			}
+		}
+		if (values == null) {
+			return;
+		}
+		for (String value : values) {
+			if (value == null) {
+				continue;
+			}
+			CompressedBitmap consultants = attributeBitmaps.get(value);
+			if (consultants == null) {
+				consultants = new CompressedBitmap();
+				attributeBitmaps.put(value, consultants);
+			}
+			consultants.add(ordinal);
+			consultantAttributes.put(attribute, value);
+		}
+	}
+
+	private int ordinalOf(String consultantId) {
+		Integer ordinal = ordinals.get(consultantId);
+		if (ordinal == null) {
+			ordinal = consultantIds.size();
+			consultantIds.add(consultantId);
+			ordinals.put(consultantId, ordinal);
+			attributes.put(consultantId, HashMultimap.<Attribute, String>create());
+			allConsultants.add(ordinal);
+		}
+		return ordinal;
+	}
+
+	private static final class ExperiencePeriod implements Comparable<ExperiencePeriod> {
+		private final long from;
+		private final long to;
+
+		ExperiencePeriod(long from, long to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public int compareTo(ExperiencePeriod other) {
+			return Long.compare(from, other.from);
+		}
+	}
+
+}
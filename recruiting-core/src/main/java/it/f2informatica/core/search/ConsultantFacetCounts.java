@@ -0,0 +1,243 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.search;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ComparisonChain;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.AtomicLongMap;
+import it.f2informatica.core.model.LanguageModel;
+import it.f2informatica.core.model.query.ConsultantFacets;
+import it.f2informatica.core.model.query.ConsultantSearchCriteria;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Facet counts of all the consultants, loaded once from the datastore and
+ * then kept current by the consultant gateway, which reports the skills and
+ * languages each write adds and removes. The facets of the unfiltered
+ * consultant list thus cost no query at all.
+ * <p>
+ * The load query may or may not see a change committed while it runs, so
+ * counts loaded concurrently with a change are thrown away and loaded again.
+ * If writers keep racing with the load, the last counts read are served
+ * unpublished and the next request loads them again.
+ * </p>
+ *
+ * @author Fernando Aspiazu
+ */
+@Component
+public class ConsultantFacetCounts {
+
+	private static final int LOAD_ATTEMPTS = 3;
+
+	private final AtomicLongMap<String> skills = AtomicLongMap.create();
+	private final AtomicLongMap<LanguageModel> languages = AtomicLongMap.create();
+	private final Object loadLock = new Object();
+	private volatile boolean loaded;
+	private boolean loading;
+	private boolean changedDuringLoad;
+
+	public static boolean isUnfiltered(ConsultantSearchCriteria searchCriteria) {
+		return searchCriteria == null || !(StringUtils.hasText(searchCriteria.getName())
+			|| StringUtils.hasText(searchCriteria.getLastName())
+			|| StringUtils.hasText(searchCriteria.getSkills())
+			|| StringUtils.hasText(searchCriteria.getText())
+			|| StringUtils.hasText(searchCriteria.getLanguage())
+			|| StringUtils.hasText(searchCriteria.getGender())
+			|| StringUtils.hasText(searchCriteria.getBirthCountry()));
+	}
+
+	/**
+	 * @param allConsultantsFacets counts every skill of all the consultants,
+	 *                             called the first time only
+	 */
+	public ConsultantFacets getFacets(int topSkills, Supplier<ConsultantFacets> allConsultantsFacets) {
+		if (!loaded) {
+			Optional<ConsultantFacets> unpublished = load(allConsultantsFacets);
+			if (unpublished.isPresent()) {
+				return facetsOf(unpublished.get().getSkills(), unpublished.get().getLanguages(), topSkills);
+			}
+		}
+		return facetsOf(skills.asMap(), languages.asMap(), topSkills);
+	}
+
+	/**
+	 * @return the counts read, if every attempt to load them raced with a change
+	 * and they could not be published
+	 */
+	private Optional<ConsultantFacets> load(Supplier<ConsultantFacets> allConsultantsFacets) {
+		synchronized (loadLock) {
+			ConsultantFacets facets = null;
+			for (int attempt = 0; attempt < LOAD_ATTEMPTS && !loaded; attempt++) {
+				synchronized (this) {
+					loading = true;
+					changedDuringLoad = false;
+				}
+				try {
+					facets = allConsultantsFacets.get();
+				} catch (RuntimeException e) {
+					synchronized (this) {
+						loading = false;
+					}
+					throw e;
+				}
+				synchronized (this) {
+					loading = false;
+					if (!changedDuringLoad) {
+						skills.putAll(facets.getSkills());
+						languages.putAll(facets.getLanguages());
+						loaded = true;
+					}
+				}
+			}
+			return loaded ? Optional.<ConsultantFacets>absent() : Optional.of(facets);
+		}
+	}
+
+	/**
+	 * Applies the difference between the skills a consultant had and has,
+	 * once the surrounding transaction, if any, is committed.
+	 */
+	public void skillsChanged(Collection<String> before, Collection<String> after) {
+		applyAfterCommit(skills, before, after);
+	}
+
+	public void languagesChanged(Collection<LanguageModel> before, Collection<LanguageModel> after) {
+		applyAfterCommit(languages, copiesOf(before), copiesOf(after));
+	}
+
+	private <K> void applyAfterCommit(final AtomicLongMap<K> counts, Collection<K> before, Collection<K> after) {
+		final Set<K> removed = Sets.difference(Sets.newHashSet(before), Sets.newHashSet(after)).immutableCopy();
+		final Set<K> added = Sets.difference(Sets.newHashSet(after), Sets.newHashSet(before)).immutableCopy();
+		if (removed.isEmpty() && added.isEmpty()) {
+			return;
+		}
+		final Delta<K> delta = new Delta<>(counts, removed, added);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					apply(delta);
+				}
+			});
+		} else {
+			apply(delta);
+		}
+	}
+
+	private void apply(Delta<?> delta) {
+		if (loaded) {
+			delta.apply();
+			return;
+		}
+		synchronized (this) {
+			if (loaded) {
+				delta.apply();
+			} else if (loading) {
+				changedDuringLoad = true;
+			}
+			// otherwise the counts are not loaded yet, the load will read the committed change
+		}
+	}
+
+	private static class Delta<K> {
+		private final AtomicLongMap<K> counts;
+		private final Set<K> removed;
+		private final Set<K> added;
+
+		private Delta(AtomicLongMap<K> counts, Set<K> removed, Set<K> added) {
+			this.counts = counts;
+			this.removed = removed;
+			this.added = added;
+		}
+
+		void apply() {
+			for (K key : removed) {
+				if (counts.decrementAndGet(key) <= 0) {
+					counts.remove(key);
+				}
+			}
+			for (K key : added) {
+				counts.incrementAndGet(key);
+			}
+		}
+	}
+
+	/**
+	 * The language models are mutable, the counts keep copies of them.
+	 */
+	private static List<LanguageModel> copiesOf(Collection<LanguageModel> languageModels) {
+		List<LanguageModel> copies = Lists.newArrayList();
+		for (LanguageModel languageModel : languageModels) {
+			copies.add(new LanguageModel(languageModel.getLanguage(), languageModel.getProficiency()));
+		}
+		return copies;
+	}
+
+	/**
+	 * @param topSkills how many skills to keep, all of them if not positive
+	 */
+	public static ConsultantFacets facetsOf(Map<String, Long> skillCounts, Map<LanguageModel, Long> languageCounts, int topSkills) {
+		List<Map.Entry<String, Long>> skillEntries = Ordering.from(MOST_COMMON_FIRST).sortedCopy(skillCounts.entrySet());
+		Map<String, Long> skills = Maps.newLinkedHashMap();
+		for (Map.Entry<String, Long> skill : skillEntries.subList(0, (topSkills > 0) ? Math.min(topSkills, skillEntries.size()) : skillEntries.size())) {
+			skills.put(skill.getKey(), skill.getValue());
+		}
+		Map<LanguageModel, Long> languages = Maps.newLinkedHashMap();
+		for (LanguageModel language : Ordering.from(BY_LANGUAGE_AND_PROFICIENCY).sortedCopy(languageCounts.keySet())) {
+			languages.put(language, languageCounts.get(language));
+		}
+		return new ConsultantFacets(skills, languages);
+	}
+
+	private static final Comparator<Map.Entry<String, Long>> MOST_COMMON_FIRST = new Comparator<Map.Entry<String, Long>>() {
+		@Override
+		public int compare(Map.Entry<String, Long> first, Map.Entry<String, Long> second) {
+			return ComparisonChain.start()
+				.compare(second.getValue(), first.getValue())
+				.compare(first.getKey(), second.getKey(), Ordering.natural().nullsLast())
+				.result();
+		}
+	};
+
+	private static final Comparator<LanguageModel> BY_LANGUAGE_AND_PROFICIENCY = new Comparator<LanguageModel>() {
+		@Override
+		public int compare(LanguageModel first, LanguageModel second) {
+			return ComparisonChain.start()
+				.compare(first.getLanguage(), second.getLanguage(), Ordering.natural().nullsLast())
+				.compare(first.getProficiency(), second.getProficiency(), Ordering.natural().nullsLast())
+				.result();
+		}
+	};
+
+}
@@ -0,0 +1,97 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.search;
+
+import com.google.common.collect.ImmutableList;
+import it.f2informatica.core.search.ConsultantAttributeIndex.Attribute;
+
+import java.util.List;
+
+/**
+ * Boolean expression over the categorical attributes of the consultants,
+ * resolved by the {@link ConsultantAttributeIndex}.
+ *
+ * @author Fernando Aspiazu
+ */
+public abstract class ConsultantFilter {
+
+	ConsultantFilter() {
+	}
+
+	abstract CompressedBitmap evaluate(ConsultantAttributeIndex index);
+
+	public static ConsultantFilter is(final Attribute attribute, final String value) {
+		return new ConsultantFilter() {
+			@Override
+			CompressedBitmap evaluate(ConsultantAttributeIndex index) {
+				return index.consultantsWith(attribute, value);
+			}
+		};
+	}
+
+	/**
+	 * @param proficiency ignored when null
+	 */
+	public static ConsultantFilter speaks(String language, String proficiency) {
+		return (proficiency == null) ? is(Attribute.LANGUAGE, language)
+			: is(Attribute.LANGUAGE_PROFICIENCY, ConsultantAttributeIndex.languageProficiency(language, proficiency));
+	}
+
+	public static ConsultantFilter allOf(List<ConsultantFilter> filters) {
+		final List<ConsultantFilter> operands = ImmutableList.copyOf(filters);
+		return new ConsultantFilter() {
+			@Override
+			CompressedBitmap evaluate(ConsultantAttributeIndex index) {
+				CompressedBitmap result = index.allConsultants();
+				for (ConsultantFilter operand : operands) {
+					if (result.isEmpty()) {
+						break;
+					}
+					result = result.and(operand.evaluate(index));
+				}
+				return result;
+			}
+		};
+	}
+
+	public static ConsultantFilter anyOf(List<ConsultantFilter> filters) {
+		final List<ConsultantFilter> operands = ImmutableList.copyOf(filters);
+		return new ConsultantFilter() {
+			@Override
+			CompressedBitmap evaluate(ConsultantAttributeIndex index) {
+				CompressedBitmap result = new CompressedBitmap();
+				for (ConsultantFilter operand : operands) {
+					result = result.or(operand.evaluate(index));
+				}
+				return result;
+			}
+		};
+	}
+
+	public static ConsultantFilter not(final ConsultantFilter filter) {
+		return new ConsultantFilter() {
+			@Override
+			CompressedBitmap evaluate(ConsultantAttributeIndex index) {
+				return index.allConsultants().andNot(filter.evaluate(index));
+			}
+		};
+	}
+
+}
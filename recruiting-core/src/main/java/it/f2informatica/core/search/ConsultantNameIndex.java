@@ -0,0 +1,181 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.search;
+
+import com.google.common.base.Functions;
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.Sets;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In memory index of the consultants' first and last names, which resolves
+ * the name criteria of a consultant search into the ids of the matching
+ * consultants, so that the datastore is queried by primary key instead of
+ * scanning every name with an unanchored pattern.
+ * <p>
+ * The index is built by the consultant gateway at startup and kept current
+ * by its mutators. Until it is ready, or when the names match too many
+ * consultants to be worth a lookup by id, searches are left to the datastore.
+ * </p>
+ * <p>
+ * Names are also held in a {@link DeletionIndex}, which resolves the fuzzy
+ * searches into the consultants whose names are within a few typos of, or
+ * sound like, the searched ones.
+ * </p>
+ *
+ * @author Fernando Aspiazu
+ */
+@Component
+public class ConsultantNameIndex {
+	private static final Logger logger = Logger.getLogger(ConsultantNameIndex.class);
+
+	/**
+	 * Above this number of matches the ids are not passed to the datastore.
+	 */
+	static final int MAX_MATCHES = 1000;
+
+	private final TrigramIndex firstNames = new TrigramIndex();
+	private final TrigramIndex lastNames = new TrigramIndex();
+	private final DeletionIndex firstNamesWithTypos = new DeletionIndex();
+	private final DeletionIndex lastNamesWithTypos = new DeletionIndex();
+	private volatile boolean ready;
+	private boolean enabled = true;
+
+	/**
+	 * Deployments that must not depend on the JVM memory for name searches
+	 * switch the index off and leave them to the datastore.
+	 */
+	@Value("${search.name-index.in-memory:true}")
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Indexes a consultant while building the index.
+	 */
+	public void index(String consultantId, String firstName, String lastName) {
+		if (consultantId == null) {
+			return;
+		}
+		firstNames.put(consultantId, firstName);
+		lastNames.put(consultantId, lastName);
+		firstNamesWithTypos.put(consultantId, firstName);
+		lastNamesWithTypos.put(consultantId, lastName);
+	}
+
+	public void markReady() {
+		ready = true;
+		logger.info("Consultant name index ready, " + firstNames.size() + " consultants indexed");
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	/**
+	 * Indexes the new names of a consultant once the surrounding transaction,
+	 * if any, is committed.
+	 */
+	public void update(final String consultantId, final String firstName, final String lastName) {
+		if (!enabled) {
+			return;
+		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					index(consultantId, firstName, lastName);
+				}
+			});
+		} else {
+			index(consultantId, firstName, lastName);
+		}
+	}
+
+	public void remove(String consultantId) {
+		firstNames.remove(consultantId);
+		lastNames.remove(consultantId);
+		firstNamesWithTypos.remove(consultantId);
+		lastNamesWithTypos.remove(consultantId);
+	}
+
+	/**
+	 * @return the ids of the consultants whose first and last names start with,
+	 * or contain if not prefix, the given ones (the blank ones are ignored),
+	 * or absent if the datastore has to be searched instead
+	 */
+	public Optional<Set<String>> search(String firstName, String lastName, boolean prefix) {
+		boolean byFirstName = StringUtils.hasText(firstName), byLastName = StringUtils.hasText(lastName);
+		if (!ready || !(byFirstName || byLastName)) {
+			return Optional.absent();
+		}
+		Set<String> ids;
+		if (byFirstName && byLastName) {
+			ids = Sets.intersection(firstNames.search(firstName, prefix), lastNames.search(lastName, prefix)).immutableCopy();
+		} else {
+			ids = byFirstName ? firstNames.search(firstName, prefix) : lastNames.search(lastName, prefix);
+		}
+		return (ids.size() > MAX_MATCHES) ? Optional.<Set<String>>absent() : Optional.of(ids);
+	}
+
+	/**
+	 * @return the ids of the consultants whose first and last names are close
+	 * to the given ones (the blank ones are ignored), the closest first and at
+	 * most {@link #MAX_MATCHES}, or absent if the datastore has to be searched
+	 */
+	public Optional<List<String>> searchFuzzy(String firstName, String lastName) {
+		boolean byFirstName = StringUtils.hasText(firstName), byLastName = StringUtils.hasText(lastName);
+		if (!ready || !(byFirstName || byLastName)) {
+			return Optional.absent();
+		}
+		Map<String, Integer> costs;
+		if (byFirstName && byLastName) {
+			Map<String, Integer> firstNameCosts = firstNamesWithTypos.search(firstName);
+			costs = Maps.newHashMap();
+			for (Map.Entry<String, Integer> lastNameCost : lastNamesWithTypos.search(lastName).entrySet()) {
+				Integer firstNameCost = firstNameCosts.get(lastNameCost.getKey());
+				if (firstNameCost != null) {
+					costs.put(lastNameCost.getKey(), firstNameCost + lastNameCost.getValue());
+				}
+			}
+		} else {
+			costs = byFirstName ? firstNamesWithTypos.search(firstName) : lastNamesWithTypos.search(lastName);
+		}
+		Ordering<String> byCost = Ordering.<Integer>natural().onResultOf(Functions.forMap(costs));
+		return Optional.of(byCost.compound(Ordering.<String>natural()).leastOf(costs.keySet(), MAX_MATCHES));
+	}
+
+}
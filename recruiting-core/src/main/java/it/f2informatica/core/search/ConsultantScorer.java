@@ -0,0 +1,210 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.search;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Doubles;
+import com.google.common.primitives.Ints;
+import it.f2informatica.core.model.query.ConsultantRequirements;
+import it.f2informatica.core.search.ConsultantAttributeIndex.Attribute;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Scores the consultants of a {@link ConsultantAttributeIndex} against the
+ * requirements of a job and keeps the k best in a bounded heap.
+ * <p>
+ * The skill scores are accumulated from the skill bitmaps, the candidates
+ * are then visited by decreasing skill score and the languages and the
+ * experience only evaluated until none of the candidates left can enter
+ * the heap, even holding them all.
+ * </p>
+ *
+ * @author Fernando Aspiazu
+ */
+final class ConsultantScorer {
+
+	/**
+	 * The language proficiencies, the lowest first, as offered by the languages form.
+	 */
+	static final List<String> PROFICIENCIES = ImmutableList.of(
+		"elementary", "limited_working", "professional_working", "full_professional", "native_or_bilingual");
+
+	private static final Comparator<Scored> WORST_FIRST = new Comparator<Scored>() {
+		@Override
+		public int compare(Scored a, Scored b) {
+			int byScore = Doubles.compare(a.score, b.score);
+			return (byScore != 0) ? byScore : Ints.compare(b.ordinal, a.ordinal);
+		}
+	};
+
+	private final ConsultantAttributeIndex index;
+	private final ConsultantRequirements requirements;
+	private final List<CompressedBitmap[]> languageLevels = Lists.newArrayList();
+	private final List<Integer> requiredLevels = Lists.newArrayList();
+	private final long now = System.currentTimeMillis();
+
+	ConsultantScorer(ConsultantAttributeIndex index, ConsultantRequirements requirements) {
+		this.index = index;
+		this.requirements = requirements;
+		for (Map.Entry<String, String> language : requirements.getLanguages().entrySet()) {
+			CompressedBitmap[] levels = new CompressedBitmap[PROFICIENCIES.size()];
+			for (int level = 0; level < levels.length; level++) {
+				levels[level] = index.consultantsWith(Attribute.LANGUAGE_PROFICIENCY,
+					ConsultantAttributeIndex.languageProficiency(language.getKey(), PROFICIENCIES.get(level)));
+			}
+			languageLevels.add(levels);
+			requiredLevels.add(PROFICIENCIES.indexOf(language.getValue()));
+		}
+	}
+
+	/**
+	 * @return the k best consultants, the best first, the lowest ordinal first among equals
+	 */
+	List<Scored> topMatches(int k) {
+		if (k <= 0) {
+			return Collections.emptyList();
+		}
+		CompressedBitmap candidates = index.allConsultants();
+		double requiredScore = 0;
+		for (Map.Entry<String, Double> skill : requirements.getRequiredSkills().entrySet()) {
+			candidates = candidates.and(index.consultantsWith(Attribute.SKILL, skill.getKey()));
+			requiredScore += skill.getValue();
+		}
+		PriorityQueue<Scored> heap = new PriorityQueue<Scored>(k, WORST_FIRST);
+		double remainingWeight = (languageLevels.isEmpty() ? 0 : requirements.getLanguageWeight())
+			+ (requirements.getYearsOfExperience() > 0 ? requirements.getExperienceWeight() : 0);
+		for (Map.Entry<Double, CompressedBitmap> bucket : bySkillScore(candidates).descendingMap().entrySet()) {
+			double skillScore = requiredScore + bucket.getKey();
+			for (int ordinal : bucket.getValue().toArray()) {
+				if (!offer(heap, k, new Scored(ordinal, skillScore), remainingWeight)) {
+					return bestFirst(heap);
+				}
+			}
+		}
+		return bestFirst(heap);
+	}
+
+	/**
+	 * Groups the candidates by the sum of the weights of their optional
+	 * skills, few distinct sums being possible.
+	 */
+	private TreeMap<Double, CompressedBitmap> bySkillScore(CompressedBitmap candidates) {
+		double[] scores = new double[index.allConsultants().cardinality()];
+		CompressedBitmap withOptionalSkills = new CompressedBitmap();
+		for (Map.Entry<String, Double> skill : requirements.getOptionalSkills().entrySet()) {
+			CompressedBitmap having = index.consultantsWith(Attribute.SKILL, skill.getKey()).and(candidates);
+			for (int ordinal : having.toArray()) {
+				scores[ordinal] += skill.getValue();
+			}
+			withOptionalSkills = withOptionalSkills.or(having);
+		}
+		TreeMap<Double, CompressedBitmap> buckets = Maps.newTreeMap();
+		for (int ordinal : withOptionalSkills.toArray()) {
+			CompressedBitmap bucket = buckets.get(scores[ordinal]);
+			if (bucket == null) {
+				bucket = new CompressedBitmap();
+				buckets.put(scores[ordinal], bucket);
+			}
+			bucket.add(ordinal);
+		}
+		CompressedBitmap withoutOptionalSkills = candidates.andNot(withOptionalSkills);
+		if (!withoutOptionalSkills.isEmpty()) {
+			CompressedBitmap bucket = buckets.get(0.0);
+			buckets.put(0.0, (bucket == null) ? withoutOptionalSkills : bucket.or(withoutOptionalSkills));
+		}
+		return buckets;
+	}
+
+	/**
+	 * Completes the score of a candidate unless even the remaining weight
+	 * would not bring it into the heap, as none of the ones after it then.
+	 *
+	 * @return false once the candidates left can be skipped
+	 */
+	private boolean offer(PriorityQueue<Scored> heap, int k, Scored candidate, double remainingWeight) {
+		if (heap.size() == k && WORST_FIRST.compare(new Scored(candidate.ordinal, candidate.score + remainingWeight), heap.peek()) <= 0) {
+			return false;
+		}
+		candidate.score += languageScore(candidate.ordinal) + experienceScore(candidate.ordinal);
+		if (heap.size() < k) {
+			heap.add(candidate);
+		} else if (WORST_FIRST.compare(candidate, heap.peek()) > 0) {
+			heap.poll();
+			heap.add(candidate);
+		}
+		return true;
+	}
+
+	/**
+	 * Each language is worth its share of the weight, a proficiency below
+	 * the required one earning part of it.
+	 */
+	private double languageScore(int ordinal) {
+		if (languageLevels.isEmpty()) {
+			return 0;
+		}
+		double credit = 0;
+		for (int i = 0; i < languageLevels.size(); i++) {
+			CompressedBitmap[] levels = languageLevels.get(i);
+			int required = Math.max(requiredLevels.get(i), 0);
+			for (int level = levels.length - 1; level >= 0; level--) {
+				if (levels[level].contains(ordinal)) {
+					credit += (level >= required) ? 1 : (level + 1) / (double) (required + 1);
+					break;
+				}
+			}
+		}
+		return requirements.getLanguageWeight() * credit / languageLevels.size();
+	}
+
+	private double experienceScore(int ordinal) {
+		int years = requirements.getYearsOfExperience();
+		if (years <= 0) {
+			return 0;
+		}
+		int months = index.monthsOfExperience(ordinal, now);
+		return requirements.getExperienceWeight() * Math.min(1, months / (12.0 * years));
+	}
+
+	private static List<Scored> bestFirst(PriorityQueue<Scored> heap) {
+		List<Scored> best = Lists.newArrayList(heap);
+		Collections.sort(best, Collections.reverseOrder(WORST_FIRST));
+		return best;
+	}
+
+	static final class Scored {
+		final int ordinal;
+		double score;
+
+		Scored(int ordinal, double score) {
+			this.ordinal = ordinal;
+			this.score = score;
+		}
+	}
+
+}
@@ -0,0 +1,224 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.search;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Index of one text value per id answering "which values are within a few
+ * typos of this one" without comparing it to them all: every distinct value
+ * is stored under the strings obtained deleting up to {@link #MAX_DISTANCE}
+ * of its characters, so the values close to a searched one are those stored
+ * under its own deletions, then confirmed computing their edit distance.
+ * The values are also stored under their {@link PhoneticKey}.
+ * <p>
+ * Values are normalized as in the {@link TrigramIndex}. Writes are
+ * serialized, reads are not blocked.
+ * </p>
+ *
+ * @author Fernando Aspiazu
+ */
+class DeletionIndex {
+	static final int MAX_DISTANCE = 2;
+
+	/**
+	 * Values shorter than this tolerate a single typo.
+	 */
+	private static final int TWO_TYPOS_LENGTH = 5;
+
+	private final ConcurrentMap<String, Set<String>> idsByValue = Maps.newConcurrentMap();
+	private final ConcurrentMap<String, Set<String>> valuesByDeletion = Maps.newConcurrentMap();
+	private final ConcurrentMap<String, Set<String>> valuesByPhoneticKey = Maps.newConcurrentMap();
+	private final ConcurrentMap<String, String> values = Maps.newConcurrentMap();
+
+	static int maxDistance(String normalized) {
+		return (normalized.length() < TWO_TYPOS_LENGTH) ? 1 : MAX_DISTANCE;
+	}
+
+	synchronized void put(String id, String value) {
+		remove(id);
+		String normalized = TrigramIndex.normalize(value);
+		if (normalized.isEmpty()) {
+			return;
+		}
+		values.put(id, normalized);
+		Set<String> ids = idsByValue.get(normalized);
+		if (ids == null) {
+			ids = Sets.newConcurrentHashSet();
+			idsByValue.put(normalized, ids);
+			for (String deletion : deletions(normalized, MAX_DISTANCE)) {
+				add(valuesByDeletion, deletion, normalized);
+			}
+			add(valuesByPhoneticKey, PhoneticKey.of(normalized), normalized);
+		}
+		ids.add(id);
+	}
+
+	synchronized void remove(String id) {
+		String normalized = values.remove(id);
+		if (normalized == null) {
+			return;
+		}
+		Set<String> ids = idsByValue.get(normalized);
+		ids.remove(id);
+		if (ids.isEmpty()) {
+			idsByValue.remove(normalized);
+			for (String deletion : deletions(normalized, MAX_DISTANCE)) {
+				remove(valuesByDeletion, deletion, normalized);
+			}
+			remove(valuesByPhoneticKey, PhoneticKey.of(normalized), normalized);
+		}
+	}
+
+	/**
+	 * The cost of a match grows with its edit distance and is one lower when
+	 * the value also sounds like the searched one. The values only sounding
+	 * like it cost more than any within the edit distance.
+	 *
+	 * @return the ids whose value is within the edit distance allowed for the
+	 * searched value, or sounds like it, with the cost of their match
+	 */
+	Map<String, Integer> search(String value) {
+		String normalized = TrigramIndex.normalize(value);
+		if (normalized.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		int maxDistance = maxDistance(normalized);
+		String phoneticKey = PhoneticKey.of(normalized);
+		Map<String, Integer> costs = Maps.newHashMap();
+		for (String deletion : deletions(normalized, maxDistance)) {
+			Set<String> candidates = valuesByDeletion.get(deletion);
+			if (candidates == null) {
+				continue;
+			}
+			for (String candidate : candidates) {
+				if (costs.containsKey(candidate)) {
+					continue;
+				}
+				int distance = distance(normalized, candidate, maxDistance);
+				if (distance <= maxDistance) {
+					costs.put(candidate, 2 * distance + (PhoneticKey.of(candidate).equals(phoneticKey) ? 0 : 1));
+				}
+			}
+		}
+		Set<String> soundAlike = valuesByPhoneticKey.get(phoneticKey);
+		if (soundAlike != null) {
+			for (String candidate : soundAlike) {
+				if (!costs.containsKey(candidate)) {
+					costs.put(candidate, 2 * (maxDistance + 1));
+				}
+			}
+		}
+		Map<String, Integer> matches = Maps.newHashMap();
+		for (Map.Entry<String, Integer> cost : costs.entrySet()) {
+			Set<String> ids = idsByValue.get(cost.getKey());
+			if (ids != null) {
+				for (String id : ids) {
+					matches.put(id, cost.getValue());
+				}
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * @return the value itself and the strings obtained deleting from it up
+	 * to the given number of characters
+	 */
+	static Set<String> deletions(String value, int maxDeletions) {
+		Set<String> deletions = Sets.newHashSet(value);
+		Set<String> previous = Collections.singleton(value);
+		for (int deleted = 1; deleted <= maxDeletions; deleted++) {
+			Set<String> next = Sets.newHashSet();
+			for (String string : previous) {
+				for (int i = 0; i < string.length(); i++) {
+					next.add(string.substring(0, i) + string.substring(i + 1));
+				}
+			}
+			deletions.addAll(next);
+			previous = next;
+		}
+		return deletions;
+	}
+
+	/**
+	 * Optimal string alignment distance: insertions, deletions, substitutions
+	 * and transpositions of adjacent characters, the typos that matter here.
+	 *
+	 * @return the distance, or any greater value once it exceeds the maximum
+	 */
+	static int distance(String first, String second, int maxDistance) {
+		if (Math.abs(first.length() - second.length()) > maxDistance) {
+			return maxDistance + 1;
+		}
+		int[][] d = new int[first.length() + 1][second.length() + 1];
+		for (int i = 0; i <= first.length(); i++) {
+			d[i][0] = i;
+		}
+		for (int j = 0; j <= second.length(); j++) {
+			d[0][j] = j;
+		}
+		for (int i = 1; i <= first.length(); i++) {
+			int rowMinimum = Integer.MAX_VALUE;
+			for (int j = 1; j <= second.length(); j++) {
+				int cost = (first.charAt(i - 1) == second.charAt(j - 1)) ? 0 : 1;
+				d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+				if (i > 1 && j > 1 && first.charAt(i - 1) == second.charAt(j - 2) && first.charAt(i - 2) == second.charAt(j - 1)) {
+					d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+				}
+				rowMinimum = Math.min(rowMinimum, d[i][j]);
+			}
+			if (rowMinimum > maxDistance) {
+				return maxDistance + 1;
+			}
+		}
+		return d[first.length()][second.length()];
+	}
+
+	int size() {
+		return values.size();
+	}
+
+	private static void add(ConcurrentMap<String, Set<String>> postings, String key, String value) {
+		Set<String> values = postings.get(key);
+		if (values == null) {
+			values = Sets.newConcurrentHashSet();
+			postings.put(key, values);
+		}
+		values.add(value);
+	}
+
+	private static void remove(ConcurrentMap<String, Set<String>> postings, String key, String value) {
+		Set<String> values = postings.get(key);
+		if (values != null) {
+			values.remove(value);
+			if (values.isEmpty()) {
+				postings.remove(key);
+			}
+		}
+	}
+
+}
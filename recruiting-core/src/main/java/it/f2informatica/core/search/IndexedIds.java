@@ -0,0 +1,73 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.search;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Sets;
+
+import java.util.Set;
+
+/**
+ * The ids of the consultants matching a search as far as the in memory
+ * indexes could resolve it, telling which criteria they cover so that the
+ * datastore is only asked for the others.
+ *
+ * @author Fernando Aspiazu
+ */
+public final class IndexedIds {
+	private final Optional<Set<String>> byName;
+	private final Optional<Set<String>> byAttributes;
+
+	private IndexedIds(Optional<Set<String>> byName, Optional<Set<String>> byAttributes) {
+		this.byName = byName;
+		this.byAttributes = byAttributes;
+	}
+
+	public static IndexedIds of(Optional<Set<String>> byName, Optional<Set<String>> byAttributes) {
+		return new IndexedIds(byName, byAttributes);
+	}
+
+	public boolean coversNames() {
+		return byName.isPresent();
+	}
+
+	public boolean coversAttributes() {
+		return byAttributes.isPresent();
+	}
+
+	/**
+	 * @return the ids matching all the covered criteria, absent if none is
+	 */
+	public Optional<Set<String>> get() {
+		if (byName.isPresent() && byAttributes.isPresent()) {
+			return Optional.<Set<String>>of(Sets.intersection(byName.get(), byAttributes.get()).immutableCopy());
+		}
+		return byName.or(byAttributes);
+	}
+
+	/**
+	 * @return whether no consultant can match, with no need to ask the datastore
+	 */
+	public boolean isEmpty() {
+		Optional<Set<String>> ids = get();
+		return ids.isPresent() && ids.get().isEmpty();
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.search;
+
+/**
+ * Coarse phonetic key of a name, tuned on the Italian and Spanish spelling:
+ * the letters sounding alike are folded together, the silent ones and the
+ * doubles dropped and, past the first letter, only the consonants kept,
+ * so that "Scicchitano" and "Sciquitano" or "Giménez" and "Jimenes" share it.
+ *
+ * @author Fernando Aspiazu
+ */
+final class PhoneticKey {
+	private static final String[][] DIGRAPHS = {
+		{"gli", "li"}, {"gn", "n"}, {"ph", "f"}, {"ch", "k"}, {"qu", "k"}, {"cq", "k"},
+		{"sc", "s"}, {"ll", "l"}, {"gi", "j"}, {"ge", "je"}
+	};
+
+	private PhoneticKey() {
+	}
+
+	/**
+	 * @param normalized a name lower-cased and without accents
+	 */
+	static String of(String normalized) {
+		String name = normalized.replaceAll("[^a-z]", "");
+		for (String[] digraph : DIGRAPHS) {
+			name = name.replace(digraph[0], digraph[1]);
+		}
+		StringBuilder key = new StringBuilder(name.length());
+		char previous = 0;
+		for (int i = 0; i < name.length(); i++) {
+			char folded = fold(name.charAt(i));
+			if (folded == 0 || folded == previous) {
+				continue;
+			}
+			previous = folded;
+			if (key.length() == 0 || !isVowel(folded)) {
+				key.append(folded);
+			}
+		}
+		return key.toString();
+	}
+
+	private static char fold(char letter) {
+		switch (letter) {
+			case 'h':
+				return 0;
+			case 'c':
+			case 'q':
+				return 'k';
+			case 'v':
+			case 'w':
+				return 'b';
+			case 'z':
+				return 's';
+			case 'y':
+				return 'i';
+			case 'x':
+				return 'j';
+			default:
+				return letter;
+		}
+	}
+
+	private static boolean isVowel(char letter) {
+		return "aeiou".indexOf(letter) >= 0;
+	}
+
+}
@@ -0,0 +1,168 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.search;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.text.Normalizer;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index of the character trigrams of one text value per id,
+ * answering "which values contain this fragment" without scanning them all.
+ * <p>
+ * Values and fragments are normalized (lower-cased, accents removed, blanks
+ * collapsed). A fragment shorter than a trigram is matched by scanning the
+ * values held in memory. Writes are serialized, reads are not blocked.
+ * </p>
+ *
+ * @author Fernando Aspiazu
+ */
+class TrigramIndex {
+	static final int GRAM_LENGTH = 3;
+
+	private static final Pattern DIACRITICS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+	private static final Pattern BLANKS = Pattern.compile("\\s+");
+
+	private final ConcurrentMap<String, Set<String>> postings = Maps.newConcurrentMap();
+	private final ConcurrentMap<String, String> values = Maps.newConcurrentMap();
+
+	static String normalize(String value) {
+		if (value == null) {
+			return "";
+		}
+		String withoutAccents = DIACRITICS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+		return BLANKS.matcher(withoutAccents.trim()).replaceAll(" ").toLowerCase();
+	}
+
+	static Set<String> trigrams(String normalized) {
+		Set<String> trigrams = Sets.newHashSet();
+		for (int i = 0; i + GRAM_LENGTH <= normalized.length(); i++) {
+			trigrams.add(normalized.substring(i, i + GRAM_LENGTH));
+		}
+		return trigrams;
+	}
+
+	synchronized void put(String id, String value) {
+		remove(id);
+		String normalized = normalize(value);
+		if (normalized.isEmpty()) {
+			return;
+		}
+		values.put(id, normalized);
+		for (String trigram : trigrams(normalized)) {
+			Set<String> ids = postings.get(trigram);
+			if (ids == null) {
+				ids = Sets.newConcurrentHashSet();
+				postings.put(trigram, ids);
+			}
+			ids.add(id);
+		}
+	}
+
+	synchronized void remove(String id) {
+		String normalized = values.remove(id);
+		if (normalized == null) {
+			return;
+		}
+		for (String trigram : trigrams(normalized)) {
+			Set<String> ids = postings.get(trigram);
+			if (ids != null) {
+				ids.remove(id);
+				if (ids.isEmpty()) {
+					postings.remove(trigram);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the ids whose value contains, or starts with if prefix, the
+	 * (normalized) fragment
+	 */
+	Set<String> search(String fragment, boolean prefix) {
+		String normalized = normalize(fragment);
+		if (normalized.length() < GRAM_LENGTH) {
+			return scan(normalized, prefix);
+		}
+		List<Set<String>> candidates = Lists.newArrayList();
+		for (String trigram : trigrams(normalized)) {
+			Set<String> ids = postings.get(trigram);
+			if (ids == null) {
+				return Collections.emptySet();
+			}
+			candidates.add(ids);
+		}
+		Collections.sort(candidates, BY_SIZE);
+		Set<String> matches = Sets.newHashSet();
+		for (String id : candidates.get(0)) {
+			if (containedInAll(id, candidates) && matches(values.get(id), normalized, prefix)) {
+				matches.add(id);
+			}
+		}
+		return matches;
+	}
+
+	private Set<String> scan(String normalized, boolean prefix) {
+		Set<String> matches = Sets.newHashSet();
+		for (Map.Entry<String, String> value : values.entrySet()) {
+			if (matches(value.getValue(), normalized, prefix)) {
+				matches.add(value.getKey());
+			}
+		}
+		return matches;
+	}
+
+	private static boolean containedInAll(String id, List<Set<String>> candidates) {
+		for (int i = 1; i < candidates.size(); i++) {
+			if (!candidates.get(i).contains(id)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sharing the trigrams does not imply containing the fragment in that order.
+	 */
+	private static boolean matches(String value, String normalized, boolean prefix) {
+		return value != null && (prefix ? value.startsWith(normalized) : value.contains(normalized));
+	}
+
+	int size() {
+		return values.size();
+	}
+
+	private static final Comparator<Set<String>> BY_SIZE = new Comparator<Set<String>>() {
+		@Override
+		public int compare(Set<String> first, Set<String> second) {
+			return Integer.compare(first.size(), second.size());
+		}
+	};
+
+}
@@ -0,0 +1,36 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.services;
+
+import it.f2informatica.core.imports.ConsultantRecordReader;
+import it.f2informatica.core.imports.ImportCheckpoint;
+import it.f2informatica.core.imports.ImportReport;
+
+public interface ConsultantImportService {
+
+	/**
+	 * Imports the consultants read, in batches, replacing those having the
+	 * same consultant number. Records which cannot be read or fail validation
+	 * are rejected and reported, the others imported. The checkpoint is committed after each
+	 * batch, so that the records it counts are skipped by a later run.
+	 */
+	ImportReport importConsultants(ConsultantRecordReader reader, ImportCheckpoint checkpoint);
+
+}
@@ -0,0 +1,200 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.core.services;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import it.f2informatica.core.gateway.ConsultantRepositoryGateway;
+import it.f2informatica.core.imports.ConsultantRecordReader;
+import it.f2informatica.core.imports.ImportCheckpoint;
+import it.f2informatica.core.imports.ImportReport;
+import it.f2informatica.core.imports.InvalidRecordException;
+import it.f2informatica.core.model.ConsultantModel;
+import it.f2informatica.core.model.EducationModel;
+import it.f2informatica.core.model.ExperienceModel;
+import it.f2informatica.core.model.LanguageModel;
+import it.f2informatica.core.validator.ConsultantEducationValidator;
+import it.f2informatica.core.validator.ConsultantExperienceValidator;
+import it.f2informatica.core.validator.ConsultantPersonalDetailsValidator;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+import org.springframework.validation.ValidationUtils;
+import org.springframework.validation.Validator;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class ConsultantImportServiceImpl implements ConsultantImportService {
+	private static final Logger logger = Logger.getLogger(ConsultantImportServiceImpl.class);
+
+	@Value("${import.batch-size:500}")
+	private int batchSize = 500;
+
+	@Autowired
+	private ConsultantRepositoryGateway consultantRepositoryGateway;
+
+	@Autowired
+	private ConsultantPersonalDetailsValidator personalDetailsValidator;
+
+	@Autowired
+	private ConsultantExperienceValidator experienceValidator;
+
+	@Autowired
+	private ConsultantEducationValidator educationValidator;
+
+	@Override
+	public ImportReport importConsultants(ConsultantRecordReader reader, ImportCheckpoint checkpoint) {
+		ImportReport report = new ImportReport();
+		long start = System.currentTimeMillis();
+		long committed = checkpoint.committedRecords();
+		Map<String, ConsultantModel> batch = Maps.newLinkedHashMap();
+		long record = 0;
+		while (reader.hasNext()) {
+			List<String> errors = Lists.newArrayList();
+			ConsultantModel consultant = readNext(reader, errors);
+			report.recordRead();
+			if (++record <= committed) {
+				report.recordSkipped();
+				continue;
+			}
+			if (consultant != null) {
+				prepare(consultant);
+				errors = validate(consultant);
+			}
+			if (errors.isEmpty()) {
+				batch.put(consultant.getConsultantNo(), consultant);
+			} else {
+				report.recordRejected(record, errors);
+			}
+			if (record % batchSize == 0) {
+				importBatch(batch, record, checkpoint, report, start);
+			}
+		}
+		importBatch(batch, record, checkpoint, report, start);
+		report.elapsed(System.currentTimeMillis() - start);
+		logger.info("Import completed: " + report);
+		return report;
+	}
+
+	/**
+	 * @return the next consultant, or null if the record cannot be read,
+	 * adding the reason to the errors
+	 */
+	private static ConsultantModel readNext(ConsultantRecordReader reader, List<String> errors) {
+		try {
+			return reader.next();
+		} catch (InvalidRecordException e) {
+			errors.add(e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Imports the consultants of a batch, each consultant number once with
+	 * the last record read for it, then commits the records read so far.
+	 */
+	private void importBatch(Map<String, ConsultantModel> batch, long record, ImportCheckpoint checkpoint, ImportReport report, long start) {
+		if (!batch.isEmpty()) {
+			report.recordsImported(consultantRepositoryGateway.importConsultants(Lists.newArrayList(batch.values())));
+			batch.clear();
+		}
+		checkpoint.commit(record);
+		report.elapsed(System.currentTimeMillis() - start);
+		if (logger.isDebugEnabled()) {
+			logger.debug(String.format("%d records committed, %.1f records/s", record, report.getRecordsPerSecond()));
+		}
+	}
+
+	/**
+	 * Fills in what the forms would have: the registration date and the
+	 * months and years of the experience periods.
+	 */
+	private void prepare(ConsultantModel consultant) {
+		if (consultant.getRegistrationDate() == null) {
+			consultant.setRegistrationDate(Calendar.getInstance().getTime());
+		}
+		if (consultant.getExperiences() == null) {
+			consultant.setExperiences(Lists.<ExperienceModel>newArrayList());
+		}
+		if (consultant.getEducationList() == null) {
+			consultant.setEducationList(Lists.<EducationModel>newArrayList());
+		}
+		if (consultant.getSkills() == null) {
+			consultant.setSkills(Lists.<String>newArrayList());
+		}
+		if (consultant.getLanguages() == null) {
+			consultant.setLanguages(Lists.<LanguageModel>newArrayList());
+		}
+		for (ExperienceModel experience : consultant.getExperiences()) {
+			if (experience.getPeriodFrom() != null && experience.getMonthFrom() == null) {
+				experience.setMonthFrom(monthOf(experience.getPeriodFrom()));
+				experience.setYearFrom(yearOf(experience.getPeriodFrom()));
+			}
+			if (experience.getPeriodTo() != null && experience.getMonthTo() == null) {
+				experience.setMonthTo(monthOf(experience.getPeriodTo()));
+				experience.setYearTo(yearOf(experience.getPeriodTo()));
+			}
+		}
+	}
+
+	private static String monthOf(Date date) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTime(date);
+		return String.valueOf(calendar.get(Calendar.MONTH));
+	}
+
+	private static String yearOf(Date date) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTime(date);
+		return String.valueOf(calendar.get(Calendar.YEAR));
+	}
+
+	private List<String> validate(ConsultantModel consultant) {
+		List<String> errors = Lists.newArrayList();
+		validate(personalDetailsValidator, consultant, "consultant", errors);
+		for (ExperienceModel experience : consultant.getExperiences()) {
+			validate(experienceValidator, experience, "experience", errors);
+		}
+		for (EducationModel education : consultant.getEducationList()) {
+			validate(educationValidator, education, "education", errors);
+		}
+		return errors;
+	}
+
+	private static void validate(Validator validator, Object target, String name, List<String> messages) {
+		Errors errors = new BeanPropertyBindingResult(target, name);
+		ValidationUtils.invokeValidator(validator, target, errors);
+		for (ObjectError error : errors.getAllErrors()) {
+			messages.add((error instanceof FieldError)
+				? name + "." + ((FieldError) error).getField() + ": " + error.getCode()
+				: name + ": " + error.getCode());
+		}
+	}
+
+}
@@ -21,13 +21,19 @@ package it.f2informatica.core.services;
 
 import com.google.common.base.Optional;
 import it.f2informatica.core.model.ConsultantModel;
+import it.f2informatica.core.model.ConsultantSummaryModel;
 import it.f2informatica.core.model.EducationModel;
 import it.f2informatica.core.model.ExperienceModel;
 import it.f2informatica.core.model.LanguageModel;
+import it.f2informatica.core.model.query.ConsultantFacets;
+import it.f2informatica.core.model.query.ConsultantMatch;
+import it.f2informatica.core.model.query.ConsultantRequirements;
 import it.f2informatica.core.model.query.ConsultantSearchCriteria;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+
 public interface ConsultantService {
 
 	ConsultantModel buildNewConsultantModel();
@@ -36,13 +42,26 @@ public interface ConsultantService {
 
 	Page paginateConsultants(ConsultantSearchCriteria searchCriteria, Pageable pageable);
 
+	Page<ConsultantSummaryModel> paginateConsultantSummaries(Pageable pageable);
+
+	Page<ConsultantSummaryModel> paginateConsultantSummaries(ConsultantSearchCriteria searchCriteria, Pageable pageable);
+
+	ConsultantFacets countFacets(ConsultantSearchCriteria searchCriteria);
+
+	/**
+	 * The k consultants best matching the requirements, each with its full
+	 * profile, hence k profile loads; absent while the attribute index is
+	 * disabled or still being built, rather than an empty list.
+	 */
+	Optional<List<ConsultantMatch>> matchConsultants(ConsultantRequirements requirements, int k);
+
 	Optional<ConsultantModel> findConsultantById(String consultantId);
 
 	String generateConsultantNumber();
 
 	ConsultantModel savePersonalDetails(ConsultantModel consultantModel);
 
-	void updatePersonalDetails(ConsultantModel consultantModel, String consultantId);
+	void updatePersonalDetails(ConsultantModel consultantModel, ConsultantModel snapshot, String consultantId);
 
 	void addConsultantExperience(ExperienceModel experienceModel, String consultantId);
 
@@ -60,7 +79,7 @@ public interface ConsultantService {
 
 	void addConsultantEducation(EducationModel educationModel, String consultantId);
 
-	void updateConsultantEducation(EducationModel educationModel, String consultantId);
+	void updateConsultantEducation(EducationModel educationModel, EducationModel snapshot, String consultantId);
 
 	void removeEducation(String consultantId, String educationId);
 }
@@ -26,10 +26,15 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import it.f2informatica.core.gateway.ConsultantRepositoryGateway;
 import it.f2informatica.core.model.ConsultantModel;
+import it.f2informatica.core.model.ConsultantSummaryModel;
 import it.f2informatica.core.model.EducationModel;
 import it.f2informatica.core.model.ExperienceModel;
 import it.f2informatica.core.model.LanguageModel;
+import it.f2informatica.core.model.query.ConsultantFacets;
+import it.f2informatica.core.model.query.ConsultantMatch;
+import it.f2informatica.core.model.query.ConsultantRequirements;
 import it.f2informatica.core.model.query.ConsultantSearchCriteria;
+import it.f2informatica.core.search.ConsultantAttributeIndex;
 import org.apache.commons.lang3.ArrayUtils;
 import org.joda.time.DateTime;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -49,6 +54,7 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 @Service
 public class ConsultantServiceImpl implements ConsultantService {
 	private static final String YEAR_MONTH_MILLISECONDS_FORMAT = "yyyyMMSSS";
+	private static final int TOP_SKILLS = 10;
 
 	private static final Predicate<LanguageModel> DOES_NOT_HAVE_ITEM_TO_ADD = new Predicate<LanguageModel>() {
 		@Override
@@ -62,6 +68,9 @@ public class ConsultantServiceImpl implements ConsultantService {
 	@Autowired
 	private ConsultantRepositoryGateway consultantRepositoryGateway;
 
+	@Autowired
+	private ConsultantAttributeIndex consultantAttributeIndex;
+
 	@Override
 	public ConsultantModel buildNewConsultantModel() {
 		return consultantModel()
@@ -80,14 +89,40 @@ public class ConsultantServiceImpl implements ConsultantService {
 		return consultantRepositoryGateway.paginateConsultants(searchCriteria, pageable);
 	}
 
+	@Override
+	public Page<ConsultantSummaryModel> paginateConsultantSummaries(Pageable pageable) {
+		return consultantRepositoryGateway.findAllConsultantSummaries(pageable);
+	}
+
+	@Override
+	public Page<ConsultantSummaryModel> paginateConsultantSummaries(ConsultantSearchCriteria searchCriteria, Pageable pageable) {
+		return consultantRepositoryGateway.paginateConsultantSummaries(searchCriteria, pageable);
+	}
+
+	@Override
+	public ConsultantFacets countFacets(ConsultantSearchCriteria searchCriteria) {
+		return consultantRepositoryGateway.countFacets(searchCriteria, TOP_SKILLS);
+	}
+
+	@Override
+	public Optional<List<ConsultantMatch>> matchConsultants(ConsultantRequirements requirements, int k) {
+		Optional<List<ConsultantMatch>> matches = consultantAttributeIndex.match(requirements, k);
+		if (matches.isPresent()) {
+			for (ConsultantMatch match : matches.get()) {
+				match.setConsultant(consultantRepositoryGateway.findOneConsultant(match.getConsultantId()));
+			}
+		}
+		return matches;
+	}
+
 	@Override
 	public ConsultantModel savePersonalDetails(ConsultantModel consultantModel) {
 		return consultantRepositoryGateway.savePersonalDetails(consultantModel);
 	}
 
 	@Override
-	public void updatePersonalDetails(ConsultantModel consultantModel, String consultantId) {
-		consultantRepositoryGateway.updatePersonalDetails(consultantModel, consultantId);
+	public void updatePersonalDetails(ConsultantModel consultantModel, ConsultantModel snapshot, String consultantId) {
+		consultantRepositoryGateway.updatePersonalDetails(consultantModel, snapshot, consultantId);
 	}
 
 	@Override
@@ -166,8 +201,8 @@ public class ConsultantServiceImpl implements ConsultantService {
 	}
 
 	@Override
-	public void updateConsultantEducation(EducationModel educationModel, String consultantId) {
-		consultantRepositoryGateway.updateEducation(educationModel, consultantId);
+	public void updateConsultantEducation(EducationModel educationModel, EducationModel snapshot, String consultantId) {
+		consultantRepositoryGateway.updateEducation(educationModel, snapshot, consultantId);
 	}
 
 	@Override
@@ -26,6 +26,8 @@ import it.f2informatica.pagination.services.QueryParameters;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.Writer;
+
 public interface UserService {
 
 	Optional<UserModel> findUserById(String userId);
@@ -36,6 +38,8 @@ public interface UserService {
 
 	String getAllUsersPaginated(QueryParameters parameters, String currentUsername);
 
+	void writeAllUsersPaginated(QueryParameters parameters, String currentUsername, Writer writer);
+
 	Page<UserModel> findAllExcludingCurrentUser(Pageable pageable, String usernameToExclude);
 
 	UserModel saveUser(UserModel user);
@@ -29,6 +29,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.io.Writer;
+
 import static it.f2informatica.core.model.builder.UserModelBuilder.userModel;
 
 @Service
@@ -57,6 +59,11 @@ public class UserServiceImpl implements UserService {
 		return userRepositoryGateway.getAllUsersPaginated(parameters, currentUsername);
 	}
 
+	@Override
+	public void writeAllUsersPaginated(QueryParameters parameters, String currentUsername, Writer writer) {
+		userRepositoryGateway.writeAllUsersPaginated(parameters, currentUsername, writer);
+	}
+
 	@Override
 	public Page<UserModel> findAllExcludingCurrentUser(Pageable pageable, String usernameToExclude) {
 		return userRepositoryGateway.findAllExcludingCurrentUser(pageable, usernameToExclude);
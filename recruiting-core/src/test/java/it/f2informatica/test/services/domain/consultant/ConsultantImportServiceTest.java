@@ -0,0 +1,197 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.test.services.domain.consultant;
+
+import it.f2informatica.core.gateway.ConsultantRepositoryGateway;
+import it.f2informatica.core.imports.ConsultantRecordReader;
+import it.f2informatica.core.imports.CsvConsultantRecordReader;
+import it.f2informatica.core.imports.ImportCheckpoint;
+import it.f2informatica.core.imports.ImportReport;
+import it.f2informatica.core.imports.JsonConsultantRecordReader;
+import it.f2informatica.core.model.ConsultantModel;
+import it.f2informatica.core.services.ConsultantImportService;
+import it.f2informatica.core.services.ConsultantImportServiceImpl;
+import it.f2informatica.core.validator.ConsultantEducationValidator;
+import it.f2informatica.core.validator.ConsultantExperienceValidator;
+import it.f2informatica.core.validator.ConsultantPersonalDetailsValidator;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConsultantImportServiceTest {
+	private static final String HEADER = "consultantNo,fiscalCode,email,firstName,lastName,gender,birthDate,birthCity,birthCountry,skills,languages\n";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Mock
+	private ConsultantRepositoryGateway consultantRepositoryGateway;
+
+	@Spy
+	private ConsultantPersonalDetailsValidator personalDetailsValidator = new ConsultantPersonalDetailsValidator();
+
+	@Spy
+	private ConsultantExperienceValidator experienceValidator = new ConsultantExperienceValidator();
+
+	@Spy
+	private ConsultantEducationValidator educationValidator = new ConsultantEducationValidator();
+
+	@InjectMocks
+	private ConsultantImportService consultantImportService = new ConsultantImportServiceImpl();
+
+	private ImportCheckpoint checkpoint;
+
+	@Before
+	public void setUp() throws IOException {
+		ReflectionTestUtils.setField(consultantImportService, "batchSize", 2);
+		checkpoint = ImportCheckpoint.inFile(folder.newFile("import.checkpoint"));
+		checkpoint.clear();
+		when(consultantRepositoryGateway.importConsultants(anyListOf(ConsultantModel.class))).thenAnswer(new Answer<Integer>() {
+			@Override
+			public Integer answer(InvocationOnMock invocation) {
+				return ((List<?>) invocation.getArguments()[0]).size();
+			}
+		});
+	}
+
+	@Test
+	public void importsCsvInBatches() {
+		ImportReport report = consultantImportService.importConsultants(csv(
+			consultant("C1") + consultant("C2") + consultant("C3")), checkpoint);
+		assertThat(report.getRecordsRead()).isEqualTo(3);
+		assertThat(report.getRecordsImported()).isEqualTo(3);
+		assertThat(report.getRejectedRecords()).isEmpty();
+		assertThat(checkpoint.committedRecords()).isEqualTo(3);
+		verify(consultantRepositoryGateway, times(2)).importConsultants(anyListOf(ConsultantModel.class));
+	}
+
+	@Test
+	public void readsQuotedValuesSkillsAndLanguages() {
+		ArgumentCaptor<List> batch = ArgumentCaptor.forClass(List.class);
+		consultantImportService.importConsultants(csv(
+			"C1,FSCL,c1@mail.com,\"Mario, Jr.\",\"Rossi \"\"The Coder\"\"\",M,1980-02-01,Rome,Italy,Java;Cobol,English:full_professional;French:elementary\n"), checkpoint);
+		verify(consultantRepositoryGateway).importConsultants(batch.capture());
+		ConsultantModel consultant = (ConsultantModel) batch.getValue().get(0);
+		assertThat(consultant.getFirstName()).isEqualTo("Mario, Jr.");
+		assertThat(consultant.getLastName()).isEqualTo("Rossi \"The Coder\"");
+		assertThat(consultant.getSkills()).containsExactly("Java", "Cobol");
+		assertThat(consultant.getLanguages()).hasSize(2);
+		assertThat(consultant.getLanguages().get(0).getProficiency()).isEqualTo("full_professional");
+		assertThat(consultant.getBirthDate()).isNotNull();
+		assertThat(consultant.getRegistrationDate()).isNotNull();
+	}
+
+	@Test
+	public void rejectsInvalidRecords() {
+		ImportReport report = consultantImportService.importConsultants(csv(
+			consultant("C1") + "C2,,,,,,,,,,\n"), checkpoint);
+		assertThat(report.getRecordsImported()).isEqualTo(1);
+		assertThat(report.getRejectedRecords()).hasSize(1);
+		assertThat(report.getRejectedRecords().get(2L)).contains("consultant.email: err.required");
+	}
+
+	@Test
+	public void rejectsAnUnreadableRecordAndGoesOn() {
+		ImportReport report = consultantImportService.importConsultants(csv(
+			consultant("C1") + consultant("C2").replace("1980-02-01", "1980-02-xx") + "\n" + consultant("C3") + "\n"), checkpoint);
+		assertThat(report.getRecordsRead()).isEqualTo(3);
+		assertThat(report.getRecordsImported()).isEqualTo(2);
+		assertThat(report.getRejectedRecords().keySet()).containsOnly(2L);
+		assertThat(checkpoint.committedRecords()).isEqualTo(3);
+	}
+
+	@Test
+	public void rejectsAnUnreadableJsonConsultantAndGoesOn() {
+		String json = "[{\"consultantNo\":\"C1\",\"birthDate\":\"01/02/1980\"},{\"consultantNo\":\"C2\",\"fiscalCode\":\"F\","
+			+ "\"email\":\"c2@mail.com\",\"firstName\":\"Mario\",\"lastName\":\"Rossi\",\"gender\":\"M\",\"birthDate\":\"1980-02-01\","
+			+ "\"birthCity\":\"Rome\",\"birthCountry\":\"Italy\"}]";
+		ImportReport report = consultantImportService.importConsultants(
+			new JsonConsultantRecordReader(new StringReader(json)), checkpoint);
+		assertThat(report.getRecordsRead()).isEqualTo(2);
+		assertThat(report.getRecordsImported()).isEqualTo(1);
+		assertThat(report.getRejectedRecords().keySet()).containsOnly(1L);
+	}
+
+	@Test
+	public void keepsTheLastRecordOfAConsultantInABatch() {
+		ArgumentCaptor<List> batch = ArgumentCaptor.forClass(List.class);
+		consultantImportService.importConsultants(csv(
+			consultant("C1") + consultant("C1").replace("Rome", "Milan")), checkpoint);
+		verify(consultantRepositoryGateway).importConsultants(batch.capture());
+		assertThat(batch.getValue()).hasSize(1);
+		assertThat(((ConsultantModel) batch.getValue().get(0)).getBirthCity()).isEqualTo("Milan");
+	}
+
+	@Test
+	public void resumesAfterTheCommittedRecords() {
+		checkpoint.commit(2);
+		ImportReport report = consultantImportService.importConsultants(csv(
+			consultant("C1") + consultant("C2") + consultant("C3")), checkpoint);
+		assertThat(report.getRecordsSkipped()).isEqualTo(2);
+		assertThat(report.getRecordsImported()).isEqualTo(1);
+		assertThat(checkpoint.committedRecords()).isEqualTo(3);
+	}
+
+	@Test
+	public void importsJsonWithExperiences() {
+		ArgumentCaptor<List> batch = ArgumentCaptor.forClass(List.class);
+		String json = "[{\"consultantNo\":\"C1\",\"fiscalCode\":\"F\",\"email\":\"c1@mail.com\",\"firstName\":\"Mario\","
+			+ "\"lastName\":\"Rossi\",\"gender\":\"M\",\"birthDate\":\"1980-02-01\",\"birthCity\":\"Rome\",\"birthCountry\":\"Italy\","
+			+ "\"skills\":[\"Java\"],\"experiences\":[{\"companyName\":\"F2\",\"position\":\"Developer\",\"locality\":\"Rome\","
+			+ "\"periodFrom\":\"2010-03-01\",\"periodTo\":\"2012-05-01\",\"description\":\"Coding\"}]}]";
+		ImportReport report = consultantImportService.importConsultants(
+			new JsonConsultantRecordReader(new StringReader(json)), checkpoint);
+		assertThat(report.getRecordsImported()).isEqualTo(1);
+		verify(consultantRepositoryGateway).importConsultants(batch.capture());
+		ConsultantModel consultant = (ConsultantModel) batch.getValue().get(0);
+		assertThat(consultant.getExperiences().get(0).getMonthFrom()).isEqualTo("2");
+		assertThat(consultant.getExperiences().get(0).getYearTo()).isEqualTo("2012");
+	}
+
+	private static ConsultantRecordReader csv(String records) {
+		return new CsvConsultantRecordReader(new StringReader(HEADER + records));
+	}
+
+	private static String consultant(String consultantNo) {
+		return consultantNo + ",FSCL" + consultantNo + "," + consultantNo + "@mail.com,Mario,Rossi,M,1980-02-01,Rome,Italy,Java,English:native_or_bilingual\n";
+	}
+
+}
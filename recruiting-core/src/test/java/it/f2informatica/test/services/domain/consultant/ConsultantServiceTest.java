@@ -22,6 +22,9 @@ package it.f2informatica.test.services.domain.consultant;
 import com.google.common.base.Optional;
 import it.f2informatica.core.gateway.ConsultantRepositoryGateway;
 import it.f2informatica.core.model.ConsultantModel;
+import it.f2informatica.core.model.query.ConsultantMatch;
+import it.f2informatica.core.model.query.ConsultantRequirements;
+import it.f2informatica.core.search.ConsultantAttributeIndex;
 import it.f2informatica.core.services.ConsultantService;
 import it.f2informatica.core.services.ConsultantServiceImpl;
 import org.junit.Test;
@@ -35,6 +38,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.util.Arrays;
+import java.util.List;
 
 import static it.f2informatica.core.model.builder.ConsultantModelBuilder.consultantModel;
 import static org.fest.assertions.Assertions.assertThat;
@@ -47,6 +51,9 @@ public class ConsultantServiceTest {
 	@Mock
 	private ConsultantRepositoryGateway consultantRepositoryGateway;
 
+	@Mock
+	private ConsultantAttributeIndex consultantAttributeIndex;
+
 	@InjectMocks
 	private ConsultantService consultantService = new ConsultantServiceImpl();
 
@@ -98,6 +105,13 @@ public class ConsultantServiceTest {
 		assertThat(consultant.get().getFirstName()).isEqualTo(consMock.getFirstName());
 	}
 
+	@Test
+	public void matchingWhileTheIndexIsNotReadyIsNotAnEmptyMatch() {
+		ConsultantRequirements requirements = new ConsultantRequirements();
+		when(consultantAttributeIndex.match(requirements, 5)).thenReturn(Optional.<List<ConsultantMatch>>absent());
+		assertThat(consultantService.matchConsultants(requirements, 5).isPresent()).isFalse();
+	}
+
 	@Test
 	public void verifyThatTwoNumbersAreNotEqualEachOtherAfterTenRounds() {
 		for (int i = 0; i < 10; i++) {
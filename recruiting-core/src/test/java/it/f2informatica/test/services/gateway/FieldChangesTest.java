@@ -0,0 +1,86 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.test.services.gateway;
+
+import com.google.common.collect.Lists;
+import it.f2informatica.core.gateway.FieldChanges;
+import it.f2informatica.core.model.AddressModel;
+import it.f2informatica.core.model.ConsultantModel;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.MapAssert.entry;
+
+public class FieldChangesTest {
+	private static final List<String> PROPERTIES = Arrays.asList("firstName", "lastName", "email", "residence.city", "residence.street");
+
+	@Test
+	public void onlyTheEditedPropertiesAreChanged() {
+		ConsultantModel snapshot = consultant("Mario", "Rossi", "mario.rossi@f2informatica.it", "Roma");
+		ConsultantModel edited = consultant("Mario", "Bianchi", "mario.rossi@f2informatica.it", "Milano");
+		FieldChanges changes = FieldChanges.between(snapshot, edited, PROPERTIES);
+		assertThat(changes.getChanged()).hasSize(2).includes(entry("lastName", "Bianchi"), entry("residence.city", "Milano"));
+		assertThat(changes.isChanged("firstName", "lastName")).isTrue();
+		assertThat(changes.isChanged("email")).isFalse();
+	}
+
+	@Test
+	public void theNestedChangesAreRelativeToTheirProperty() {
+		ConsultantModel snapshot = consultant("Mario", "Rossi", null, "Roma");
+		ConsultantModel edited = consultant("Mario", "Rossi", null, "Milano");
+		assertThat(FieldChanges.between(snapshot, edited, PROPERTIES).within("residence"))
+			.hasSize(1).includes(entry("city", "Milano"));
+	}
+
+	@Test
+	public void aMissingNestedModelHasNullProperties() {
+		ConsultantModel snapshot = consultant("Mario", "Rossi", null, null);
+		ConsultantModel edited = consultant("Mario", "Rossi", null, "Roma");
+		edited.getResidence().setStreet(null);
+		assertThat(FieldChanges.between(snapshot, edited, PROPERTIES).getChanged())
+			.hasSize(1).includes(entry("residence.city", "Roma"));
+		assertThat(FieldChanges.between(edited, snapshot, PROPERTIES).getChanged())
+			.hasSize(1).includes(entry("residence.city", null));
+	}
+
+	@Test
+	public void withoutSnapshotEveryPropertyIsChanged() {
+		FieldChanges changes = FieldChanges.between(null, consultant("Mario", "Rossi", null, "Roma"), PROPERTIES);
+		assertThat(Lists.newArrayList(changes.getChanged().keySet())).isEqualTo(PROPERTIES);
+		assertThat(FieldChanges.between(consultant("Mario", "Rossi", null, null), consultant("Mario", "Rossi", null, null), PROPERTIES).isEmpty()).isTrue();
+	}
+
+	private static ConsultantModel consultant(String firstName, String lastName, String email, String city) {
+		ConsultantModel consultant = new ConsultantModel();
+		consultant.setFirstName(firstName);
+		consultant.setLastName(lastName);
+		consultant.setEmail(email);
+		if (city != null) {
+			AddressModel residence = new AddressModel();
+			residence.setCity(city);
+			consultant.setResidence(residence);
+		}
+		return consultant;
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.test.services.gateway;
+
+import it.f2informatica.core.gateway.SetChanges;
+import it.f2informatica.core.model.LanguageModel;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class SetChangesTest {
+
+	@Test
+	public void onlyTheDifferencesAreChanged() {
+		SetChanges<String> changes = SetChanges.between(Arrays.asList("Java", "SQL", "Cobol"), Arrays.asList("Java", "Spring", "SQL"));
+		assertThat(changes.getAdded()).containsOnly("Spring");
+		assertThat(changes.getRemoved()).containsOnly("Cobol");
+	}
+
+	@Test
+	public void aDifferentProficiencyReplacesTheLanguage() {
+		SetChanges<LanguageModel> changes = SetChanges.between(
+			Arrays.asList(new LanguageModel("English", "elementary"), new LanguageModel("Italian", "native_or_bilingual")),
+			Arrays.asList(new LanguageModel("English", "full_professional"), new LanguageModel("Italian", "native_or_bilingual")));
+		assertThat(changes.getAdded()).containsOnly(new LanguageModel("English", "full_professional"));
+		assertThat(changes.getRemoved()).containsOnly(new LanguageModel("English", "elementary"));
+	}
+
+	@Test
+	public void theSameElementsAreNoChange() {
+		assertThat(SetChanges.between(Arrays.asList("Java", "SQL"), Arrays.asList("SQL", "Java", "SQL")).isEmpty()).isTrue();
+		assertThat(SetChanges.between(Collections.<String>emptyList(), Arrays.asList("Java")).isEmpty()).isFalse();
+	}
+
+}
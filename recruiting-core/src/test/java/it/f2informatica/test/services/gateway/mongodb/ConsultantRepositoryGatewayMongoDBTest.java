@@ -23,18 +23,29 @@ import com.google.common.collect.Lists;
 import it.f2informatica.core.gateway.ConsultantRepositoryGateway;
 import it.f2informatica.core.gateway.EntityToModelConverter;
 import it.f2informatica.core.gateway.mongodb.ConsultantRepositoryGatewayMongoDB;
+import it.f2informatica.core.gateway.mongodb.converter.MongoDBConsultantToSummaryConverter;
 import it.f2informatica.core.model.ConsultantModel;
+import it.f2informatica.core.model.ConsultantSummaryModel;
+import it.f2informatica.core.search.ConsultantAttributeIndex;
+import it.f2informatica.core.search.ConsultantNameIndex;
 import it.f2informatica.mongodb.domain.Consultant;
 import it.f2informatica.mongodb.repositories.ConsultantRepository;
+import it.f2informatica.pagination.cache.PageCache;
+import it.f2informatica.pagination.cache.PagePrefetcher;
+import it.f2informatica.pagination.count.PageCounter;
+import it.f2informatica.pagination.repository.mongodb.MongoQueryPredicate;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.query.Query;
 
 import java.util.Arrays;
 import java.util.List;
@@ -44,6 +55,8 @@ import static it.f2informatica.mongodb.domain.builder.ConsultantBuilder.consulta
 import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -52,20 +65,53 @@ public class ConsultantRepositoryGatewayMongoDBTest {
 	@Mock
 	private ConsultantRepository consultantRepository;
 
+	@Mock
+	private PageCounter pageCounter;
+
+	@Spy
+	private PageCache pageCache = PageCache.disabled();
+
+	@Spy
+	private PagePrefetcher pagePrefetcher = PagePrefetcher.disabled(pageCache);
+
+	@Spy
+	private ConsultantNameIndex consultantNameIndex = new ConsultantNameIndex();
+
+	@Spy
+	private ConsultantAttributeIndex consultantAttributeIndex = new ConsultantAttributeIndex();
+
 	@Mock
 	private EntityToModelConverter<Consultant, ConsultantModel> consultantToModelConverter;
 
+	@Spy
+	private EntityToModelConverter<Consultant, ConsultantSummaryModel> consultantToSummaryConverter = new MongoDBConsultantToSummaryConverter();
+
 	@InjectMocks
 	private ConsultantRepositoryGateway consultantRepositoryGateway = new ConsultantRepositoryGatewayMongoDB();
 
 	@Test
+	@SuppressWarnings("unchecked")
 	public void findAllConsultantsTest() {
-		when(consultantRepository.findAll(any(Pageable.class))).thenReturn(consultants());
+		when(consultantRepository.findAll(any(MongoQueryPredicate.class), any(Pageable.class), any(PageCounter.class))).thenReturn(consultants());
 		when(consultantToModelConverter.convertList(anyListOf(Consultant.class))).thenReturn(consultantModels());
 		Page<ConsultantModel> paginated = consultantRepositoryGateway.findAllConsultants(new PageRequest(1, 10));
 		assertThat(paginated).isNotEmpty().hasSize(2);
 	}
 
+	@Test
+	@SuppressWarnings("unchecked")
+	public void findAllConsultantSummariesReadsOnlyTheListedFields() {
+		when(consultantRepository.findAll(any(MongoQueryPredicate.class), any(Pageable.class), any(PageCounter.class))).thenReturn(consultants());
+		Page<ConsultantSummaryModel> paginated = consultantRepositoryGateway.findAllConsultantSummaries(new PageRequest(1, 10));
+		assertThat(paginated).hasSize(2);
+		assertThat(paginated.getContent().get(0).getFirstName()).isEqualTo("consultant_1");
+
+		ArgumentCaptor<MongoQueryPredicate> predicate = ArgumentCaptor.forClass(MongoQueryPredicate.class);
+		verify(consultantRepository).findAll(predicate.capture(), eq(new PageRequest(1, 10)), any(PageCounter.class));
+		Query query = predicate.getValue().queryPredicate();
+		assertThat(query.getFieldsObject().keySet()).contains("firstName", "lastName", "skills").excludes("experiences", "educationList");
+	}
+
 	private Page<Consultant> consultants() {
 		return new PageImpl<>(Arrays.asList(
 			consultant().withFirstName("consultant_1").withLastName("consultant_1").build(),
@@ -32,6 +32,7 @@ import it.f2informatica.mongodb.domain.Role;
 import it.f2informatica.mongodb.domain.User;
 import it.f2informatica.mongodb.repositories.RoleRepository;
 import it.f2informatica.mongodb.repositories.UserRepository;
+import it.f2informatica.pagination.cache.PageCache;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
@@ -64,6 +65,9 @@ public class UserRepositoryGatewayMongoDBTest {
 	@Mock
 	private RoleRepository roleRepository;
 
+	@Mock
+	private PageCache pageCache;
+
 	@Mock
 	private EntityToModelConverter<User, UserModel> userToModelConverter;
 
@@ -0,0 +1,111 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.test.services.search;
+
+import com.google.common.collect.Lists;
+import it.f2informatica.core.model.ExperienceModel;
+import it.f2informatica.core.model.LanguageModel;
+import it.f2informatica.core.model.query.ConsultantSearchCriteria;
+import it.f2informatica.core.search.ConsultantAttributeIndex;
+import it.f2informatica.core.search.ConsultantFilter;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static it.f2informatica.core.search.ConsultantAttributeIndex.Attribute.*;
+import static it.f2informatica.core.search.ConsultantFilter.*;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ConsultantAttributeIndexTest {
+	private static final int CONSULTANTS = 100000;
+
+	private ConsultantAttributeIndex consultantAttributeIndex;
+
+	/**
+	 * Enough consultants for the common values to fill dense chunks.
+	 */
+	@Before
+	public void setUp() {
+		consultantAttributeIndex = new ConsultantAttributeIndex();
+		for (int i = 0; i < CONSULTANTS; i++) {
+			List<String> skills = Lists.newArrayList();
+			if (i % 2 == 0) {
+				skills.add("Java");
+			}
+			if (i % 3 == 0) {
+				skills.add("SQL");
+			}
+			if (i % 1000 == 0) {
+				skills.add("Cobol");
+			}
+			List<LanguageModel> languages = Collections.singletonList(new LanguageModel("English", (i % 7 == 0) ? "Fluent" : "Basic"));
+			consultantAttributeIndex.index(String.valueOf(i), skills, languages, (i % 10 == 0) ? "F" : "M", "Italy",
+				Collections.<ExperienceModel>emptyList());
+		}
+		consultantAttributeIndex.markReady();
+	}
+
+	@Test
+	public void searchAllOfTheValues() {
+		ConsultantFilter filter = allOf(Arrays.asList(is(SKILL, "Cobol"), is(SKILL, "SQL"), speaks("English", "Fluent")));
+		assertThat(consultantAttributeIndex.search(filter).get()).containsOnly("0", "21000", "42000", "63000", "84000");
+	}
+
+	@Test
+	public void searchAnyOfTheValuesExceptOthers() {
+		ConsultantFilter filter = allOf(Arrays.asList(
+			anyOf(Arrays.asList(is(SKILL, "Cobol"), is(SKILL, "Rust"))),
+			not(is(SKILL, "SQL")),
+			is(GENDER, "F")));
+		assertThat(consultantAttributeIndex.search(filter).get()).hasSize(66).excludes("0", "3000").contains("1000", "2000");
+	}
+
+	@Test
+	public void searchByCriteria() {
+		ConsultantSearchCriteria searchCriteria = new ConsultantSearchCriteria();
+		searchCriteria.setSkills("Cobol,SQL");
+		searchCriteria.setSkillMatch(ConsultantSearchCriteria.SkillMatch.ALL);
+		searchCriteria.setLanguage("English");
+		searchCriteria.setProficiency("Basic");
+		assertThat(consultantAttributeIndex.search(searchCriteria).get()).hasSize(29).excludes("0", "21000");
+	}
+
+	@Test
+	public void changedValuesReplaceThePreviousOnes() {
+		consultantAttributeIndex.skillsChanged("1", Arrays.asList("Cobol", "Rust"));
+		consultantAttributeIndex.personalDetailsChanged("1", "F", "Spain");
+		assertThat(consultantAttributeIndex.search(allOf(Arrays.asList(is(SKILL, "Rust"), is(BIRTH_COUNTRY, "Spain")))).get()).containsOnly("1");
+		assertThat(consultantAttributeIndex.search(allOf(Arrays.asList(is(SKILL, "Cobol"), is(BIRTH_COUNTRY, "Italy")))).get()).excludes("1");
+	}
+
+	@Test
+	public void searchIsLeftToTheDatastoreWhenTooManyMatch() {
+		assertThat(consultantAttributeIndex.search(is(SKILL, "Java")).isPresent()).isFalse();
+	}
+
+	@Test
+	public void searchIsLeftToTheDatastoreWithoutAttributeCriteria() {
+		assertThat(consultantAttributeIndex.search(new ConsultantSearchCriteria()).isPresent()).isFalse();
+	}
+
+}
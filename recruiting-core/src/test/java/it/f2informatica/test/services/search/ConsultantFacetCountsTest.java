@@ -0,0 +1,139 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.test.services.search;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.AtomicLongMap;
+import it.f2informatica.core.model.LanguageModel;
+import it.f2informatica.core.model.query.ConsultantFacets;
+import it.f2informatica.core.search.ConsultantFacetCounts;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ConsultantFacetCountsTest {
+
+	private ConsultantFacetCounts consultantFacetCounts;
+
+	@Before
+	public void setUp() {
+		consultantFacetCounts = new ConsultantFacetCounts();
+		consultantFacetCounts.getFacets(0, new Supplier<ConsultantFacets>() {
+			@Override
+			public ConsultantFacets get() {
+				return new ConsultantFacets(
+					ImmutableMap.of("Java", 3L, "SQL", 1L, "Spring", 2L),
+					ImmutableMap.of(new LanguageModel("English", "Fluent"), 2L));
+			}
+		});
+	}
+
+	@Test
+	public void mostCommonSkillsFirst() {
+		ConsultantFacets facets = consultantFacetCounts.getFacets(2, null);
+		assertThat(Lists.newArrayList(facets.getSkills().keySet())).containsExactly("Java", "Spring");
+	}
+
+	@Test
+	public void skillChangesAreCounted() {
+		consultantFacetCounts.skillsChanged(Arrays.asList("Java", "SQL"), Arrays.asList("Java", "Spring"));
+		ConsultantFacets facets = consultantFacetCounts.getFacets(0, null);
+		assertThat(facets.getSkills()).isEqualTo(ImmutableMap.of("Java", 3L, "Spring", 3L));
+	}
+
+	@Test
+	public void languageChangesAreCounted() {
+		consultantFacetCounts.languagesChanged(Collections.<LanguageModel>emptyList(),
+			Arrays.asList(new LanguageModel("English", "Fluent"), new LanguageModel("Italian", "Native")));
+		ConsultantFacets facets = consultantFacetCounts.getFacets(0, null);
+		assertThat(facets.getLanguages()).isEqualTo(ImmutableMap.of(
+			new LanguageModel("English", "Fluent"), 3L,
+			new LanguageModel("Italian", "Native"), 1L));
+	}
+
+	@Test
+	public void aChangeMissedByTheLoadQueryIsNotLost() {
+		ConsultantFacetCounts loadingFacetCounts = new ConsultantFacetCounts();
+		ConsultantFacets facets = loadingFacetCounts.getFacets(0, new RacingLoad(loadingFacetCounts, 1, false));
+		assertThat(facets.getSkills()).isEqualTo(ImmutableMap.of("Java", 4L, "Hibernate", 1L));
+	}
+
+	@Test
+	public void aChangeSeenByTheLoadQueryIsNotCountedTwice() {
+		ConsultantFacetCounts loadingFacetCounts = new ConsultantFacetCounts();
+		loadingFacetCounts.getFacets(0, new RacingLoad(loadingFacetCounts, 1, true));
+		ConsultantFacets facets = loadingFacetCounts.getFacets(0, null);
+		assertThat(facets.getSkills()).isEqualTo(ImmutableMap.of("Java", 4L, "Hibernate", 1L));
+	}
+
+	@Test
+	public void countsRacingWithEveryLoadAreNotPublished() {
+		ConsultantFacetCounts loadingFacetCounts = new ConsultantFacetCounts();
+		RacingLoad racingLoad = new RacingLoad(loadingFacetCounts, Integer.MAX_VALUE, true);
+		loadingFacetCounts.getFacets(0, racingLoad);
+		int loadsOfTheFirstRequest = racingLoad.loads;
+		loadingFacetCounts.getFacets(0, racingLoad);
+		assertThat(racingLoad.loads).isGreaterThan(loadsOfTheFirstRequest);
+	}
+
+	/**
+	 * Counts the skills of a store in which, during each of the first loads,
+	 * a consultant having the Java and Hibernate skills is committed.
+	 */
+	private static class RacingLoad implements Supplier<ConsultantFacets> {
+		private final ConsultantFacetCounts facetCounts;
+		private final int racingLoads;
+		private final boolean seenByTheQuery;
+		private final AtomicLongMap<String> store = AtomicLongMap.create(ImmutableMap.of("Java", 3L));
+		int loads;
+
+		RacingLoad(ConsultantFacetCounts facetCounts, int racingLoads, boolean seenByTheQuery) {
+			this.facetCounts = facetCounts;
+			this.racingLoads = racingLoads;
+			this.seenByTheQuery = seenByTheQuery;
+		}
+
+		@Override
+		public ConsultantFacets get() {
+			boolean racing = ++loads <= racingLoads;
+			if (racing && seenByTheQuery) {
+				commitConsultant();
+			}
+			ConsultantFacets facets = new ConsultantFacets(ImmutableMap.copyOf(store.asMap()), ImmutableMap.<LanguageModel, Long>of());
+			if (racing && !seenByTheQuery) {
+				commitConsultant();
+			}
+			return facets;
+		}
+
+		private void commitConsultant() {
+			store.incrementAndGet("Java");
+			store.incrementAndGet("Hibernate");
+			facetCounts.skillsChanged(Collections.<String>emptyList(), Arrays.asList("Java", "Hibernate"));
+		}
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.test.services.search;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import it.f2informatica.core.model.ExperienceModel;
+import it.f2informatica.core.model.LanguageModel;
+import it.f2informatica.core.model.query.ConsultantMatch;
+import it.f2informatica.core.model.query.ConsultantRequirements;
+import it.f2informatica.core.search.ConsultantAttributeIndex;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static it.f2informatica.core.model.builder.ExperienceModelBuilder.experienceModel;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ConsultantMatchingTest {
+	private static final int CONSULTANTS = 100000;
+	private static final String[] PROFICIENCIES = {
+		"elementary", "limited_working", "professional_working", "full_professional", "native_or_bilingual"
+	};
+
+	private ConsultantAttributeIndex consultantAttributeIndex;
+
+	/**
+	 * Every consultant has as many years of experience as the remainder of
+	 * their number divided by 11, the best of them having ten years.
+	 */
+	@Before
+	public void setUp() {
+		consultantAttributeIndex = new ConsultantAttributeIndex();
+		for (int i = 0; i < CONSULTANTS; i++) {
+			List<String> skills = Lists.newArrayList();
+			if (i % 2 == 0) {
+				skills.add("Java");
+			}
+			if (i % 3 == 0) {
+				skills.add("SQL");
+			}
+			if (i % 1000 == 0) {
+				skills.add("Cobol");
+			}
+			List<LanguageModel> languages = Collections.singletonList(new LanguageModel("English", PROFICIENCIES[(i / 1000) % 5]));
+			List<ExperienceModel> experiences = Collections.singletonList(experienceOf(i, i % 11));
+			consultantAttributeIndex.index(String.valueOf(i), skills, languages, "M", "Italy", experiences);
+		}
+		consultantAttributeIndex.markReady();
+	}
+
+	@Test
+	public void matchTheBestConsultantsFirst() {
+		ConsultantRequirements requirements = new ConsultantRequirements();
+		requirements.setRequiredSkills(ImmutableMap.of("Java", 2.0));
+		requirements.setOptionalSkills(ImmutableMap.of("Cobol", 5.0, "Rust", 1.0));
+		requirements.setYearsOfExperience(10);
+		List<ConsultantMatch> matches = consultantAttributeIndex.match(requirements, 5).get();
+		assertThat(idsOf(matches)).containsExactly("1000", "12000", "23000", "34000", "45000");
+		assertThat(matches.get(0).getScore()).isEqualTo(8.0);
+	}
+
+	@Test
+	public void requiredSkillsMustAllBeHeld() {
+		ConsultantRequirements requirements = new ConsultantRequirements();
+		requirements.setRequiredSkills(ImmutableMap.of("Cobol", 1.0, "SQL", 1.0));
+		assertThat(idsOf(consultantAttributeIndex.match(requirements, 50).get())).hasSize(34).contains("0", "3000", "99000");
+	}
+
+	@Test
+	public void lowerProficienciesEarnPartOfTheWeight() {
+		ConsultantRequirements requirements = new ConsultantRequirements();
+		requirements.setRequiredSkills(ImmutableMap.of("Cobol", 1.0));
+		requirements.setLanguages(ImmutableMap.of("English", "professional_working"));
+		List<ConsultantMatch> matches = consultantAttributeIndex.match(requirements, 100).get();
+		assertThat(matches.get(0).getScore()).isEqualTo(2.0);
+		assertThat(matches.get(99).getScore()).isEqualTo(1.0 + 1.0 / 3);
+	}
+
+	@Test
+	public void overlappingExperiencesAreCountedOnce() {
+		ConsultantRequirements requirements = new ConsultantRequirements();
+		requirements.setRequiredSkills(ImmutableMap.of("Cobol", 1.0));
+		requirements.setYearsOfExperience(12);
+		consultantAttributeIndex.experienceChanged("99000", experienceOf(99000, 8));
+		consultantAttributeIndex.experienceChanged("99000", experienceOf("99000-bis", 2002, 2008));
+		assertThat(idsOf(consultantAttributeIndex.match(requirements, 1).get())).containsExactly("1000");
+		consultantAttributeIndex.experienceChanged("99000", experienceOf("99000-bis", 2008, 2013));
+		assertThat(idsOf(consultantAttributeIndex.match(requirements, 1).get())).containsExactly("99000");
+		consultantAttributeIndex.experienceRemoved("99000", "99000-bis");
+		assertThat(idsOf(consultantAttributeIndex.match(requirements, 1).get())).containsExactly("1000");
+	}
+
+	@Test
+	public void matchNoneUntilTheIndexIsReady() {
+		assertThat(new ConsultantAttributeIndex().match(new ConsultantRequirements(), 10).isPresent()).isFalse();
+	}
+
+	private static ExperienceModel experienceOf(int consultant, int years) {
+		return experienceOf(String.valueOf(consultant), 2000, 2000 + years);
+	}
+
+	private static ExperienceModel experienceOf(String id, int yearFrom, int yearTo) {
+		return experienceModel()
+			.withId(id)
+			.fromPeriod(new DateTime(yearFrom, 1, 1, 0, 0).toDate())
+			.toPeriod(new DateTime(yearTo, 1, 1, 0, 0).toDate())
+			.build();
+	}
+
+	private static List<String> idsOf(List<ConsultantMatch> matches) {
+		List<String> ids = Lists.newArrayList();
+		for (ConsultantMatch match : matches) {
+			ids.add(match.getConsultantId());
+		}
+		return ids;
+	}
+
+}
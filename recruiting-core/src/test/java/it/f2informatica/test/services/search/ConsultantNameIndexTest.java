@@ -0,0 +1,111 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.test.services.search;
+
+import it.f2informatica.core.search.ConsultantNameIndex;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ConsultantNameIndexTest {
+	private static final boolean PREFIX = true;
+	private static final boolean INFIX = false;
+
+	private ConsultantNameIndex consultantNameIndex;
+
+	@Before
+	public void setUp() {
+		consultantNameIndex = new ConsultantNameIndex();
+		consultantNameIndex.index("1", "Mario", "Rossi");
+		consultantNameIndex.index("2", "Maria", "Rossini");
+		consultantNameIndex.index("3", "Niccolò", "De Santis");
+		consultantNameIndex.markReady();
+	}
+
+	@Test
+	public void searchByFirstNameFragment() {
+		assertThat(consultantNameIndex.search("MARI", null, INFIX).get()).containsOnly("1", "2");
+	}
+
+	@Test
+	public void searchByFirstAndLastName() {
+		assertThat(consultantNameIndex.search("mar", "rossin", INFIX).get()).containsOnly("2");
+	}
+
+	@Test
+	public void searchIgnoresAccentsAndBlanks() {
+		assertThat(consultantNameIndex.search("nicco", " de   santis", INFIX).get()).containsOnly("3");
+	}
+
+	@Test
+	public void searchByFragmentShorterThanTrigram() {
+		assertThat(consultantNameIndex.search(null, "ss", INFIX).get()).containsOnly("1", "2");
+	}
+
+	@Test
+	public void searchByPrefix() {
+		assertThat(consultantNameIndex.search(null, "Ross", PREFIX).get()).containsOnly("1", "2");
+		assertThat(consultantNameIndex.search(null, "ssi", PREFIX).get()).isEmpty();
+		assertThat(consultantNameIndex.search("ma", null, PREFIX).get()).containsOnly("1", "2");
+	}
+
+	@Test
+	public void sharedTrigramsOutOfOrderDoNotMatch() {
+		assertThat(consultantNameIndex.search("riomar", null, INFIX).get()).isEmpty();
+	}
+
+	@Test
+	public void updatedNamesReplaceThePreviousOnes() {
+		consultantNameIndex.update("1", "Luigi", "Rossi");
+		assertThat(consultantNameIndex.search("mario", null, INFIX).get()).isEmpty();
+		assertThat(consultantNameIndex.search("luigi", null, INFIX).get()).containsOnly("1");
+	}
+
+	@Test
+	public void fuzzySearchToleratesTypos() {
+		assertThat(consultantNameIndex.searchFuzzy("Mraio", "Rosi").get()).containsExactly("1");
+		assertThat(consultantNameIndex.searchFuzzy(null, "de santos").get()).containsExactly("3");
+	}
+
+	@Test
+	public void fuzzySearchRanksTheClosestNamesFirst() {
+		assertThat(consultantNameIndex.searchFuzzy(null, "Rossini").get()).containsExactly("2", "1");
+	}
+
+	@Test
+	public void fuzzySearchMatchesNamesSoundingAlike() {
+		consultantNameIndex.index("4", "Luis", "Giménez");
+		assertThat(consultantNameIndex.searchFuzzy(null, "Jimenes").get()).containsExactly("4");
+	}
+
+	@Test
+	public void searchIsLeftToTheDatastoreWithoutNameCriteria() {
+		assertThat(consultantNameIndex.search(" ", null, INFIX).isPresent()).isFalse();
+	}
+
+	@Test
+	public void searchIsLeftToTheDatastoreUntilTheIndexIsReady() {
+		ConsultantNameIndex notReady = new ConsultantNameIndex();
+		notReady.index("1", "Mario", "Rossi");
+		assertThat(notReady.search("mario", null, INFIX).isPresent()).isFalse();
+	}
+
+}
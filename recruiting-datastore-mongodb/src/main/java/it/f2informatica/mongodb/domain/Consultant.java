@@ -23,19 +23,30 @@ import com.google.common.collect.Lists;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.IndexDirection;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.text.Normalizer;
 import java.util.Date;
 import java.util.List;
+import java.util.regex.Pattern;
 
 @Data
 @EqualsAndHashCode(callSuper = true)
 @ToString(callSuper = true)
 @Document
+@CompoundIndexes({
+	@CompoundIndex(name = "search_full_name_idx", def = "{'searchLastName': 1, 'searchFirstName': 1}"),
+	@CompoundIndex(name = "descriptions_text_idx",
+		def = "{'experiences.description': 'text', 'educationList.description': 'text', 'educationList.schoolActivities': 'text'}")
+})
 public class Consultant extends Identifiable<String> {
 	private static final long serialVersionUID = 6643483509995605407L;
+	private static final Pattern DIACRITICS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+	private static final Pattern BLANKS = Pattern.compile("\\s+");
 
 	@Indexed(unique = true)
 	private String consultantNo;
@@ -53,6 +64,16 @@ public class Consultant extends Identifiable<String> {
 	@Indexed(direction = IndexDirection.ASCENDING)
 	private String lastName;
 
+	/**
+	 * Searchable copies of the names, see {@link #searchable(String)}.
+	 * They are kept by the name setters, the last name one is served by
+	 * the compound index.
+	 */
+	@Indexed(direction = IndexDirection.ASCENDING)
+	private String searchFirstName;
+
+	private String searchLastName;
+
 	private String gender;
 
 	private String phoneNumber;
@@ -89,4 +110,25 @@ public class Consultant extends Identifiable<String> {
 
 	private String photo; //TODO: GridFSFile
 
+	public void setFirstName(String firstName) {
+		this.firstName = firstName;
+		this.searchFirstName = searchable(firstName);
+	}
+
+	public void setLastName(String lastName) {
+		this.lastName = lastName;
+		this.searchLastName = searchable(lastName);
+	}
+
+	/**
+	 * @return the name lower-cased, without accents and with single blanks
+	 */
+	public static String searchable(String name) {
+		if (name == null) {
+			return null;
+		}
+		String withoutAccents = DIACRITICS.matcher(Normalizer.normalize(name.trim(), Normalizer.Form.NFD)).replaceAll("");
+		return BLANKS.matcher(withoutAccents).replaceAll(" ").toLowerCase();
+	}
+
 }
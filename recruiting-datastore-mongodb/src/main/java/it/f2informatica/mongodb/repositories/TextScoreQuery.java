@@ -0,0 +1,64 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.mongodb.repositories;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * A query whose documents come ordered by the relevance of a full-text
+ * search before any other sort it is given. MongoDB requires the text
+ * score to be projected in order to sort on it.
+ *
+ * @author Fernando Aspiazu
+ */
+public class TextScoreQuery extends Query {
+	private static final String SCORE = "score";
+	private static final DBObject TEXT_SCORE = new BasicDBObject("$meta", "textScore");
+
+	public static Criteria textMatches(String text) {
+		return where("$text").is(new BasicDBObject("$search", text));
+	}
+
+	@Override
+	public DBObject getFieldsObject() {
+		DBObject fields = super.getFieldsObject();
+		DBObject scored = new BasicDBObject(SCORE, TEXT_SCORE);
+		if (fields != null) {
+			scored.putAll(fields);
+		}
+		return scored;
+	}
+
+	@Override
+	public DBObject getSortObject() {
+		DBObject sort = super.getSortObject();
+		DBObject scored = new BasicDBObject(SCORE, TEXT_SCORE);
+		if (sort != null) {
+			scored.putAll(sort);
+		}
+		return scored;
+	}
+
+}
@@ -22,9 +22,13 @@ package it.f2informatica.mongodb.repositories.custom;
 import it.f2informatica.mongodb.domain.Education;
 import it.f2informatica.mongodb.domain.Experience;
 import it.f2informatica.mongodb.domain.Language;
+import it.f2informatica.mongodb.domain.Consultant;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Update;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface ConsultantRepositoryCustom {
 
@@ -36,9 +40,46 @@ public interface ConsultantRepositoryCustom {
 
 	int updateExperience(Experience experience, String consultantId);
 
-	int addLanguages(List<Language> languages, String consultantId);
+	/**
+	 * Removes the languages named and adds the ones given in one round trip.
+	 */
+	int updateLanguages(Collection<Language> languagesAdded, Collection<String> languagesRemoved, String consultantId);
 
-	int addSkills(String[] skills, String consultantId);
+	/**
+	 * Removes and adds the skills given in one round trip.
+	 */
+	int updateSkills(Collection<String> skillsAdded, Collection<String> skillsRemoved, String consultantId);
+
+	/**
+	 * @return the consultant with only its skills and languages loaded
+	 */
+	Consultant findSkillsAndLanguages(String consultantId);
+
+	/**
+	 * @return the consultants having the numbers given, with only their
+	 * registration date, skills and languages loaded
+	 */
+	List<Consultant> findSkillsAndLanguagesByConsultantNo(Collection<String> consultantNos);
+
+	/**
+	 * Replaces the consultants having the same numbers and inserts the others
+	 * by a single unordered bulk operation.
+	 *
+	 * @return the ids of the consultants inserted, by their numbers
+	 */
+	Map<String, String> upsertByConsultantNo(List<Consultant> consultants);
+
+	/**
+	 * @return how many of the consultants matching the criteria have each
+	 * skill, the most common first, all of them if the limit is not positive
+	 */
+	Map<String, Long> countSkills(Criteria criteria, int limit);
+
+	/**
+	 * @return how many of the consultants matching the criteria have each
+	 * language at each proficiency
+	 */
+	Map<Language, Long> countLanguages(Criteria criteria);
 
 	int removeExperience(String consultantId, String experienceId);
 
@@ -49,4 +90,12 @@ public interface ConsultantRepositoryCustom {
 	int updateEducation(Education education, String consultantId);
 
 	int removeEducation(String consultantId, String educationId);
+
+	/**
+	 * Fills the searchable name fields of the consultants stored before they
+	 * existed, in bulk writes of the given size.
+	 *
+	 * @return the number of consultants updated
+	 */
+	int backfillSearchFields(int batchSize);
 }
@@ -19,6 +19,14 @@
  */
 package it.f2informatica.mongodb.repositories.impl;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.BulkWriteUpsert;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
 import com.mongodb.WriteResult;
 import it.f2informatica.mongodb.domain.Consultant;
 import it.f2informatica.mongodb.domain.Education;
@@ -26,15 +34,21 @@ import it.f2informatica.mongodb.domain.Experience;
 import it.f2informatica.mongodb.domain.Language;
 import it.f2informatica.mongodb.repositories.custom.ConsultantRepositoryCustom;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.aggregation.Aggregation;
-import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
 import org.springframework.data.mongodb.core.aggregation.Fields;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import static org.springframework.data.mongodb.core.aggregation.TypedAggregation.*;
 import static org.springframework.data.mongodb.core.query.Criteria.where;
@@ -42,10 +56,19 @@ import static org.springframework.data.mongodb.core.query.Criteria.where;
 @Component
 public class ConsultantRepositoryImpl implements ConsultantRepositoryCustom {
 	private static final String ID = "id";
+	private static final String CONSULTANT_NO = "consultantNo";
+	private static final String REGISTRATION_DATE = "registrationDate";
 	private static final String EXPERIENCES = "experiences";
 	private static final String LANGUAGES = "languages";
 	private static final String SKILLS = "skills";
 	private static final String EDUCATIONS = "educationList";
+	private static final String FIRST_NAME = "firstName";
+	private static final String LAST_NAME = "lastName";
+	private static final String SEARCH_FIRST_NAME = "searchFirstName";
+	private static final String SEARCH_LAST_NAME = "searchLastName";
+	private static final String LANGUAGE = "language";
+	private static final String PROFICIENCY = "proficiency";
+	private static final String COUNT = "count";
 
 	@Autowired
 	private MongoTemplate mongoTemplate;
@@ -57,26 +80,18 @@ public class ConsultantRepositoryImpl implements ConsultantRepositoryCustom {
 
 	@Override
 	public Experience findExperience(String consultantId, String experienceId) {
-		Aggregation aggregation = newAggregation(
-			match(where("id").is(consultantId)),
-			group("experiences"),
-			unwind(previousOperation()),
-			match(where(previousOperation() + "." + Fields.UNDERSCORE_ID).is(experienceId))
-		);
-		AggregationResults<Experience> aggregationResults = mongoTemplate.aggregate(aggregation, Consultant.class, Experience.class);
-		return aggregationResults.getUniqueMappedResult();
+		Query query = whereSubDocumentIs(consultantId, EXPERIENCES, experienceId);
+		query.fields().elemMatch(EXPERIENCES, where(Fields.UNDERSCORE_ID).is(experienceId));
+		Consultant consultant = mongoTemplate.findOne(query, Consultant.class);
+		return (consultant != null) ? matchedElementOf(consultant.getExperiences()) : null;
 	}
 
 	@Override
 	public Education findEducation(String consultantId, String educationId) {
-		Aggregation aggregation = newAggregation(
-			match(where("id").is(consultantId)),
-			group("educationList"),
-			unwind(previousOperation()),
-			match(where(previousOperation() + "." + Fields.UNDERSCORE_ID).is(educationId))
-		);
-		AggregationResults<Education> aggregationResults = mongoTemplate.aggregate(aggregation, Consultant.class, Education.class);
-		return aggregationResults.getUniqueMappedResult();
+		Query query = whereSubDocumentIs(consultantId, EDUCATIONS, educationId);
+		query.fields().elemMatch(EDUCATIONS, where(Fields.UNDERSCORE_ID).is(educationId));
+		Consultant consultant = mongoTemplate.findOne(query, Consultant.class);
+		return (consultant != null) ? matchedElementOf(consultant.getEducationList()) : null;
 	}
 
 	@Override
@@ -88,30 +103,129 @@ public class ConsultantRepositoryImpl implements ConsultantRepositoryCustom {
 
 	@Override
 	public int updateExperience(Experience experience, String consultantId) {
-		Query query = new Query(where(ID).is(consultantId)
-			.and(EXPERIENCES + "." + Fields.UNDERSCORE_ID).is(experience.getId()));
-		Update update = new Update().set(EXPERIENCES + ".$", experience);
+		Query query = whereSubDocumentIs(consultantId, EXPERIENCES, experience.getId());
+		String matched = EXPERIENCES + ".$.";
+		Update update = new Update()
+			.set(matched + "companyName", experience.getCompanyName())
+			.set(matched + "position", experience.getPosition())
+			.set(matched + "location", experience.getLocation())
+			.set(matched + "periodFrom", experience.getPeriodFrom())
+			.set(matched + "periodTo", experience.getPeriodTo())
+			.set(matched + "current", experience.isCurrent())
+			.set(matched + "description", experience.getDescription());
 		return updateConsultant(query, update).getN();
 	}
 
 	@Override
 	public int removeExperience(String consultantId, String experienceId) {
-		Query query = new Query(where(ID).is(consultantId)
-			.and(EXPERIENCES + "." + Fields.UNDERSCORE_ID).is(experienceId));
-		Update update = new Update().pull(EXPERIENCES, findExperience(consultantId, experienceId));
+		Query query = whereSubDocumentIs(consultantId, EXPERIENCES, experienceId);
+		Update update = new Update().pull(EXPERIENCES, new BasicDBObject(Fields.UNDERSCORE_ID, experienceId));
 		return updateConsultant(query, update).getN();
 	}
 
 	@Override
-	public int addLanguages(List<Language> languages, String consultantId) {
-		Update update = new Update().set(LANGUAGES, languages);
-		return updateConsultant(whereConsultantIdIs(consultantId), update).getN();
+	public int updateLanguages(Collection<Language> languagesAdded, Collection<String> languagesRemoved, String consultantId) {
+		DBObject removed = new BasicDBObject(LANGUAGE, new BasicDBObject("$in", languagesRemoved));
+		return updateSet(consultantId, LANGUAGES, languagesAdded, languagesRemoved.isEmpty() ? null : removed);
+	}
+
+	@Override
+	public int updateSkills(Collection<String> skillsAdded, Collection<String> skillsRemoved, String consultantId) {
+		DBObject removed = new BasicDBObject("$in", skillsRemoved);
+		return updateSet(consultantId, SKILLS, skillsAdded, skillsRemoved.isEmpty() ? null : removed);
+	}
+
+	/**
+	 * The elements matching are pulled before the ones added are added to
+	 * the set, by an ordered bulk operation since the same array cannot be
+	 * updated twice by one update.
+	 */
+	private int updateSet(String consultantId, String field, Collection<?> added, DBObject removed) {
+		if (added.isEmpty() && removed == null) {
+			return 0;
+		}
+		MongoConverter converter = mongoTemplate.getConverter();
+		DBObject consultant = new QueryMapper(converter).getMappedObject(whereConsultantIdIs(consultantId).getQueryObject(),
+			converter.getMappingContext().getPersistentEntity(Consultant.class));
+		BulkWriteOperation bulk = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Consultant.class))
+			.initializeOrderedBulkOperation();
+		if (removed != null) {
+			bulk.find(consultant).updateOne(new BasicDBObject("$pull", new BasicDBObject(field, removed)));
+		}
+		if (!added.isEmpty()) {
+			Object elements = converter.convertToMongoType(Lists.newArrayList(added));
+			bulk.find(consultant).updateOne(new BasicDBObject("$addToSet", new BasicDBObject(field, new BasicDBObject("$each", elements))));
+		}
+		return bulk.execute().getMatchedCount();
+	}
+
+	@Override
+	public Consultant findSkillsAndLanguages(String consultantId) {
+		Query query = whereConsultantIdIs(consultantId);
+		query.fields().include(SKILLS).include(LANGUAGES);
+		return mongoTemplate.findOne(query, Consultant.class);
+	}
+
+	@Override
+	public List<Consultant> findSkillsAndLanguagesByConsultantNo(Collection<String> consultantNos) {
+		Query query = new Query(where(CONSULTANT_NO).in(consultantNos));
+		query.fields().include(CONSULTANT_NO).include(REGISTRATION_DATE).include(SKILLS).include(LANGUAGES);
+		return mongoTemplate.find(query, Consultant.class);
 	}
 
 	@Override
-	public int addSkills(String[] skills, String consultantId) {
-		Update update = new Update().set(SKILLS, skills);
-		return updateConsultant(whereConsultantIdIs(consultantId), update).getN();
+	public Map<String, String> upsertByConsultantNo(List<Consultant> consultants) {
+		Map<String, String> insertedIds = Maps.newHashMap();
+		if (consultants.isEmpty()) {
+			return insertedIds;
+		}
+		BulkWriteOperation bulk = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Consultant.class))
+			.initializeUnorderedBulkOperation();
+		for (Consultant consultant : consultants) {
+			DBObject document = new BasicDBObject();
+			mongoTemplate.getConverter().write(consultant, document);
+			document.removeField(Fields.UNDERSCORE_ID);
+			bulk.find(new BasicDBObject(CONSULTANT_NO, consultant.getConsultantNo())).upsert().replaceOne(document);
+		}
+		for (BulkWriteUpsert upsert : bulk.execute().getUpserts()) {
+			insertedIds.put(consultants.get(upsert.getIndex()).getConsultantNo(), upsert.getId().toString());
+		}
+		return insertedIds;
+	}
+
+	@Override
+	public Map<String, Long> countSkills(Criteria criteria, int limit) {
+		List<AggregationOperation> operations = Lists.<AggregationOperation>newArrayList(
+			match(criteria),
+			unwind(SKILLS),
+			group(SKILLS).count().as(COUNT),
+			sort(Sort.Direction.DESC, COUNT));
+		if (limit > 0) {
+			operations.add(limit(limit));
+		}
+		Map<String, Long> skills = Maps.newLinkedHashMap();
+		for (DBObject skill : mongoTemplate.aggregate(newAggregation(operations), Consultant.class, DBObject.class)) {
+			skills.put((String) skill.get(Fields.UNDERSCORE_ID), ((Number) skill.get(COUNT)).longValue());
+		}
+		return skills;
+	}
+
+	@Override
+	public Map<Language, Long> countLanguages(Criteria criteria) {
+		Aggregation aggregation = newAggregation(
+			match(criteria),
+			unwind(LANGUAGES),
+			group(LANGUAGES + "." + LANGUAGE, LANGUAGES + "." + PROFICIENCY).count().as(COUNT)
+		);
+		Map<Language, Long> languages = Maps.newHashMap();
+		for (DBObject row : mongoTemplate.aggregate(aggregation, Consultant.class, DBObject.class)) {
+			DBObject group = (DBObject) row.get(Fields.UNDERSCORE_ID);
+			Language language = new Language();
+			language.setLanguage((String) group.get(LANGUAGE));
+			language.setProficiency((String) group.get(PROFICIENCY));
+			languages.put(language, ((Number) row.get(COUNT)).longValue());
+		}
+		return languages;
 	}
 
 	@Override
@@ -123,24 +237,71 @@ public class ConsultantRepositoryImpl implements ConsultantRepositoryCustom {
 
 	@Override
 	public int updateEducation(Education education, String consultantId) {
-		Query query = new Query(where(ID).is(consultantId)
-			.and(EDUCATIONS + "." + Fields.UNDERSCORE_ID).is(education.getId()));
-		Update update = new Update().set(EDUCATIONS + ".$", education);
+		Query query = whereSubDocumentIs(consultantId, EDUCATIONS, education.getId());
+		String matched = EDUCATIONS + ".$.";
+		Update update = new Update()
+			.set(matched + "school", education.getSchool())
+			.set(matched + "startYear", education.getStartYear())
+			.set(matched + "endYear", education.getEndYear())
+			.set(matched + "schoolDegree", education.getSchoolDegree())
+			.set(matched + "schoolFieldOfStudy", education.getSchoolFieldOfStudy())
+			.set(matched + "schoolGrade", education.getSchoolGrade())
+			.set(matched + "schoolActivities", education.getSchoolActivities())
+			.set(matched + "isCurrent", education.isCurrent())
+			.set(matched + "description", education.getDescription());
 		return updateConsultant(query, update).getN();
 	}
 
 	@Override
 	public int removeEducation(String consultantId, String educationId) {
-		Query query = new Query(where(ID).is(consultantId)
-			.and(EDUCATIONS + "." + Fields.UNDERSCORE_ID).is(educationId));
-		Update update = new Update().pull(EDUCATIONS, findEducation(consultantId, educationId));
+		Query query = whereSubDocumentIs(consultantId, EDUCATIONS, educationId);
+		Update update = new Update().pull(EDUCATIONS, new BasicDBObject(Fields.UNDERSCORE_ID, educationId));
 		return updateConsultant(query, update).getN();
 	}
 
+	@Override
+	public int backfillSearchFields(int batchSize) {
+		DBCollection collection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Consultant.class));
+		DBObject withoutSearchFields = new Query(where(SEARCH_FIRST_NAME).exists(false)).getQueryObject();
+		DBObject names = new BasicDBObject(FIRST_NAME, 1).append(LAST_NAME, 1);
+		DBCursor cursor = collection.find(withoutSearchFields, names).batchSize(batchSize);
+		int updated = 0;
+		try {
+			BulkWriteOperation bulk = collection.initializeUnorderedBulkOperation();
+			int pending = 0;
+			while (cursor.hasNext()) {
+				DBObject consultant = cursor.next();
+				DBObject searchFields = new BasicDBObject(SEARCH_FIRST_NAME, Consultant.searchable((String) consultant.get(FIRST_NAME)))
+					.append(SEARCH_LAST_NAME, Consultant.searchable((String) consultant.get(LAST_NAME)));
+				bulk.find(new BasicDBObject(Fields.UNDERSCORE_ID, consultant.get(Fields.UNDERSCORE_ID)))
+					.updateOne(new BasicDBObject("$set", searchFields));
+				if (++pending == batchSize) {
+					updated += bulk.execute().getMatchedCount();
+					bulk = collection.initializeUnorderedBulkOperation();
+					pending = 0;
+				}
+			}
+			if (pending > 0) {
+				updated += bulk.execute().getMatchedCount();
+			}
+		} finally {
+			cursor.close();
+		}
+		return updated;
+	}
+
 	private Query whereConsultantIdIs(String consultantId) {
 		return new Query(where(ID).is(consultantId));
 	}
 
+	private Query whereSubDocumentIs(String consultantId, String arrayField, String subDocumentId) {
+		return new Query(where(ID).is(consultantId).and(arrayField + "." + Fields.UNDERSCORE_ID).is(subDocumentId));
+	}
+
+	private static <T> T matchedElementOf(List<T> projectedArray) {
+		return (projectedArray == null || projectedArray.isEmpty()) ? null : projectedArray.get(0);
+	}
+
 	private WriteResult updateConsultant(Query query, Update update) {
 		return mongoTemplate.updateFirst(query, update, Consultant.class);
 	}
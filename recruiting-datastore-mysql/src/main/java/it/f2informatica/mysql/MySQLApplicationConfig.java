@@ -19,6 +19,7 @@
  */
 package it.f2informatica.mysql;
 
+import com.google.common.collect.Maps;
 import com.googlecode.flyway.core.Flyway;
 import com.mchange.v2.c3p0.ComboPooledDataSource;
 import org.slf4j.Logger;
@@ -37,6 +38,7 @@ import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import java.beans.PropertyVetoException;
+import java.util.Map;
 
 @Configuration
 @EnableJpaRepositories(basePackages = "it.f2informatica.mysql.repositories")
@@ -59,6 +61,12 @@ public class MySQLApplicationConfig {
 	@Value("${mysql.password}")
 	private String password;
 
+	@Value("${mysql.statistics:false}")
+	private boolean statistics;
+
+	@Value("${mysql.batch-size:50}")
+	private int batchSize;
+
 	@Bean(destroyMethod = "close")
 	public ComboPooledDataSource dataSource() {
 		ComboPooledDataSource dataSource = new ComboPooledDataSource();
@@ -86,6 +94,7 @@ public class MySQLApplicationConfig {
 	public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
 		HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
 		vendorAdapter.setDatabase(Database.MYSQL);
+		vendorAdapter.setDatabasePlatform(MySQLFullTextDialect.class.getName());
 		vendorAdapter.setGenerateDdl(false);
 		vendorAdapter.setShowSql(true);
 
@@ -94,9 +103,26 @@ public class MySQLApplicationConfig {
 		factoryBean.setJpaVendorAdapter(vendorAdapter);
 		factoryBean.setPackagesToScan(DOMAIN_PACKAGE);
 		factoryBean.setDataSource(dataSource());
+		factoryBean.setJpaPropertyMap(jpaProperties());
 		return factoryBean;
 	}
 
+	private Map<String, Object> jpaProperties() {
+		Map<String, Object> properties = Maps.newHashMap();
+		properties.put("hibernate.generate_statistics", String.valueOf(statistics));
+		properties.put("hibernate.id.new_generator_mappings", "true");
+		properties.put("hibernate.id.optimizer.pooled.prefer_lo", "true");
+		properties.put("hibernate.jdbc.batch_size", String.valueOf(batchSize));
+		properties.put("hibernate.order_inserts", "true");
+		properties.put("hibernate.order_updates", "true");
+		return properties;
+	}
+
+	@Bean
+	public MySQLTableStatistics tableStatistics() {
+		return new MySQLTableStatistics(dataSource());
+	}
+
 	@Bean
 	public PlatformTransactionManager transactionManager() {
 		JpaTransactionManager txManager = new JpaTransactionManager();
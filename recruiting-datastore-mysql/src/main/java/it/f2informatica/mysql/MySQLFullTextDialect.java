@@ -0,0 +1,68 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.mysql;
+
+import org.hibernate.dialect.MySQL5InnoDBDialect;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * MySQL dialect exposing to JPQL the full-text matching of the experience
+ * and education descriptions, which only native SQL can express.
+ * <p>
+ * The match functions take the indexed columns and the searched text and
+ * are meant for the WHERE clause, where the full-text indexes serve them.
+ * The relevance functions take a consultant id and the searched text and
+ * sum the relevance of all the consultant's experiences or educations.
+ * </p>
+ * <p>
+ * The skills function takes a consultant id and aggregates the consultant's
+ * skills into a single string, so that the consultant lists can read them
+ * along with the consultants.
+ * </p>
+ *
+ * @author Fernando Aspiazu
+ */
+public class MySQLFullTextDialect extends MySQL5InnoDBDialect {
+	public static final String EXPERIENCE_MATCH = "experience_match";
+	public static final String EDUCATION_MATCH = "education_match";
+	public static final String EXPERIENCE_RELEVANCE = "experience_relevance";
+	public static final String EDUCATION_RELEVANCE = "education_relevance";
+	public static final String CONSULTANT_SKILLS = "consultant_skills";
+	public static final String SKILLS_SEPARATOR = "|";
+
+	public MySQLFullTextDialect() {
+		super();
+		registerFunction(EXPERIENCE_MATCH, new SQLFunctionTemplate(StandardBasicTypes.DOUBLE,
+			"MATCH(?1) AGAINST (?2 IN NATURAL LANGUAGE MODE)"));
+		registerFunction(EDUCATION_MATCH, new SQLFunctionTemplate(StandardBasicTypes.DOUBLE,
+			"MATCH(?1, ?2) AGAINST (?3 IN NATURAL LANGUAGE MODE)"));
+		registerFunction(EXPERIENCE_RELEVANCE, new SQLFunctionTemplate(StandardBasicTypes.DOUBLE,
+			"COALESCE((SELECT SUM(MATCH(fte.description) AGAINST (?2 IN NATURAL LANGUAGE MODE)) " +
+				"FROM experience fte WHERE fte.consultant_id = ?1), 0)"));
+		registerFunction(EDUCATION_RELEVANCE, new SQLFunctionTemplate(StandardBasicTypes.DOUBLE,
+			"COALESCE((SELECT SUM(MATCH(ftd.description, ftd.activities) AGAINST (?2 IN NATURAL LANGUAGE MODE)) " +
+				"FROM education ftd WHERE ftd.consultant_id = ?1), 0)"));
+		registerFunction(CONSULTANT_SKILLS, new SQLFunctionTemplate(StandardBasicTypes.STRING,
+			"(SELECT GROUP_CONCAT(cs.skill ORDER BY cs.skill SEPARATOR '" + SKILLS_SEPARATOR + "') " +
+				"FROM skills cs WHERE cs.consultant_id = ?1)"));
+	}
+
+}
@@ -0,0 +1,59 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.mysql;
+
+import com.google.common.base.Optional;
+import it.f2informatica.pagination.count.TableStatistics;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.Table;
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Reads the approximate number of rows of a table from the
+ * {@code information_schema}, without scanning the table itself.
+ *
+ * @author Fernando Aspiazu
+ */
+public class MySQLTableStatistics implements TableStatistics {
+	private static final String TABLE_ROWS_QUERY =
+		"SELECT table_rows FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = ?";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public MySQLTableStatistics(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	@Override
+	public Optional<Long> estimatedRowCount(Class<?> entityClass) {
+		Table table = entityClass.getAnnotation(Table.class);
+		String tableName = (table != null) ? table.name() : entityClass.getSimpleName();
+		try {
+			List<Long> tableRows = jdbcTemplate.queryForList(TABLE_ROWS_QUERY, Long.class, tableName);
+			return (tableRows.isEmpty()) ? Optional.<Long>absent() : Optional.fromNullable(tableRows.get(0));
+		} catch (DataAccessException e) {
+			return Optional.absent();
+		}
+	}
+
+}
@@ -23,4 +23,21 @@ public class Persistence {
 
 	public static final String PERSISTENCE_UNIT_NAME = "recruiting-persistence-unit";
 
+	/**
+	 * The table handing out the identifiers of the entities, named after their
+	 * tables, by blocks of {@link #ID_ALLOCATION_SIZE}: the stored value is the
+	 * first identifier of the next block.
+	 */
+	public static final String ID_GENERATOR_TABLE = "id_generator";
+	public static final String ID_GENERATOR_NAME_COLUMN = "entity_name";
+	public static final String ID_GENERATOR_VALUE_COLUMN = "next_id";
+	public static final int ID_ALLOCATION_SIZE = 50;
+
+	/**
+	 * How many owners have a lazy collection initialized by the same query:
+	 * a page of consultants loads each of their collections in one query
+	 * when the page is not bigger than this.
+	 */
+	public static final int FETCH_BATCH_SIZE = 50;
+
 }
@@ -19,6 +19,7 @@
  */
 package it.f2informatica.mysql.domain;
 
+import it.f2informatica.mysql.Persistence;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
@@ -35,7 +36,9 @@ public class Address implements Serializable {
 	private static final long serialVersionUID = -189944310625378498L;
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "addressIds")
+	@TableGenerator(name = "addressIds", table = Persistence.ID_GENERATOR_TABLE, pkColumnName = Persistence.ID_GENERATOR_NAME_COLUMN,
+		valueColumnName = Persistence.ID_GENERATOR_VALUE_COLUMN, pkColumnValue = "address", allocationSize = Persistence.ID_ALLOCATION_SIZE)
 	@Column(name = "id")
 	private Long id;
 
@@ -21,9 +21,11 @@ package it.f2informatica.mysql.domain;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import it.f2informatica.mysql.Persistence;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -40,7 +42,9 @@ public class Consultant implements Serializable {
 	private static final long serialVersionUID = -2787221115919947228L;
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "consultantIds")
+	@TableGenerator(name = "consultantIds", table = Persistence.ID_GENERATOR_TABLE, pkColumnName = Persistence.ID_GENERATOR_NAME_COLUMN,
+		valueColumnName = Persistence.ID_GENERATOR_VALUE_COLUMN, pkColumnValue = "consultant", allocationSize = Persistence.ID_ALLOCATION_SIZE)
 	@Column(name = "id")
 	private Long id;
 
@@ -89,15 +93,19 @@ public class Consultant implements Serializable {
 	private String interests;
 
 	@OneToMany(fetch = FetchType.LAZY, mappedBy = "id.consultant", cascade = CascadeType.ALL, orphanRemoval = true, targetEntity = Skill.class)
+	@BatchSize(size = Persistence.FETCH_BATCH_SIZE)
 	private Set<Skill> skills = Sets.newHashSet();
 
 	@OneToMany(fetch = FetchType.LAZY, mappedBy = "consultant", cascade = CascadeType.ALL, orphanRemoval = true, targetEntity = Experience.class)
+	@BatchSize(size = Persistence.FETCH_BATCH_SIZE)
 	private List<Experience> experiences = Lists.newArrayList();
 
 	@OneToMany(fetch = FetchType.LAZY, mappedBy = "consultant", cascade = CascadeType.ALL, orphanRemoval = true, targetEntity = Education.class)
+	@BatchSize(size = Persistence.FETCH_BATCH_SIZE)
 	private List<Education> educations = Lists.newArrayList();
 
 	@OneToMany(fetch = FetchType.LAZY, mappedBy = "id.consultant", cascade = CascadeType.ALL, orphanRemoval = true, targetEntity = Language.class)
+	@BatchSize(size = Persistence.FETCH_BATCH_SIZE)
 	private Set<Language> languages = Sets.newHashSet();
 
 	@OneToOne(fetch = FetchType.LAZY, targetEntity = Address.class, cascade = CascadeType.ALL)
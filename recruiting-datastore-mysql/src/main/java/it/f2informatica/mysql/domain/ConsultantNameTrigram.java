@@ -0,0 +1,81 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.mysql.domain;
+
+import com.google.common.collect.Sets;
+import it.f2informatica.mysql.domain.pk.ConsultantNameTrigramPK;
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.text.Normalizer;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * A trigram of the lower-cased first or last name of a consultant,
+ * used to narrow infix name searches through an index.
+ *
+ * @author Fernando Aspiazu
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+@Entity
+@Table(name = "consultant_name_trigram")
+public class ConsultantNameTrigram implements Serializable {
+	private static final long serialVersionUID = 4470731565722478013L;
+
+	public static final int TRIGRAM_LENGTH = 3;
+
+	private static final Pattern DIACRITICS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+
+	public enum NameField {
+		FIRST_NAME, LAST_NAME
+	}
+
+	@EmbeddedId
+	private ConsultantNameTrigramPK id;
+
+	public ConsultantNameTrigram(Long consultantId, NameField nameField, String trigram) {
+		this(new ConsultantNameTrigramPK(consultantId, nameField, trigram));
+	}
+
+	/**
+	 * Trigrams of the trimmed, lower-cased name. Accents are removed as well,
+	 * since the table collation would consider two trigrams differing only by
+	 * accents as the same key (the V002 migration fills them with accents).
+	 */
+	public static Set<String> trigramsOf(String name) {
+		Set<String> trigrams = Sets.newLinkedHashSet();
+		if (name == null) {
+			return trigrams;
+		}
+		String withoutAccents = DIACRITICS.matcher(Normalizer.normalize(name.trim(), Normalizer.Form.NFD)).replaceAll("");
+		String normalized = withoutAccents.toLowerCase();
+		for (int i = 0; i + TRIGRAM_LENGTH <= normalized.length(); i++) {
+			trigrams.add(normalized.substring(i, i + TRIGRAM_LENGTH));
+		}
+		return trigrams;
+	}
+
+}
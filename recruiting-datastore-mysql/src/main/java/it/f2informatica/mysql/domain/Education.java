@@ -19,6 +19,7 @@
  */
 package it.f2informatica.mysql.domain;
 
+import it.f2informatica.mysql.Persistence;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
@@ -35,7 +36,9 @@ public class Education implements Serializable {
 	private static final long serialVersionUID = 5816729224700502683L;
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "educationIds")
+	@TableGenerator(name = "educationIds", table = Persistence.ID_GENERATOR_TABLE, pkColumnName = Persistence.ID_GENERATOR_NAME_COLUMN,
+		valueColumnName = Persistence.ID_GENERATOR_VALUE_COLUMN, pkColumnValue = "education", allocationSize = Persistence.ID_ALLOCATION_SIZE)
 	@Column(name = "id")
 	private Long id;
 
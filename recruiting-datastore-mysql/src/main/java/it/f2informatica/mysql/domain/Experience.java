@@ -19,6 +19,7 @@
  */
 package it.f2informatica.mysql.domain;
 
+import it.f2informatica.mysql.Persistence;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
@@ -36,7 +37,9 @@ public class Experience implements Serializable {
 	private static final long serialVersionUID = -3499814695049172754L;
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "experienceIds")
+	@TableGenerator(name = "experienceIds", table = Persistence.ID_GENERATOR_TABLE, pkColumnName = Persistence.ID_GENERATOR_NAME_COLUMN,
+		valueColumnName = Persistence.ID_GENERATOR_VALUE_COLUMN, pkColumnValue = "experience", allocationSize = Persistence.ID_ALLOCATION_SIZE)
 	@Column(name = "id")
 	private Long id;
 
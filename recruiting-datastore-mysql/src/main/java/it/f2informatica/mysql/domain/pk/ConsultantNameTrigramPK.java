@@ -0,0 +1,50 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.mysql.domain.pk;
+
+import it.f2informatica.mysql.domain.ConsultantNameTrigram.NameField;
+import lombok.*;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+@Embeddable
+public class ConsultantNameTrigramPK implements Serializable {
+	private static final long serialVersionUID = -2164470598722165071L;
+
+	@Column(name = "consultant_id")
+	private Long consultantId;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "name_field")
+	private NameField nameField;
+
+	@Column(name = "trigram")
+	private String trigram;
+
+}
@@ -21,8 +21,19 @@ package it.f2informatica.mysql.repositories;
 
 import it.f2informatica.mysql.domain.Consultant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.querydsl.QueryDslPredicateExecutor;
+import org.springframework.data.repository.query.Param;
 
 public interface ConsultantRepository extends JpaRepository<Consultant, Long>, QueryDslPredicateExecutor<Consultant> {
 
+	/**
+	 * The consultant joined with its addresses. Its collections, mapped to be
+	 * fetched in batches, then take one query each on first access, so that
+	 * the whole profile is read in a number of queries not depending on the
+	 * size of the collections, without the cartesian product of joining them.
+	 */
+	@Query("SELECT c FROM Consultant c LEFT JOIN FETCH c.residence LEFT JOIN FETCH c.domicile WHERE c.id = :consultantId")
+	Consultant findProfile(@Param("consultantId") Long consultantId);
+
 }
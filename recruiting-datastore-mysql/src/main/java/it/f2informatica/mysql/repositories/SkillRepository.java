@@ -22,9 +22,16 @@ package it.f2informatica.mysql.repositories;
 import it.f2informatica.mysql.domain.Skill;
 import it.f2informatica.mysql.domain.pk.SkillPK;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
 
 public interface SkillRepository extends JpaRepository<Skill, SkillPK> {
 
-	Skill findByIdSkill(String skill);
+	@Modifying
+	@Query(value = "delete from skills where consultant_id = :consultantId and skill in (:skills)", nativeQuery = true)
+	int deleteSkills(@Param("consultantId") Long consultantId, @Param("skills") Collection<String> skills);
 
 }
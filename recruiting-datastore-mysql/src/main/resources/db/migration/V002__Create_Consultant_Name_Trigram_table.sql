@@ -0,0 +1,53 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+-- Trigrams of the lower-cased consultant names, so that infix name searches
+-- can be narrowed through an index before the final LIKE check.
+-- The utf8 general collation makes trigram lookups accent-insensitive.
+CREATE TABLE consultant_name_trigram (
+  consultant_id BIGINT      NOT NULL,
+  name_field    VARCHAR(10) NOT NULL,
+  trigram       CHAR(3)     NOT NULL,
+  CONSTRAINT pk_cons_name_trigram PRIMARY KEY (name_field, trigram, consultant_id),
+  CONSTRAINT fk_trigram_consul FOREIGN KEY (consultant_id) REFERENCES consultant (id),
+  INDEX trigram_consul_idx(consultant_id)
+) DEFAULT CHARACTER SET utf8 COLLATE utf8_general_ci;
+
+-- Positions 1..50 cover every trigram of a VARCHAR(50) name
+CREATE TEMPORARY TABLE trigram_position (
+  pos INTEGER NOT NULL
+);
+
+INSERT INTO trigram_position (pos)
+  SELECT units.n + tens.n * 10 + 1
+  FROM (SELECT 0 AS n UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4
+        UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9) units,
+       (SELECT 0 AS n UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4) tens;
+
+INSERT IGNORE INTO consultant_name_trigram (consultant_id, name_field, trigram)
+  SELECT c.id, 'FIRST_NAME', SUBSTRING(LOWER(TRIM(c.first_name)), p.pos, 3)
+  FROM consultant c
+    JOIN trigram_position p ON p.pos <= CHAR_LENGTH(TRIM(c.first_name)) - 2;
+
+INSERT IGNORE INTO consultant_name_trigram (consultant_id, name_field, trigram)
+  SELECT c.id, 'LAST_NAME', SUBSTRING(LOWER(TRIM(c.last_name)), p.pos, 3)
+  FROM consultant c
+    JOIN trigram_position p ON p.pos <= CHAR_LENGTH(TRIM(c.last_name)) - 2;
+
+DROP TEMPORARY TABLE trigram_position;
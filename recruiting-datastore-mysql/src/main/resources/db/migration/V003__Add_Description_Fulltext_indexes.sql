@@ -0,0 +1,24 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+-- Free-text search over the experience and education descriptions
+-- (InnoDB full-text indexes, MySQL 5.6 or later)
+ALTER TABLE experience ADD FULLTEXT INDEX expe_descr_ftx(description);
+
+ALTER TABLE education ADD FULLTEXT INDEX educ_descr_ftx(description, activities);
@@ -0,0 +1,39 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+-- Identifiers handed out by blocks, so that Hibernate can batch the inserts
+-- it would otherwise run one by one to read back each AUTO_INCREMENT value.
+-- The value is the first identifier of the next block of the entity.
+CREATE TABLE id_generator (
+  entity_name VARCHAR(50) NOT NULL,
+  next_id     BIGINT      NOT NULL,
+  CONSTRAINT pk_id_generator PRIMARY KEY (entity_name)
+);
+
+INSERT INTO id_generator (entity_name, next_id)
+  SELECT 'consultant', COALESCE(MAX(id), 0) + 1 FROM consultant;
+
+INSERT INTO id_generator (entity_name, next_id)
+  SELECT 'experience', COALESCE(MAX(id), 0) + 1 FROM experience;
+
+INSERT INTO id_generator (entity_name, next_id)
+  SELECT 'education', COALESCE(MAX(id), 0) + 1 FROM education;
+
+INSERT INTO id_generator (entity_name, next_id)
+  SELECT 'address', COALESCE(MAX(id), 0) + 1 FROM address;
@@ -0,0 +1,197 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.test.mysql.repositories;
+
+import com.google.common.collect.Maps;
+import it.f2informatica.mysql.Persistence;
+import it.f2informatica.mysql.domain.Address;
+import it.f2informatica.mysql.domain.Consultant;
+import it.f2informatica.mysql.domain.Education;
+import it.f2informatica.mysql.domain.Experience;
+import it.f2informatica.mysql.domain.Language;
+import it.f2informatica.mysql.domain.Skill;
+import it.f2informatica.mysql.domain.pk.LanguagePK;
+import it.f2informatica.mysql.domain.pk.SkillPK;
+import it.f2informatica.mysql.repositories.ConsultantRepository;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.Database;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * Counts the statements prepared to read consultants from an in-memory H2
+ * database in MySQL mode, whose schema is generated from the entities since
+ * the migrations use MySQL full-text indexes.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration
+@Transactional
+public class ConsultantRepositoryQueryCountTest {
+	private static final int CONSULTANTS = 10;
+	private static final int PAGE_SIZE = 5;
+
+	@Configuration
+	@EnableJpaRepositories(basePackages = "it.f2informatica.mysql.repositories")
+	@EnableTransactionManagement
+	static class EmbeddedDatabaseConfig {
+
+		@Bean
+		public DataSource dataSource() {
+			DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:recruiting;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+			dataSource.setDriverClassName("org.h2.Driver");
+			return dataSource;
+		}
+
+		@Bean
+		public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
+			HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
+			vendorAdapter.setDatabase(Database.H2);
+			vendorAdapter.setGenerateDdl(true);
+
+			Map<String, Object> properties = Maps.newHashMap();
+			properties.put("hibernate.generate_statistics", "true");
+			properties.put("hibernate.id.new_generator_mappings", "true");
+
+			LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+			factoryBean.setPersistenceUnitName(Persistence.PERSISTENCE_UNIT_NAME);
+			factoryBean.setJpaVendorAdapter(vendorAdapter);
+			factoryBean.setPackagesToScan("it.f2informatica.mysql.domain");
+			factoryBean.setDataSource(dataSource());
+			factoryBean.setJpaPropertyMap(properties);
+			return factoryBean;
+		}
+
+		@Bean
+		public PlatformTransactionManager transactionManager() {
+			JpaTransactionManager txManager = new JpaTransactionManager();
+			txManager.setEntityManagerFactory(entityManagerFactory().getObject());
+			return txManager;
+		}
+
+	}
+
+	@Autowired
+	private ConsultantRepository consultantRepository;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private Statistics statistics;
+	private Long consultantId;
+
+	@Before
+	public void setUp() {
+		for (int i = 0; i < CONSULTANTS; i++) {
+			consultantId = consultantRepository.save(consultant(i)).getId();
+		}
+		entityManager.flush();
+		entityManager.clear();
+		statistics = entityManager.unwrap(Session.class).getSessionFactory().getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	public void loadTheProfileWithOneQueryPerCollection() {
+		Consultant consultant = consultantRepository.findProfile(consultantId);
+		assertThat(consultant.getResidence().getCity()).isEqualTo("Milano");
+		assertThat(consultant.getDomicile().getCity()).isEqualTo("Roma");
+		readCollectionsOf(consultant);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(5);
+	}
+
+	@Test
+	public void loadTheCollectionsOfAPageWithOneQueryEach() {
+		List<Consultant> consultants = consultantRepository.findAll(new PageRequest(0, PAGE_SIZE)).getContent();
+		assertThat(consultants).hasSize(PAGE_SIZE);
+		statistics.clear();
+		for (Consultant consultant : consultants) {
+			readCollectionsOf(consultant);
+		}
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+	}
+
+	private static void readCollectionsOf(Consultant consultant) {
+		assertThat(consultant.getSkills()).hasSize(2);
+		assertThat(consultant.getLanguages()).hasSize(2);
+		assertThat(consultant.getExperiences()).hasSize(2);
+		assertThat(consultant.getEducations()).hasSize(2);
+	}
+
+	private static Consultant consultant(int number) {
+		Consultant consultant = new Consultant();
+		consultant.setConsultantNo("C" + number);
+		consultant.setFirstName("Mario");
+		consultant.setLastName("Rossi " + number);
+		consultant.setResidence(address("Milano"));
+		consultant.setDomicile(address("Roma"));
+		for (String skill : new String[]{"Java", "SQL"}) {
+			consultant.getSkills().add(new Skill(new SkillPK(skill, consultant)));
+		}
+		for (String lang : new String[]{"English", "Italian"}) {
+			Language language = new Language();
+			language.setId(new LanguagePK(lang, consultant));
+			language.setProficiency("professional_working");
+			consultant.getLanguages().add(language);
+		}
+		for (int i = 0; i < 2; i++) {
+			Experience experience = new Experience();
+			experience.setCompanyName("Company " + i);
+			experience.setConsultant(consultant);
+			consultant.getExperiences().add(experience);
+
+			Education education = new Education();
+			education.setSchoolName("School " + i);
+			education.setConsultant(consultant);
+			consultant.getEducations().add(education);
+		}
+		return consultant;
+	}
+
+	private static Address address(String city) {
+		Address address = new Address();
+		address.setCity(city);
+		return address;
+	}
+
+}
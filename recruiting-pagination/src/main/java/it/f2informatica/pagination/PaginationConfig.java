@@ -19,19 +19,36 @@
  */
 package it.f2informatica.pagination;
 
+import com.google.common.base.Optional;
 import com.google.gson.*;
+import it.f2informatica.pagination.cache.PageCache;
+import it.f2informatica.pagination.cache.PagePrefetcher;
+import it.f2informatica.pagination.count.CountStrategies;
+import it.f2informatica.pagination.count.CountStrategy;
+import it.f2informatica.pagination.count.PageCounter;
 import org.joda.time.DateTime;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.lang.reflect.Type;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @ComponentScan(basePackages = "it.f2informatica.pagination")
 public class PaginationConfig {
 
+	@Autowired
+	private Environment environment;
+
+	@Autowired(required = false)
+	private PlatformTransactionManager transactionManager;
+
 	@Bean
 	public Gson gson() {
 		return new GsonBuilder()
@@ -43,6 +60,55 @@ public class PaginationConfig {
 			.create();
 	}
 
+	@Bean
+	public CountStrategy countStrategy() {
+		return CountStrategies.fromName(
+			environment.getProperty("pagination.count.strategy", CountStrategies.EXACT),
+			environment.getProperty("pagination.count.cache.ttl", Long.class, 30L));
+	}
+
+	@Bean
+	public PageCounter pageCounter() {
+		if (environment.getProperty("pagination.count.concurrent", Boolean.class, false)) {
+			return PageCounter.concurrent(countStrategy(),
+				environment.getProperty("pagination.count.threads", Integer.class, 4),
+				environment.getProperty("pagination.count.queue", Integer.class, 100),
+				environment.getProperty("pagination.count.timeout", Long.class, 5000L));
+		}
+		return PageCounter.sequential(countStrategy());
+	}
+
+	@Bean
+	public PageCache pageCache() {
+		PageCache pageCache = new PageCache(
+			environment.getProperty("pagination.cache.size", Long.class, 0L),
+			environment.getProperty("pagination.cache.ttl", Long.class, 60L), TimeUnit.SECONDS);
+		long statsInterval = environment.getProperty("pagination.cache.stats.interval", Long.class, 0L);
+		if (statsInterval > 0) {
+			pageCache.logStatsEvery(statsInterval, TimeUnit.SECONDS);
+		}
+		return pageCache;
+	}
+
+	@Bean
+	public PagePrefetcher pagePrefetcher() {
+		if (!environment.getProperty("pagination.prefetch.enabled", Boolean.class, false)) {
+			return PagePrefetcher.disabled(pageCache());
+		}
+		Optional<TransactionTemplate> transactionTemplate = Optional.absent();
+		if (transactionManager != null) {
+			TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+			readOnlyTransaction.setReadOnly(true);
+			transactionTemplate = Optional.of(readOnlyTransaction);
+		}
+		return PagePrefetcher.enabled(pageCache(), transactionTemplate,
+			environment.getProperty("pagination.prefetch.threads", Integer.class, 1),
+			environment.getProperty("pagination.prefetch.queue", Integer.class, 10),
+			environment.getProperty("pagination.prefetch.ttl", Long.class, 30L), TimeUnit.SECONDS,
+			environment.getProperty("pagination.prefetch.hit-rate.minimum", Double.class, 0.3),
+			environment.getProperty("pagination.prefetch.hit-rate.samples", Long.class, 50L));
+	}
+
 	private static class DateTimeTypeAdapter implements JsonSerializer<DateTime>, JsonDeserializer<DateTime> {
 
 		@Override
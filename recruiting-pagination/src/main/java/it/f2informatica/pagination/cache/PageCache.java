@@ -0,0 +1,218 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.cache;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Predicate;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.AtomicLongMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import it.f2informatica.pagination.services.PaginationException;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.domain.Page;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the last pages served, bounded in size and time to live, until the
+ * paginated entity is written.
+ * <p>
+ * Writers call {@link #invalidate(Class)}: every page of the entity is
+ * dropped, and dropped again once the surrounding transaction completes, so
+ * that a page read while the write was not yet committed is not kept either.
+ * A page loaded concurrently with the invalidation belongs to an older
+ * generation of the entity and is never served.
+ * </p>
+ * <p>
+ * Cached pages are shared between requests, so their content must not be
+ * attached to a persistence context nor modified by the callers.
+ * </p>
+ * <p>
+ * {@link #getStats()} can be logged periodically through {@link #logStatsEvery(long, TimeUnit)}.
+ * </p>
+ *
+ * @author Fernando Aspiazu
+ */
+public class PageCache implements DisposableBean {
+	private static final Logger logger = Logger.getLogger(PageCache.class);
+
+	private final boolean enabled;
+	private final Cache<GenerationKey, Page<?>> pages;
+	private final AtomicLongMap<Class<?>> generations = AtomicLongMap.create();
+	private ScheduledExecutorService statsReporter;
+
+	public PageCache(long maximumSize, long timeToLive, TimeUnit unit) {
+		this.enabled = maximumSize > 0;
+		this.pages = CacheBuilder.newBuilder()
+			.maximumSize(maximumSize)
+			.expireAfterWrite(timeToLive, unit)
+			.recordStats()
+			.build();
+	}
+
+	public static PageCache disabled() {
+		return new PageCache(0, 0, TimeUnit.SECONDS);
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> Page<T> get(PageKey key, Callable<Page<T>> loader) {
+		try {
+			if (!enabled) {
+				return loader.call();
+			}
+			GenerationKey generationKey = new GenerationKey(key, generations.get(key.getEntityClass()));
+			return (Page<T>) pages.get(generationKey, loader);
+		} catch (UncheckedExecutionException | ExecutionException e) {
+			throw propagate(e.getCause());
+		} catch (Exception e) {
+			throw propagate(e);
+		}
+	}
+
+	private static RuntimeException propagate(Throwable cause) {
+		if (cause instanceof RuntimeException) {
+			return (RuntimeException) cause;
+		}
+		return new PaginationException("Unable to load the page", cause);
+	}
+
+	public void invalidate(final Class<?> entityClass) {
+		evict(entityClass);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					evict(entityClass);
+				}
+			});
+		}
+	}
+
+	private void evict(final Class<?> entityClass) {
+		generations.incrementAndGet(entityClass);
+		if (!enabled) {
+			return;
+		}
+		Iterables.removeIf(pages.asMap().keySet(), new Predicate<GenerationKey>() {
+			@Override
+			public boolean apply(GenerationKey generationKey) {
+				return entityClass.equals(generationKey.key.getEntityClass());
+			}
+		});
+		if (logger.isDebugEnabled()) {
+			logger.debug("Pages of [" + entityClass.getName() + "] invalidated, " + getStats());
+		}
+	}
+
+	/**
+	 * @return the number of times the pages of the entity have been invalidated
+	 */
+	long generationOf(Class<?> entityClass) {
+		return generations.get(entityClass);
+	}
+
+	public void invalidateAll() {
+		pages.invalidateAll();
+	}
+
+	/**
+	 * @return hits, misses and evictions (by size or time to live) of the cache;
+	 * pages dropped by an invalidation are not counted as evictions
+	 */
+	public CacheStats getStats() {
+		return pages.stats();
+	}
+
+	public long size() {
+		return pages.size();
+	}
+
+	/**
+	 * Logs the statistics of the cache at the given period, skipping the
+	 * periods in which no page has been requested.
+	 */
+	public synchronized void logStatsEvery(long period, TimeUnit unit) {
+		if (!enabled || statsReporter != null) {
+			return;
+		}
+		statsReporter = Executors.newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setNameFormat("pagination-cache-stats").setDaemon(true).build());
+		statsReporter.scheduleAtFixedRate(new Runnable() {
+			private long lastRequestCount;
+
+			@Override
+			public void run() {
+				CacheStats stats = getStats();
+				if (stats.requestCount() != lastRequestCount) {
+					lastRequestCount = stats.requestCount();
+					logger.info("Page cache: " + size() + " pages, hit rate " + stats.hitRate() + ", " + stats);
+				}
+			}
+		}, period, period, unit);
+	}
+
+	@Override
+	public synchronized void destroy() {
+		if (statsReporter != null) {
+			statsReporter.shutdownNow();
+		}
+	}
+
+	static final class GenerationKey {
+		private final PageKey key;
+		private final long generation;
+
+		GenerationKey(PageKey key, long generation) {
+			this.key = key;
+			this.generation = generation;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof GenerationKey)) {
+				return false;
+			}
+			GenerationKey other = (GenerationKey) obj;
+			return generation == other.generation && key.equals(other.key);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(key, generation);
+		}
+
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.cache;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import it.f2informatica.pagination.keyset.ContinuationToken;
+import it.f2informatica.pagination.keyset.KeysetPageable;
+import it.f2informatica.pagination.services.QueryParameters;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Identifies a page of a {@link PageCache}: the paginated entity, the page
+ * requested and the filter applied on the entity.
+ * <p>
+ * The DataTables echo is left out of the key, since it changes on every
+ * draw of the same page.
+ * </p>
+ *
+ * @author Fernando Aspiazu
+ */
+public final class PageKey {
+
+	private final Class<?> entityClass;
+	private final String request;
+	private final String fingerprint;
+
+	private PageKey(Class<?> entityClass, String request, String fingerprint) {
+		this.entityClass = entityClass;
+		this.request = request;
+		this.fingerprint = fingerprint;
+	}
+
+	/**
+	 * @param fingerprint a description of the query filter, which must differ
+	 *                    whenever the filtered rows may differ
+	 */
+	public static PageKey of(Class<?> entityClass, QueryParameters parameters, String fingerprint) {
+		List<String> columns = Lists.newArrayList();
+		for (int i = 0; i < parameters.getColumnsNumber(); i++) {
+			columns.add(parameters.getColumnName(i));
+		}
+		String request = parameters.getDisplayStart() + "+" + parameters.getDisplayLength()
+			+ " sort " + parameters.getSortColumn() + " " + Strings.nullToEmpty(parameters.getSortDirection()).toLowerCase()
+			+ " search " + Strings.nullToEmpty(parameters.getSearchCriteria()).trim()
+			+ " columns " + Joiner.on(',').useForNull("").join(columns)
+			+ " token " + parameters.getContinuationToken();
+		return new PageKey(entityClass, request, fingerprint);
+	}
+
+	public static PageKey of(Class<?> entityClass, Pageable pageable, String fingerprint) {
+		String request = pageable.getOffset() + "+" + pageable.getPageSize() + " sort " + pageable.getSort();
+		if (pageable instanceof KeysetPageable) {
+			Optional<ContinuationToken> token = ((KeysetPageable) pageable).getContinuationToken();
+			request += " token " + (token.isPresent() ? token.get().encode() : null);
+		}
+		return new PageKey(entityClass, request, fingerprint);
+	}
+
+	public Class<?> getEntityClass() {
+		return entityClass;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof PageKey)) {
+			return false;
+		}
+		PageKey other = (PageKey) obj;
+		return entityClass.equals(other.entityClass)
+			&& request.equals(other.request)
+			&& Objects.equal(fingerprint, other.fingerprint);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(entityClass, request, fingerprint);
+	}
+
+	@Override
+	public String toString() {
+		return entityClass.getSimpleName() + " [" + request + "] where " + fingerprint;
+	}
+
+}
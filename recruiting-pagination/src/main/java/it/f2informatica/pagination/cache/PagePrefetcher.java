@@ -0,0 +1,210 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.cache;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import it.f2informatica.pagination.services.PaginationException;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.domain.Page;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads, in background, the page following the one just served, betting
+ * that the user is paging forward; the next request is then served from
+ * memory.
+ * <p>
+ * Prefetching runs on a small pool of low priority threads and is dropped
+ * whenever the pool is busy. Prefetched pages live for a short time only and
+ * are never served once the entity has been written since their loading (see
+ * {@link PageCache#invalidate(Class)}). The prefetcher switches itself off
+ * when too few of the pages it loads are actually requested.
+ * </p>
+ *
+ * @author Fernando Aspiazu
+ */
+public class PagePrefetcher implements DisposableBean {
+	private static final Logger logger = Logger.getLogger(PagePrefetcher.class);
+
+	private final PageCache pageCache;
+	private final ThreadPoolExecutor executor;
+	private final Optional<TransactionTemplate> transactionTemplate;
+	private final Cache<PageCache.GenerationKey, Page<?>> prefetchedPages;
+	private final double minimumHitRate;
+	private final long minimumSamples;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong wasted = new AtomicLong();
+	private volatile boolean enabled;
+
+	private PagePrefetcher(PageCache pageCache, ThreadPoolExecutor executor, Optional<TransactionTemplate> transactionTemplate,
+	                       long timeToLive, TimeUnit unit, double minimumHitRate, long minimumSamples) {
+		this.pageCache = pageCache;
+		this.executor = executor;
+		this.transactionTemplate = transactionTemplate;
+		this.minimumHitRate = minimumHitRate;
+		this.minimumSamples = minimumSamples;
+		this.enabled = executor != null;
+		this.prefetchedPages = CacheBuilder.newBuilder()
+			.maximumSize(100)
+			.concurrencyLevel(1)
+			.expireAfterWrite(timeToLive, unit)
+			.removalListener(new RemovalListener<PageCache.GenerationKey, Page<?>>() {
+				@Override
+				public void onRemoval(RemovalNotification<PageCache.GenerationKey, Page<?>> notification) {
+					if (notification.getCause() != RemovalCause.EXPLICIT && notification.getCause() != RemovalCause.REPLACED) {
+						wasted.incrementAndGet();
+						switchOffIfUseless();
+					}
+				}
+			})
+			.build();
+	}
+
+	public static PagePrefetcher disabled(PageCache pageCache) {
+		return new PagePrefetcher(pageCache, null, Optional.<TransactionTemplate>absent(), 0, TimeUnit.SECONDS, 0, 0);
+	}
+
+	/**
+	 * @param transactionTemplate the transaction the pages are loaded in, since
+	 *                            the loading does not run on the request thread
+	 */
+	public static PagePrefetcher enabled(PageCache pageCache, Optional<TransactionTemplate> transactionTemplate,
+	                                     int threads, int queueCapacity, long timeToLive, TimeUnit unit,
+	                                     double minimumHitRate, long minimumSamples) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<Runnable>(queueCapacity),
+			new ThreadFactoryBuilder().setNameFormat("pagination-prefetch-%d").setDaemon(true).setPriority(Thread.MIN_PRIORITY).build(),
+			new ThreadPoolExecutor.DiscardPolicy());
+		return new PagePrefetcher(pageCache, executor, transactionTemplate, timeToLive, unit, minimumHitRate, minimumSamples);
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Serves the page from the prefetched ones, otherwise through the {@link PageCache}.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> Page<T> get(PageKey key, Callable<Page<T>> loader) {
+		if (enabled) {
+			PageCache.GenerationKey generationKey = generationKey(key);
+			Page<T> page = (Page<T>) prefetchedPages.getIfPresent(generationKey);
+			if (page != null) {
+				prefetchedPages.invalidate(generationKey);
+				hits.incrementAndGet();
+				return page;
+			}
+		}
+		return pageCache.get(key, loader);
+	}
+
+	/**
+	 * Loads in background the page identified by the key, unless it is
+	 * already prefetched or the prefetcher is busy.
+	 */
+	public <T> void prefetch(PageKey key, final Callable<Page<T>> loader) {
+		prefetchedPages.cleanUp(); // reports the expired pages, see switchOffIfUseless
+		final PageCache.GenerationKey generationKey = generationKey(key);
+		if (!enabled || prefetchedPages.getIfPresent(generationKey) != null) {
+			return;
+		}
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					prefetchedPages.put(generationKey, load(loader));
+				} catch (Exception e) {
+					logger.warn("Unable to prefetch the page " + generationKey, e);
+				}
+			}
+		});
+	}
+
+	private <T> Page<T> load(final Callable<Page<T>> loader) throws Exception {
+		if (!transactionTemplate.isPresent()) {
+			return loader.call();
+		}
+		return transactionTemplate.get().execute(new TransactionCallback<Page<T>>() {
+			@Override
+			public Page<T> doInTransaction(TransactionStatus status) {
+				try {
+					return loader.call();
+				} catch (RuntimeException e) {
+					throw e;
+				} catch (Exception e) {
+					throw new PaginationException("Unable to load the page", e);
+				}
+			}
+		});
+	}
+
+	private PageCache.GenerationKey generationKey(PageKey key) {
+		return new PageCache.GenerationKey(key, pageCache.generationOf(key.getEntityClass()));
+	}
+
+	private void switchOffIfUseless() {
+		long hitCount = hits.get(), samples = hitCount + wasted.get();
+		if (enabled && samples >= minimumSamples && (double) hitCount / samples < minimumHitRate) {
+			enabled = false;
+			logger.info("Page prefetching switched off, hit rate " + getHitRate() + " over " + samples + " prefetched pages");
+			executor.shutdown();
+		}
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of prefetched pages which expired without being requested
+	 */
+	public long getWastedCount() {
+		return wasted.get();
+	}
+
+	public double getHitRate() {
+		long hitCount = hits.get(), samples = hitCount + wasted.get();
+		return (samples == 0) ? 1.0 : (double) hitCount / samples;
+	}
+
+	@Override
+	public void destroy() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.count;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.data.domain.Pageable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the exact count of each query fingerprint for a limited time,
+ * so that browsing the pages of the same search runs a single count.
+ *
+ * @author Fernando Aspiazu
+ */
+public class CachedCountStrategy implements CountStrategy {
+	private static final long MAXIMUM_SIZE = 1000;
+
+	private final Cache<String, Long> totals;
+
+	public CachedCountStrategy(long timeToLive, TimeUnit unit) {
+		this.totals = CacheBuilder.newBuilder()
+			.maximumSize(MAXIMUM_SIZE)
+			.expireAfterWrite(timeToLive, unit)
+			.build();
+	}
+
+	@Override
+	public int getFetchSize(Pageable pageable) {
+		return pageable.getPageSize();
+	}
+
+	@Override
+	public long getTotal(CountQuery countQuery, Pageable pageable, int fetchedRows) {
+		String fingerprint = countQuery.getFingerprint();
+		Long total = totals.getIfPresent(fingerprint);
+		if (total == null) {
+			total = countQuery.exactCount();
+			totals.put(fingerprint, total);
+		}
+		return total;
+	}
+
+	@Override
+	public boolean isExact() {
+		return false;
+	}
+
+	public void invalidateAll() {
+		totals.invalidateAll();
+	}
+
+}
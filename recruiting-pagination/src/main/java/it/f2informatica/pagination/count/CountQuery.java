@@ -0,0 +1,57 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.count;
+
+import com.google.common.base.Optional;
+
+/**
+ * The count side of a paginated query, as seen by a {@link CountStrategy}.
+ *
+ * @author Fernando Aspiazu
+ */
+public abstract class CountQuery {
+
+	/**
+	 * @return a key identifying the counted entity and the filter applied on it
+	 */
+	public abstract String getFingerprint();
+
+	/**
+	 * @return {@code true} if the query does not count the whole collection/table
+	 */
+	public abstract boolean isFiltered();
+
+	public abstract long exactCount();
+
+	/**
+	 * Asks the datastore to abort {@link #exactCount()} after the given time:
+	 * cancelling the thread running it does not stop the query. Not every
+	 * datastore supports it, by default the count is not bounded.
+	 */
+	public void setTimeout(long timeoutMillis) {
+	}
+
+	/**
+	 * @return the number of elements of the whole collection/table, as reported
+	 * by the datastore statistics, or absent if no statistics are available
+	 */
+	public abstract Optional<Long> estimatedCount();
+
+}
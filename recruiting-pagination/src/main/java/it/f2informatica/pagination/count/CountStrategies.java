@@ -0,0 +1,65 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.count;
+
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Factory of the available {@link CountStrategy} implementations.
+ *
+ * @author Fernando Aspiazu
+ */
+public final class CountStrategies {
+	public static final String EXACT = "exact";
+	public static final String CACHED = "cached";
+	public static final String ESTIMATED = "estimated";
+	public static final String NONE = "none";
+
+	private CountStrategies() {
+	}
+
+	public static CountStrategy fromName(String name, long cacheTimeToLiveSeconds) {
+		switch (name.trim().toLowerCase()) {
+			case EXACT:
+				return new ExactCountStrategy();
+			case CACHED:
+				return new CachedCountStrategy(cacheTimeToLiveSeconds, TimeUnit.SECONDS);
+			case ESTIMATED:
+				return new EstimatedCountStrategy(new CachedCountStrategy(cacheTimeToLiveSeconds, TimeUnit.SECONDS));
+			case NONE:
+				return new HasNextPageCountStrategy();
+			default:
+				throw new IllegalArgumentException("Unknown count strategy [" + name + "]");
+		}
+	}
+
+	/**
+	 * Drops the look-ahead rows fetched beyond the page size, if any.
+	 */
+	public static <T> List<T> pageContent(List<T> fetchedRows, Pageable pageable) {
+		return (fetchedRows.size() > pageable.getPageSize())
+			? fetchedRows.subList(0, pageable.getPageSize())
+			: fetchedRows;
+	}
+
+}
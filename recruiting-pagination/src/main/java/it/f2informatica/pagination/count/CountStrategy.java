@@ -0,0 +1,53 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.count;
+
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Decides how the total number of rows of a paginated query is obtained.
+ * <p>
+ * The strategy is consulted twice per page: before running the page query,
+ * to know how many rows must be fetched, and after it, to compute the total
+ * reported in the resulting {@link org.springframework.data.domain.Page}.
+ * </p>
+ *
+ * @author Fernando Aspiazu
+ * @see CountStrategies
+ */
+public interface CountStrategy {
+
+	/**
+	 * @return the number of rows the page query has to fetch
+	 */
+	int getFetchSize(Pageable pageable);
+
+	/**
+	 * @param fetchedRows the number of rows returned by the page query
+	 * @return the total number of rows to report for the page
+	 */
+	long getTotal(CountQuery countQuery, Pageable pageable, int fetchedRows);
+
+	/**
+	 * @return {@code false} if the reported totals may be approximate
+	 */
+	boolean isExact();
+
+}
@@ -0,0 +1,48 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.count;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Page whose total has been obtained through a {@link PageCounter}, telling
+ * whether that total is exact: it is not when the strategy approximates it,
+ * nor when the count timed out.
+ *
+ * @author Fernando Aspiazu
+ */
+public class CountedPage<T> extends PageImpl<T> {
+	private static final long serialVersionUID = -3377307536916553461L;
+
+	private final boolean exactTotal;
+
+	public CountedPage(List<T> content, Pageable pageable, PageTotal total) {
+		super(content, pageable, total.getCount());
+		this.exactTotal = total.isExact();
+	}
+
+	public boolean isExactTotal() {
+		return exactTotal;
+	}
+
+}
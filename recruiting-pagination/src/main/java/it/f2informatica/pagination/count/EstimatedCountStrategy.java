@@ -0,0 +1,61 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.count;
+
+import com.google.common.base.Optional;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Reads the total from the collection/table statistics when the whole
+ * collection/table is paginated. Statistics say nothing about filtered
+ * queries, which are therefore counted by the fallback strategy.
+ *
+ * @author Fernando Aspiazu
+ */
+public class EstimatedCountStrategy implements CountStrategy {
+
+	private final CountStrategy fallback;
+
+	public EstimatedCountStrategy(CountStrategy fallback) {
+		this.fallback = fallback;
+	}
+
+	@Override
+	public int getFetchSize(Pageable pageable) {
+		return fallback.getFetchSize(pageable);
+	}
+
+	@Override
+	public long getTotal(CountQuery countQuery, Pageable pageable, int fetchedRows) {
+		if (!countQuery.isFiltered()) {
+			Optional<Long> estimatedCount = countQuery.estimatedCount();
+			if (estimatedCount.isPresent()) {
+				return Math.max(estimatedCount.get(), pageable.getOffset() + fetchedRows);
+			}
+		}
+		return fallback.getTotal(countQuery, pageable, fetchedRows);
+	}
+
+	@Override
+	public boolean isExact() {
+		return false;
+	}
+
+}
@@ -0,0 +1,46 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.count;
+
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Runs a count query for every page.
+ *
+ * @author Fernando Aspiazu
+ */
+public class ExactCountStrategy implements CountStrategy {
+
+	@Override
+	public int getFetchSize(Pageable pageable) {
+		return pageable.getPageSize();
+	}
+
+	@Override
+	public long getTotal(CountQuery countQuery, Pageable pageable, int fetchedRows) {
+		return countQuery.exactCount();
+	}
+
+	@Override
+	public boolean isExact() {
+		return true;
+	}
+
+}
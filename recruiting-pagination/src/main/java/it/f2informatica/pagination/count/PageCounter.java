@@ -0,0 +1,141 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.count;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import it.f2informatica.pagination.services.PaginationException;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.domain.Pageable;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Obtains the total of a page through the configured {@link CountStrategy}.
+ * <p>
+ * In concurrent mode the count runs on a bounded executor while the page
+ * content is fetched on the request thread; when the executor is saturated
+ * the count runs on the caller. A count not completed within the timeout is
+ * cancelled, on the datastore as well when it supports it, and the page
+ * reports only whether a next page exists.
+ * </p>
+ *
+ * @author Fernando Aspiazu
+ */
+public class PageCounter implements DisposableBean {
+	private static final Logger logger = Logger.getLogger(PageCounter.class);
+
+	private final CountStrategy countStrategy;
+	private final ExecutorService executor;
+	private final long timeoutMillis;
+
+	private PageCounter(CountStrategy countStrategy, ExecutorService executor, long timeoutMillis) {
+		this.countStrategy = countStrategy;
+		this.executor = executor;
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	public static PageCounter sequential(CountStrategy countStrategy) {
+		return new PageCounter(countStrategy, null, 0);
+	}
+
+	public static PageCounter concurrent(CountStrategy countStrategy, int threads, int queueCapacity, long timeoutMillis) {
+		ExecutorService executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<Runnable>(queueCapacity),
+			new ThreadFactoryBuilder().setNameFormat("pagination-count-%d").setDaemon(true).build(),
+			new ThreadPoolExecutor.CallerRunsPolicy());
+		return new PageCounter(countStrategy, executor, timeoutMillis);
+	}
+
+	public int getFetchSize(Pageable pageable) {
+		return countStrategy.getFetchSize(pageable);
+	}
+
+	/**
+	 * Starts counting; call it before fetching the page content.
+	 */
+	public PendingTotal start(final CountQuery countQuery, final Pageable pageable) {
+		if (executor == null || countStrategy instanceof HasNextPageCountStrategy) {
+			return new PendingTotal() {
+				@Override
+				public PageTotal join(int fetchedRows) {
+					return PageTotal.of(countStrategy.getTotal(countQuery, pageable, fetchedRows), countStrategy.isExact());
+				}
+			};
+		}
+		countQuery.setTimeout(timeoutMillis);
+		final Future<Long> total = executor.submit(new Callable<Long>() {
+			@Override
+			public Long call() {
+				return countStrategy.getTotal(countQuery, pageable, 0);
+			}
+		});
+		return new PendingTotal() {
+			@Override
+			public PageTotal join(int fetchedRows) {
+				return awaitTotal(total, pageable, fetchedRows);
+			}
+		};
+	}
+
+	private PageTotal awaitTotal(Future<Long> total, Pageable pageable, int fetchedRows) {
+		long fetchedTotal = pageable.getOffset() + fetchedRows;
+		try {
+			return PageTotal.of(Math.max(total.get(timeoutMillis, TimeUnit.MILLISECONDS), fetchedTotal), countStrategy.isExact());
+		} catch (TimeoutException e) {
+			total.cancel(true);
+			logger.warn("Count query timed out after " + timeoutMillis + "ms, reporting only the next page");
+			return PageTotal.of((fetchedRows < pageable.getPageSize()) ? fetchedTotal : fetchedTotal + 1, false);
+		} catch (InterruptedException e) {
+			total.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new PaginationException("Interrupted while counting the page total", e);
+		} catch (ExecutionException e) {
+			throw new PaginationException("Unable to count the page total", e.getCause());
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * The total of a page whose content is being fetched.
+	 */
+	public interface PendingTotal {
+
+		/**
+		 * @return the total, not exact if the count fell back to reporting only the next page
+		 */
+		PageTotal join(int fetchedRows);
+
+	}
+
+}
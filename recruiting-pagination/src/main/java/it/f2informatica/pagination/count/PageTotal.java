@@ -0,0 +1,49 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.count;
+
+/**
+ * The total reported for a page, and whether it is the actual number of
+ * rows or only an approximation of it.
+ *
+ * @author Fernando Aspiazu
+ */
+public final class PageTotal {
+	private final long count;
+	private final boolean exact;
+
+	private PageTotal(long count, boolean exact) {
+		this.count = count;
+		this.exact = exact;
+	}
+
+	public static PageTotal of(long count, boolean exact) {
+		return new PageTotal(count, exact);
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public boolean isExact() {
+		return exact;
+	}
+
+}
@@ -0,0 +1,34 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.count;
+
+import com.google.common.base.Optional;
+
+/**
+ * Provides the approximate number of rows of the table mapped by an entity,
+ * used by the estimated {@link CountStrategy} on JPA queries.
+ *
+ * @author Fernando Aspiazu
+ */
+public interface TableStatistics {
+
+	Optional<Long> estimatedRowCount(Class<?> entityClass);
+
+}
@@ -0,0 +1,175 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.keyset;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.io.BaseEncoding;
+import it.f2informatica.pagination.projection.ProjectedRow;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.BeansException;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.StringUtils;
+
+import java.util.Date;
+
+/**
+ * Opaque token which lets the client continue a keyset (seek) pagination.
+ * <p>
+ * It carries the sort key and the id of the last row served, so the next page
+ * can be fetched with a range predicate instead of skipping all the previous
+ * rows. The token is valid only for the page which follows the one that
+ * generated it, with the same sort column and direction.
+ * </p>
+ *
+ * @author Fernando Aspiazu
+ */
+public final class ContinuationToken {
+	private static final String SEPARATOR = "\u001F";
+	private static final BaseEncoding ENCODING = BaseEncoding.base64Url().omitPadding();
+
+	private final int offset;
+	private final String property;
+	private final Sort.Direction direction;
+	private final Object lastValue;
+	private final Object lastId;
+
+	ContinuationToken(int offset, String property, Sort.Direction direction, Object lastValue, Object lastId) {
+		this.offset = offset;
+		this.property = property;
+		this.direction = direction;
+		this.lastValue = lastValue;
+		this.lastId = lastId;
+	}
+
+	/**
+	 * Builds the token pointing right after the given row, if both the sort key
+	 * and the id of the row can be used as a keyset.
+	 */
+	public static Optional<ContinuationToken> following(KeysetPageable pageable, int rows, Object lastRow) {
+		if (rows == 0 || lastRow == null) {
+			return Optional.absent();
+		}
+		Object lastId = readProperty(lastRow, KeysetPageable.ID_PROPERTY);
+		Object lastValue = pageable.isSortedById() ? lastId : readProperty(lastRow, pageable.getSortProperty());
+		if (isNotSupported(lastValue) || isNotSupported(lastId)) {
+			return Optional.absent();
+		}
+		int nextOffset = pageable.getOffset() + rows;
+		return Optional.of(new ContinuationToken(nextOffset, pageable.getSortProperty(), pageable.getDirection(), lastValue, lastId));
+	}
+
+	public static Optional<ContinuationToken> decode(String token) {
+		if (!StringUtils.hasText(token)) {
+			return Optional.absent();
+		}
+		try {
+			String[] parts = new String(ENCODING.decode(token), Charsets.UTF_8).split(SEPARATOR, -1);
+			if (parts.length != 5) {
+				return Optional.absent();
+			}
+			return Optional.of(new ContinuationToken(
+				Integer.parseInt(parts[0]),
+				parts[1],
+				Sort.Direction.fromString(parts[2]),
+				decodeValue(parts[3]),
+				decodeValue(parts[4])));
+		} catch (IllegalArgumentException e) {
+			return Optional.absent();
+		}
+	}
+
+	public String encode() {
+		String plain = offset + SEPARATOR + property + SEPARATOR + direction.name()
+			+ SEPARATOR + encodeValue(lastValue) + SEPARATOR + encodeValue(lastId);
+		return ENCODING.encode(plain.getBytes(Charsets.UTF_8));
+	}
+
+	public boolean isApplicableTo(int displayStart, String sortProperty, Sort.Direction sortDirection) {
+		return offset == displayStart && property.equals(sortProperty) && direction == sortDirection;
+	}
+
+	public String getProperty() {
+		return property;
+	}
+
+	public Sort.Direction getDirection() {
+		return direction;
+	}
+
+	public Object getLastValue() {
+		return lastValue;
+	}
+
+	public Object getLastId() {
+		return lastId;
+	}
+
+	private static Object readProperty(Object row, String property) {
+		if (row instanceof ProjectedRow) {
+			return ((ProjectedRow) row).getColumn(property);
+		}
+		try {
+			return new BeanWrapperImpl(row).getPropertyValue(property);
+		} catch (BeansException e) {
+			return null;
+		}
+	}
+
+	private static boolean isNotSupported(Object value) {
+		return !(value instanceof String || value instanceof Integer || value instanceof Long
+			|| value instanceof Double || value instanceof Date);
+	}
+
+	private static String encodeValue(Object value) {
+		if (value instanceof Integer) {
+			return "i" + value;
+		} else if (value instanceof Long) {
+			return "l" + value;
+		} else if (value instanceof Double) {
+			return "f" + value;
+		} else if (value instanceof Date) {
+			return "t" + ((Date) value).getTime();
+		}
+		return "s" + value;
+	}
+
+	private static Object decodeValue(String value) {
+		if (value.isEmpty()) {
+			throw new IllegalArgumentException("Empty keyset value");
+		}
+		String content = value.substring(1);
+		switch (value.charAt(0)) {
+			case 'i':
+				return Integer.valueOf(content);
+			case 'l':
+				return Long.valueOf(content);
+			case 'f':
+				return Double.valueOf(content);
+			case 't':
+				return new Date(Long.parseLong(content));
+			case 's':
+				return content;
+			default:
+				throw new IllegalArgumentException("Unknown keyset value type [" + value.charAt(0) + "]");
+		}
+	}
+
+}
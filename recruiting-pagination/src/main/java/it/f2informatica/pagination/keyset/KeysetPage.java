@@ -0,0 +1,48 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.keyset;
+
+import com.google.common.base.Optional;
+import it.f2informatica.pagination.count.CountedPage;
+import it.f2informatica.pagination.count.PageTotal;
+
+import java.util.List;
+
+/**
+ * Page read through a {@link KeysetPageable}, holding the token which the
+ * client must send back in order to get the following page.
+ *
+ * @author Fernando Aspiazu
+ */
+public class KeysetPage<T> extends CountedPage<T> {
+	private static final long serialVersionUID = 8151930283946208236L;
+
+	private final ContinuationToken nextContinuationToken;
+
+	public KeysetPage(List<T> content, KeysetPageable pageable, PageTotal total, Optional<ContinuationToken> nextContinuationToken) {
+		super(content, pageable, total);
+		this.nextContinuationToken = nextContinuationToken.orNull();
+	}
+
+	public Optional<ContinuationToken> getNextContinuationToken() {
+		return Optional.fromNullable(nextContinuationToken);
+	}
+
+}
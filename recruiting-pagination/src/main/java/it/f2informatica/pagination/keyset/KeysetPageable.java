@@ -0,0 +1,80 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.keyset;
+
+import com.google.common.base.Optional;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+/**
+ * {@link PageRequest} which asks the executors to page by keyset (seek) rather
+ * than by offset. Rows are always ordered by the sort property and then by id,
+ * so that the order is total and a page can restart right after the last row
+ * served. When there is no {@link ContinuationToken} the page is still read by
+ * offset, but with the same ordering.
+ *
+ * @author Fernando Aspiazu
+ */
+public class KeysetPageable extends PageRequest {
+	private static final long serialVersionUID = -2730574154420181623L;
+
+	public static final String ID_PROPERTY = "id";
+
+	private final String sortProperty;
+	private final Sort.Direction direction;
+	private final ContinuationToken continuationToken;
+
+	public KeysetPageable(int page, int size, Sort.Direction direction, String sortProperty, ContinuationToken continuationToken) {
+		super(page, size, keysetSort(direction, sortProperty));
+		this.sortProperty = sortProperty;
+		this.direction = direction;
+		this.continuationToken = continuationToken;
+	}
+
+	private static Sort keysetSort(Sort.Direction direction, String sortProperty) {
+		Sort sort = new Sort(direction, sortProperty);
+		return ID_PROPERTY.equals(sortProperty) ? sort : sort.and(new Sort(direction, ID_PROPERTY));
+	}
+
+	/**
+	 * Only plain properties of the root entity can be used as keys, since
+	 * nested paths are neither indexed nor guaranteed to be non-null.
+	 */
+	public static boolean isUsableKey(String sortProperty) {
+		return sortProperty != null && !sortProperty.isEmpty() && !sortProperty.contains(".");
+	}
+
+	public String getSortProperty() {
+		return sortProperty;
+	}
+
+	public Sort.Direction getDirection() {
+		return direction;
+	}
+
+	public boolean isSortedById() {
+		return ID_PROPERTY.equals(sortProperty);
+	}
+
+	public Optional<ContinuationToken> getContinuationToken() {
+		return Optional.fromNullable(continuationToken);
+	}
+
+}
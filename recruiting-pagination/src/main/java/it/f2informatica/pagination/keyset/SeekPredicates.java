@@ -0,0 +1,53 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.keyset;
+
+import com.mysema.query.types.Predicate;
+import com.mysema.query.types.expr.ComparableExpression;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Querydsl predicates selecting the rows which follow a {@link ContinuationToken}.
+ *
+ * @author Fernando Aspiazu
+ */
+public final class SeekPredicates {
+
+	private SeekPredicates() {
+	}
+
+	/**
+	 * The rows after the last one served, in the order of the pageable: those
+	 * beyond its sort key, or with the same sort key and beyond its id.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public static Predicate after(ContinuationToken token, KeysetPageable pageable, ComparableExpression sortKey, ComparableExpression id) {
+		boolean ascending = Sort.Direction.ASC == pageable.getDirection();
+		Comparable lastId = (Comparable) token.getLastId();
+		Predicate afterId = ascending ? id.gt(lastId) : id.lt(lastId);
+		if (pageable.isSortedById()) {
+			return afterId;
+		}
+		Comparable lastValue = (Comparable) token.getLastValue();
+		return (ascending ? sortKey.gt(lastValue) : sortKey.lt(lastValue))
+			.or(sortKey.eq(lastValue).and(afterId));
+	}
+
+}
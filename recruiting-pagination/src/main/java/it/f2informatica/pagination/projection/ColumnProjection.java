@@ -0,0 +1,128 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.projection;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import it.f2informatica.pagination.services.QueryParameters;
+import org.springframework.beans.BeanUtils;
+
+import java.beans.PropertyDescriptor;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The properties of an entity which are shown by the requested DataTables columns.
+ * <p>
+ * Column names follow the getter convention of the response, e.g. {@code role_name}
+ * stands for {@code role.name}. A projection exists only if every column maps to a
+ * readable property of the entity, otherwise the whole entity has to be loaded.
+ * </p>
+ *
+ * @author Fernando Aspiazu
+ */
+public final class ColumnProjection {
+	private static final String SEPARATOR = "_";
+
+	private final List<String> columns;
+	private final List<List<PropertyDescriptor>> propertyPaths;
+
+	private ColumnProjection(List<String> columns, List<List<PropertyDescriptor>> propertyPaths) {
+		this.columns = columns;
+		this.propertyPaths = propertyPaths;
+	}
+
+	public static Optional<ColumnProjection> of(QueryParameters parameters, Class<?> entityClass) {
+		if (parameters.getColumnsNumber() == 0) {
+			return Optional.absent();
+		}
+		ImmutableList.Builder<String> columns = ImmutableList.builder();
+		ImmutableList.Builder<List<PropertyDescriptor>> propertyPaths = ImmutableList.builder();
+		for (int columnIndex = 0; columnIndex < parameters.getColumnsNumber(); columnIndex++) {
+			String column = parameters.getColumnName(columnIndex);
+			Optional<List<PropertyDescriptor>> propertyPath = resolve(entityClass, column);
+			if (!propertyPath.isPresent()) {
+				return Optional.absent();
+			}
+			columns.add(column);
+			propertyPaths.add(propertyPath.get());
+		}
+		return Optional.of(new ColumnProjection(columns.build(), propertyPaths.build()));
+	}
+
+	private static Optional<List<PropertyDescriptor>> resolve(Class<?> entityClass, String column) {
+		if (column == null || column.isEmpty() || column.endsWith(SEPARATOR)) {
+			return Optional.absent();
+		}
+		ImmutableList.Builder<PropertyDescriptor> propertyPath = ImmutableList.builder();
+		Class<?> type = entityClass;
+		for (String property : column.split(SEPARATOR)) {
+			PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(type, property);
+			if (descriptor == null || descriptor.getReadMethod() == null) {
+				return Optional.absent();
+			}
+			propertyPath.add(descriptor);
+			type = descriptor.getPropertyType();
+		}
+		return Optional.<List<PropertyDescriptor>>of(propertyPath.build());
+	}
+
+	public List<String> getColumns() {
+		return columns;
+	}
+
+	public List<PropertyDescriptor> getPropertyPath(int columnIndex) {
+		return propertyPaths.get(columnIndex);
+	}
+
+	/**
+	 * @return the root properties to load, plus the given ones (e.g. sort keys)
+	 */
+	public Set<String> getRootProperties(String... additionalProperties) {
+		Set<String> rootProperties = Sets.newLinkedHashSet();
+		for (List<PropertyDescriptor> propertyPath : propertyPaths) {
+			rootProperties.add(propertyPath.get(0).getName());
+		}
+		for (String additionalProperty : additionalProperties) {
+			rootProperties.add(additionalProperty.split("\\.")[0]);
+		}
+		return rootProperties;
+	}
+
+	/**
+	 * @return {@code true} if no column goes through or ends on a collection,
+	 * so that each one can be selected as a single value
+	 */
+	public boolean isSingleValued() {
+		for (List<PropertyDescriptor> propertyPath : propertyPaths) {
+			for (PropertyDescriptor descriptor : propertyPath) {
+				Class<?> type = descriptor.getPropertyType();
+				if (type.isArray() || Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.projection;
+
+import com.mysema.query.Tuple;
+import com.mysema.query.types.Expression;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A {@link Tuple} holding only the selected columns of a row, readable by column name.
+ *
+ * @author Fernando Aspiazu
+ */
+public final class ProjectedRow implements Tuple {
+
+	private final List<String> columns;
+	private final List<Expression<?>> expressions;
+	private final Object[] values;
+
+	public ProjectedRow(List<String> columns, List<Expression<?>> expressions, Object[] values) {
+		this.columns = columns;
+		this.expressions = expressions;
+		this.values = values;
+	}
+
+	public Object getColumn(String column) {
+		int index = columns.indexOf(column);
+		return (index < 0) ? null : values[index];
+	}
+
+	@Override
+	public <T> T get(int index, Class<T> type) {
+		return type.cast(values[index]);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T get(Expression<T> expr) {
+		int index = expressions.indexOf(expr);
+		return (index < 0) ? null : (T) values[index];
+	}
+
+	@Override
+	public int size() {
+		return values.length;
+	}
+
+	@Override
+	public Object[] toArray() {
+		return values.clone();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof ProjectedRow
+			&& columns.equals(((ProjectedRow) obj).columns)
+			&& Arrays.equals(values, ((ProjectedRow) obj).values);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * columns.hashCode() + Arrays.hashCode(values);
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.repository.mongodb;
+
+import com.google.common.base.Optional;
+import com.mongodb.DBObject;
+import it.f2informatica.pagination.count.CountQuery;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+
+class MongoCountQuery extends CountQuery {
+
+	private final MongoOperations mongoOperations;
+	private final DBObject queryObject;
+	private final Class<?> entityClass;
+
+	MongoCountQuery(MongoOperations mongoOperations, DBObject queryObject, Class<?> entityClass) {
+		this.mongoOperations = mongoOperations;
+		this.queryObject = queryObject;
+		this.entityClass = entityClass;
+	}
+
+	@Override
+	public String getFingerprint() {
+		return entityClass.getName() + queryObject;
+	}
+
+	@Override
+	public boolean isFiltered() {
+		return !queryObject.keySet().isEmpty();
+	}
+
+	@Override
+	public long exactCount() {
+		return mongoOperations.count(new BasicQuery(queryObject), entityClass);
+	}
+
+	@Override
+	public Optional<Long> estimatedCount() {
+		return Optional.of(mongoOperations.getCollection(mongoOperations.getCollectionName(entityClass)).getCount());
+	}
+
+}
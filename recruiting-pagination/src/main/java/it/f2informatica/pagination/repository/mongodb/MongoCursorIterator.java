@@ -0,0 +1,78 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.repository.mongodb;
+
+import com.mongodb.DBCursor;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the documents of a driver cursor one at a time; the driver fetches
+ * them from the server in batches, so the memory used does not depend on
+ * the number of documents matched.
+ */
+class MongoCursorIterator<T> implements CloseableIterator<T> {
+
+	private final DBCursor cursor;
+	private final MongoConverter converter;
+	private final Class<T> entityClass;
+	private boolean closed;
+
+	MongoCursorIterator(DBCursor cursor, MongoConverter converter, Class<T> entityClass) {
+		this.cursor = cursor;
+		this.converter = converter;
+		this.entityClass = entityClass;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (closed) {
+			return false;
+		}
+		if (!cursor.hasNext()) {
+			close();
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return converter.read(entityClass, cursor.next());
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("Documents cannot be removed while iterating a cursor");
+	}
+
+	@Override
+	public void close() {
+		if (!closed) {
+			closed = true;
+			cursor.close();
+		}
+	}
+
+}
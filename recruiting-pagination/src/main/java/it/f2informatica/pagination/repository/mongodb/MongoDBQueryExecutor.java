@@ -19,6 +19,7 @@
  */
 package it.f2informatica.pagination.repository.mongodb;
 
+import it.f2informatica.pagination.count.PageCounter;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -30,4 +31,16 @@ public interface MongoDBQueryExecutor<T> {
 
 	Page<T> findAll(MongoQueryPredicate<T> predicate, Pageable pageable);
 
+	Page<T> findAll(MongoQueryPredicate<T> predicate, Pageable pageable, PageCounter pageCounter);
+
+	/**
+	 * Walks the documents matching the predicate, in the order it requires,
+	 * through a driver cursor instead of loading them all in memory.
+	 * The iterator must be closed once done with it.
+	 *
+	 * @param batchSize the number of documents fetched from the server at a time
+	 * @param fields    the only fields to be read, or none to read the whole documents
+	 */
+	CloseableIterator<T> stream(MongoQueryPredicate<T> predicate, int batchSize, String... fields);
+
 }
@@ -19,18 +19,37 @@
  */
 package it.f2informatica.pagination.repository.mongodb;
 
+import com.google.common.base.Optional;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import it.f2informatica.pagination.count.CountQuery;
+import it.f2informatica.pagination.count.CountStrategies;
+import it.f2informatica.pagination.count.CountedPage;
+import it.f2informatica.pagination.count.ExactCountStrategy;
+import it.f2informatica.pagination.count.PageCounter;
+import it.f2informatica.pagination.keyset.ContinuationToken;
+import it.f2informatica.pagination.keyset.KeysetPage;
+import it.f2informatica.pagination.keyset.KeysetPageable;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.repository.query.MongoEntityInformation;
 import org.springframework.data.mongodb.repository.support.SimpleMongoRepository;
 
 import java.io.Serializable;
 import java.util.List;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
 public class SimpleMongoPaginationRepository<T, ID extends Serializable>
 	extends SimpleMongoRepository<T, ID> implements MongoDBQueryExecutor<T> {
+	private static final PageCounter EXACT_COUNT = PageCounter.sequential(new ExactCountStrategy());
 
 	public SimpleMongoPaginationRepository(MongoEntityInformation<T, ID> metadata, MongoOperations mongoOperations) {
 		super(metadata, mongoOperations);
@@ -38,13 +57,89 @@ public class SimpleMongoPaginationRepository<T, ID extends Serializable>
 
 	@Override
 	public List<T> findAll(MongoQueryPredicate<T> predicate) {
-		return getMongoOperations().findAll(predicate.getEntityClass());
+		return getMongoOperations().find(predicate.queryPredicate(), predicate.getEntityClass());
+	}
+
+	@Override
+	public CloseableIterator<T> stream(MongoQueryPredicate<T> predicate, int batchSize, String... fields) {
+		Class<T> entityClass = predicate.getEntityClass();
+		Query query = predicate.queryPredicate();
+		for (String field : fields) {
+			query.fields().include(field);
+		}
+		MongoConverter converter = getMongoOperations().getConverter();
+		MongoPersistentEntity<?> entity = converter.getMappingContext().getPersistentEntity(entityClass);
+		QueryMapper queryMapper = new QueryMapper(converter);
+		DBCursor cursor = getMongoOperations().getCollection(getMongoOperations().getCollectionName(entityClass))
+			.find(queryMapper.getMappedObject(query.getQueryObject(), entity), mappedOrNull(queryMapper, query.getFieldsObject(), entity))
+			.batchSize(batchSize);
+		if (query.getSortObject() != null) {
+			cursor.sort(queryMapper.getMappedObject(query.getSortObject(), entity));
+		}
+		if (query.getSkip() > 0) {
+			cursor.skip(query.getSkip());
+		}
+		if (query.getLimit() > 0) {
+			cursor.limit(query.getLimit());
+		}
+		return new MongoCursorIterator<>(cursor, converter, entityClass);
+	}
+
+	private static DBObject mappedOrNull(QueryMapper queryMapper, DBObject fields, MongoPersistentEntity<?> entity) {
+		return (fields == null) ? null : queryMapper.getMappedObject(fields, entity);
 	}
 
 	@Override
 	public Page<T> findAll(MongoQueryPredicate<T> predicate, Pageable pageable) {
-		List<T> content = getMongoOperations().find(predicate.queryPredicate().with(pageable), predicate.getEntityClass());
-		return new PageImpl<>(content, pageable, getMongoOperations().count(predicate.queryPredicate(), predicate.getEntityClass()));
+		return findAll(predicate, pageable, EXACT_COUNT);
+	}
+
+	@Override
+	public Page<T> findAll(MongoQueryPredicate<T> predicate, Pageable pageable, PageCounter pageCounter) {
+		Query query = predicate.queryPredicate();
+		PageCounter.PendingTotal total = pageCounter.start(countQuery(predicate, query.getQueryObject()), pageable);
+		if (pageable instanceof KeysetPageable) {
+			return findAllByKeyset(predicate, query, (KeysetPageable) pageable, pageCounter, total);
+		}
+		query.with(pageable).limit(pageCounter.getFetchSize(pageable));
+		List<T> fetchedRows = getMongoOperations().find(query, predicate.getEntityClass());
+		return new CountedPage<>(CountStrategies.pageContent(fetchedRows, pageable), pageable, total.join(fetchedRows.size()));
+	}
+
+	private Page<T> findAllByKeyset(MongoQueryPredicate<T> predicate, Query query, KeysetPageable pageable,
+	                                PageCounter pageCounter, PageCounter.PendingTotal total) {
+		query.with(pageable.getSort()).limit(pageCounter.getFetchSize(pageable));
+		Optional<ContinuationToken> token = pageable.getContinuationToken();
+		if (token.isPresent()) {
+			query.addCriteria(seekCriteria(pageable, token.get()));
+		} else {
+			query.skip(pageable.getOffset());
+		}
+		List<T> fetchedRows = getMongoOperations().find(query, predicate.getEntityClass());
+		List<T> content = CountStrategies.pageContent(fetchedRows, pageable);
+		T lastRow = content.isEmpty() ? null : content.get(content.size() - 1);
+		return new KeysetPage<>(content, pageable, total.join(fetchedRows.size()), ContinuationToken.following(pageable, content.size(), lastRow));
+	}
+
+	private CountQuery countQuery(MongoQueryPredicate<T> predicate, DBObject queryObject) {
+		return new MongoCountQuery(getMongoOperations(), queryObject, predicate.getEntityClass());
+	}
+
+	private static Criteria seekCriteria(KeysetPageable pageable, ContinuationToken token) {
+		Sort.Direction direction = pageable.getDirection();
+		Criteria afterId = after(where(KeysetPageable.ID_PROPERTY), direction, token.getLastId());
+		if (pageable.isSortedById()) {
+			return afterId;
+		}
+		String sortProperty = pageable.getSortProperty();
+		return new Criteria().orOperator(
+			after(where(sortProperty), direction, token.getLastValue()),
+			after(where(sortProperty).is(token.getLastValue()).and(KeysetPageable.ID_PROPERTY), direction, token.getLastId())
+		);
+	}
+
+	private static Criteria after(Criteria criteria, Sort.Direction direction, Object value) {
+		return (Sort.Direction.ASC == direction) ? criteria.gt(value) : criteria.lt(value);
 	}
 
 }
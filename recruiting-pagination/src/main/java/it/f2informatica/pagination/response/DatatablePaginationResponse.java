@@ -19,10 +19,20 @@
  */
 package it.f2informatica.pagination.response;
 
+import com.google.common.base.Optional;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.gson.Gson;
+import com.google.gson.JsonNull;
+import com.google.gson.stream.JsonWriter;
 import com.mysema.query.Tuple;
+import it.f2informatica.pagination.count.CountStrategy;
+import it.f2informatica.pagination.count.CountedPage;
+import it.f2informatica.pagination.keyset.ContinuationToken;
+import it.f2informatica.pagination.keyset.KeysetPage;
+import it.f2informatica.pagination.projection.ProjectedRow;
+import it.f2informatica.pagination.services.PaginationException;
 import it.f2informatica.pagination.services.QueryParameters;
 import it.f2informatica.pagination.utils.SafeGetterMethodExecutor;
 import org.apache.commons.lang3.ArrayUtils;
@@ -30,26 +40,105 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 import java.util.Map;
 
 @Service
-public class DatatablePaginationResponse implements PaginationResponse {
+public class DatatablePaginationResponse implements PaginationResponse, StreamingPaginationResponse {
+
+	@Autowired
+	private Gson gson;
+
+	@Autowired
+	private CountStrategy countStrategy;
 
 	@Autowired
 	private SafeGetterMethodExecutor safeGetterMethodExecutor;
 
 	@Override
 	public <T> Map<String, Object> generateResponseAttributes(QueryParameters queryParameters, Page<T> paginatedQueryResult) {
-		final boolean hasContent = paginatedQueryResult.hasContent();
+		final long totalElements = (paginatedQueryResult.hasContent()) ? paginatedQueryResult.getTotalElements() : 0L;
 		Map<String, Object> datatableAttributes = Maps.newHashMap();
 		datatableAttributes.put("sEcho", queryParameters.getEcho());
-		datatableAttributes.put("iTotalRecords", (hasContent) ? paginatedQueryResult.getTotalElements() : 0L);
-		datatableAttributes.put("iTotalDisplayRecords", (hasContent) ? paginatedQueryResult.getTotalElements() : 0L);
+		datatableAttributes.put("iTotalRecords", totalElements);
+		datatableAttributes.put("iTotalDisplayRecords", totalElements);
+		datatableAttributes.put("bExactTotals", isExactTotal(paginatedQueryResult));
 		datatableAttributes.put("aaData", convertResultAsArray(paginatedQueryResult, queryParameters));
+		if (paginatedQueryResult instanceof KeysetPage) {
+			Optional<ContinuationToken> token = ((KeysetPage<?>) paginatedQueryResult).getNextContinuationToken();
+			datatableAttributes.put("sContinuation", token.isPresent() ? token.get().encode() : "");
+		}
 		return datatableAttributes;
 	}
 
+	@Override
+	public <T> void writeResponse(QueryParameters queryParameters, Page<T> paginatedQueryResult, Writer writer) {
+		final long totalElements = (paginatedQueryResult.hasContent()) ? paginatedQueryResult.getTotalElements() : 0L;
+		JsonWriter jsonWriter = new JsonWriter(writer);
+		jsonWriter.setHtmlSafe(true);
+		try {
+			jsonWriter.beginObject();
+			jsonWriter.name("sEcho");
+			writeValue(jsonWriter, queryParameters.getEcho());
+			jsonWriter.name("iTotalRecords").value(totalElements);
+			jsonWriter.name("iTotalDisplayRecords").value(totalElements);
+			jsonWriter.name("bExactTotals").value(isExactTotal(paginatedQueryResult));
+			if (paginatedQueryResult instanceof KeysetPage) {
+				Optional<ContinuationToken> token = ((KeysetPage<?>) paginatedQueryResult).getNextContinuationToken();
+				jsonWriter.name("sContinuation").value(token.isPresent() ? token.get().encode() : "");
+			}
+			jsonWriter.name("aaData");
+			writeRowsOneByOne(jsonWriter, queryParameters, paginatedQueryResult);
+			jsonWriter.endObject();
+			jsonWriter.flush();
+		} catch (IOException e) {
+			throw new PaginationException("Unable to write the paginated response", e);
+		}
+	}
+
+	private boolean isExactTotal(Page<?> paginatedQueryResult) {
+		if (paginatedQueryResult instanceof CountedPage) {
+			return ((CountedPage<?>) paginatedQueryResult).isExactTotal();
+		}
+		return countStrategy.isExact();
+	}
+
+	private <T> void writeRowsOneByOne(JsonWriter jsonWriter, QueryParameters parameters, Page<T> paginatedQueryResult) throws IOException {
+		final int columnsNumber = parameters.getColumnsNumber();
+		final String[] fields = new String[columnsNumber];
+		for (int columnIndex = 0; columnIndex < columnsNumber; columnIndex++) {
+			fields[columnIndex] = parameters.getColumnName(columnIndex);
+		}
+		jsonWriter.beginArray();
+		for (T entity : paginatedQueryResult.getContent()) {
+			T tuple = resolveTuple(entity);
+			jsonWriter.beginObject();
+			for (String field : fields) {
+				jsonWriter.name(field);
+				writeValue(jsonWriter, readCell(field, tuple));
+			}
+			jsonWriter.endObject();
+		}
+		jsonWriter.endArray();
+	}
+
+	private void writeValue(JsonWriter jsonWriter, Object value) throws IOException {
+		if (value == null) {
+			// written through Gson, so that its null policy decides whether the name is kept
+			gson.toJson(JsonNull.INSTANCE, jsonWriter);
+		} else if (value instanceof String) {
+			jsonWriter.value((String) value);
+		} else if (value instanceof Boolean) {
+			jsonWriter.value((Boolean) value);
+		} else if (value instanceof Integer || value instanceof Long) {
+			jsonWriter.value(((Number) value).longValue());
+		} else {
+			gson.toJson(value, value.getClass(), jsonWriter);
+		}
+	}
+
 	private <T> Object[] convertResultAsArray(Page<T> paginatedQueryResult, QueryParameters parameters) {
 		return paginatedQueryResult.hasContent()
 			? Iterables.toArray(transformDataRowOneByOne(parameters, paginatedQueryResult), Object.class)
@@ -63,16 +152,23 @@ public class DatatablePaginationResponse implements PaginationResponse {
 			Map<String, Object> row = Maps.newHashMap();
 			for (int columnIndex = 0; columnIndex < parameters.getColumnsNumber(); columnIndex++) {
 				String field = parameters.getColumnName(columnIndex);
-				row.put(field, safeGetterMethodExecutor.invokeGetterOnField(field, tuple));
+				row.put(field, readCell(field, tuple));
 			}
 			data.add(row);
 		}
 		return data;
 	}
 
+	private <T> Object readCell(String field, T tuple) {
+		if (tuple instanceof ProjectedRow) {
+			return ((ProjectedRow) tuple).getColumn(field);
+		}
+		return safeGetterMethodExecutor.invokeGetterOnField(field, tuple);
+	}
+
 	@SuppressWarnings("unchecked")
 	private <T> T resolveTuple(T entity) {
-		if (entity instanceof Tuple) {
+		if (entity instanceof Tuple && !(entity instanceof ProjectedRow)) {
 			return (T) ((Tuple) entity).toArray()[0];
 		}
 		return entity;
@@ -0,0 +1,40 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.response;
+
+import it.f2informatica.pagination.services.QueryParameters;
+import org.springframework.data.domain.Page;
+
+import java.io.Writer;
+
+/**
+ * Writes the same attributes of {@link PaginationResponse} as JSON, row by row,
+ * without building them in memory first.
+ *
+ * @author Fernando Aspiazu
+ */
+public interface StreamingPaginationResponse {
+
+	/**
+	 * @throws it.f2informatica.pagination.services.PaginationException if the response cannot be written
+	 */
+	<T> void writeResponse(QueryParameters parameters, Page<T> paginatedQueryResult, Writer writer);
+
+}
@@ -0,0 +1,99 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.services;
+
+import com.google.common.base.Optional;
+import com.mysema.query.QueryMetadata;
+import com.mysema.query.jpa.impl.JPAQuery;
+import it.f2informatica.pagination.count.CountQuery;
+import it.f2informatica.pagination.count.TableStatistics;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class JpaCountQuery extends CountQuery {
+	private static final String QUERY_TIMEOUT_HINT = "javax.persistence.query.timeout";
+
+	private final JPAQuery countQuery;
+	private final Optional<TableStatistics> tableStatistics;
+	private final Optional<TransactionTemplate> transactionTemplate;
+
+	/**
+	 * @param countQuery          a query not yet restricted to the requested page
+	 * @param transactionTemplate the read-only transaction the count runs in when it
+	 *                            is executed outside of the request thread
+	 */
+	JpaCountQuery(JPAQuery countQuery, Optional<TableStatistics> tableStatistics,
+	              Optional<TransactionTemplate> transactionTemplate) {
+		this.countQuery = countQuery;
+		this.tableStatistics = tableStatistics;
+		this.transactionTemplate = transactionTemplate;
+	}
+
+	@Override
+	public String getFingerprint() {
+		return fingerprintOf(countQuery.getMetadata());
+	}
+
+	static String fingerprintOf(QueryMetadata metadata) {
+		return metadata.getJoins() + " where " + metadata.getWhere();
+	}
+
+	@Override
+	public boolean isFiltered() {
+		QueryMetadata metadata = countQuery.getMetadata();
+		return metadata.getWhere() != null || metadata.getJoins().size() > 1;
+	}
+
+	@Override
+	public long exactCount() {
+		// The query holds the shared EntityManager proxy, which resolves to the
+		// EntityManager bound to the current thread: on a counting thread that
+		// is the one of the read-only transaction opened here, never the
+		// (not thread-safe) EntityManager of the request.
+		if (transactionTemplate.isPresent() && !TransactionSynchronizationManager.isActualTransactionActive()) {
+			return transactionTemplate.get().execute(new TransactionCallback<Long>() {
+				@Override
+				public Long doInTransaction(TransactionStatus status) {
+					return countQuery.count();
+				}
+			});
+		}
+		return countQuery.count();
+	}
+
+	@Override
+	public void setTimeout(long timeoutMillis) {
+		// JDBC drivers time out in whole seconds: round up, zero would mean no timeout at all
+		long timeoutSeconds = Math.max(1L, (timeoutMillis + 999L) / 1000L);
+		countQuery.setHint(QUERY_TIMEOUT_HINT, (int) Math.min(timeoutSeconds * 1000L, Integer.MAX_VALUE));
+	}
+
+	@Override
+	public Optional<Long> estimatedCount() {
+		if (tableStatistics.isPresent()) {
+			Class<?> entityClass = countQuery.getMetadata().getJoins().get(0).getTarget().getType();
+			return tableStatistics.get().estimatedRowCount(entityClass);
+		}
+		return Optional.absent();
+	}
+
+}
@@ -22,6 +22,8 @@ package it.f2informatica.pagination.services;
 import it.f2informatica.pagination.repository.mongodb.MongoQueryPredicate;
 import org.springframework.data.domain.Page;
 
+import java.io.Writer;
+
 /**
  * Executes queries and perform pagination with MongoDB.
  *
@@ -35,6 +37,12 @@ public interface MongoDBPaginationService {
 
 	<T> String getPaginatedResultAsJson(QueryParameters parameters, MongoQueryPredicate<T> queryPredicate);
 
+	void writeEmptyPaginatedResultAsJson(QueryParameters parameters, Writer writer);
+
+	<T> void writePaginatedResultAsJson(QueryParameters parameters, Writer writer, Class<T> entityClass);
+
+	<T> void writePaginatedResultAsJson(QueryParameters parameters, Writer writer, MongoQueryPredicate<T> queryPredicate);
+
 	<T> Page<T> getPaginatedResult(QueryParameters parameters, Class<T> entityClass);
 
 	<T> Page<T> getPaginatedResult(QueryParameters parameters, MongoQueryPredicate<T> queryPredicate);
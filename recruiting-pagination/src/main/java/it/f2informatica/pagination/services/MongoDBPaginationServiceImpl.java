@@ -19,20 +19,33 @@
  */
 package it.f2informatica.pagination.services;
 
+import com.google.common.base.Optional;
 import com.google.common.collect.Lists;
 import com.google.gson.Gson;
+import it.f2informatica.pagination.cache.PageKey;
+import it.f2informatica.pagination.cache.PagePrefetcher;
+import it.f2informatica.pagination.count.PageCounter;
+import it.f2informatica.pagination.projection.ColumnProjection;
 import it.f2informatica.pagination.repository.MongoPaginationRepository;
 import it.f2informatica.pagination.repository.mongodb.MongoQueryPredicate;
 import it.f2informatica.pagination.response.PaginationResponse;
+import it.f2informatica.pagination.response.StreamingPaginationResponse;
 import org.springframework.beans.factory.ListableBeanFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.repository.support.Repositories;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
 import java.io.Serializable;
+import java.io.Writer;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  * Executes queries and perform pagination with MongoDB.
@@ -51,6 +64,15 @@ public class MongoDBPaginationServiceImpl implements MongoDBPaginationService {
 	@Autowired
 	private PaginationResponse paginationResponse;
 
+	@Autowired
+	private StreamingPaginationResponse streamingPaginationResponse;
+
+	@Autowired
+	private PageCounter pageCounter;
+
+	@Autowired
+	private PagePrefetcher pagePrefetcher;
+
 	@Autowired
 	private ListableBeanFactory listableBeanFactory;
 
@@ -79,14 +101,86 @@ public class MongoDBPaginationServiceImpl implements MongoDBPaginationService {
 		return gson.toJson(paginationResponse.generateResponseAttributes(parameters, paginatedResult));
 	}
 
+	@Override
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public void writeEmptyPaginatedResultAsJson(QueryParameters parameters, Writer writer) {
+		streamingPaginationResponse.writeResponse(parameters, new PageImpl(Lists.newArrayList()), writer);
+	}
+
+	@Override
+	public <T> void writePaginatedResultAsJson(QueryParameters parameters, Writer writer, Class<T> entityClass) {
+		streamingPaginationResponse.writeResponse(parameters, getPaginatedResult(parameters, entityClass), writer);
+	}
+
+	@Override
+	public <T> void writePaginatedResultAsJson(QueryParameters parameters, Writer writer, MongoQueryPredicate<T> queryPredicate) {
+		streamingPaginationResponse.writeResponse(parameters, getPaginatedResult(parameters, queryPredicate), writer);
+	}
+
 	@Override
 	public <T> Page<T> getPaginatedResult(QueryParameters parameters, Class<T> entityClass) {
-		return getRepository(entityClass).findAll(pageableFactory.getPageable(parameters));
+		return getPaginatedResult(parameters, new MongoQueryPredicate<T>(entityClass) {
+			@Override
+			public Query queryPredicate() {
+				return new Query();
+			}
+		});
 	}
 
 	@Override
 	public <T> Page<T> getPaginatedResult(QueryParameters parameters, MongoQueryPredicate<T> queryPredicate) {
-		return getRepository(queryPredicate.getEntityClass()).findAll(queryPredicate, pageableFactory.getPageable(parameters));
+		Class<T> entityClass = queryPredicate.getEntityClass();
+		String fingerprint = String.valueOf(queryPredicate.queryPredicate().getQueryObject());
+		Page<T> page = pagePrefetcher.get(PageKey.of(entityClass, parameters, fingerprint), pageLoader(parameters, queryPredicate));
+		Optional<QueryParameters> following = NextPageParameters.following(parameters, page);
+		if (pagePrefetcher.isEnabled() && following.isPresent()) {
+			QueryParameters nextParameters = following.get();
+			pagePrefetcher.prefetch(PageKey.of(entityClass, nextParameters, fingerprint), pageLoader(nextParameters, queryPredicate));
+		}
+		return page;
+	}
+
+	/**
+	 * Resolves the pageable and the projection right away, on the thread of
+	 * the request, so that loading the page later never reads the parameters.
+	 */
+	private <T> Callable<Page<T>> pageLoader(QueryParameters parameters, MongoQueryPredicate<T> queryPredicate) {
+		final Pageable pageable = pageableFactory.getPageable(parameters);
+		Optional<ColumnProjection> projection = ColumnProjection.of(parameters, queryPredicate.getEntityClass());
+		final MongoQueryPredicate<T> predicate = (projection.isPresent())
+			? includeOnly(queryPredicate, projection.get().getRootProperties(sortProperties(pageable)))
+			: queryPredicate;
+		final MongoPaginationRepository<T, Serializable> repository = getRepository(queryPredicate.getEntityClass());
+		return new Callable<Page<T>>() {
+			@Override
+			public Page<T> call() {
+				return repository.findAll(predicate, pageable, pageCounter);
+			}
+		};
+	}
+
+	private static <T> MongoQueryPredicate<T> includeOnly(final MongoQueryPredicate<T> queryPredicate, final Set<String> properties) {
+		return new MongoQueryPredicate<T>(queryPredicate.getEntityClass()) {
+			@Override
+			public Query queryPredicate() {
+				Query query = queryPredicate.queryPredicate();
+				for (String property : properties) {
+					query.fields().include(property);
+				}
+				return query;
+			}
+		};
+	}
+
+	private static String[] sortProperties(Pageable pageable) {
+		if (pageable.getSort() == null) {
+			return new String[0];
+		}
+		List<String> sortProperties = Lists.newArrayList();
+		for (Sort.Order order : pageable.getSort()) {
+			sortProperties.add(order.getProperty());
+		}
+		return sortProperties.toArray(new String[sortProperties.size()]);
 	}
 
 	@SuppressWarnings({"unchecked", "rawtypes"})
@@ -0,0 +1,120 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.services;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import it.f2informatica.pagination.keyset.ContinuationToken;
+import it.f2informatica.pagination.keyset.KeysetPage;
+import org.springframework.data.domain.Page;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The parameters the client sends to get the page following the one just
+ * served: the next offset, or the continuation token of the keyset page.
+ * Every value is copied up front, the page is loaded on another thread.
+ */
+class NextPageParameters extends QueryParameters {
+
+	private final String searchCriteria;
+	private final int displayStart;
+	private final int displayLength;
+	private final List<String> columnNames;
+	private final int sortColumnIndex;
+	private final String sortDirection;
+	private final String echo;
+	private final String continuationToken;
+
+	private NextPageParameters(QueryParameters parameters, int displayStart, String continuationToken) {
+		List<String> columnNames = Lists.newArrayList();
+		for (int columnIndex = 0; columnIndex < parameters.getColumnsNumber(); columnIndex++) {
+			columnNames.add(parameters.getColumnName(columnIndex));
+		}
+		this.searchCriteria = parameters.getSearchCriteria();
+		this.displayStart = displayStart;
+		this.displayLength = parameters.getDisplayLength();
+		this.columnNames = Collections.unmodifiableList(columnNames);
+		this.sortColumnIndex = parameters.getSortColumnIndex();
+		this.sortDirection = parameters.getSortDirection();
+		this.echo = parameters.getEcho();
+		this.continuationToken = continuationToken;
+	}
+
+	static Optional<QueryParameters> following(QueryParameters parameters, Page<?> page) {
+		if (!page.hasNext()) {
+			return Optional.absent();
+		}
+		String continuationToken = parameters.getContinuationToken();
+		if (page instanceof KeysetPage) {
+			Optional<ContinuationToken> token = ((KeysetPage<?>) page).getNextContinuationToken();
+			continuationToken = token.isPresent() ? token.get().encode() : "";
+		}
+		int displayStart = parameters.getDisplayStart() + parameters.getDisplayLength();
+		return Optional.<QueryParameters>of(new NextPageParameters(parameters, displayStart, continuationToken));
+	}
+
+	@Override
+	public String getContinuationToken() {
+		return continuationToken;
+	}
+
+	@Override
+	public String getSearchCriteria() {
+		return searchCriteria;
+	}
+
+	@Override
+	public int getDisplayStart() {
+		return displayStart;
+	}
+
+	@Override
+	public int getDisplayLength() {
+		return displayLength;
+	}
+
+	@Override
+	public String getColumnName(int columnIndex) {
+		return (columnIndex >= 0 && columnIndex < columnNames.size()) ? columnNames.get(columnIndex) : null;
+	}
+
+	@Override
+	public int getSortColumnIndex() {
+		return sortColumnIndex;
+	}
+
+	@Override
+	public int getColumnsNumber() {
+		return columnNames.size();
+	}
+
+	@Override
+	public String getSortDirection() {
+		return sortDirection;
+	}
+
+	@Override
+	public String getEcho() {
+		return echo;
+	}
+
+}
@@ -21,6 +21,8 @@ package it.f2informatica.pagination.services;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.Lists;
+import it.f2informatica.pagination.keyset.ContinuationToken;
+import it.f2informatica.pagination.keyset.KeysetPageable;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -36,10 +38,34 @@ public class PageableFactoryImpl implements PageableFactory {
 	@Override
 	public Pageable getPageable(QueryParameters parameters) {
 		int page = parameters.getPage(), size = parameters.getSize();
+		if (parameters.isKeysetPaginationRequested()) {
+			Optional<KeysetPageable> keysetPageable = getKeysetPageable(parameters);
+			if (keysetPageable.isPresent()) {
+				return keysetPageable.get();
+			}
+		}
 		Optional<Sort> sort = getSort(parameters);
 		return sort.isPresent() ? new PageRequest(page, size, sort.get()) : new PageRequest(page, size);
 	}
 
+	private Optional<KeysetPageable> getKeysetPageable(QueryParameters parameters) {
+		final String sortColumn = parameters.getSortColumn();
+		final String sortDirection = parameters.getSortDirection();
+		String sortProperty = KeysetPageable.ID_PROPERTY;
+		Sort.Direction direction = Sort.Direction.ASC;
+		if (StringUtils.hasText(sortColumn) && StringUtils.hasText(sortDirection)) {
+			sortProperty = suppressUniquePrefixIfAny(sortColumn);
+			direction = getDirection(sortDirection);
+		}
+		if (!KeysetPageable.isUsableKey(sortProperty)) {
+			return Optional.absent();
+		}
+		Optional<ContinuationToken> token = ContinuationToken.decode(parameters.getContinuationToken());
+		ContinuationToken applicableToken = (token.isPresent()
+			&& token.get().isApplicableTo(parameters.getDisplayStart(), sortProperty, direction)) ? token.get() : null;
+		return Optional.of(new KeysetPageable(parameters.getPage(), parameters.getSize(), direction, sortProperty, applicableToken));
+	}
+
 	@Override
 	public Optional<Sort> getSort(QueryParameters parameters) {
 		final String sortColumn = parameters.getSortColumn();
@@ -21,11 +21,15 @@ package it.f2informatica.pagination.services;
 
 import com.mysema.query.Tuple;
 import com.mysema.query.jpa.impl.JPAQuery;
+import com.mysema.query.types.EntityPath;
 import com.mysema.query.types.Expression;
 import com.mysema.query.types.Predicate;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.io.Writer;
+
 /**
  * Executes queries and perform pagination.
  *
@@ -43,10 +47,34 @@ public interface PaginationService {
 
 	<T> String getPaginatedResultAsJson(QueryParameters parameters, Specification<T> specification, Class<T> entityClass);
 
+	void writeEmptyPaginatedResultAsJson(QueryParameters parameters, Writer writer);
+
+	<T> void writePaginatedResultAsJson(QueryParameters parameters, Writer writer, Class<T> entityClass);
+
+	void writePaginatedResultAsJson(QueryParameters parameters, Writer writer, JPAQuery jpaQuery, Expression<?>... args);
+
+	<T> void writePaginatedResultAsJson(QueryParameters parameters, Writer writer, Predicate predicate, Class<T> entityClass);
+
+	<T> void writePaginatedResultAsJson(QueryParameters parameters, Writer writer, Specification<T> specification, Class<T> entityClass);
+
 	<T> Page<T> getPaginatedResult(QueryParameters parameters, Class<T> entityClass);
 
 	Page<Tuple> getPaginatedResult(QueryParameters parameters, JPAQuery jpaQuery, Expression<?>... args);
 
+	/**
+	 * Paginates the given query, sorted as requested by the {@link Pageable},
+	 * counting its rows according to the configured
+	 * {@link it.f2informatica.pagination.count.CountStrategy}.
+	 */
+	<T> Page<T> getPaginatedResult(Pageable pageable, JPAQuery jpaQuery, EntityPath<T> entityPath);
+
+	/**
+	 * Paginates the given query as above, selecting the projection given
+	 * rather than the entity, the {@link Pageable} still sorting by the
+	 * properties of the entity.
+	 */
+	<T> Page<T> getPaginatedResult(Pageable pageable, JPAQuery jpaQuery, EntityPath<?> entityPath, Expression<T> projection);
+
 	<T> Page<T> getPaginatedResult(QueryParameters parameters, Predicate predicate, Class<T> entityClass);
 
 	<T> Page<T> getPaginatedResult(QueryParameters parameters, Specification<T> specification, Class<T> entityClass);
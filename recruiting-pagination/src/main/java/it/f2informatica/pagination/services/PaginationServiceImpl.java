@@ -27,23 +27,45 @@ import com.mysema.query.jpa.impl.JPAQuery;
 import com.mysema.query.types.Expression;
 import com.mysema.query.types.Order;
 import com.mysema.query.types.OrderSpecifier;
+import com.mysema.query.types.EntityPath;
+import com.mysema.query.types.Path;
 import com.mysema.query.types.Predicate;
+import com.mysema.query.types.expr.ComparableExpression;
 import com.mysema.query.types.path.EntityPathBase;
+import com.mysema.query.types.path.PathBuilder;
+import it.f2informatica.pagination.cache.PageKey;
+import it.f2informatica.pagination.cache.PagePrefetcher;
+import it.f2informatica.pagination.count.CountQuery;
+import it.f2informatica.pagination.count.CountStrategies;
+import it.f2informatica.pagination.count.CountedPage;
+import it.f2informatica.pagination.count.PageCounter;
+import it.f2informatica.pagination.count.TableStatistics;
+import it.f2informatica.pagination.keyset.ContinuationToken;
+import it.f2informatica.pagination.keyset.KeysetPage;
+import it.f2informatica.pagination.keyset.KeysetPageable;
+import it.f2informatica.pagination.keyset.SeekPredicates;
+import it.f2informatica.pagination.projection.ProjectedRow;
 import it.f2informatica.pagination.repository.PaginationRepository;
 import it.f2informatica.pagination.response.PaginationResponse;
+import it.f2informatica.pagination.response.StreamingPaginationResponse;
 import org.springframework.beans.factory.ListableBeanFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.repository.support.Repositories;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
 import javax.annotation.PostConstruct;
 import java.io.Serializable;
+import java.io.Writer;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
  * Executes queries and perform pagination.
@@ -63,14 +85,36 @@ public class PaginationServiceImpl implements PaginationService {
 	@Autowired
 	private PaginationResponse paginationResponse;
 
+	@Autowired
+	private StreamingPaginationResponse streamingPaginationResponse;
+
+	@Autowired
+	private PageCounter pageCounter;
+
+	@Autowired
+	private PagePrefetcher pagePrefetcher;
+
+	@Autowired(required = false)
+	private TableStatistics tableStatistics;
+
+	@Autowired(required = false)
+	private PlatformTransactionManager transactionManager;
+
 	@Autowired
 	private ListableBeanFactory listableBeanFactory;
 
 	private Repositories repositories;
 
+	private Optional<TransactionTemplate> countTransaction = Optional.absent();
+
 	@PostConstruct
 	public void init() {
 		this.repositories = new Repositories(listableBeanFactory);
+		if (transactionManager != null) {
+			TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+			transactionTemplate.setReadOnly(true);
+			this.countTransaction = Optional.of(transactionTemplate);
+		}
 	}
 
 	@Override
@@ -103,6 +147,32 @@ public class PaginationServiceImpl implements PaginationService {
 		return gson.toJson(paginationResponse.generateResponseAttributes(parameters, paginatedQueryResult));
 	}
 
+	@Override
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public void writeEmptyPaginatedResultAsJson(QueryParameters parameters, Writer writer) {
+		streamingPaginationResponse.writeResponse(parameters, new PageImpl(Lists.newArrayList()), writer);
+	}
+
+	@Override
+	public <T> void writePaginatedResultAsJson(QueryParameters parameters, Writer writer, Class<T> entityClass) {
+		streamingPaginationResponse.writeResponse(parameters, getPaginatedResult(parameters, entityClass), writer);
+	}
+
+	@Override
+	public void writePaginatedResultAsJson(QueryParameters parameters, Writer writer, JPAQuery jpaQuery, Expression<?>... args) {
+		streamingPaginationResponse.writeResponse(parameters, getPaginatedResult(parameters, jpaQuery, args), writer);
+	}
+
+	@Override
+	public <T> void writePaginatedResultAsJson(QueryParameters parameters, Writer writer, Predicate predicate, Class<T> entityClass) {
+		streamingPaginationResponse.writeResponse(parameters, getPaginatedResult(parameters, predicate, entityClass), writer);
+	}
+
+	@Override
+	public <T> void writePaginatedResultAsJson(QueryParameters parameters, Writer writer, Specification<T> specification, Class<T> entityClass) {
+		streamingPaginationResponse.writeResponse(parameters, getPaginatedResult(parameters, specification, entityClass), writer);
+	}
+
 	@Override
 	public <T> Page<T> getPaginatedResult(QueryParameters parameters, Class<T> entityClass) {
 		return getRepository(entityClass).findAll(pageableFactory.getPageable(parameters));
@@ -110,12 +180,129 @@ public class PaginationServiceImpl implements PaginationService {
 
 	@Override
 	public Page<Tuple> getPaginatedResult(QueryParameters parameters, JPAQuery jpaQuery, Expression<?>... args) {
-		Optional<OrderSpecifier> orderSpecifier = getOrderSpecifier(parameters, args);
-		if (orderSpecifier.isPresent()) {
-			jpaQuery.orderBy(orderSpecifier.get());
+		PageLoader pageLoader = pageLoader(parameters, jpaQuery, args);
+		if (!pageLoader.projection.isPresent()) {
+			// whole entities are attached to the current persistence context, they cannot be shared
+			return pageLoader.load();
+		}
+		String fingerprint = JpaCountQuery.fingerprintOf(jpaQuery.getMetadata());
+		Optional<JPAQuery> nextPageQuery = pagePrefetcher.isEnabled() ? Optional.of(jpaQuery.clone()) : Optional.<JPAQuery>absent();
+		Page<Tuple> page = pagePrefetcher.get(PageKey.of(args[0].getType(), parameters, fingerprint), pageLoader);
+		if (nextPageQuery.isPresent()) {
+			prefetchFollowingPage(parameters, page, nextPageQuery.get(), fingerprint, args);
+		}
+		return page;
+	}
+
+	private void prefetchFollowingPage(QueryParameters parameters, Page<Tuple> page, JPAQuery jpaQuery,
+	                                   String fingerprint, Expression<?>... args) {
+		Optional<QueryParameters> following = NextPageParameters.following(parameters, page);
+		if (following.isPresent()) {
+			QueryParameters nextParameters = following.get();
+			pagePrefetcher.prefetch(PageKey.of(args[0].getType(), nextParameters, fingerprint), pageLoader(nextParameters, jpaQuery, args));
+		}
+	}
+
+	/**
+	 * Resolves the pageable, the projection and the ordering right away, on the
+	 * thread of the request, so that loading the page later never reads the parameters.
+	 */
+	private PageLoader pageLoader(QueryParameters parameters, JPAQuery jpaQuery, Expression<?>... args) {
+		Pageable pageable = pageableFactory.getPageable(parameters);
+		return new PageLoader(pageable, parameters.getDisplayStart(), getOrderSpecifier(parameters, args),
+			TupleProjection.of(parameters, pageable, args), jpaQuery, args);
+	}
+
+	private class PageLoader implements Callable<Page<Tuple>> {
+		private final Pageable pageable;
+		private final int offset;
+		private final Optional<OrderSpecifier> orderSpecifier;
+		private final Optional<TupleProjection> projection;
+		private final JPAQuery jpaQuery;
+		private final Expression<?>[] args;
+
+		PageLoader(Pageable pageable, int offset, Optional<OrderSpecifier> orderSpecifier,
+		           Optional<TupleProjection> projection, JPAQuery jpaQuery, Expression<?>... args) {
+			this.pageable = pageable;
+			this.offset = offset;
+			this.orderSpecifier = orderSpecifier;
+			this.projection = projection;
+			this.jpaQuery = jpaQuery;
+			this.args = args;
+		}
+
+		@Override
+		public Page<Tuple> call() {
+			return load();
+		}
+
+		Page<Tuple> load() {
+			PageCounter.PendingTotal total = pageCounter.start(countQueryOf(jpaQuery), pageable);
+			if (pageable instanceof KeysetPageable && args[0] instanceof Path) {
+				return getKeysetPaginatedResult((KeysetPageable) pageable, jpaQuery, total, projection, args);
+			}
+			if (orderSpecifier.isPresent()) {
+				jpaQuery.orderBy(orderSpecifier.get());
+			}
+			jpaQuery.offset(offset).limit(pageCounter.getFetchSize(pageable));
+			List<Tuple> fetchedRows = select(jpaQuery, projection, args);
+			return new CountedPage<>(CountStrategies.pageContent(fetchedRows, pageable), pageable, total.join(fetchedRows.size()));
 		}
-		List<Tuple> result = jpaQuery.offset(parameters.getDisplayStart()).limit(parameters.getSize()).list(args);
-		return new PageImpl<>(result, pageableFactory.getPageable(parameters), jpaQuery.count());
+	}
+
+	@Override
+	public <T> Page<T> getPaginatedResult(Pageable pageable, JPAQuery jpaQuery, EntityPath<T> entityPath) {
+		return getPaginatedResult(pageable, jpaQuery, entityPath, entityPath);
+	}
+
+	@Override
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public <T> Page<T> getPaginatedResult(Pageable pageable, JPAQuery jpaQuery, EntityPath<?> entityPath, Expression<T> projection) {
+		PageCounter.PendingTotal total = pageCounter.start(countQueryOf(jpaQuery), pageable);
+		if (pageable.getSort() != null) {
+			PathBuilder<?> root = new PathBuilder(entityPath.getType(), entityPath.getMetadata());
+			for (Sort.Order order : pageable.getSort()) {
+				Order direction = order.isAscending() ? Order.ASC : Order.DESC;
+				jpaQuery.orderBy(new OrderSpecifier(direction, root.getComparable(order.getProperty(), Comparable.class)));
+			}
+		}
+		List<T> fetchedRows = jpaQuery.offset(pageable.getOffset()).limit(pageCounter.getFetchSize(pageable)).list(projection);
+		return new CountedPage<>(CountStrategies.pageContent(fetchedRows, pageable), pageable, total.join(fetchedRows.size()));
+	}
+
+	private CountQuery countQueryOf(JPAQuery jpaQuery) {
+		return new JpaCountQuery(jpaQuery.clone(), Optional.fromNullable(tableStatistics), countTransaction);
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private Page<Tuple> getKeysetPaginatedResult(KeysetPageable pageable, JPAQuery jpaQuery, PageCounter.PendingTotal total,
+	                                             Optional<TupleProjection> projection, Expression<?>... args) {
+		PathBuilder<?> root = new PathBuilder(args[0].getType(), ((Path<?>) args[0]).getMetadata());
+		ComparableExpression sortKey = root.getComparable(pageable.getSortProperty(), Comparable.class);
+		ComparableExpression id = root.getComparable(KeysetPageable.ID_PROPERTY, Comparable.class);
+		Optional<ContinuationToken> token = pageable.getContinuationToken();
+		if (token.isPresent()) {
+			jpaQuery.where(SeekPredicates.after(token.get(), pageable, sortKey, id));
+		} else {
+			jpaQuery.offset(pageable.getOffset());
+		}
+		Order order = (Sort.Direction.ASC == pageable.getDirection()) ? Order.ASC : Order.DESC;
+		jpaQuery.orderBy(new OrderSpecifier(order, sortKey));
+		if (!pageable.isSortedById()) {
+			jpaQuery.orderBy(new OrderSpecifier(order, id));
+		}
+		List<Tuple> fetchedRows = select(jpaQuery.limit(pageCounter.getFetchSize(pageable)), projection, args);
+		List<Tuple> result = CountStrategies.pageContent(fetchedRows, pageable);
+		Object lastRow = result.isEmpty() ? null : lastRow(result.get(result.size() - 1), args[0]);
+		return new KeysetPage<>(result, pageable, total.join(fetchedRows.size()), ContinuationToken.following(pageable, result.size(), lastRow));
+	}
+
+	private static List<Tuple> select(JPAQuery jpaQuery, Optional<TupleProjection> projection, Expression<?>... args) {
+		return (projection.isPresent()) ? projection.get().list(jpaQuery) : jpaQuery.list(args);
+	}
+
+	private static Object lastRow(Tuple row, Expression<?> entity) {
+		return (row instanceof ProjectedRow) ? row : row.get(entity);
 	}
 
 	@Override
@@ -33,6 +33,18 @@ public abstract class QueryParameters {
 		return getColumnName(getSortColumnIndex());
 	}
 
+	/**
+	 * Keyset pagination is used when the client sends a continuation token,
+	 * even an empty one for the very first page.
+	 */
+	public boolean isKeysetPaginationRequested() {
+		return getContinuationToken() != null;
+	}
+
+	public String getContinuationToken() {
+		return null;
+	}
+
 	public abstract String getSearchCriteria();
 
 	public abstract int getDisplayStart();
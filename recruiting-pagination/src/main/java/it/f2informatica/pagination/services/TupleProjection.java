@@ -0,0 +1,131 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.pagination.services;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.mysema.query.Tuple;
+import com.mysema.query.jpa.impl.JPAQuery;
+import com.mysema.query.types.EntityPath;
+import com.mysema.query.types.Expression;
+import com.mysema.query.types.path.PathBuilder;
+import it.f2informatica.pagination.keyset.KeysetPageable;
+import it.f2informatica.pagination.projection.ColumnProjection;
+import it.f2informatica.pagination.projection.ProjectedRow;
+import org.springframework.data.domain.Pageable;
+
+import java.beans.PropertyDescriptor;
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Selects only the requested DataTables columns of an entity query, joining
+ * (left outer) the associations they go through.
+ */
+class TupleProjection {
+	private static final String ENTITY_ANNOTATION = "javax.persistence.Entity";
+	private static final String JOIN_ALIAS_PREFIX = "projection";
+
+	private final PathBuilder<?> root;
+	private final ColumnProjection projection;
+	private final List<String> keyProperties;
+
+	private TupleProjection(PathBuilder<?> root, ColumnProjection projection, List<String> keyProperties) {
+		this.root = root;
+		this.projection = projection;
+		this.keyProperties = keyProperties;
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	static Optional<TupleProjection> of(QueryParameters parameters, Pageable pageable, Expression<?>... args) {
+		if (args.length != 1 || !(args[0] instanceof EntityPath)) {
+			return Optional.absent();
+		}
+		EntityPath<?> entityPath = (EntityPath<?>) args[0];
+		Optional<ColumnProjection> projection = ColumnProjection.of(parameters, entityPath.getType());
+		if (!projection.isPresent() || !projection.get().isSingleValued()) {
+			return Optional.absent();
+		}
+		List<String> keyProperties = Lists.newArrayList();
+		if (pageable instanceof KeysetPageable) {
+			keyProperties.add(KeysetPageable.ID_PROPERTY);
+			keyProperties.add(((KeysetPageable) pageable).getSortProperty());
+		}
+		PathBuilder<?> root = new PathBuilder(entityPath.getType(), entityPath.getMetadata());
+		return Optional.of(new TupleProjection(root, projection.get(), keyProperties));
+	}
+
+	List<Tuple> list(JPAQuery jpaQuery) {
+		ImmutableList.Builder<String> columns = ImmutableList.builder();
+		ImmutableList.Builder<Expression<?>> expressions = ImmutableList.builder();
+		Map<String, PathBuilder<?>> joinedPaths = Maps.newHashMap();
+		for (int columnIndex = 0; columnIndex < projection.getColumns().size(); columnIndex++) {
+			columns.add(projection.getColumns().get(columnIndex));
+			expressions.add(columnPath(jpaQuery, projection.getPropertyPath(columnIndex), joinedPaths));
+		}
+		for (String keyProperty : keyProperties) {
+			columns.add(keyProperty);
+			expressions.add(root.get(keyProperty));
+		}
+		List<String> columnNames = columns.build();
+		List<Expression<?>> selection = expressions.build();
+		List<Tuple> rows = Lists.newArrayList();
+		for (Tuple tuple : jpaQuery.list(selection.toArray(new Expression<?>[selection.size()]))) {
+			rows.add(new ProjectedRow(columnNames, selection, tuple.toArray()));
+		}
+		return rows;
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private PathBuilder<?> columnPath(JPAQuery jpaQuery, List<PropertyDescriptor> propertyPath, Map<String, PathBuilder<?>> joinedPaths) {
+		PathBuilder<?> current = root;
+		String joinedPathKey = JOIN_ALIAS_PREFIX;
+		for (PropertyDescriptor descriptor : propertyPath.subList(0, propertyPath.size() - 1)) {
+			joinedPathKey += "_" + descriptor.getName();
+			PathBuilder<?> next = joinedPaths.get(joinedPathKey);
+			if (next == null) {
+				Class<?> type = descriptor.getPropertyType();
+				if (isEntity(type)) {
+					next = new PathBuilder(type, joinedPathKey);
+					jpaQuery.leftJoin((EntityPath) current.get(descriptor.getName(), type), next);
+				} else {
+					next = current.get(descriptor.getName(), type);
+				}
+				joinedPaths.put(joinedPathKey, next);
+			}
+			current = next;
+		}
+		PropertyDescriptor property = propertyPath.get(propertyPath.size() - 1);
+		return current.get(property.getName(), property.getPropertyType());
+	}
+
+	private static boolean isEntity(Class<?> type) {
+		for (Annotation annotation : type.getAnnotations()) {
+			if (ENTITY_ANNOTATION.equals(annotation.annotationType().getName())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -20,51 +20,147 @@
 package it.f2informatica.pagination.utils;
 
 import com.google.common.base.Optional;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Maps;
+import org.apache.log4j.Logger;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Reads (nested) properties through their getters, e.g. {@code role_name}
+ * calls {@code getRole().getName()}.
+ * <p>
+ * Every {@code (class, property path)} pair is resolved once into a chain
+ * of method handles, cached per class, so that rendering a page only
+ * pays for the getter invocations.
+ * </p>
+ *
+ * @author Fernando Aspiazu
+ */
 @Component
 public class SafeGetterMethodExecutor {
+	private static final Logger logger = Logger.getLogger(SafeGetterMethodExecutor.class);
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final String SEPARATOR = "_";
+
+	private static final PropertyAccessor MISSING_PROPERTY = new PropertyAccessor() {
+		@Override
+		public Object get(Object target) {
+			return null;
+		}
+	};
+
+	// The method handles reference their class, weak keys would never be cleared:
+	// the classes are the entities (and their proxies), a bounded set anyway.
+	private final LoadingCache<Class<?>, ConcurrentMap<String, PropertyAccessor>> accessorsByClass =
+		CacheBuilder.newBuilder().build(new CacheLoader<Class<?>, ConcurrentMap<String, PropertyAccessor>>() {
+			@Override
+			public ConcurrentMap<String, PropertyAccessor> load(Class<?> type) {
+				return Maps.newConcurrentMap();
+			}
+		});
 
 	public <T> Object invokeGetterOnField(String fieldName, T entity) {
-		try {
-			// -------------------------------------
-			return _invokeGetter(fieldName, entity);
-			// -------------------------------------
-		} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
-			e.printStackTrace();
+		return (entity != null) ? getAccessor(entity.getClass(), fieldName).get(entity) : null;
+	}
+
+	private PropertyAccessor getAccessor(Class<?> type, String propertyPath) {
+		ConcurrentMap<String, PropertyAccessor> accessors = accessorsByClass.getUnchecked(type);
+		PropertyAccessor accessor = accessors.get(propertyPath);
+		if (accessor == null) {
+			accessor = compile(type, propertyPath);
+			PropertyAccessor existing = accessors.putIfAbsent(propertyPath, accessor);
+			accessor = (existing != null) ? existing : accessor;
+		}
+		return accessor;
+	}
+
+	private PropertyAccessor compile(Class<?> type, String propertyPath) {
+		int separatorIndex = propertyPath.indexOf(SEPARATOR);
+		String property = (separatorIndex < 0) ? propertyPath : propertyPath.substring(0, separatorIndex);
+		if (property.isEmpty() || propertyPath.endsWith(SEPARATOR)) {
+			logger.warn("Invalid property name '" + propertyPath + "'");
+			return MISSING_PROPERTY;
 		}
-		return null;
+		Optional<MethodHandle> getter = findGetter(type, property);
+		if (!getter.isPresent()) {
+			logger.warn("No accessible getter for property '" + property + "' on " + type.getName());
+			return MISSING_PROPERTY;
+		}
+		if (separatorIndex < 0) {
+			return new GetterAccessor(getter.get(), null);
+		}
+		// The nested path is resolved against the runtime type of each
+		// intermediate value, which may be a subclass or a proxy of the
+		// type declared by the getter.
+		return new GetterAccessor(getter.get(), new RuntimeTypeAccessor(propertyPath.substring(separatorIndex + 1)));
 	}
 
-	private <T> Object _invokeGetter(String fieldName, T entity) throws NoSuchMethodException, IllegalAccessException, InvocationTargetException {
-		Optional<Object> result = Optional.absent();
-		for (String field : fieldName.split("_")) {
-			if (fieldName.endsWith(".") || 0 == field.length()) {
-				throw new IllegalArgumentException("Invalid property name '" + fieldName + "'");
+	private static Optional<MethodHandle> findGetter(Class<?> type, String property) {
+		try {
+			Method getter = type.getMethod("get" + StringUtils.capitalize(property));
+			if (void.class.equals(getter.getReturnType())) {
+				return Optional.absent();
 			}
+			getter.setAccessible(true);
+			return Optional.of(MethodHandles.lookup().unreflect(getter).asType(GETTER_TYPE));
+		} catch (NoSuchMethodException | IllegalAccessException | RuntimeException e) {
+			return Optional.absent();
+		}
+	}
+
+	private interface PropertyAccessor {
+
+		Object get(Object target);
+
+	}
+
+	private static class GetterAccessor implements PropertyAccessor {
+		private final MethodHandle getter;
+		private final PropertyAccessor next;
+
+		private GetterAccessor(MethodHandle getter, PropertyAccessor next) {
+			this.getter = getter;
+			this.next = next;
+		}
 
-			Method getter = entity.getClass().getMethod("get" + StringUtils.capitalize(field));
-			result = Optional.fromNullable(getter.invoke(entity));
-
-			if (!result.isPresent()) {
-				break;
-			} else if (!field.equals(fieldName)) {
-				// If the current field is not equals to the nested
-				// field properties, then it will call itself until
-				// reach the last property (via Recursive Call).
-				// On the other hand, fieldName.substring(field.length() + 1)
-				// means that I'm passing the entire nested field path
-				// to the next recursive call, except the current property
-				// evaluated considering also the 'dot'.
-				// For example, if we have "someProperty." (will be excluded)
-				return _invokeGetter(fieldName.substring(field.length() + 1), result.get());
+		@Override
+		public Object get(Object target) {
+			Object value = invoke(target);
+			return (value == null || next == null) ? value : next.get(value);
+		}
+
+		private Object invoke(Object target) {
+			try {
+				return (Object) getter.invokeExact(target);
+			} catch (Error e) {
+				throw e;
+			} catch (Throwable e) {
+				logger.warn("Getter " + getter + " failed on " + target.getClass().getName(), e);
+				return null;
 			}
 		}
-		return result.orNull(); // Holds the final result from the last getter method
+	}
+
+	private class RuntimeTypeAccessor implements PropertyAccessor {
+		private final String propertyPath;
+
+		private RuntimeTypeAccessor(String propertyPath) {
+			this.propertyPath = propertyPath;
+		}
+
+		@Override
+		public Object get(Object target) {
+			return getAccessor(target.getClass(), propertyPath).get(target);
+		}
 	}
 
 }
@@ -0,0 +1,98 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.test.pagination.count;
+
+import com.google.common.base.Optional;
+import it.f2informatica.pagination.count.CountQuery;
+import it.f2informatica.pagination.count.ExactCountStrategy;
+import it.f2informatica.pagination.count.PageCounter;
+import it.f2informatica.pagination.count.PageTotal;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class PageCounterTest {
+
+	@Test
+	public void aCompletedCountIsExact() {
+		PageCounter pageCounter = PageCounter.concurrent(new ExactCountStrategy(), 1, 1, 5000);
+		try {
+			PageTotal total = pageCounter.start(new FixedCountQuery(42, new CountDownLatch(0)), new PageRequest(0, 10)).join(10);
+			assertThat(total.getCount()).isEqualTo(42L);
+			assertThat(total.isExact()).isTrue();
+		} finally {
+			pageCounter.destroy();
+		}
+	}
+
+	@Test
+	public void aTimedOutCountIsNotExact() {
+		PageCounter pageCounter = PageCounter.concurrent(new ExactCountStrategy(), 1, 1, 10);
+		CountDownLatch countReleased = new CountDownLatch(1);
+		try {
+			PageTotal total = pageCounter.start(new FixedCountQuery(42, countReleased), new PageRequest(0, 10)).join(10);
+			assertThat(total.getCount()).isEqualTo(11L);
+			assertThat(total.isExact()).isFalse();
+		} finally {
+			countReleased.countDown();
+			pageCounter.destroy();
+		}
+	}
+
+	private static class FixedCountQuery extends CountQuery {
+		private final long count;
+		private final CountDownLatch released;
+
+		private FixedCountQuery(long count, CountDownLatch released) {
+			this.count = count;
+			this.released = released;
+		}
+
+		@Override
+		public String getFingerprint() {
+			return "fixed";
+		}
+
+		@Override
+		public boolean isFiltered() {
+			return false;
+		}
+
+		@Override
+		public long exactCount() {
+			try {
+				released.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return count;
+		}
+
+		@Override
+		public Optional<Long> estimatedCount() {
+			return Optional.absent();
+		}
+
+	}
+
+}
@@ -0,0 +1,119 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.test.pagination.keyset;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.BaseEncoding;
+import it.f2informatica.pagination.keyset.ContinuationToken;
+import it.f2informatica.pagination.keyset.KeysetPageable;
+import org.junit.Test;
+import org.springframework.data.domain.Sort;
+
+import java.util.Date;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ContinuationTokenTest {
+
+	@Test
+	public void theTokenSurvivesTheRoundTrip() {
+		Date registrationDate = new Date(1400000000000L);
+		ContinuationToken token = tokenAfter(new KeysetPageable(0, 10, Sort.Direction.DESC, "registrationDate", null),
+			new Row(7L, "Rossi", registrationDate));
+
+		ContinuationToken decoded = ContinuationToken.decode(token.encode()).get();
+		assertThat(decoded.getProperty()).isEqualTo("registrationDate");
+		assertThat(decoded.getDirection()).isEqualTo(Sort.Direction.DESC);
+		assertThat(decoded.getLastValue()).isEqualTo(registrationDate);
+		assertThat(decoded.getLastId()).isEqualTo(7L);
+		assertThat(decoded.isApplicableTo(10, "registrationDate", Sort.Direction.DESC)).isTrue();
+	}
+
+	@Test
+	public void theTypeOfTheKeysIsKept() {
+		ContinuationToken token = tokenAfter(new KeysetPageable(0, 10, Sort.Direction.ASC, "lastName", null), new Row(7L, "Rossi", null));
+
+		ContinuationToken decoded = ContinuationToken.decode(token.encode()).get();
+		assertThat(decoded.getLastValue()).isEqualTo("Rossi");
+		assertThat(decoded.getLastId()).isInstanceOf(Long.class);
+	}
+
+	@Test
+	public void aMalformedTokenIsIgnored() {
+		assertThat(ContinuationToken.decode(null).isPresent()).isFalse();
+		assertThat(ContinuationToken.decode("").isPresent()).isFalse();
+		assertThat(ContinuationToken.decode("not a token!").isPresent()).isFalse();
+		assertThat(ContinuationToken.decode(encoded("10\u001FlastName\u001FASC\u001FsRossi")).isPresent()).isFalse();
+		assertThat(ContinuationToken.decode(encoded("ten\u001FlastName\u001FASC\u001FsRossi\u001Fl7")).isPresent()).isFalse();
+		assertThat(ContinuationToken.decode(encoded("10\u001FlastName\u001FUP\u001FsRossi\u001Fl7")).isPresent()).isFalse();
+		assertThat(ContinuationToken.decode(encoded("10\u001FlastName\u001FASC\u001FxRossi\u001Fl7")).isPresent()).isFalse();
+		assertThat(ContinuationToken.decode(encoded("10\u001FlastName\u001FASC\u001FsRossi\u001Flseven")).isPresent()).isFalse();
+	}
+
+	@Test
+	public void theTokenAppliesOnlyToTheFollowingPageWithTheSameSort() {
+		ContinuationToken token = tokenAfter(new KeysetPageable(0, 10, Sort.Direction.ASC, "lastName", null), new Row(7L, "Rossi", null));
+
+		assertThat(token.isApplicableTo(10, "lastName", Sort.Direction.ASC)).isTrue();
+		assertThat(token.isApplicableTo(20, "lastName", Sort.Direction.ASC)).isFalse();
+		assertThat(token.isApplicableTo(10, "firstName", Sort.Direction.ASC)).isFalse();
+		assertThat(token.isApplicableTo(10, "lastName", Sort.Direction.DESC)).isFalse();
+	}
+
+	@Test
+	public void noTokenFollowsAnEmptyPageOrAnUnsupportedKey() {
+		KeysetPageable pageable = new KeysetPageable(0, 10, Sort.Direction.ASC, "lastName", null);
+		assertThat(ContinuationToken.following(pageable, 0, null).isPresent()).isFalse();
+		assertThat(ContinuationToken.following(pageable, 1, new Row(7L, null, null)).isPresent()).isFalse();
+	}
+
+	private static ContinuationToken tokenAfter(KeysetPageable pageable, Row lastRow) {
+		return ContinuationToken.following(pageable, pageable.getPageSize(), lastRow).get();
+	}
+
+	private static String encoded(String plain) {
+		return BaseEncoding.base64Url().omitPadding().encode(plain.getBytes(Charsets.UTF_8));
+	}
+
+	public static class Row {
+		private final Long id;
+		private final String lastName;
+		private final Date registrationDate;
+
+		public Row(Long id, String lastName, Date registrationDate) {
+			this.id = id;
+			this.lastName = lastName;
+			this.registrationDate = registrationDate;
+		}
+
+		public Long getId() {
+			return id;
+		}
+
+		public String getLastName() {
+			return lastName;
+		}
+
+		public Date getRegistrationDate() {
+			return registrationDate;
+		}
+	}
+
+}
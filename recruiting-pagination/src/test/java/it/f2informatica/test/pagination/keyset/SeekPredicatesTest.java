@@ -0,0 +1,68 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2014, Fernando Aspiazu
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package it.f2informatica.test.pagination.keyset;
+
+import com.mysema.query.types.expr.ComparableExpression;
+import com.mysema.query.types.path.PathBuilder;
+import it.f2informatica.pagination.keyset.ContinuationToken;
+import it.f2informatica.pagination.keyset.KeysetPageable;
+import it.f2informatica.pagination.keyset.SeekPredicates;
+import it.f2informatica.test.pagination.keyset.ContinuationTokenTest.Row;
+import org.junit.Test;
+import org.springframework.data.domain.Sort;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class SeekPredicatesTest {
+	private final PathBuilder<Row> row = new PathBuilder<>(Row.class, "row");
+	private final ComparableExpression<Comparable> lastName = row.getComparable("lastName", Comparable.class);
+	private final ComparableExpression<Comparable> id = row.getComparable("id", Comparable.class);
+
+	@Test
+	public void theRowsWithTheSameSortKeyFollowByTheirId() {
+		KeysetPageable pageable = nextPage(Sort.Direction.ASC, "lastName", new Row(7L, "Rossi", null));
+
+		assertThat(SeekPredicates.after(pageable.getContinuationToken().get(), pageable, lastName, id).toString())
+			.isEqualTo("row.lastName > Rossi || row.lastName = Rossi && row.id > 7");
+	}
+
+	@Test
+	public void aDescendingPageSeeksBackwards() {
+		KeysetPageable pageable = nextPage(Sort.Direction.DESC, "lastName", new Row(7L, "Rossi", null));
+
+		assertThat(SeekPredicates.after(pageable.getContinuationToken().get(), pageable, lastName, id).toString())
+			.isEqualTo("row.lastName < Rossi || row.lastName = Rossi && row.id < 7");
+	}
+
+	@Test
+	public void aPageSortedByIdSeeksOnTheIdOnly() {
+		KeysetPageable pageable = nextPage(Sort.Direction.ASC, "id", new Row(7L, "Rossi", null));
+
+		assertThat(SeekPredicates.after(pageable.getContinuationToken().get(), pageable, id, id).toString())
+			.isEqualTo("row.id > 7");
+	}
+
+	private static KeysetPageable nextPage(Sort.Direction direction, String sortProperty, Row lastRow) {
+		KeysetPageable firstPage = new KeysetPageable(0, 10, direction, sortProperty, null);
+		ContinuationToken token = ContinuationToken.following(firstPage, 10, lastRow).get();
+		return new KeysetPageable(1, 10, direction, sortProperty, token);
+	}
+
+}
@@ -34,6 +34,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 		http.authorizeRequests()
 			.antMatchers(HttpMethod.GET, "/login*").permitAll()
 			.antMatchers(HttpMethod.GET, "/static/**").access("isAnonymous() or isAuthenticated()")
+			.antMatchers("/consultant/import").hasRole("ADMIN")
 			.antMatchers(HttpMethod.GET, "/**").authenticated();
 
 		http.formLogin()
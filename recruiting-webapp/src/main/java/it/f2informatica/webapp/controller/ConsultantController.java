@@ -20,29 +20,45 @@
 package it.f2informatica.webapp.controller;
 
 import com.google.common.base.Optional;
+import com.google.common.base.Charsets;
 import com.google.common.collect.Iterables;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
 import com.google.gson.Gson;
+import it.f2informatica.core.imports.ConsultantRecordReader;
+import it.f2informatica.core.imports.CsvConsultantRecordReader;
+import it.f2informatica.core.imports.ImportCheckpoint;
+import it.f2informatica.core.imports.ImportReport;
+import it.f2informatica.core.imports.JsonConsultantRecordReader;
 import it.f2informatica.core.model.ConsultantModel;
 import it.f2informatica.core.model.EducationModel;
 import it.f2informatica.core.model.ExperienceModel;
 import it.f2informatica.core.model.LanguageModel;
 import it.f2informatica.core.model.query.ConsultantSearchCriteria;
+import it.f2informatica.core.services.ConsultantImportService;
 import it.f2informatica.core.services.ConsultantService;
 import it.f2informatica.core.validator.ConsultantEducationValidator;
 import it.f2informatica.core.validator.ConsultantExperienceValidator;
 import it.f2informatica.core.validator.ConsultantPersonalDetailsValidator;
 import it.f2informatica.core.validator.utils.ValidationResponse;
 import it.f2informatica.core.validator.utils.ValidationResponseHandler;
+import it.f2informatica.webapp.security.SecurityAccessor;
 import it.f2informatica.webapp.utils.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -54,6 +70,8 @@ import static org.springframework.web.bind.annotation.RequestMethod.*;
 @RequestMapping("/consultant")
 @SessionAttributes({"consultantId"})
 public class ConsultantController {
+	private static final String PERSONAL_DETAILS_SNAPSHOT = "personalDetailsSnapshot";
+	private static final String EDUCATION_SNAPSHOT = "educationSnapshot";
 
 	@Autowired
 	private Gson gson;
@@ -67,9 +85,15 @@ public class ConsultantController {
 	@Autowired
 	private HttpRequest httpRequest;
 
+	@Autowired
+	private SecurityAccessor securityAccessor;
+
 	@Autowired
 	private ConsultantService consultantService;
 
+	@Autowired
+	private ConsultantImportService consultantImportService;
+
 	@Autowired
 	private ConsultantEducationValidator educationValidator;
 
@@ -92,7 +116,8 @@ public class ConsultantController {
 	                                Pageable pageable, ModelMap model) {
 
 		Pageable pageRequest = new PageRequest(pageable.getPageNumber(), 5, Sort.Direction.DESC, "registrationDate");
-		model.addAttribute("page", consultantService.paginateConsultants(searchCriteria, pageRequest));
+		model.addAttribute("page", consultantService.paginateConsultantSummaries(searchCriteria, pageRequest));
+		model.addAttribute("facets", consultantService.countFacets(searchCriteria));
 		model.addAttribute("searchCriteria", new ConsultantSearchCriteria());
 		return "consultant/consultants";
 	}
@@ -110,6 +135,7 @@ public class ConsultantController {
 			model.addAttribute("edit", true);
 			model.addAttribute("consultantId", consultantId);
 			model.addAttribute("consultantModel", consultant.get());
+			httpRequest.setSessionAttribute(PERSONAL_DETAILS_SNAPSHOT, consultant.get());
 			return "consultant/consultantForm";
 		}
 		return pageNotFound();
@@ -117,7 +143,11 @@ public class ConsultantController {
 
 	@RequestMapping(value = "/update-personal-details", method = POST)
 	public String updatePersonalDetails(@ModelAttribute("consultantModel") ConsultantModel consultantModel) {
-		consultantService.updatePersonalDetails(consultantModel, consultantModel.getId());
+		ConsultantModel snapshot = (ConsultantModel) httpRequest.takeSessionAttribute(PERSONAL_DETAILS_SNAPSHOT);
+		if (snapshot != null && !snapshot.getId().equals(consultantModel.getId())) {
+			snapshot = null;
+		}
+		consultantService.updatePersonalDetails(consultantModel, snapshot, consultantModel.getId());
 		return "redirect:/consultants";
 	}
 
@@ -259,6 +289,7 @@ public class ConsultantController {
 
 		Optional<EducationModel> education = consultantService.findEducation(consultantId, educationId);
 		if (education.isPresent()) {
+			httpRequest.setSessionAttribute(EDUCATION_SNAPSHOT, education.get());
 			return gson.toJson(education.get());
 		}
 		return pageNotFound();
@@ -268,7 +299,11 @@ public class ConsultantController {
 	public String updateEducation(@ModelAttribute("educationModel") EducationModel educationModel,
 	                              @ModelAttribute("consultantId") String consultantId) {
 
-		consultantService.updateConsultantEducation(educationModel, consultantId);
+		EducationModel snapshot = (EducationModel) httpRequest.takeSessionAttribute(EDUCATION_SNAPSHOT);
+		if (snapshot != null && !snapshot.getId().equals(educationModel.getId())) {
+			snapshot = null;
+		}
+		consultantService.updateConsultantEducation(educationModel, snapshot, consultantId);
 		return "redirect:/consultant/profile";
 	}
 
@@ -290,6 +325,33 @@ public class ConsultantController {
 		return validationResponseHandler.validationSuccess();
 	}
 
+	/**
+	 * Imports the consultants of an uploaded CSV or JSON (".json") file. An
+	 * upload of the same content resumes after the last batch committed.
+	 */
+	@RequestMapping(value = "/import", method = POST, produces = JSON_UTF_8)
+	@ResponseBody
+	public ImportReport importConsultants(@RequestParam("file") final MultipartFile file) throws IOException {
+		if (!securityAccessor.isCurrentUserAdmin()) {
+			throw new AccessDeniedException("Only administrators can import consultants");
+		}
+		ByteSource content = new ByteSource() {
+			@Override
+			public InputStream openStream() throws IOException {
+				return file.getInputStream();
+			}
+		};
+		String checkpointName = "consultant-import-" + content.hash(Hashing.sha1()) + ".checkpoint";
+		ImportCheckpoint checkpoint = ImportCheckpoint.inFile(new File(System.getProperty("java.io.tmpdir"), checkpointName));
+		InputStreamReader reader = new InputStreamReader(content.openStream(), Charsets.UTF_8);
+		try (ConsultantRecordReader records = String.valueOf(file.getOriginalFilename()).toLowerCase().endsWith(".json")
+				? new JsonConsultantRecordReader(reader) : new CsvConsultantRecordReader(reader)) {
+			ImportReport report = consultantImportService.importConsultants(records, checkpoint);
+			checkpoint.clear();
+			return report;
+		}
+	}
+
 	private static String pageNotFound() {
 		return "404";
 	}
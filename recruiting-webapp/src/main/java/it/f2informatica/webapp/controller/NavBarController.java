@@ -63,7 +63,8 @@ public class NavBarController {
 	@RequestMapping(value = {"/consultant", "/consultants"}, method = RequestMethod.GET)
 	public String consultantManagementPage(ModelMap model, Pageable pageable) {
 		Pageable pageRequest = new PageRequest(pageable.getPageNumber(), 5, Sort.Direction.DESC, "registrationDate");
-		model.addAttribute("page", consultantService.paginateConsultants(pageRequest));
+		model.addAttribute("page", consultantService.paginateConsultantSummaries(pageRequest));
+		model.addAttribute("facets", consultantService.countFacets(null));
 		model.addAttribute("searchCriteria", new ConsultantSearchCriteria());
 		model.addAttribute(SessionAttribute.NAVBAR_ITEM_ACTIVE, 2);
 		return "consultant/consultants";
@@ -41,6 +41,9 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
 import static it.f2informatica.webapp.utils.MediaTypeUTF8.JSON_UTF_8;
 import static org.springframework.web.bind.annotation.RequestMethod.GET;
 import static org.springframework.web.bind.annotation.RequestMethod.POST;
@@ -71,11 +74,10 @@ public class UserController {
 	private UpdatePasswordModelValidator updatePasswordModelValidator;
 
 	@RequestMapping(value = "/load-users", method = GET, produces = JSON_UTF_8)
-	public
-	@ResponseBody
-	String loadUsers() {
+	public void loadUsers(HttpServletResponse response) throws IOException {
 		QueryParameters parameters = new HttpRequestQueryParameters(httpRequest.getHttpServletRequest());
-		return userService.getAllUsersPaginated(parameters, securityAccessor.getCurrentUsername());
+		response.setContentType(JSON_UTF_8);
+		userService.writeAllUsersPaginated(parameters, securityAccessor.getCurrentUsername(), response.getWriter());
 	}
 
 	@RequestMapping(value = "/save", method = POST)
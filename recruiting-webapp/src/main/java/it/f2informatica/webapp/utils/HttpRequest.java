@@ -67,6 +67,28 @@ public class HttpRequest {
 		return WebUtils.getCookie(getHttpServletRequest(), cookieName);
 	}
 
+	/**
+	 * Keeps the given value in the session of this request,
+	 * creating the session if needed.
+	 */
+	public void setSessionAttribute(String name, Object value) {
+		WebUtils.setSessionAttribute(getHttpServletRequest(), name, value);
+	}
+
+	/**
+	 * Gets the value kept in the session under the given name,
+	 * removing it from the session.
+	 *
+	 * @return the value, or null if none was kept
+	 */
+	public Object takeSessionAttribute(String name) {
+		Object value = WebUtils.getSessionAttribute(getHttpServletRequest(), name);
+		if (value != null) {
+			WebUtils.setSessionAttribute(getHttpServletRequest(), name, null);
+		}
+		return value;
+	}
+
 	/**
 	 * Gets the current Http Request
 	 */
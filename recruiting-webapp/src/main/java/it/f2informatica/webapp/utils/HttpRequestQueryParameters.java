@@ -72,6 +72,11 @@ public class HttpRequestQueryParameters extends QueryParameters {
 		return request.getParameter("sEcho");
 	}
 
+	@Override
+	public String getContinuationToken() {
+		return request.getParameter("sContinuation");
+	}
+
 	private int getParameterAsPrimitiveInt(String parameter) {
 		String intParameter = request.getParameter(parameter);
 		if (StringUtils.hasText(intParameter)) {
@@ -19,6 +19,8 @@
  */
 
 function datatableServerSide(params) {
+  var continuation = '';
+  var exactTotals = true;
   return $('.tableServerSide').css({'width' : '100%'}).dataTable({
     "bProcessing" : true,
     "bServerSide" : true,
@@ -29,6 +31,16 @@ function datatableServerSide(params) {
     "aoColumns": params.columns,
     "fnRowCallback" : params.rowCallback,
     "fnServerParams" : params.serverParamsCallback,
+    "fnServerData" : function (sSource, aoData, fnCallback, oSettings) {
+      if (params.keyset) {
+        aoData.push({"name" : "sContinuation", "value" : continuation});
+      }
+      oSettings.jqXHR = $.getJSON(sSource, aoData, function (json) {
+        continuation = json.sContinuation || '';
+        exactTotals = json.bExactTotals !== false;
+        fnCallback(json);
+      });
+    },
     "bFilter": false,
     //"sDom": "ifrtp",
     "sDom": "<'row'<'col-xs-6'l><'col-xs-6'f>r>t<'row'<'col-xs-6'i><'col-xs-6'p>>",
@@ -40,6 +52,9 @@ function datatableServerSide(params) {
     "oLanguage": oLanguage,
     "iDisplayLength": 10,
     "bLengthChange": true,
-    "bInfo": true
+    "bInfo": true,
+    "fnInfoCallback": function (oSettings, iStart, iEnd, iMax, iTotal, sPre) {
+      return exactTotals ? sPre : iStart + ' - ' + iEnd;
+    }
   });
 }
\ No newline at end of file
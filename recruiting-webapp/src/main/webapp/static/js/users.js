@@ -48,6 +48,7 @@ $user = {
   paginate : function() {
     var datatableParams = {
       ajaxSource : evaluateContextRoot() + '/user/load-users',
+      keyset : true,
       columns : [
         {"mData" : "username", "sClass" : "username", bAutoWidth : false},
         {"mData" : "role_name", "sClass" : "role_name", bAutoWidth : false},